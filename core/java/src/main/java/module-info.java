@@ -5,6 +5,7 @@ module org.phylospec.core {
     requires com.fasterxml.classmate;
     requires com.github.victools.jsonschema.generator;
     requires java.compiler;
+    requires jdk.jfr;
     requires transitive org.eclipse.lsp4j;
     requires transitive org.eclipse.lsp4j.jsonrpc;
 
@@ -16,6 +17,7 @@ module org.phylospec.core {
     exports org.phylospec.errors;
     exports org.phylospec.lexer;
     exports org.phylospec.parser;
+    exports org.phylospec.profiling;
     exports org.phylospec.templatematching;
     exports org.phylospec.tiling;
     exports org.phylospec.tiling.errors;
@@ -23,7 +25,9 @@ module org.phylospec.core {
     exports org.phylospec.typeresolver;
     exports org.phylospec.types;
     exports org.phylospec.tiling.mcmc;
+    exports org.phylospec.workspace;
 
+    uses org.phylospec.tiling.CostEstimator;
     uses org.phylospec.tiling.TileLibrary;
     uses org.phylospec.typeresolver.properties.GeneratorPropertyProvider;
 
@@ -8,6 +8,9 @@ import java.nio.file.Paths;
 import java.util.InputMismatchException;
 import java.util.List;
 import org.phylospec.ast.Stmt;
+import org.phylospec.ast.transformers.EvaluateLiterals;
+import org.phylospec.ast.transformers.EvaluateScalarFunctions;
+import org.phylospec.ast.transformers.RemoveGroupings;
 import org.phylospec.components.ComponentLibrary;
 import org.phylospec.components.ComponentResolver;
 import org.phylospec.converters.JSONConverter;
@@ -17,7 +20,10 @@ import org.phylospec.converters.RevConverter;
 import org.phylospec.lexer.Lexer;
 import org.phylospec.lexer.Token;
 import org.phylospec.parser.Parser;
+import org.phylospec.profiling.PipelineProfile;
+import org.phylospec.tiling.CostEstimator;
 import org.phylospec.typeresolver.TypeResolver;
+import org.phylospec.workspace.Workspace;
 
 /// This class provides a bunch of tools revolving about .phylospec files.
 ///
@@ -29,6 +35,10 @@ import org.phylospec.typeresolver.TypeResolver;
 /// - `to-json file.phylospec` - converts the given script into JSON and prints it to stdout.
 /// - `json-schema` - prints the JSON schema of the JSON representation of PhyloSpec scripts to
 // stdout.
+/// - `estimate-cost file.phylospec` - prints the memory, log volume and run time the model is
+// predicted to need with every engine on the classpath.
+/// - `profile file.phylospec [report.json]` - times lexing, parsing, the AST transformers and type
+// resolution and prints the phases as JSON to stdout or writes them to the given file.
 public class Tools {
     public static void main(String[] args) throws IOException, JSONConverter.JsonConversionError {
         if (args.length == 0) {
@@ -42,6 +52,8 @@ public class Tools {
             case "to-json" -> convertToJson(args);
             case "to-rev" -> convertToRev(args);
             case "to-lphy" -> convertToLPhy(args);
+            case "estimate-cost" -> estimateCost(args);
+            case "profile" -> profile(args);
             default -> throw new InputMismatchException("Unknown tool " + toolName);
         }
     }
@@ -117,6 +129,74 @@ public class Tools {
         System.out.println(lphyString);
     }
 
+    /** Tiles the model with every engine that provides a cost estimator and prints the estimates. */
+    private static void estimateCost(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new RuntimeException("estimate-cost requires you to pass a path to a  phylospec file.");
+        }
+
+        Path pylospecFile = Paths.get(args[1]);
+        String phylospecSource = readPhyloSpecSource(pylospecFile);
+
+        List<CostEstimator> estimators = CostEstimator.loadEstimators();
+        if (estimators.isEmpty()) {
+            throw new RuntimeException("estimate-cost requires an engine integration on the classpath.");
+        }
+
+        Workspace workspace = new Workspace();
+        workspace.FOLDERS.add(pylospecFile.toAbsolutePath().getParent());
+
+        for (CostEstimator estimator : estimators) {
+            System.out.print(estimator.estimate(phylospecSource, workspace).toReportString());
+        }
+    }
+
+    /** Runs the engine-independent phases of the pipeline and reports the time of each as JSON. */
+    private static void profile(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            throw new RuntimeException("profile requires you to pass a path to a  phylospec file.");
+        }
+
+        Path pylospecFile = Paths.get(args[1]);
+        String phylospecSource = readPhyloSpecSource(pylospecFile);
+        PipelineProfile profile = new PipelineProfile();
+
+        List<Token> tokens;
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.LEX)) {
+            tokens = new Lexer(phylospecSource).scanTokens();
+            phase.count("tokens", tokens.size());
+        }
+
+        List<Stmt> statements;
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.PARSE)) {
+            statements = new Parser(tokens).parse();
+            phase.count("statements", statements.size());
+        }
+
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.TRANSFORM)) {
+            statements = new RemoveGroupings().transform(statements);
+            statements = new EvaluateLiterals().transform(statements);
+            statements = new EvaluateScalarFunctions().transform(statements);
+        }
+
+        ComponentResolver componentResolver;
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.LOAD_COMPONENTS)) {
+            List<ComponentLibrary> componentLibraries = ComponentResolver.loadCoreComponentLibraries();
+            componentResolver = new ComponentResolver(componentLibraries);
+            phase.count("libraries", componentLibraries.size());
+        }
+
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.RESOLVE_TYPES)) {
+            new TypeResolver(componentResolver).visitStatements(statements);
+        }
+
+        if (args.length == 3) {
+            profile.writeJson(Paths.get(args[2]));
+        } else {
+            System.out.println(profile.toJson());
+        }
+    }
+
     private static List<Stmt> parseStmts(String phylospecSource) {
         Lexer lexer = new Lexer(phylospecSource);
         List<Token> tokens = lexer.scanTokens();
@@ -15,7 +15,8 @@ import org.eclipse.lsp4j.services.WorkspaceService;
 
 /**
  * This is an LSP for PhyloSpec. It can be started on a port by calling {@code LSP.startServer(...)}.
- * The LSP supports diagnosing parsing and type errors, hover information, and basic auto-completion.
+ * The LSP supports diagnosing parsing and type errors, hover information, basic auto-completion,
+ * and cost estimates of the engines on the classpath.
  */
 public class Lsp implements org.eclipse.lsp4j.services.LanguageServer {
 
@@ -44,6 +45,7 @@ public class Lsp implements org.eclipse.lsp4j.services.LanguageServer {
         final InitializeResult res = new InitializeResult(new ServerCapabilities());
         res.getCapabilities().setCompletionProvider(new CompletionOptions());
         res.getCapabilities().setHoverProvider(Boolean.TRUE);
+        res.getCapabilities().setCodeLensProvider(new CodeLensOptions(false));
         res.getCapabilities().setTextDocumentSync(TextDocumentSyncKind.Full);
         res.getCapabilities().setDiagnosticProvider(new DiagnosticRegistrationOptions(false, false));
 
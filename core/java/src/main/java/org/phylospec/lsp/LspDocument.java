@@ -16,6 +16,8 @@ import org.phylospec.lexer.Range;
 import org.phylospec.lexer.Token;
 import org.phylospec.lexer.TokenType;
 import org.phylospec.parser.Parser;
+import org.phylospec.tiling.CostEstimate;
+import org.phylospec.tiling.CostEstimator;
 import org.phylospec.typeresolver.ResolvedType;
 import org.phylospec.typeresolver.TypeError;
 import org.phylospec.typeresolver.TypeResolver;
@@ -24,6 +26,7 @@ import org.phylospec.workspace.Workspace;
 /**
  * This class implements the actual LSP responses for a given document.
  * It supports parsing and type error diagnostics, hover information,
+ * cost estimates,
  * and basic auto-completion.
  */
 class LspDocument implements ErrorEventListener {
@@ -40,6 +43,10 @@ class LspDocument implements ErrorEventListener {
     TypeResolver typeResolver;
     private final List<Diagnostic> foundDiagnostics = new ArrayList<>();
 
+    private static final List<CostEstimator> costEstimators = CostEstimator.loadEstimators();
+    private String estimatedContent;
+    private List<CodeLens> costLenses = List.of();
+
     LspDocument(String uri, String content, LanguageClient client) {
         this.uri = uri;
         this.client = client;
@@ -63,7 +70,7 @@ class LspDocument implements ErrorEventListener {
     /**
      * Updates the document content and re-runs the static analysis.
      */
-    void updateContent(String newContent) {
+    synchronized void updateContent(String newContent) {
         foundDiagnostics.clear();
 
         content = newContent;
@@ -156,6 +163,48 @@ class LspDocument implements ErrorEventListener {
         updateContent(contentChanges.getLast().getText());
     }
 
+    /**
+     * Returns one code lens per engine at the top of the document, showing the estimated cost of
+     * running the model. Estimates are only computed for documents without errors and are reused
+     * until the content changes.
+     */
+    public List<CodeLens> getCodeLenses() {
+        String estimatedContent;
+        boolean hasErrors;
+
+        synchronized (this) {
+            estimatedContent = this.content;
+            if (estimatedContent.equals(this.estimatedContent)) return this.costLenses;
+
+            hasErrors = foundDiagnostics.stream()
+                    .anyMatch(diagnostic -> diagnostic.getSeverity() == DiagnosticSeverity.Error);
+        }
+
+        List<CodeLens> lenses = new ArrayList<>();
+
+        if (!hasErrors) {
+            for (CostEstimator estimator : costEstimators) {
+                try {
+                    CostEstimate estimate = estimator.estimate(estimatedContent, workspace);
+                    lenses.add(new CodeLens(
+                            new org.eclipse.lsp4j.Range(new Position(0, 0), new Position(0, 0)),
+                            new Command(estimate.toSummaryLine(), ""),
+                            null));
+                } catch (RuntimeException e) {
+                    // the engine cannot build this model, e.g. because a data file is missing
+                    System.out.println("No " + estimator.getEngineName() + " cost estimate: " + e.getMessage());
+                }
+            }
+        }
+
+        synchronized (this) {
+            this.estimatedContent = estimatedContent;
+            this.costLenses = lenses;
+        }
+
+        return lenses;
+    }
+
     /**
      * Returns the hover information for the given cursor position.
      */
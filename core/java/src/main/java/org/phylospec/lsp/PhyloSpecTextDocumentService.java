@@ -61,6 +61,14 @@ public class PhyloSpecTextDocumentService implements TextDocumentService {
         return CompletableFuture.completedFuture(Either.forRight(new CompletionList(completionItems)));
     }
 
+    @Override
+    public CompletableFuture<List<? extends CodeLens>> codeLens(CodeLensParams params) {
+        LspDocument lspDocument = this.documents.get(params.getTextDocument().getUri());
+
+        // estimating tiles the model, which can take a while for large alignments
+        return CompletableFuture.supplyAsync(lspDocument::getCodeLenses);
+    }
+
     public void setRemoteProxy(LanguageClient remoteProxy) {
         this.client = remoteProxy;
 
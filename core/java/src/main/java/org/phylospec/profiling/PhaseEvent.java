@@ -0,0 +1,23 @@
+package org.phylospec.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JDK Flight Recorder event spanning one phase recorded by a {@link PipelineProfile}. */
+@Name("org.phylospec.PipelinePhase")
+@Label("Pipeline Phase")
+@Category({"PhyloSpec", "Compiler"})
+@Description("One phase of compiling a PhyloSpec model or building it for an engine.")
+@StackTrace(false)
+final class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Counters")
+    @Description("Phase-specific counts, e.g. candidate tiles tried while tiling.")
+    String counters;
+}
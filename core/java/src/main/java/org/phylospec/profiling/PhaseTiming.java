@@ -0,0 +1,29 @@
+package org.phylospec.profiling;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wall-clock time and counters of one phase of compiling or building a model.
+ *
+ * @param phase the phase name, e.g. {@code "lex"} or {@code "tiling"}
+ * @param thread the thread that ran the phase, which tells parallel builds apart
+ * @param nanos the time between starting and closing the phase
+ * @param counters phase-specific counts in the order they were recorded, e.g. the candidate tiles
+ *     tried while tiling
+ */
+public record PhaseTiming(String phase, String thread, long nanos, Map<String, Long> counters) {
+
+    public PhaseTiming {
+        if (phase == null || phase.isBlank()) {
+            throw new IllegalArgumentException("phase must not be blank.");
+        }
+
+        counters = counters == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(counters));
+    }
+
+    public double millis() {
+        return this.nanos / 1e6;
+    }
+}
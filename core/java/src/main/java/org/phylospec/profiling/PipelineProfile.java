@@ -0,0 +1,160 @@
+package org.phylospec.profiling;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Records where the time goes while a model is lexed, parsed, transformed, resolved, tiled and
+ * built for an engine.
+ *
+ * <p>Every phase is timed with {@link #start(String)} and closed once it finishes, typically in a
+ * try-with-resources block. Closed phases are kept as {@link PhaseTiming}s and committed as
+ * {@code org.phylospec.PipelinePhase} JDK Flight Recorder events, so slow models can be diagnosed
+ * from a JSON report or a recording without attaching a profiler. Phases may run on several
+ * threads at once, as when a compiled model is built in parallel.
+ */
+public final class PipelineProfile {
+
+    // phases of the engine-independent part of the pipeline
+    public static final String LEX = "lex";
+    public static final String PARSE = "parse";
+    public static final String TRANSFORM = "transform";
+    public static final String LOAD_COMPONENTS = "load-components";
+    public static final String RESOLVE_VARIABLES = "resolve-variables";
+    public static final String RESOLVE_TYPES = "resolve-types";
+    public static final String RESOLVE_STOCHASTICITY = "resolve-stochasticity";
+    public static final String TILING = "tiling";
+    public static final String APPLY_TILING = "apply-tiling";
+
+    private final List<PhaseTiming> phases = new ArrayList<>();
+
+    /** Starts timing a phase, which ends when the returned phase is closed. */
+    public Phase start(String phase) {
+        if (phase == null || phase.isBlank()) {
+            throw new IllegalArgumentException("phase must not be blank.");
+        }
+
+        return new Phase(phase);
+    }
+
+    /** Returns the closed phases in the order they finished. */
+    public synchronized List<PhaseTiming> phases() {
+        return List.copyOf(this.phases);
+    }
+
+    /** Returns the summed time of every closed phase with the given name. */
+    public synchronized long totalNanos(String phase) {
+        long nanos = 0;
+
+        for (PhaseTiming timing : this.phases) {
+            if (timing.phase().equals(phase)) nanos += timing.nanos();
+        }
+
+        return nanos;
+    }
+
+    /**
+     * Returns the profile as a JSON document listing every phase with its thread, milliseconds and
+     * counters, followed by the summed milliseconds per phase name.
+     */
+    public String toJson() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+
+        ObjectNode root = mapper.createObjectNode();
+        ArrayNode phaseNodes = root.putArray("phases");
+        Map<String, Long> totals = new LinkedHashMap<>();
+
+        for (PhaseTiming timing : phases()) {
+            ObjectNode phaseNode = phaseNodes.addObject();
+            phaseNode.put("phase", timing.phase());
+            phaseNode.put("thread", timing.thread());
+            phaseNode.put("millis", timing.millis());
+
+            ObjectNode counterNodes = phaseNode.putObject("counters");
+            timing.counters().forEach(counterNodes::put);
+
+            totals.merge(timing.phase(), timing.nanos(), Long::sum);
+        }
+
+        ObjectNode totalNodes = root.putObject("totalMillis");
+        totals.forEach((phase, nanos) -> totalNodes.put(phase, nanos / 1e6));
+
+        try {
+            return mapper.writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write the pipeline profile as JSON.", e);
+        }
+    }
+
+    /** Writes {@link #toJson()} to the given file, creating its parent directories. */
+    public void writeJson(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null.");
+        }
+
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+
+        Files.writeString(path, toJson());
+    }
+
+    private synchronized void add(PhaseTiming timing) {
+        this.phases.add(timing);
+    }
+
+    /** A running phase. Closing it more than once has no effect. */
+    public final class Phase implements AutoCloseable {
+
+        private final String phase;
+        private final long startedAt;
+        private final Map<String, Long> counters = new LinkedHashMap<>();
+        private final PhaseEvent event = new PhaseEvent();
+
+        private boolean closed;
+
+        private Phase(String phase) {
+            this.phase = phase;
+            this.event.begin();
+            this.startedAt = System.nanoTime();
+        }
+
+        /** Adds {@code count} to the named counter of this phase. */
+        public Phase count(String counter, long count) {
+            this.counters.merge(counter, count, Long::sum);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (this.closed) return;
+            this.closed = true;
+
+            long nanos = System.nanoTime() - this.startedAt;
+            this.event.end();
+
+            if (this.event.shouldCommit()) {
+                this.event.phase = this.phase;
+                this.event.counters = this.counters.entrySet().stream()
+                        .map(counter -> counter.getKey() + "=" + counter.getValue())
+                        .collect(Collectors.joining(", "));
+                this.event.commit();
+            }
+
+            PipelineProfile.this.add(
+                    new PhaseTiming(this.phase, Thread.currentThread().getName(), nanos, this.counters));
+        }
+    }
+}
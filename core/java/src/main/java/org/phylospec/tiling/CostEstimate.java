@@ -0,0 +1,75 @@
+package org.phylospec.tiling;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Predicted resources of running a tiled model with one engine, computed without running it.
+ *
+ * @param partialLikelihoodBytes memory of the partial likelihood, scaling and transition matrix
+ *     buffers of all tree likelihoods
+ * @param heapBytes suggested maximum heap size of the engine's JVM
+ * @param logBytesPerMillionStates bytes written to log and tree files per million MCMC states
+ * @param secondsPerMillionStates single-core seconds per million MCMC states
+ * @param details engine-specific lines explaining the estimate, e.g. one per partition
+ */
+public record CostEstimate(
+        String engineName,
+        long partialLikelihoodBytes,
+        long heapBytes,
+        long logBytesPerMillionStates,
+        double secondsPerMillionStates,
+        List<String> details) {
+
+    public CostEstimate {
+        if (engineName == null || engineName.isBlank()) {
+            throw new IllegalArgumentException("engineName must not be blank.");
+        }
+
+        details = details == null ? List.of() : List.copyOf(details);
+    }
+
+    /** Returns a one-line summary, as shown above a model in an editor. */
+    public String toSummaryLine() {
+        return String.format(
+                Locale.ROOT,
+                "%s: %s heap, %s partials, %s of logs and %s per million states",
+                this.engineName,
+                formatBytes(this.heapBytes),
+                formatBytes(this.partialLikelihoodBytes),
+                formatBytes(this.logBytesPerMillionStates),
+                formatSeconds(this.secondsPerMillionStates));
+    }
+
+    /** Returns the summary line followed by the details, one per line. */
+    public String toReportString() {
+        StringBuilder report = new StringBuilder(toSummaryLine()).append('\n');
+
+        for (String detail : this.details) {
+            report.append("  ").append(detail).append('\n');
+        }
+
+        return report.toString();
+    }
+
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double value = bytes;
+        int unit = -1;
+
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+
+        return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+    }
+
+    public static String formatSeconds(double seconds) {
+        if (seconds < 120) return String.format(Locale.ROOT, "%.1f s", seconds);
+        if (seconds < 2 * 3600) return String.format(Locale.ROOT, "%.1f min", seconds / 60);
+        return String.format(Locale.ROOT, "%.1f h", seconds / 3600);
+    }
+}
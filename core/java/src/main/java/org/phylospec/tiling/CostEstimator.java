@@ -0,0 +1,34 @@
+package org.phylospec.tiling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import org.phylospec.workspace.Workspace;
+
+/**
+ * Predicts the memory, log volume and run time of a model for one engine, after tiling it but
+ * before running it. Engines register implementations to be discovered through
+ * {@link java.util.ServiceLoader}, which makes their estimates available to the CLI and the LSP.
+ */
+public interface CostEstimator {
+
+    /** Returns the name of the engine the estimates are for. */
+    String getEngineName();
+
+    /**
+     * Tiles the model and estimates the cost of running it. Relative data files are looked up in
+     * the folders of the workspace.
+     *
+     * @throws RuntimeException if the engine cannot build the model
+     */
+    CostEstimate estimate(String source, Workspace workspace);
+
+    /** Returns all estimators that can be discovered through {@link java.util.ServiceLoader}. */
+    static List<CostEstimator> loadEstimators() {
+        List<CostEstimator> estimators = new ArrayList<>();
+        for (CostEstimator estimator : ServiceLoader.load(CostEstimator.class)) {
+            estimators.add(estimator);
+        }
+        return estimators;
+    }
+}
@@ -44,6 +44,13 @@ public class EvaluateTiles<S> implements AstVisitor<Void, Void, Void> {
     // sentinel depth for nodes that tiled successfully (they act as dead-ends in the cascade DAG)
     private static final int DEPTH_SUCCEEDED = Integer.MIN_VALUE;
 
+    // work done by the tiling search, reported by getStatistics()
+    private long visitedNodes;
+    private long tileAttempts;
+    private long matchedTiles;
+    private long recordedFailures;
+    private long combinationsVisited;
+
     public EvaluateTiles(
             List<CandidateTile<S>> candidateTiles,
             List<Tile<?, ?>> operatorTiles,
@@ -125,6 +132,8 @@ public class EvaluateTiles<S> implements AstVisitor<Void, Void, Void> {
         boolean[] foundBestTile = new boolean[] {false};
 
         Utils.visitOrderedCombinations(possibleTiles, tiles -> {
+            this.combinationsVisited++;
+
             // check for consistency across the statement tiles
 
             IdentityHashMap<AstNode, Tile<?, ?>> assignments = new IdentityHashMap<>();
@@ -157,13 +166,36 @@ public class EvaluateTiles<S> implements AstVisitor<Void, Void, Void> {
         return bestTiles;
     }
 
+    /** Returns the work done by {@link #getBestTiling(List)} so far. */
+    public TilingStatistics getStatistics() {
+        return new TilingStatistics(
+                this.visitedNodes,
+                this.tileAttempts,
+                this.matchedTiles,
+                this.recordedFailures,
+                this.combinationsVisited);
+    }
+
+    /** Returns the number of tiles {@link #applyBestTiling(Object)} applies. */
+    public int getBestTileCount() {
+        return this.bestTiles == null ? 0 : this.bestTiles.size();
+    }
+
     /**
      * Computes the best tiling and applies each tile in order,
      * building up a state that represents the fully-applied tiling.
      *
+     * <p>The tiling found by {@link #getBestTiling(List)} can be applied any number of times;
+     * every call builds independent engine objects on the given state.
+     *
      * @return the accumulated state after all tiles have been applied
      */
     public S applyBestTiling(S state) {
+        // tiles memoise their results, so forget the objects built on a previous state
+        for (Tile<?, S> bestTiling : this.bestTiles) {
+            bestTiling.resetApplications();
+        }
+
         for (Tile<?, S> bestTiling : this.bestTiles) {
             bestTiling.apply(state, new IdentityHashMap<>());
         }
@@ -188,11 +220,13 @@ public class EvaluateTiles<S> implements AstVisitor<Void, Void, Void> {
 
         this.evaluatedTiles.putIfAbsent(node, new HashSet<>());
         List<FailedTilingAttempt> failures = new ArrayList<>();
+        this.visitedNodes++;
 
         // we go through all tiles and try to apply them
 
         for (CandidateTile<S> tile : this.candidateTiles) {
             Set<Tile<?, S>> evaluatedTiles;
+            this.tileAttempts++;
             try {
                 evaluatedTiles =
                         tile.tryToTile(node, this.evaluatedTiles, this.variableResolver, this.stochasticityResolver);
@@ -231,8 +265,13 @@ public class EvaluateTiles<S> implements AstVisitor<Void, Void, Void> {
             }
 
             this.evaluatedTiles.get(node).addAll(evaluatedTiles);
+            this.matchedTiles += evaluatedTiles.size();
         }
 
+        this.recordedFailures += failures.stream()
+                .filter(failure -> !(failure instanceof FailedTilingAttempt.Irrelevant))
+                .count();
+
         if (this.evaluatedTiles.get(node).isEmpty()) {
             // none of the tiles fits
             // we store the failures for error recovery later
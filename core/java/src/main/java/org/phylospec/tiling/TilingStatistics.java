@@ -0,0 +1,13 @@
+package org.phylospec.tiling;
+
+/**
+ * Work done by {@link EvaluateTiles#getBestTiling(java.util.List)} to find the best tiling.
+ *
+ * @param visitedNodes AST nodes every candidate tile was asked to match
+ * @param tileAttempts calls to {@link org.phylospec.tiling.tiles.CandidateTile#tryToTile}
+ * @param matchedTiles tiles returned by successful attempts
+ * @param failures failed attempts recorded for error reporting, i.e. all but irrelevant ones
+ * @param combinationsVisited combinations of statement tiles checked for consistency
+ */
+public record TilingStatistics(
+        long visitedNodes, long tileAttempts, long matchedTiles, long failures, long combinationsVisited) {}
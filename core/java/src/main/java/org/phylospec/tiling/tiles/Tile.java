@@ -170,6 +170,25 @@ public abstract class Tile<T, S> {
         }
     }
 
+    /**
+     * Forgets the results of earlier {@link #apply} calls on this tile and all its wired
+     * sub-tiles, so that the next application builds fresh objects on a new state.
+     */
+    public void resetApplications() {
+        this.resetApplications(Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private void resetApplications(Set<Tile<?, ?>> visited) {
+        if (!visited.add(this)) return;
+
+        this.appliedWithIndexedVariables.clear();
+
+        for (TileInput<?, S> input : this.getTileInputs()) {
+            Tile<?, S> inputTile = input.getTile();
+            if (inputTile != null) inputTile.resetApplications(visited);
+        }
+    }
+
     /**
      * Applies the tile. This method should be overridden by custom tiles.
      */
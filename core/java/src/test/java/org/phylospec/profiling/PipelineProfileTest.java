@@ -0,0 +1,71 @@
+package org.phylospec.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Tests for recording and reporting pipeline phases with {@link PipelineProfile}. */
+public class PipelineProfileTest {
+
+    @Test
+    public void recordsClosedPhasesWithTheirCounters() {
+        PipelineProfile profile = new PipelineProfile();
+
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.TILING)) {
+            phase.count("tileAttempts", 3).count("failures", 1).count("tileAttempts", 2);
+        }
+
+        List<PhaseTiming> phases = profile.phases();
+
+        assertEquals(1, phases.size());
+        assertEquals("tiling", phases.getFirst().phase());
+        assertEquals(
+                Map.of("tileAttempts", 5L, "failures", 1L), phases.getFirst().counters());
+        assertEquals(
+                List.of("tileAttempts", "failures"),
+                List.copyOf(phases.getFirst().counters().keySet()));
+        assertTrue(phases.getFirst().nanos() >= 0);
+    }
+
+    @Test
+    public void closesEachPhaseOnce() {
+        PipelineProfile profile = new PipelineProfile();
+
+        PipelineProfile.Phase phase = profile.start(PipelineProfile.LEX);
+        phase.close();
+        phase.close();
+
+        assertEquals(1, profile.phases().size());
+    }
+
+    @Test
+    public void sumsRepeatedPhasesInTheJsonReport() throws Exception {
+        PipelineProfile profile = new PipelineProfile();
+
+        profile.start(PipelineProfile.APPLY_TILING).count("tiles", 4).close();
+        profile.start(PipelineProfile.APPLY_TILING).count("tiles", 4).close();
+        profile.start(PipelineProfile.PARSE).close();
+
+        JsonNode report = new ObjectMapper().readTree(profile.toJson());
+
+        assertEquals(3, report.get("phases").size());
+        assertEquals("apply-tiling", report.get("phases").get(0).get("phase").asText());
+        assertEquals(4, report.get("phases").get(1).get("counters").get("tiles").asLong());
+        assertEquals(
+                profile.totalNanos(PipelineProfile.APPLY_TILING) / 1e6,
+                report.get("totalMillis").get("apply-tiling").asDouble(),
+                1e-9);
+        assertTrue(report.get("totalMillis").has("parse"));
+    }
+
+    @Test
+    public void requiresAPhaseName() {
+        assertThrows(IllegalArgumentException.class, () -> new PipelineProfile().start(" "));
+    }
+}
@@ -0,0 +1,42 @@
+package org.phylospec.tiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the engine-independent formatting of {@link CostEstimate}. */
+public class CostEstimateTest {
+
+    @Test
+    public void formatsBytesInBinaryUnits() {
+        assertEquals("512 B", CostEstimate.formatBytes(512));
+        assertEquals("1.5 KB", CostEstimate.formatBytes(1536));
+        assertEquals("2.0 GB", CostEstimate.formatBytes(2L << 30));
+    }
+
+    @Test
+    public void formatsSecondsInReadableUnits() {
+        assertEquals("42.0 s", CostEstimate.formatSeconds(42));
+        assertEquals("5.0 min", CostEstimate.formatSeconds(300));
+        assertEquals("3.0 h", CostEstimate.formatSeconds(3 * 3600));
+    }
+
+    @Test
+    public void reportsTheSummaryFollowedByDetails() {
+        CostEstimate estimate = new CostEstimate(
+                "Engine", 1L << 20, 1L << 30, 10L << 20, 90, List.of("alignment: 10 taxa", "3 parameters"));
+
+        assertEquals(
+                "Engine: 1.0 GB heap, 1.0 MB partials, 10.0 MB of logs and 90.0 s per million states\n"
+                        + "  alignment: 10 taxa\n"
+                        + "  3 parameters\n",
+                estimate.toReportString());
+    }
+
+    @Test
+    public void requiresAnEngineName() {
+        assertThrows(IllegalArgumentException.class, () -> new CostEstimate(" ", 0, 0, 0, 0, List.of()));
+    }
+}
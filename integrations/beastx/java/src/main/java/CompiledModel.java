@@ -0,0 +1,477 @@
+import dr.inference.mcmc.MCMC;
+import org.phylospec.ast.Expr;
+import org.phylospec.ast.Stmt;
+import org.phylospec.lexer.Range;
+import org.phylospec.parser.Parser;
+import org.phylospec.profiling.PipelineProfile;
+import org.phylospec.tiling.EvaluateTiles;
+import org.phylospec.tiling.errors.TileApplicationError;
+import tiling.BeastXModel;
+import tiling.BeastXState;
+import tiling.DataPrefetch;
+import tiling.cost.BeastXCostEstimate;
+import tiling.cost.BeastXCostEstimator;
+import tiling.marginal.MarginalLikelihoodEstimator;
+import tiling.runner.BeastXRunPipeline;
+import tiling.runner.BeastXRunResult;
+import tiling.runner.RunMode;
+import tiling.runner.RunnerOptions;
+import tiling.simulation.ForwardSimulator;
+import tiling.simulation.SimulationOptions;
+import tiling.simulation.SimulationResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+* A PhyloSpec model that has been parsed, resolved and tiled once.
+*
+* Lexing, parsing, type resolution and the search for the best tiling only
+* depend on the source, so they are done by PhyloSpecRunner.compile(). This
+* object keeps the chosen tiling and applies it to a fresh BeastXState for
+* every build, so states, models and MCMC objects built from it never share
+* BEAST X objects and can be used independently, for example by several
+* chains of the same model.
+*
+* Builds can override constants of the source by name: a constant assignment
+* such as `Real birthRate = 1.0` takes the given value, and a data assignment
+* such as `Alignment data = fromNexus("h1n1.nex")` reads the given file, and
+* a vector constant such as `Simplex frequencies = [0.1, 0.2, 0.3, 0.4]`
+* takes one value per element, separated by commas, semicolons or spaces and
+* optionally enclosed in brackets. The tiling does not change, so an override
+* has to fit the type the constant was tiled as.
+*
+* The data files named in the source start loading while the model is tiled,
+* see DataPrefetch, and the first build takes them.
+* */
+public final class CompiledModel {
+
+    private final String source;
+
+    private final Parser parser;
+
+    private final EvaluateTiles<BeastXState> tiling;
+
+    private final BeastXRunPipeline runPipeline;
+
+    private final Map<String, Expr.Literal> overridableLiterals;
+
+    private final Map<String, List<Expr.Literal>> overridableVectors;
+
+    private final Set<String> dataFileNames;
+
+    private final DataPrefetch dataPrefetch;
+
+    CompiledModel(
+            String source,
+            Parser parser,
+            List<Stmt> statements,
+            EvaluateTiles<BeastXState> tiling,
+            BeastXRunPipeline runPipeline,
+            DataPrefetch dataPrefetch
+    ) {
+        this.source =
+                source;
+
+        this.parser =
+                parser;
+
+        this.tiling =
+                tiling;
+
+        this.runPipeline =
+                runPipeline;
+
+        this.overridableLiterals =
+                findOverridableLiterals(statements);
+
+        this.overridableVectors =
+                findOverridableVectors(statements);
+
+        this.dataFileNames =
+                findDataFileNames(statements);
+
+        this.dataPrefetch =
+                dataPrefetch;
+    }
+
+    /**
+     * Returns the time and counters of compiling this model and of every
+     * build and run since, shared with the runner that compiled it.
+     */
+    public PipelineProfile getProfile() {
+        return this.runPipeline
+                .getProfile();
+    }
+
+    /**
+     * Returns the names of the constants and data files builds can override.
+     */
+    public Set<String> overridableNames() {
+        Set<String> names =
+                new LinkedHashSet<>(this.overridableLiterals.keySet());
+
+        names.addAll(this.overridableVectors.keySet());
+
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Returns overrides that read the data files the source names by relative
+     * paths from {@code directory} rather than the working directory.
+     */
+    public Map<String, String> dataFilesIn(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null.");
+        }
+
+        Map<String, String> overrides =
+                new LinkedHashMap<>();
+
+        for (String name : this.dataFileNames) {
+            Path file =
+                    Path.of((String) this.overridableLiterals.get(name).value);
+
+            if (!file.isAbsolute()) {
+                overrides.put(name, directory.resolve(file).toString());
+            }
+        }
+
+        return overrides;
+    }
+
+    /**
+     * Applies the compiled tiling to a new BEAST X state.
+     */
+    public BeastXState buildState(String runName) {
+        return buildState(runName, Map.of());
+    }
+
+    /**
+     * Applies the compiled tiling to a new BEAST X state, replacing the named
+     * constants and data files by the given values.
+     *
+     * Tiles remember the objects they built during one application, so
+     * applications are serialized; everything after tiling runs unsynchronized.
+     */
+    public BeastXState buildState(String runName, Map<String, String> overrides) {
+        if (overrides == null) {
+            throw new IllegalArgumentException("overrides must not be null.");
+        }
+
+        BeastXState beastState =
+                new BeastXState(runName);
+
+        for (Map.Entry<String, String> override : overrides.entrySet()) {
+            List<Expr.Literal> elements =
+                    this.overridableVectors.get(override.getKey());
+
+            if (elements != null) {
+                putVectorOverride(beastState, override.getKey(), elements, override.getValue());
+                continue;
+            }
+
+            Expr.Literal literal =
+                    this.overridableLiterals.get(override.getKey());
+
+            if (literal == null) {
+                throw new IllegalArgumentException(
+                        "The model has no constant or data file named '" + override.getKey() + "'."
+                );
+            }
+
+            beastState.literalOverrides.put(literal, override.getValue());
+        }
+
+        synchronized (this) {
+            beastState.dataPrefetch = this.dataPrefetch;
+
+            try (PipelineProfile.Phase phase = getProfile().start(PipelineProfile.APPLY_TILING)) {
+                this.tiling
+                        .applyBestTiling(beastState);
+
+                phase.count("tiles", this.tiling.getBestTileCount());
+            } catch (TileApplicationError error) {
+                Range range =
+                        this.parser.getRangeForAstNode(error.getAstNode());
+
+                throw new PhyloSpecRunnerException(
+                        error.toError(range).toStdOutString(this.source)
+                );
+            } finally {
+                // only the first build takes prefetched data, later ones read their files themselves
+                this.dataPrefetch.clear();
+            }
+        }
+
+        // overrides of literals that tiles read while matching, not while applying, would be lost silently
+        Set<Expr.Literal> unused =
+                beastState.literalOverrides.unused();
+
+        for (String name : overrides.keySet()) {
+            List<Expr.Literal> literals =
+                    this.overridableVectors.getOrDefault(name, List.of(this.overridableLiterals.get(name)));
+
+            if (literals.stream().anyMatch(unused::contains)) {
+                throw new IllegalArgumentException(
+                        "'" + name + "' is fixed when the model is compiled and cannot be overridden."
+                );
+            }
+        }
+
+        return beastState;
+    }
+
+    /**
+     * Builds a new BEAST X model from the compiled source.
+     */
+    public BeastXModel buildModel(String runName) {
+        return this.runPipeline
+                .buildModel(buildState(runName), false);
+    }
+
+    /**
+     * Builds a new BEAST X model with materialized PhyloCTMC likelihoods.
+     */
+    public BeastXModel buildMaterializedModel(String runName) {
+        return this.runPipeline
+                .buildModel(buildState(runName), true);
+    }
+
+    /**
+     * Builds a new MCMC object using the requested chain length.
+     */
+    public MCMC buildMCMC(String runName, long chainLength) {
+        return this.runPipeline
+                .buildMCMC(buildModel(runName), chainLength);
+    }
+
+    /**
+     * Runs a new instance of the compiled model according to the requested run mode.
+     */
+    public BeastXRunResult run(RunnerOptions options) {
+        return run(options, Map.of());
+    }
+
+    /**
+     * Runs a new instance of the compiled model with the given constants and
+     * data files replaced. Marginal likelihood estimates run one instance per
+     * power-posterior chain.
+     */
+    public BeastXRunResult run(
+            RunnerOptions options,
+            Map<String, String> overrides
+    ) {
+        if (options == null) {
+            throw new IllegalArgumentException("options must not be null.");
+        }
+
+        BeastXRunResult result =
+                options.mode() == RunMode.ESTIMATE_MARGINAL_LIKELIHOOD
+                        ? new MarginalLikelihoodEstimator(runName -> buildState(runName, overrides), this.runPipeline)
+                                .estimate(options)
+                        : this.runPipeline
+                                .run(buildState(options.runName(), overrides), options);
+
+        if (options.profileReportPath() != null) {
+            try {
+                getProfile().writeJson(options.profileReportPath());
+            } catch (IOException e) {
+                throw new IllegalStateException(
+                        "Could not write the pipeline profile '" + options.profileReportPath() + "'.",
+                        e
+                );
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Predicts the memory, log volume and run time of a run with the given
+     * options and overrides from a new instance, without running it.
+     */
+    public BeastXCostEstimate estimateCost(
+            RunnerOptions options,
+            Map<String, String> overrides
+    ) {
+        if (options == null) {
+            throw new IllegalArgumentException("options must not be null.");
+        }
+
+        BeastXState beastState =
+                buildState(options.runName(), overrides);
+
+        options.applyTo(beastState);
+
+        return new BeastXCostEstimator()
+                .estimate(beastState);
+    }
+
+    /**
+     * Predicts the cost of a run that writes the default logs when the source
+     * configures none.
+     */
+    public BeastXCostEstimate estimateCost() {
+        return estimateCost(
+                RunnerOptions.builder("estimate").outputFilePrefix("estimate").build(),
+                Map.of()
+        );
+    }
+
+    /**
+     * Draws independent joint samples from the model instead of running a
+     * chain, with every simulation worker using its own instance.
+     *
+     * This is a preview limited to scalar models: every parameter needs a
+     * univariate prior and every observation a univariate distribution.
+     * Models with trees, calibrations, multivariate priors or sequence
+     * likelihoods are rejected with an IllegalArgumentException before any
+     * sample is drawn, as simulating them would need tree and sequence
+     * simulators.
+     */
+    public SimulationResult simulate(SimulationOptions options) throws IOException {
+        return new ForwardSimulator(() -> buildState("simulation"))
+                .simulate(options);
+    }
+
+    /**
+     * Maps each top-level assignment whose value is a literal, or a call
+     * reading a file named by a string literal, to that literal.
+     */
+    private static Map<String, Expr.Literal> findOverridableLiterals(List<Stmt> statements) {
+        Map<String, Expr.Literal> literals =
+                new LinkedHashMap<>();
+
+        for (Stmt statement : statements) {
+            while (statement instanceof Stmt.Decorated decorated) {
+                statement = decorated.statement;
+            }
+
+            if (!(statement instanceof Stmt.Assignment assignment)) {
+                continue;
+            }
+
+            if (assignment.expression instanceof Expr.Literal literal) {
+                literals.put(assignment.name, literal);
+            } else if (assignment.expression instanceof Expr.Call call) {
+                Expr.Literal file =
+                        findFileArgument(call);
+
+                if (file != null) {
+                    literals.put(assignment.name, file);
+                }
+            }
+        }
+
+        return literals;
+    }
+
+    private static void putVectorOverride(
+            BeastXState beastState,
+            String name,
+            List<Expr.Literal> elements,
+            String value
+    ) {
+        String trimmed =
+                value.strip();
+
+        if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1).strip();
+        }
+
+        String[] values =
+                trimmed.isEmpty() ? new String[0] : trimmed.split("[\\s,;]+");
+
+        if (values.length != elements.size()) {
+            throw new IllegalArgumentException(
+                    "'" + name + "' has " + elements.size() + " elements but its override '" + value
+                            + "' has " + values.length + "."
+            );
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            beastState.literalOverrides.put(elements.get(i), values[i]);
+        }
+    }
+
+    /**
+     * Returns the elements of the top-level assignments of vectors of
+     * number literals.
+     */
+    private static Map<String, List<Expr.Literal>> findOverridableVectors(List<Stmt> statements) {
+        Map<String, List<Expr.Literal>> vectors =
+                new LinkedHashMap<>();
+
+        for (Stmt statement : statements) {
+            while (statement instanceof Stmt.Decorated decorated) {
+                statement = decorated.statement;
+            }
+
+            if (
+                    statement instanceof Stmt.Assignment assignment
+                            && assignment.expression instanceof Expr.Array array
+                            && !array.elements.isEmpty()
+                            && array.elements.stream().allMatch(
+                                    element -> element instanceof Expr.Literal literal && literal.value instanceof Number
+                            )
+            ) {
+                vectors.put(
+                        assignment.name,
+                        array.elements.stream().map(element -> (Expr.Literal) element).toList()
+                );
+            }
+        }
+
+        return vectors;
+    }
+
+    /**
+     * Returns the names of the top-level assignments reading a file named by
+     * a string literal.
+     */
+    private static Set<String> findDataFileNames(List<Stmt> statements) {
+        Set<String> names =
+                new LinkedHashSet<>();
+
+        for (Stmt statement : statements) {
+            while (statement instanceof Stmt.Decorated decorated) {
+                statement = decorated.statement;
+            }
+
+            if (
+                    statement instanceof Stmt.Assignment assignment
+                            && assignment.expression instanceof Expr.Call call
+                            && findFileArgument(call) != null
+            ) {
+                names.add(assignment.name);
+            }
+        }
+
+        return names;
+    }
+
+    private static Expr.Literal findFileArgument(Expr.Call call) {
+        for (Expr.Argument argument : call.arguments) {
+            boolean fileArgument =
+                    "file".equals(argument.name)
+                            || (argument.name == null && call.arguments.length == 1);
+
+            if (
+                    fileArgument
+                            && argument.expression instanceof Expr.Literal literal
+                            && literal.value instanceof String
+            ) {
+                return literal;
+            }
+        }
+
+        return null;
+    }
+}
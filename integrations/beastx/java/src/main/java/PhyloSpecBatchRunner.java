@@ -0,0 +1,309 @@
+import tiling.BeastXState;
+import tiling.runner.BatchInstance;
+import tiling.runner.BatchInstanceResult;
+import tiling.runner.BatchReport;
+import tiling.runner.BatchTable;
+import tiling.runner.BeastXRunPipeline;
+import tiling.runner.BeastXRunResult;
+import tiling.runner.RunMode;
+import tiling.runner.RunnerOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+* Runs one PhyloSpec model many times in one JVM, for example against many
+* alignments or over a grid of fixed hyperparameters.
+*
+* The model is compiled once. Every instance of the batch applies the
+* compiled tiling with its own overrides (see BatchTable and CompiledModel)
+* and runs on one of a fixed number of worker threads. Each instance writes
+* into its own directory below the batch output directory: default logs use
+* the instance name as prefix, and logger file names set in the model are
+* moved into that directory. Screen loggers are turned off, and the
+* consolidated BatchReport is written to the batch output directory once
+* all instances have finished. Batches that checkpoint or resume their chains
+* run one instance at a time, see ChainCheckpoint.
+*
+* BEAST X draws random numbers from one generator per JVM, so instances
+* that run concurrently interleave their draws. A random seed in the model
+* therefore gives every instance its own seed, the model's seed plus the
+* instance's index in the table, recorded in the BatchReport, and seeded
+* instances run one at a time, each reseeding the generator when its chain is
+* built. Unseeded instances share the workers.
+* */
+public final class PhyloSpecBatchRunner {
+
+    private final CompiledModel model;
+
+    private final int workerCount;
+
+    private final BeastXRunPipeline runPipeline;
+
+    // seeded instances hold the generator to themselves, unseeded ones share it
+    private final ReadWriteLock randomNumberGenerator =
+            new ReentrantReadWriteLock();
+
+    public PhyloSpecBatchRunner(
+            CompiledModel model,
+            int workerCount
+    ) {
+        if (model == null) {
+            throw new IllegalArgumentException("model must not be null.");
+        }
+
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive.");
+        }
+
+        this.model =
+                model;
+
+        this.workerCount =
+                workerCount;
+
+        this.runPipeline =
+                new BeastXRunPipeline();
+    }
+
+    /**
+     * Compiles a PhyloSpec source file for a batch run.
+     */
+    public static PhyloSpecBatchRunner fromFile(
+            Path sourcePath,
+            int workerCount
+    ) throws IOException {
+        return new PhyloSpecBatchRunner(
+                PhyloSpecRunner.fromFile(sourcePath).compile(),
+                workerCount
+        );
+    }
+
+    /**
+     * Runs the instances listed in a batch table file.
+     */
+    public BatchReport run(
+            Path tablePath,
+            RunnerOptions options,
+            Path outputDirectory
+    ) throws IOException {
+        return run(BatchTable.read(tablePath), options, outputDirectory);
+    }
+
+    /**
+     * Runs every instance with the given options, naming each run after its
+     * instance, and writes the consolidated report to the output directory.
+     *
+     * A failing instance is recorded in the report and does not stop the
+     * others.
+     */
+    public BatchReport run(
+            List<BatchInstance> instances,
+            RunnerOptions options,
+            Path outputDirectory
+    ) throws IOException {
+        if (instances == null) {
+            throw new IllegalArgumentException("instances must not be null.");
+        }
+
+        if (options == null) {
+            throw new IllegalArgumentException("options must not be null.");
+        }
+
+        if (outputDirectory == null) {
+            throw new IllegalArgumentException("outputDirectory must not be null.");
+        }
+
+        // reject unknown columns before any instance starts
+        for (BatchInstance instance : instances) {
+            for (String name : instance.overrides().keySet()) {
+                if (!this.model.overridableNames().contains(name)) {
+                    throw new IllegalArgumentException(
+                            "Batch instance '" + instance.name() + "' overrides '" + name
+                                    + "', which is not a constant or data file of the model."
+                    );
+                }
+            }
+        }
+
+        Files.createDirectories(outputDirectory);
+
+        AtomicInteger workerIndex =
+                new AtomicInteger();
+
+        List<BatchInstanceResult> results =
+                new ArrayList<>();
+
+        // a checkpoint saves and restores the shared random number generator, which only a lone chain owns
+        int workerCount =
+                options.checkpointEvery() != null || options.mode() == RunMode.RESUME_MCMC ? 1 : this.workerCount;
+
+        try (ExecutorService workers = Executors.newFixedThreadPool(
+                workerCount,
+                task -> Thread.ofPlatform()
+                        .name("batch-worker-" + workerIndex.incrementAndGet())
+                        .unstarted(task)
+        )) {
+            List<Future<BatchInstanceResult>> futures =
+                    new ArrayList<>();
+
+            for (int i = 0; i < instances.size(); i++) {
+                BatchInstance instance =
+                        instances.get(i);
+
+                int index = i;
+
+                futures.add(workers.submit(() -> runInstance(instance, index, options, outputDirectory)));
+            }
+
+            for (Future<BatchInstanceResult> future : futures) {
+                results.add(await(future));
+            }
+        }
+
+        BatchReport report =
+                new BatchReport(results);
+
+        report.writeTo(outputDirectory);
+
+        return report;
+    }
+
+    private BatchInstanceResult runInstance(
+            BatchInstance instance,
+            int index,
+            RunnerOptions options,
+            Path outputDirectory
+    ) {
+        long start =
+                System.nanoTime();
+
+        Path instanceDirectory =
+                outputDirectory.resolve(instance.name());
+
+        Long randomSeed = null;
+
+        try {
+            Files.createDirectories(instanceDirectory);
+
+            RunnerOptions instanceOptions =
+                    instanceOptions(instance, options, instanceDirectory);
+
+            BeastXState beastState =
+                    this.model.buildState(instance.name(), instance.overrides());
+
+            if (beastState.randomSeed != null) {
+                randomSeed = beastState.randomSeed + index;
+                beastState.randomSeed = randomSeed;
+            }
+
+            isolate(beastState, instanceDirectory);
+
+            BeastXRunResult run =
+                    run(beastState, instanceOptions);
+
+            return new BatchInstanceResult(
+                    instance,
+                    instanceDirectory,
+                    randomSeed,
+                    run,
+                    null,
+                    Duration.ofNanos(System.nanoTime() - start)
+            );
+        } catch (IOException | RuntimeException e) {
+            // a failing instance, for example one with an unreadable data file, must not stop the others
+            return new BatchInstanceResult(
+                    instance,
+                    instanceDirectory,
+                    randomSeed,
+                    null,
+                    e,
+                    Duration.ofNanos(System.nanoTime() - start)
+            );
+        }
+    }
+
+    private static RunnerOptions instanceOptions(
+            BatchInstance instance,
+            RunnerOptions options,
+            Path instanceDirectory
+    ) {
+        RunnerOptions.Builder builder =
+                options.toBuilder(instance.name())
+                        .outputDirectory(instanceDirectory)
+                        .outputFilePrefix(
+                                options.outputFilePrefix() != null
+                                        ? options.outputFilePrefix()
+                                        : instance.name()
+                        );
+
+        if (options.checkpointPath() != null) {
+            builder.checkpointPath(instanceDirectory.resolve(options.checkpointPath().getFileName()));
+        }
+
+        return builder.build();
+    }
+
+    // Builds and runs a seeded chain alone, since MCMCBuilder seeds the shared generator when building it.
+    private BeastXRunResult run(
+            BeastXState beastState,
+            RunnerOptions options
+    ) {
+        Lock lock =
+                beastState.randomSeed != null
+                        ? this.randomNumberGenerator.writeLock()
+                        : this.randomNumberGenerator.readLock();
+
+        lock.lock();
+
+        try {
+            return this.runPipeline
+                    .run(beastState, options);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Moves logger files named in the model into the instance directory.
+    private static void isolate(
+            BeastXState beastState,
+            Path instanceDirectory
+    ) {
+        beastState.screenLogging = false;
+
+        beastState.fileLoggerSpecs.replaceAll(spec -> new BeastXState.FileLoggerSpec(
+                spec.logEvery(),
+                instanceDirectory.resolve(Path.of(spec.fileName()).getFileName()).toString(),
+                spec.parameterNames()
+        ));
+
+        beastState.treeLoggerSpecs.replaceAll(spec -> new BeastXState.TreeLoggerSpec(
+                spec.logEvery(),
+                instanceDirectory.resolve(Path.of(spec.fileName()).getFileName()).toString(),
+                spec.treeNames()
+        ));
+    }
+
+    private static BatchInstanceResult await(Future<BatchInstanceResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch instances.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not run batch instance.", e.getCause());
+        }
+    }
+}
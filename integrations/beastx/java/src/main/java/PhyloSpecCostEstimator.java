@@ -0,0 +1,55 @@
+import org.phylospec.tiling.CostEstimate;
+import org.phylospec.tiling.CostEstimator;
+import org.phylospec.workspace.Workspace;
+import tiling.cost.BeastXCostEstimate;
+import tiling.runner.RunnerOptions;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/*
+* Makes BEAST X cost estimates available to the PhyloSpec CLI and LSP, which
+* discover it through java.util.ServiceLoader.
+*
+* The model is compiled and tiled like a run, and relative data files are read
+* from the first workspace folder containing all of them.
+* */
+public class PhyloSpecCostEstimator implements CostEstimator {
+
+    @Override
+    public String getEngineName() {
+        return BeastXCostEstimate.ENGINE_NAME;
+    }
+
+    @Override
+    public CostEstimate estimate(String source, Workspace workspace) {
+        if (source == null) {
+            throw new IllegalArgumentException("source must not be null.");
+        }
+
+        CompiledModel compiledModel =
+                new PhyloSpecRunner(source).compile();
+
+        Map<String, String> overrides =
+                Map.of();
+
+        if (workspace != null) {
+            for (Path folder : workspace.FOLDERS) {
+                Map<String, String> dataFiles =
+                        compiledModel.dataFilesIn(folder);
+
+                if (dataFiles.values().stream().allMatch(file -> Files.exists(Path.of(file)))) {
+                    overrides = dataFiles;
+                    break;
+                }
+            }
+        }
+
+        return compiledModel.estimateCost(
+                        RunnerOptions.builder("estimate").outputFilePrefix("estimate").build(),
+                        overrides
+                )
+                .toCostEstimate();
+    }
+}
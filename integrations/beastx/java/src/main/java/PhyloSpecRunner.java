@@ -11,7 +11,9 @@ import org.phylospec.lexer.Lexer;
 import org.phylospec.lexer.Range;
 import org.phylospec.lexer.Token;
 import org.phylospec.parser.Parser;
+import org.phylospec.profiling.PipelineProfile;
 import org.phylospec.tiling.EvaluateTiles;
+import org.phylospec.tiling.TilingStatistics;
 import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.typeresolver.StochasticityResolver;
 import org.phylospec.typeresolver.TypeError;
@@ -21,6 +23,8 @@ import org.xml.sax.SAXException;
 import tiles.BeastXTileLibraries;
 import tiling.BeastXModel;
 import tiling.BeastXState;
+import tiling.DataPrefetch;
+import tiling.cost.BeastXCostEstimate;
 import tiling.runner.RunMode;
 import tiling.runner.BeastXRunResult;
 import tiling.runner.RunnerOptions;
@@ -28,6 +32,8 @@ import tiling.runner.XmlRunResult;
 import tiling.runner.XmlRunnerOptions;
 import tiling.runner.FileRunPaths;
 import tiling.runner.BeastXRunPipeline;
+import tiling.simulation.SimulationOptions;
+import tiling.simulation.SimulationResult;
 
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
@@ -44,6 +50,13 @@ import java.util.List;
 * This class coordinates the full pipeline:
 * PhyloSpec source -> lexer/parser -> AST transforms -> type resolution
 * BEAST X tiling -> BeastXModel -> MCMC or XML execution.
+*
+* Everything up to and including the tiling search runs once per runner, see
+* compile(); each build only applies the cached tiling to a new BeastXState.
+*
+* Every step is timed as a phase of the runner's PipelineProfile, see
+* getProfile(). Data files start loading on virtual threads as soon as their
+* paths are known, see DataPrefetch.
 * */
 public class PhyloSpecRunner implements ErrorEventListener {
 
@@ -51,6 +64,8 @@ public class PhyloSpecRunner implements ErrorEventListener {
 
     private final BeastXRunPipeline runPipeline;
 
+    private CompiledModel compiledModel;
+
     /**
      * Creates a runner for the given PhyloSpec source string.
      */
@@ -116,6 +131,16 @@ public class PhyloSpecRunner implements ErrorEventListener {
                 );
     }
 
+    /**
+     * Returns the time and counters of every phase this runner and the
+     * models compiled by it have run so far, which are also recorded as JDK
+     * Flight Recorder events.
+     */
+    public PipelineProfile getProfile() {
+        return this.runPipeline
+                .getProfile();
+    }
+
     /* --- Public methods executing different parts of the pipeline. --- */
 
     /**
@@ -123,25 +148,51 @@ public class PhyloSpecRunner implements ErrorEventListener {
      */
     public BeastXRunResult run(RunnerOptions options)
             throws IOException, ParserConfigurationException, SAXException {
-        ParsedPhyloSpec parsed =
-                parseAndResolve();
+        return compile()
+                .run(options);
+    }
 
-        BeastXState beastState =
-                tile(parsed, options.runName());
+    /**
+     * Parses, resolves, and tiles the PhyloSpec source once.
+     *
+     * The result is cached, so every build method of this runner reuses it and
+     * only pays for applying the tiling to a new BEAST X state.
+     */
+    public synchronized CompiledModel compile() {
+        if (this.compiledModel == null) {
+            ParsedPhyloSpec parsed =
+                    parseAndResolve();
+
+            EvaluateTiles<BeastXState> tiling;
+
+            try {
+                tiling = findBestTiling(parsed);
+            } catch (RuntimeException e) {
+                parsed.dataPrefetch.clear();
+                throw e;
+            }
+
+            this.compiledModel =
+                    new CompiledModel(
+                            this.source,
+                            parsed.parser,
+                            parsed.statements,
+                            tiling,
+                            this.runPipeline,
+                            parsed.dataPrefetch
+                    );
+        }
 
-        return this.runPipeline
-                .run(beastState, options);
+        return this.compiledModel;
     }
 
     /**
-     * Parses, resolves, and tiles the PhyloSpec source into a BEAST X state.
+     * Tiles the PhyloSpec source into a new BEAST X state.
      */
     public BeastXState buildState(String runName)
             throws IOException, ParserConfigurationException, SAXException {
-        ParsedPhyloSpec parsed =
-                parseAndResolve();
-
-        return tile(parsed, runName);
+        return compile()
+                .buildState(runName);
     }
 
     /**
@@ -193,6 +244,26 @@ public class PhyloSpecRunner implements ErrorEventListener {
         );
     }
 
+    /**
+     * Draws independent prior or posterior predictive samples from the model
+     * instead of running a chain. This is a preview limited to scalar models,
+     * see {@link CompiledModel#simulate}.
+     */
+    public SimulationResult simulate(SimulationOptions options)
+            throws IOException {
+        return compile()
+                .simulate(options);
+    }
+
+    /**
+     * Predicts the memory, log volume and run time of the model without
+     * running it.
+     */
+    public BeastXCostEstimate estimateCost() {
+        return compile()
+                .estimateCost();
+    }
+
     /**
      * Builds and executes an in-memory BEAST X MCMC run.
      */
@@ -319,8 +390,14 @@ public class PhyloSpecRunner implements ErrorEventListener {
      * resolution, type checking, and stochasticity analysis.
      */
     private ParsedPhyloSpec parseAndResolve() {
-        ComponentResolver componentResolver =
-                loadComponentResolver();
+        PipelineProfile profile =
+                getProfile();
+
+        ComponentResolver componentResolver;
+
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.LOAD_COMPONENTS)) {
+            componentResolver = loadComponentResolver();
+        }
 
         // Tokenize the PhyloSpec source.
         Lexer lexer =
@@ -328,8 +405,12 @@ public class PhyloSpecRunner implements ErrorEventListener {
 
         lexer.registerEventListener(this);
 
-        List<Token> tokens =
-                lexer.scanTokens();
+        List<Token> tokens;
+
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.LEX)) {
+            tokens = lexer.scanTokens();
+            phase.count("tokens", tokens.size());
+        }
 
         // Parse tokens into PhyloSpec AST statements.
         Parser parser =
@@ -337,27 +418,57 @@ public class PhyloSpecRunner implements ErrorEventListener {
 
         parser.registerEventListener(this);
 
-        List<Stmt> statements =
-                parser.parse();
+        List<Stmt> statements;
+
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.PARSE)) {
+            statements = parser.parse();
+            phase.count("statements", statements.size());
+        }
 
         // Simplify the AST before type checking and tiling.
-        statements =
-                new RemoveGroupings().transform(statements);
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.TRANSFORM)) {
+            statements =
+                    new RemoveGroupings().transform(statements);
+
+            statements =
+                    new EvaluateLiterals().transform(statements);
 
-        statements =
-                new EvaluateLiterals().transform(statements);
+            statements =
+                    new EvaluateScalarFunctions().transform(statements);
+        }
+
+        // Start loading the data files, which overlaps with resolving and tiling.
+        DataPrefetch dataPrefetch =
+                DataPrefetch.start(statements, profile);
+
+        try {
+            return resolve(parser, statements, componentResolver, dataPrefetch);
+        } catch (RuntimeException e) {
+            dataPrefetch.clear();
+            throw e;
+        }
+    }
 
-        statements =
-                new EvaluateScalarFunctions().transform(statements);
+    private ParsedPhyloSpec resolve(
+            Parser parser,
+            List<Stmt> statements,
+            ComponentResolver componentResolver,
+            DataPrefetch dataPrefetch
+    ) {
+        PipelineProfile profile =
+                getProfile();
 
         // Resolve variable references and validate component types.
-        VariableResolver variableResolver =
-                new VariableResolver(statements);
+        VariableResolver variableResolver;
+
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.RESOLVE_VARIABLES)) {
+            variableResolver = new VariableResolver(statements);
+        }
 
         TypeResolver typeResolver =
                 new TypeResolver(componentResolver);
 
-        try {
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.RESOLVE_TYPES)) {
             typeResolver.visitStatements(statements);
         } catch (TypeError error) {
             Range range =
@@ -371,42 +482,57 @@ public class PhyloSpecRunner implements ErrorEventListener {
         StochasticityResolver stochasticityResolver =
                 new StochasticityResolver();
 
-        stochasticityResolver.visitStatements(statements);
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.RESOLVE_STOCHASTICITY)) {
+            stochasticityResolver.visitStatements(statements);
+        }
 
         return new ParsedPhyloSpec(
                 parser,
                 statements,
                 variableResolver,
-                stochasticityResolver
+                stochasticityResolver,
+                dataPrefetch
         );
     }
 
     /**
-     * Applies the BEAST X tile library to the resolved PhyloSpec AST.
+     * Finds the best tiling of the resolved PhyloSpec AST with the BEAST X tile library.
      *
-     * The resulting BeastXState is the backend-specific intermediate state used
-     * later to build a BEAST X model, MCMC object, or XML file.
+     * Applying the returned tiling to a BeastXState gives the backend-specific
+     * intermediate state used later to build a BEAST X model, MCMC object, or XML file.
      */
-    private BeastXState tile(
-            ParsedPhyloSpec parsed,
-            String runName
-    ) {
-        // Load all BEAST X backend tiles and prepare the tiling evaluator.
-        EvaluateTiles<BeastXState> applyTiles =
-                new EvaluateTiles<>(
-                        BeastXTileLibraries.loadAll(),
-                        new ArrayList<>(),
-                        parsed.variableResolver,
-                        parsed.stochasticityResolver
-                );
+    private EvaluateTiles<BeastXState> findBestTiling(ParsedPhyloSpec parsed) {
+        PipelineProfile profile =
+                getProfile();
 
-        BeastXState beastState =
-                new BeastXState(runName);
+        // Load all BEAST X backend tiles and prepare the tiling evaluator.
+        EvaluateTiles<BeastXState> applyTiles;
+
+        try (PipelineProfile.Phase phase = profile.start(BeastXRunPipeline.LOAD_TILES)) {
+            applyTiles =
+                    new EvaluateTiles<>(
+                            BeastXTileLibraries.loadAll(),
+                            new ArrayList<>(),
+                            parsed.variableResolver,
+                            parsed.stochasticityResolver
+                    );
+        }
 
-        try {
-            // Find and apply the best tile sequence for the parsed PhyloSpec statements.
-            applyTiles.getBestTiling(parsed.statements);
-            return applyTiles.applyBestTiling(beastState);
+        try (PipelineProfile.Phase phase = profile.start(PipelineProfile.TILING)) {
+            try {
+                // Find the best tile sequence for the parsed PhyloSpec statements.
+                applyTiles.getBestTiling(parsed.statements);
+                return applyTiles;
+            } finally {
+                TilingStatistics statistics =
+                        applyTiles.getStatistics();
+
+                phase.count("visitedNodes", statistics.visitedNodes())
+                        .count("tileAttempts", statistics.tileAttempts())
+                        .count("matchedTiles", statistics.matchedTiles())
+                        .count("failures", statistics.failures())
+                        .count("combinationsVisited", statistics.combinationsVisited());
+            }
         } catch (TileApplicationError error) {
             Range range =
                     parsed.parser.getRangeForAstNode(error.getAstNode());
@@ -447,12 +573,14 @@ public class PhyloSpecRunner implements ErrorEventListener {
         private final List<Stmt> statements;
         private final VariableResolver variableResolver;
         private final StochasticityResolver stochasticityResolver;
+        private final DataPrefetch dataPrefetch;
 
         private ParsedPhyloSpec(
                 Parser parser,
                 List<Stmt> statements,
                 VariableResolver variableResolver,
-                StochasticityResolver stochasticityResolver
+                StochasticityResolver stochasticityResolver,
+                DataPrefetch dataPrefetch
         ) {
             this.parser =
                     parser;
@@ -465,6 +593,9 @@ public class PhyloSpecRunner implements ErrorEventListener {
 
             this.stochasticityResolver =
                     stochasticityResolver;
+
+            this.dataPrefetch =
+                    dataPrefetch;
         }
     }
 }
@@ -8,6 +8,7 @@ import org.phylospec.domain.PositiveReal;
 import org.phylospec.domain.UnitInterval;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.types.RealScalar;
+import tiling.gradients.LogDensityGradient;
 import tiling.params.BeastXRealScalarParam;
 import tiling.BeastXState;
 import tiling.model.BoundDistribution;
@@ -50,6 +51,11 @@ public class BetaTile extends GeneratorTile<
         DistributionLikelihood likelihood =
                 new DistributionLikelihood(distributionModel);
 
+        beastState.priorLogDensityGradients.put(
+                likelihood,
+                LogDensityGradient.beta(alphaParameter, betaParameter)
+        );
+
         Parameter.Default defaultParameter = new Parameter.Default(0.5);
         defaultParameter.addBounds(0.0, 1.0);
 
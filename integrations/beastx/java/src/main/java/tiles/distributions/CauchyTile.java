@@ -7,6 +7,7 @@ import org.phylospec.domain.PositiveReal;
 import org.phylospec.domain.Real;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.types.RealScalar;
+import tiling.gradients.LogDensityGradient;
 import tiling.params.BeastXRealScalarParam;
 import tiling.BeastXState;
 import tiling.model.BoundDistribution;
@@ -46,6 +47,11 @@ public class CauchyTile extends GeneratorTile<
         DistributionLikelihood likelihood =
                 new DistributionLikelihood(distribution);
 
+        beastState.priorLogDensityGradients.put(
+                likelihood,
+                LogDensityGradient.cauchy(location.get(), scale.get())
+        );
+
         BeastXRealScalarParam<Real> defaultState =
                 new BeastXRealScalarParam<>(0.0, Real.INSTANCE);
 
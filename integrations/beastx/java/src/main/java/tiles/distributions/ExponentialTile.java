@@ -8,6 +8,7 @@ import org.phylospec.domain.PositiveReal;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.types.RealScalar;
 import org.phylospec.typeresolver.Stochasticity;
+import tiling.gradients.LogDensityGradient;
 import tiling.params.BeastXRealScalarParam;
 import tiling.BeastXState;
 import tiling.model.BoundDistribution;
@@ -46,6 +47,11 @@ public class ExponentialTile extends GeneratorTile<
         DistributionLikelihood likelihood =
                 new DistributionLikelihood(distributionModel);
 
+        beastState.priorLogDensityGradients.put(
+                likelihood,
+                LogDensityGradient.exponential(mean)
+        );
+
         Parameter.Default defaultParameter = new Parameter.Default(1.0);
         defaultParameter.addBounds(0.0, Double.POSITIVE_INFINITY);
 
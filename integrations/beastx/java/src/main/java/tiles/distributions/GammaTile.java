@@ -7,6 +7,7 @@ import org.phylospec.ast.Expr;
 import org.phylospec.domain.PositiveReal;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.types.RealScalar;
+import tiling.gradients.LogDensityGradient;
 import tiling.params.BeastXRealScalarParam;
 import tiling.BeastXState;
 import tiling.model.BoundDistribution;
@@ -54,6 +55,11 @@ public class GammaTile extends GeneratorTile<
         DistributionLikelihood likelihood =
                 new DistributionLikelihood(distributionModel);
 
+        beastState.priorLogDensityGradients.put(
+                likelihood,
+                LogDensityGradient.gamma(shapeParameter, rateParameter)
+        );
+
         Parameter.Default defaultParameter = new Parameter.Default(1.0);
         defaultParameter.addBounds(0.0, Double.POSITIVE_INFINITY);
 
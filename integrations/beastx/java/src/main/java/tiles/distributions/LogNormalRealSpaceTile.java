@@ -8,6 +8,7 @@ import org.phylospec.domain.PositiveReal;
 import org.phylospec.domain.Real;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.types.RealScalar;
+import tiling.gradients.LogDensityGradient;
 import tiling.params.BeastXRealScalarParam;
 import tiling.BeastXState;
 import tiling.model.BoundDistribution;
@@ -59,6 +60,11 @@ public class LogNormalRealSpaceTile extends GeneratorTile<
         DistributionLikelihood likelihood =
                 new DistributionLikelihood(distributionModel);
 
+        beastState.priorLogDensityGradients.put(
+                likelihood,
+                LogDensityGradient.logNormalWithRealSpaceMean(meanParameter, logSdParameter)
+        );
+
         Parameter.Default defaultParameter = new Parameter.Default(0.5);
         defaultParameter.addBounds(0.0, Double.POSITIVE_INFINITY);
 
@@ -8,6 +8,7 @@ import org.phylospec.domain.PositiveReal;
 import org.phylospec.domain.Real;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.types.RealScalar;
+import tiling.gradients.LogDensityGradient;
 import tiling.params.BeastXRealScalarParam;
 import tiling.BeastXState;
 import tiling.model.BoundDistribution;
@@ -55,6 +56,11 @@ public class LogNormalTile extends GeneratorTile<
         DistributionLikelihood likelihood =
                 new DistributionLikelihood(distributionModel);
 
+        beastState.priorLogDensityGradients.put(
+                likelihood,
+                LogDensityGradient.logNormal(mu, sigma)
+        );
+
         Parameter.Default defaultParameter = new Parameter.Default(0.5);
         defaultParameter.addBounds(0.0, Double.POSITIVE_INFINITY);
 
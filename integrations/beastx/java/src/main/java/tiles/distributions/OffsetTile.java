@@ -7,6 +7,7 @@ import org.phylospec.ast.Expr;
 import org.phylospec.domain.Real;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.types.RealScalar;
+import tiling.gradients.LogDensityGradient;
 import tiling.params.BeastXRealScalarParam;
 import tiling.BeastXState;
 import tiling.model.BoundDistribution;
@@ -61,6 +62,13 @@ public class OffsetTile extends GeneratorTile<
         DistributionLikelihood likelihood =
                 new DistributionLikelihood(offsetDistribution);
 
+        LogDensityGradient baseGradient =
+                beastState.priorLogDensityGradients.get(base.distribution);
+
+        if (baseGradient != null) {
+            beastState.priorLogDensityGradients.put(likelihood, baseGradient.shifted(offsetValue));
+        }
+
         BeastXRealScalarParam<Real> defaultState =
                 new BeastXRealScalarParam<>(
                         base.stateNode.get() + offsetValue,
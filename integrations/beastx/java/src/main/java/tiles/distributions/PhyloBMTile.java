@@ -57,10 +57,8 @@ public class PhyloBMTile extends GeneratorTile<
         RealVector<? extends Real> rootValues =
                 this.rootValuesInput.apply(beastState, indexVariables);
 
-        requireSingleTrait(siteRates, "siteRates");
-
         if (rootValues != null) {
-            requireSingleTrait(rootValues, "rootValues");
+            requireOneValuePerTrait(rootValues, siteRates.size());
         }
 
         Parameter siteRatesParameter =
@@ -86,13 +84,17 @@ public class PhyloBMTile extends GeneratorTile<
         });
     }
 
-    private void requireSingleTrait(RealVector<?> vector, String argumentName) {
-        if (vector.size() != 1) {
+    private void requireOneValuePerTrait(RealVector<?> rootValues, int traitCount) {
+        if (rootValues.size() != traitCount) {
             throw new TileApplicationError(
                     this.getRootNode(),
-                    "PhyloBM currently supports one continuous trait in the BEAST X backend.",
-                    "Use a one-element vector for '" + argumentName + "'.",
-                    List.of(argumentName + "=[1.0]")
+                    "PhyloBM requires one root value per continuous trait, but 'siteRates' has "
+                            + traitCount
+                            + " entries and 'rootValues' has "
+                            + rootValues.size()
+                            + ".",
+                    "Use vectors of the same length for 'siteRates' and 'rootValues'.",
+                    List.of("siteRates=[1.0, 1.0], rootValues=[0.0, 0.0]")
             );
         }
     }
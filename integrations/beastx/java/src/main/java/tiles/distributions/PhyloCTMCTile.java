@@ -16,8 +16,10 @@ import org.phylospec.ast.Expr;
 import org.phylospec.tiling.Partial;
 import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.tiling.tiles.GeneratorTile;
+import tiles.trees.DistanceTreeBuilder;
 import tiling.BeastXState;
 import tiling.model.BeastXPhyloCTMCLikelihoodSpec;
+import tiling.model.StartingTreeSpec;
 import tiling.model.UnboundDistribution;
 
 import java.util.IdentityHashMap;
@@ -98,9 +100,39 @@ public class PhyloCTMCTile extends GeneratorTile<
                     );
 
             beastState.addLikelihoodDistribution(likelihoodSpec, id);
+
+            applyDistanceStartingTree(beastState, tree, observedAlignment, finalBranchRateModel);
         });
     }
 
+    /**
+     * Replaces a balanced default starting tree with a distance tree built
+     * from the first alignment observed on it.
+     */
+    private static void applyDistanceStartingTree(
+            BeastXState beastState,
+            TreeModel tree,
+            Alignment observedAlignment,
+            BranchRateModel branchRateModel
+    ) {
+        StartingTreeSpec startingTreeSpec =
+                beastState.startingTreeSpecs.get(tree);
+
+        if (startingTreeSpec == null || startingTreeSpec.type() != StartingTreeSpec.Type.DISTANCE_TREE) {
+            return;
+        }
+
+        DistanceTreeBuilder.applyDistanceTree(
+                tree,
+                observedAlignment,
+                branchRateModel,
+                startingTreeSpec.fixedRootHeight()
+        );
+
+        // later partitions on the same tree keep the tree built from the first one
+        beastState.startingTreeSpecs.put(tree, StartingTreeSpec.fixedNewick());
+    }
+
     private Alignment observedAlignmentForSubstitutionModel(
             Alignment observedAlignment,
             SubstitutionModel substitutionModel
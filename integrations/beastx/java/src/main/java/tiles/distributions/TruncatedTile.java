@@ -8,6 +8,7 @@ import org.phylospec.domain.Real;
 import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.types.RealScalar;
+import tiling.gradients.LogDensityGradient;
 import tiling.params.BeastXRealScalarParam;
 import tiling.BeastXState;
 import tiling.model.BoundDistribution;
@@ -72,6 +73,14 @@ public class TruncatedTile extends GeneratorTile<
                         new Parameter.Default(upperValue)
                 );
 
+        // truncation only adds a constant inside the bounds
+        LogDensityGradient baseGradient =
+                beastState.priorLogDensityGradients.get(base.distribution);
+
+        if (baseGradient != null) {
+            beastState.priorLogDensityGradients.put(likelihood, baseGradient);
+        }
+
         double initialValue =
                 boundedInitialValue(
                         base.stateNode.getParameter().getParameterValue(0),
@@ -5,17 +5,24 @@ import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.typeresolver.Stochasticity;
 import tiling.BeastXState;
+import tiling.table.CsvTable;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.IdentityHashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Reads a CSV or TSV file into one map from header to cell text per row.
+ *
+ * <p>The rows are {@link CsvTable.Rows}, so tiles taking them, such as those
+ * reading tip dates or traits, can get the typed columns from
+ * {@link CsvTable.Rows#table()} instead of parsing the text of every
+ * cell.</p>
+ */
 public class FromCSVTile extends GeneratorTile<List<Map<String, String>>, BeastXState> {
 
     private static final Set<Stochasticity> NON_STOCHASTIC =
@@ -68,10 +75,23 @@ public class FromCSVTile extends GeneratorTile<List<Map<String, String>>, BeastX
         List<String> providedHeaders =
                 this.headersInput.apply(beastState, indexVariables);
 
-        List<String> lines =
-                readLines(file);
+        if (delimiter.isEmpty()) {
+            throw new TileApplicationError(
+                    this.getRootNode(),
+                    "CSV delimiter is empty.",
+                    "Use the character separating the columns, such as \",\" or \"\\t\".",
+                    List.of("fromCSV(file=\"src/test/java/resources/metadata.tsv\", delimiter=\"\\t\")")
+            );
+        }
+
+        if (providedHeaders != null) {
+            validateHeaders(providedHeaders, file);
+        }
+
+        byte[] content =
+                beastState.dataPrefetch.take(getPhyloSpecGeneratorName(), file, FromCSVTile::readFile);
 
-        if (lines.isEmpty()) {
+        if (CsvTable.isBlank(content)) {
             throw new TileApplicationError(
                     this.getRootNode(),
                     "CSV file is empty.",
@@ -80,67 +100,41 @@ public class FromCSVTile extends GeneratorTile<List<Map<String, String>>, BeastX
             );
         }
 
-        List<String> headers;
-        int firstDataLineIndex;
-
-        if (providedHeaders == null) {
-            headers =
-                    parseLine(lines.getFirst(), delimiter);
-
-            firstDataLineIndex =
-                    1;
-        } else {
-            headers =
-                    providedHeaders;
+        CsvTable table;
 
-            firstDataLineIndex =
-                    0;
+        try {
+            table = CsvTable.parse(content, delimiter, providedHeaders);
+        } catch (CsvTable.ColumnCountException e) {
+            throw new TileApplicationError(
+                    this.getRootNode(),
+                    "CSV row has the wrong number of columns.",
+                    e.getMessage(),
+                    List.of("Check that the delimiter argument matches the file format.")
+            );
+        } catch (IllegalArgumentException e) {
+            throw new TileApplicationError(
+                    this.getRootNode(),
+                    "Could not parse CSV file.",
+                    e.getMessage(),
+                    List.of("Close every quoted value with a double quote, and write quotes within it as \"\".")
+            );
         }
 
-        validateHeaders(headers, file);
-
-        List<Map<String, String>> rows =
-                new ArrayList<>();
-
-        for (int i = firstDataLineIndex; i < lines.size(); i++) {
-            String line =
-                    lines.get(i);
-
-            if (line.isBlank()) {
-                continue;
-            }
-
-            List<String> values =
-                    parseLine(line, delimiter);
-
-            if (values.size() != headers.size()) {
-                throw new TileApplicationError(
-                        this.getRootNode(),
-                        "CSV row has the wrong number of columns.",
-                        "Expected " + headers.size() + " columns but found " + values.size() + " on line " + (i + 1) + ".",
-                        List.of("Check that the delimiter argument matches the file format.")
-                );
-            }
-
-            Map<String, String> row =
-                    new LinkedHashMap<>();
-
-            for (int column = 0; column < headers.size(); column++) {
-                row.put(
-                        headers.get(column),
-                        values.get(column)
-                );
-            }
-
-            rows.add(row);
+        if (providedHeaders == null) {
+            validateHeaders(table.headers(), file);
         }
 
-        return rows;
+        return table.rows();
     }
 
-    private static List<String> readLines(String file) {
+    /**
+     * Reads the bytes of a CSV or TSV file, which {@link tiling.DataPrefetch}
+     * may do before the tile is applied. The file is parsed when the tile is
+     * applied, as the delimiter and headers are inputs of the tile.
+     */
+    public static byte[] readFile(String file) {
         try {
-            return Files.readAllLines(Path.of(file));
+            return Files.readAllBytes(Path.of(file));
         } catch (IOException e) {
             throw new TileApplicationError(
                     "Could not read CSV file.",
@@ -166,18 +160,4 @@ public class FromCSVTile extends GeneratorTile<List<Map<String, String>>, BeastX
             }
         }
     }
-
-    private static List<String> parseLine(String line, String delimiter) {
-        String[] parts =
-                line.split(java.util.regex.Pattern.quote(delimiter), -1);
-
-        List<String> values =
-                new ArrayList<>();
-
-        for (String part : parts) {
-            values.add(part.trim());
-        }
-
-        return values;
-    }
-}
\ No newline at end of file
+}
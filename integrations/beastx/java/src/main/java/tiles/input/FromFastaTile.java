@@ -2,18 +2,17 @@ package tiles.input;
 
 import dr.evolution.alignment.Alignment;
 import dr.evolution.datatype.Nucleotides;
-import dr.evolution.io.FastaImporter;
 import dr.evolution.io.Importer;
 import org.phylospec.ast.Expr;
 import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.typeresolver.Stochasticity;
 import tiling.BeastXState;
+import tiling.alignment.MappedAlignmentReader;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.IdentityHashMap;
 import java.util.Set;
 
@@ -36,14 +35,18 @@ public class FromFastaTile extends GeneratorTile<Alignment, BeastXState> {
             IdentityHashMap<Expr.Variable, Integer> indexVariables
     ) {
         String path = this.fileInput.apply(beastState, indexVariables);
-        File file = new File(path);
 
-        try (FileReader reader = new FileReader(file)) {
-            FastaImporter importer =
-                    new FastaImporter(reader, Nucleotides.INSTANCE);
+        return beastState.dataPrefetch.take(getPhyloSpecGeneratorName(), path, FromFastaTile::readAlignment);
+    }
 
-            return importer.importAlignment();
-        } catch (FileNotFoundException e) {
+    /**
+     * Reads the alignment of a nucleotide FASTA file, which
+     * {@link tiling.DataPrefetch} may do before the tile is applied.
+     */
+    public static Alignment readAlignment(String path) {
+        try {
+            return MappedAlignmentReader.readFasta(Path.of(path), Nucleotides.INSTANCE);
+        } catch (NoSuchFileException e) {
             throw new TileApplicationError(
                     "File not found.",
                     "'" + path + "' could not be found. Select a valid FASTA file path."
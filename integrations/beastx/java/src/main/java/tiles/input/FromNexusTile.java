@@ -11,12 +11,18 @@ import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.typeresolver.Stochasticity;
 import tiling.BeastXState;
+import tiling.alignment.MappedAlignmentReader;
+import tiling.alignment.PackedAlignment;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.IdentityHashMap;
+import java.util.Optional;
 import java.util.Set;
 
 public class FromNexusTile extends GeneratorTile<Alignment, BeastXState> {
@@ -59,26 +65,37 @@ public class FromNexusTile extends GeneratorTile<Alignment, BeastXState> {
             );
         }
 
-        File file =
-                new File(path);
+        Alignment alignment =
+                beastState.dataPrefetch.take(getPhyloSpecGeneratorName(), path, FromNexusTile::importAlignment);
 
-        try (FileReader reader = new FileReader(file)) {
-            NexusImporter importer =
-                    new NexusImporter(reader);
+        if (ageParser != null) {
+            applyTaxonAges(alignment, ageParser);
+        }
 
-            Alignment alignment =
-                    importer.importAlignment();
+        if (dateParser != null) {
+            applyTaxonDates(alignment, dateParser);
+        }
 
-            if (ageParser != null) {
-                applyTaxonAges(alignment, ageParser);
-            }
+        return alignment;
+    }
 
-            if (dateParser != null) {
-                applyTaxonDates(alignment, dateParser);
-            }
+    /**
+     * Reads the alignment of a Nexus file, which {@link tiling.DataPrefetch}
+     * may do before the tile is applied.
+     *
+     * <p>Matrices in the common layout are mapped straight into packed rows
+     * by {@link MappedAlignmentReader#readNexus(Path)}. Any other Nexus
+     * grammar, such as interleaved or match-character matrices, goes through
+     * the BEAST X importer, which holds a sequence string per taxon while
+     * reading.</p>
+     */
+    public static Alignment importAlignment(String path) {
+        try {
+            Optional<PackedAlignment> alignment =
+                    MappedAlignmentReader.readNexus(Path.of(path));
 
-            return alignment;
-        } catch (FileNotFoundException e) {
+            return alignment.isPresent() ? alignment.get() : importWithNexusImporter(path);
+        } catch (FileNotFoundException | NoSuchFileException e) {
             throw new TileApplicationError(
                     "File not found.",
                     "'" + path + "' could not be found. Select a valid Nexus file path."
@@ -96,6 +113,16 @@ public class FromNexusTile extends GeneratorTile<Alignment, BeastXState> {
         }
     }
 
+    private static Alignment importWithNexusImporter(String path) throws IOException, Importer.ImportException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(new File(path)))) {
+            NexusImporter importer =
+                    new NexusImporter(reader);
+
+            // the importer's sequence strings are dropped once the rows are packed
+            return PackedAlignment.copyOf(importer.importAlignment());
+        }
+    }
+
     private static void applyTaxonAges(
             Alignment alignment,
             ParserTile.Parser ageParser
@@ -11,17 +11,24 @@ import org.phylospec.tiling.tiles.GeneratorTile;
 import org.phylospec.typeresolver.Stochasticity;
 import tiling.BeastXState;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.IdentityHashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 public class FromTreeTile extends GeneratorTile<DefaultTreeModel, BeastXState> {
 
+    // characters of a Nexus command needed to tell which command it is
+    private static final int COMMAND_PREFIX_LENGTH = 64;
+
+    private static final Pattern WHITESPACE =
+            Pattern.compile("\\s+");
+
     @Override
     public String getPhyloSpecGeneratorName() {
         return "fromTree";
@@ -41,14 +48,22 @@ public class FromTreeTile extends GeneratorTile<DefaultTreeModel, BeastXState> {
         String path =
                 this.fileInput.apply(beastState, indexVariables);
 
-        Tree tree;
+        Tree tree =
+                beastState.dataPrefetch.take(getPhyloSpecGeneratorName(), path, FromTreeTile::importTree);
+
+        return new DefaultTreeModel("tree", tree);
+    }
+
+    /**
+     * Reads the only tree of a Nexus or Newick file, which
+     * {@link tiling.DataPrefetch} may do before the tile is applied.
+     */
+    public static Tree importTree(String path) {
         if (isNexusPath(path)) {
-            tree = importNexusTree(path);
-        } else {
-            tree = importNewickTree(path);
+            return importNexusTree(path);
         }
 
-        return new DefaultTreeModel("tree", tree);
+        return importNewickTree(path);
     }
 
     private static boolean isNexusPath(String path) {
@@ -63,7 +78,7 @@ public class FromTreeTile extends GeneratorTile<DefaultTreeModel, BeastXState> {
         File file =
                 new File(path);
 
-        try (FileReader reader = new FileReader(file)) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             NewickImporter importer =
                     new NewickImporter(reader);
 
@@ -90,28 +105,31 @@ public class FromTreeTile extends GeneratorTile<DefaultTreeModel, BeastXState> {
         File file =
                 new File(path);
 
-        try (FileReader reader = new FileReader(file)) {
-            NexusImporter importer =
-                    new NexusImporter(reader);
-
-            List<Tree> trees =
-                    importer.importTrees(null);
+        try {
+            // counting the tree commands is much cheaper than importing every tree of a posterior sample
+            int treeCount =
+                    countNexusTrees(file);
 
-            if (trees.isEmpty()) {
+            if (treeCount == 0) {
                 throw new TileApplicationError(
                         "No tree found.",
                         "'" + path + "' contains no trees. Choose a file with exactly one tree."
                 );
             }
 
-            if (trees.size() > 1) {
+            if (treeCount > 1) {
                 throw new TileApplicationError(
                         "Too many trees found.",
                         "'" + path + "' contains more than one tree. Choose a file with exactly one tree."
                 );
             }
 
-            return trees.getFirst();
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                NexusImporter importer =
+                        new NexusImporter(reader);
+
+                return importer.importNextTree();
+            }
         } catch (FileNotFoundException e) {
             throw new TileApplicationError(
                     "File not found.",
@@ -129,4 +147,62 @@ public class FromTreeTile extends GeneratorTile<DefaultTreeModel, BeastXState> {
             );
         }
     }
+
+    /**
+     * Counts the {@code tree} commands of the trees blocks of a Nexus file
+     * without parsing them, skipping comments and quoted names.
+     */
+    static int countNexusTrees(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            StringBuilder command =
+                    new StringBuilder();
+
+            boolean inTreesBlock = false;
+            int treeCount = 0;
+            int commentDepth = 0;
+            int character;
+
+            while ((character = reader.read()) != -1) {
+                if (character == '[') {
+                    commentDepth++;
+                } else if (character == ']' && commentDepth > 0) {
+                    commentDepth--;
+                } else if (commentDepth > 0) {
+                    continue;
+                } else if (character == '\'') {
+                    // quoted names may hold semicolons; a doubled quote closes and reopens the name
+                    while ((character = reader.read()) != -1 && character != '\'') {
+                        if (command.length() < COMMAND_PREFIX_LENGTH) {
+                            command.append('_');
+                        }
+                    }
+                } else if (character == ';') {
+                    String[] words =
+                            WHITESPACE.split(command.toString().trim().toLowerCase(Locale.ROOT));
+
+                    // the #NEXUS header is not ended by a semicolon, so it leads the first command
+                    int first =
+                            words[0].equals("#nexus") ? 1 : 0;
+
+                    String keyword =
+                            words.length > first ? words[first] : "";
+
+                    if (keyword.equals("begin")) {
+                        inTreesBlock = words.length > first + 1 && words[first + 1].equals("trees");
+                    } else if (keyword.equals("end") || keyword.equals("endblock")) {
+                        inTreesBlock = false;
+                    } else if (inTreesBlock && (keyword.equals("tree") || keyword.equals("utree"))) {
+                        treeCount++;
+                    }
+
+                    command.setLength(0);
+                } else if (command.length() < COMMAND_PREFIX_LENGTH) {
+                    // commands are told apart by their first words, so the trees themselves are not kept
+                    command.append((char) character);
+                }
+            }
+
+            return treeCount;
+        }
+    }
 }
@@ -10,6 +10,7 @@ import java.util.IdentityHashMap;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class ParserTile {
 
@@ -74,21 +75,22 @@ public class ParserTile {
 
     public static final class DelimiterParser implements Parser {
 
-        private final String delimiter;
+        private final Pattern delimiter;
         private final Integer part;
 
         public DelimiterParser(
                 String delimiter,
                 Integer part
         ) {
-            this.delimiter = delimiter;
+            // compiled once, as the parser is applied to every taxon name
+            this.delimiter = Pattern.compile(Pattern.quote(delimiter));
             this.part = part;
         }
 
         @Override
         public String parse(String raw) {
             String[] parts =
-                    raw.split(Pattern.quote(this.delimiter));
+                    this.delimiter.split(raw);
 
             int index =
                     this.part - 1;
@@ -106,19 +108,24 @@ public class ParserTile {
 
     public static final class RegexParser implements Parser {
 
-        private final String regex;
+        private final Pattern pattern;
 
         public RegexParser(String regex) {
-            this.regex = regex;
+            try {
+                // compiled once, as the parser is applied to every taxon name
+                this.pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                throw new TileApplicationError(
+                        "Regex '" + regex + "' is not valid.",
+                        e.getDescription() + "."
+                );
+            }
         }
 
         @Override
         public String parse(String raw) {
-            Pattern pattern =
-                    Pattern.compile(this.regex);
-
             Matcher matcher =
-                    pattern.matcher(raw);
+                    this.pattern.matcher(raw);
 
             if (matcher.find()) {
                 return matcher.group(1);
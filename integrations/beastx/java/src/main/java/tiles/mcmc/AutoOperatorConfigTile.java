@@ -128,6 +128,18 @@ public class AutoOperatorConfigTile extends Tile<Void, BeastXState> implements C
             return;
         }
 
+        if (BeastXState.OperatorConfig.isFraction(settingName)) {
+            if (value < 0.0 || value >= 1.0) {
+                throw new TileApplicationError(
+                        assignment,
+                        "MCMC operator adaptation fraction must be at least 0 and below 1.",
+                        "Use a value such as " + settingName + "=0.1, or 0 to turn the adaptation off."
+                );
+            }
+
+            return;
+        }
+
         if (BeastXState.OperatorConfig.isWeight(settingName)) {
             if (value < 0.0) {
                 throw new TileApplicationError(
@@ -2,6 +2,7 @@ package tiles.misc;
 
 import org.phylospec.ast.AstNode;
 import org.phylospec.ast.Expr;
+import org.phylospec.domain.Domain;
 import org.phylospec.domain.Int;
 import org.phylospec.domain.NonNegativeInt;
 import org.phylospec.domain.NonNegativeReal;
@@ -11,6 +12,7 @@ import org.phylospec.domain.Real;
 import org.phylospec.domain.UnitInterval;
 import org.phylospec.tiling.TypeToken;
 import org.phylospec.tiling.errors.FailedTilingAttempt;
+import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.tiling.tiles.AstNodeTile;
 import org.phylospec.tiling.tiles.Tile;
 import org.phylospec.types.IntScalar;
@@ -152,9 +154,71 @@ public class LiteralTile<T> extends AstNodeTile<T, Expr.Literal, BeastXState> {
         return new BeastXRealScalarParam<>(value, domain);
     }
 
+    /**
+     * Returns the literal value, or its override from
+     * {@link BeastXState#literalOverrides} converted to the type chosen during
+     * tiling. Scalar parameters are created anew for every state, so states
+     * built from one tiling never share BEAST X parameters.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public T applyTile(BeastXState beastState, IdentityHashMap<Expr.Variable, Integer> indexVariables) {
-        return this.value;
+        Expr.Literal literal =
+                (Expr.Literal) this.getRootNode();
+
+        // vector tiles read the values of their constant elements while matching, without a state
+        String override =
+                literal != null && beastState != null ? beastState.literalOverrides.get(literal) : null;
+
+        try {
+            if (this.value instanceof BeastXIntScalarParam<?> param) {
+                return (T) intScalarFor(param, override == null ? param.get() : Integer.parseInt(override.trim()));
+            }
+
+            if (this.value instanceof BeastXRealScalarParam<?> param) {
+                return (T) realScalarFor(param, override == null ? param.get() : Double.parseDouble(override.trim()));
+            }
+
+            if (override == null) {
+                return this.value;
+            }
+
+            if (this.value instanceof Integer) {
+                return (T) Integer.valueOf(override.trim());
+            }
+
+            if (this.value instanceof Double) {
+                return (T) Double.valueOf(override.trim());
+            }
+
+            return (T) override;
+        } catch (NumberFormatException e) {
+            throw new TileApplicationError(
+                    literal,
+                    "Invalid override '" + override + "'.",
+                    "This constant is a number in the model, so its override must be a number as well."
+            );
+        }
+    }
+
+    private static <D extends Int> BeastXIntScalarParam<D> intScalarFor(BeastXIntScalarParam<D> param, int value) {
+        checkDomain(param.domainType(), value);
+        return new BeastXIntScalarParam<>(value, param.domainType());
+    }
+
+    private static <D extends Real> BeastXRealScalarParam<D> realScalarFor(BeastXRealScalarParam<D> param, double value) {
+        checkDomain(param.domainType(), value);
+        return new BeastXRealScalarParam<>(value, param.domainType());
+    }
+
+    private static <V> void checkDomain(Domain<V> domain, V value) {
+        if (!domain.isValid(value)) {
+            throw new TileApplicationError(
+                    "Invalid override " + value + ".",
+                    "The model uses this constant as " + domain.getClass().getSimpleName()
+                            + ", which does not include " + value + "."
+            );
+        }
     }
 
     @Override
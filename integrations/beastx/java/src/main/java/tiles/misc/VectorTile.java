@@ -6,6 +6,7 @@ import org.phylospec.domain.Real;
 import org.phylospec.domain.UnitInterval;
 import org.phylospec.tiling.TypeToken;
 import org.phylospec.tiling.errors.FailedTilingAttempt;
+import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.tiling.tiles.AstNodeTile;
 import org.phylospec.tiling.tiles.Tile;
 import org.phylospec.typeresolver.Stochasticity;
@@ -35,6 +36,9 @@ public class VectorTile<T> extends AstNodeTile<T, Expr.Array, BeastXState> {
     private final T value;
     private final Tile<?, BeastXState> singleElementTile;
 
+    // the literal of every element of a constant vector, or null for elements that are not literals
+    private final List<Expr.Literal> elementLiterals;
+
     public VectorTile() {
         this(new TypeToken<>() {}, null, null);
     }
@@ -47,10 +51,20 @@ public class VectorTile<T> extends AstNodeTile<T, Expr.Array, BeastXState> {
             TypeToken<T> typeToken,
             T value,
             Tile<?, BeastXState> singleElementTile
+    ) {
+        this(typeToken, value, singleElementTile, List.of());
+    }
+
+    private VectorTile(
+            TypeToken<T> typeToken,
+            T value,
+            Tile<?, BeastXState> singleElementTile,
+            List<Expr.Literal> elementLiterals
     ) {
         this.typeToken = typeToken;
         this.value = value;
         this.singleElementTile = singleElementTile;
+        this.elementLiterals = elementLiterals;
     }
 
     @Override
@@ -268,13 +282,20 @@ public class VectorTile<T> extends AstNodeTile<T, Expr.Array, BeastXState> {
                         .mapToInt(Tile::getWeight)
                         .sum();
 
+        List<Expr.Literal> elementLiterals =
+                array.elements.stream()
+                        .map(element -> element instanceof Expr.Literal literal ? literal : null)
+                        .toList();
+
         List<Tile<?, BeastXState>> tiles =
                 new ArrayList<>();
 
         VectorTile vectorTile =
                 new VectorTile(
                         TypeToken.parameterized(RealVector.class, domainType),
-                        new BeastXRealVectorParam<>(values, domain)
+                        new BeastXRealVectorParam<>(values, domain),
+                        null,
+                        elementLiterals
                 );
 
         vectorTile.setWeight(weight);
@@ -293,7 +314,9 @@ public class VectorTile<T> extends AstNodeTile<T, Expr.Array, BeastXState> {
                 VectorTile simplexTile =
                         new VectorTile(
                                 TypeToken.of(BeastXSimplexParam.class),
-                                new BeastXSimplexParam(values)
+                                new BeastXSimplexParam(values),
+                                null,
+                                elementLiterals
                         );
 
                 simplexTile.setWeight(weight);
@@ -305,6 +328,12 @@ public class VectorTile<T> extends AstNodeTile<T, Expr.Array, BeastXState> {
         return tiles;
     }
 
+    /**
+     * Returns the vector. Constant vectors are created anew for every state,
+     * like the scalar constants of {@link LiteralTile}, so states built from
+     * one tiling never share BEAST X parameters, and take the overrides of
+     * their elements from {@link BeastXState#literalOverrides}.
+     */
     @Override
     @SuppressWarnings("unchecked")
     public T applyTile(
@@ -312,7 +341,7 @@ public class VectorTile<T> extends AstNodeTile<T, Expr.Array, BeastXState> {
             IdentityHashMap<Expr.Variable, Integer> indexVariables
     ) {
         if (this.singleElementTile == null) {
-            return this.value;
+            return (T) this.constantVectorFor(beastState);
         }
 
         Object scalarObject =
@@ -336,6 +365,74 @@ public class VectorTile<T> extends AstNodeTile<T, Expr.Array, BeastXState> {
         );
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object constantVectorFor(BeastXState beastState) {
+        if (!(this.value instanceof BeastXRealVectorParam vector)) {
+            return this.value;
+        }
+
+        double[] values =
+                vector.getParameter().getParameterValues();
+
+        for (int i = 0; i < this.elementLiterals.size(); i++) {
+            Expr.Literal literal =
+                    this.elementLiterals.get(i);
+
+            String override =
+                    literal != null ? beastState.literalOverrides.get(literal) : null;
+
+            if (override != null) {
+                values[i] = overriddenElement(literal, override, vector.domainType());
+            }
+        }
+
+        if (vector instanceof BeastXSimplexParam) {
+            double sum = 0.0;
+
+            for (double value : values) {
+                sum += value;
+            }
+
+            if (Math.abs(sum - 1.0) > 1e-6) {
+                throw new TileApplicationError(
+                        this.getRootNode(),
+                        "Invalid override of a simplex.",
+                        "The model uses this vector as a simplex, so its elements must sum to 1 but they sum to "
+                                + sum + "."
+                );
+            }
+
+            return new BeastXSimplexParam(values);
+        }
+
+        return new BeastXRealVectorParam(values, vector.domainType());
+    }
+
+    private static double overriddenElement(Expr.Literal literal, String override, Real domain) {
+        double value;
+
+        try {
+            value = Double.parseDouble(override.trim());
+        } catch (NumberFormatException e) {
+            throw new TileApplicationError(
+                    literal,
+                    "Invalid override '" + override + "'.",
+                    "This vector holds numbers in the model, so its override must hold numbers as well."
+            );
+        }
+
+        if (!domain.isValid(value)) {
+            throw new TileApplicationError(
+                    literal,
+                    "Invalid override " + value + ".",
+                    "The model uses this vector as " + domain.getClass().getSimpleName()
+                            + ", which does not include " + value + "."
+            );
+        }
+
+        return value;
+    }
+
     @Override
     public TypeToken<?> getTypeToken() {
         return this.typeToken;
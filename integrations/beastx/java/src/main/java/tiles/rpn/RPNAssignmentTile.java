@@ -1,11 +1,11 @@
 package tiles.rpn;
 
-import dr.inference.model.RPNcalculatorStatistic;
 import org.phylospec.ast.Expr;
 import org.phylospec.ast.Stmt;
 import org.phylospec.tiling.TypeToken;
 import org.phylospec.tiling.tiles.AstNodeTile;
 import org.phylospec.tiling.tiles.TilePriority;
+import tiling.rpn.BeastXCompiledExpressionStatistic;
 import tiling.rpn.BeastXRPNCalculationResult;
 import tiling.BeastXState;
 
@@ -30,17 +30,16 @@ public class RPNAssignmentTile extends AstNodeTile<BeastXRPNCalculationResult, S
         String id =
                 this.getId(this.getRootNode().name, indexVariables, "");
 
-        RPNcalculatorStatistic statistic =
-                new RPNcalculatorStatistic(
+        BeastXCompiledExpressionStatistic statistic =
+                new BeastXCompiledExpressionStatistic(
                         id,
-                        new String[]{calculationResult.calculation()},
-                        new String[]{id},
-                        calculationResult.variables()
+                        calculationResult.expression(),
+                        calculationResult.calculation()
                 );
 
         beastState.addCalculationNode(
                 statistic,
-                new TypeToken<RPNcalculatorStatistic>() {},
+                new TypeToken<BeastXCompiledExpressionStatistic>() {},
                 id
         );
 
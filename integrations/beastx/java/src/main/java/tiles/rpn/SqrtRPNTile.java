@@ -1,8 +1,6 @@
 package tiles.rpn;
 
-import dr.inference.model.Parameter;
 import org.phylospec.ast.Expr;
-import org.phylospec.lexer.TokenType;
 import org.phylospec.tiling.TypeToken;
 import org.phylospec.tiling.tiles.GeneratorTile;
 import tiling.rpn.BeastXRPNCalculationResult;
@@ -30,28 +28,9 @@ public class SqrtRPNTile extends GeneratorTile<BeastXRPNCalculationResult, Beast
             BeastXState beastState,
             IdentityHashMap<Expr.Variable, Integer> indexVariables
     ) {
-        BeastXRPNCalculationResult logValue =
-                BeastXRPNCalculationResult.combineUnary(
-                        "log",
-                        this.xInput.apply(beastState, indexVariables)
-                );
-
-        BeastXRPNCalculationResult half =
-                BeastXRPNCalculationResult.from(
-                        new Parameter.Default(0.5),
-                        beastState
-                );
-
-        BeastXRPNCalculationResult halfLogValue =
-                BeastXRPNCalculationResult.combine(
-                        TokenType.STAR,
-                        half,
-                        logValue
-                );
-
         return BeastXRPNCalculationResult.combineUnary(
-                "exp",
-                halfLogValue
+                "sqrt",
+                this.xInput.apply(beastState, indexVariables)
         );
     }
 }
\ No newline at end of file
@@ -86,6 +86,7 @@ public class BirthDeathTile extends GeneratorTile<
 
         return new BoundDistribution<>(
                 defaultTreeModel,
+                InitialTreeBuilder.distanceStartingTree(rootAge),
                 treeModel -> {
                     return new SpeciationLikelihood(
                             treeModel,
@@ -79,7 +79,7 @@ public class CoalescentPopulationFunctionTile extends GeneratorTile<
             return StartingTreeSpec.coalescentSimulator();
         }
 
-        return StartingTreeSpec.fixedNewick();
+        return InitialTreeBuilder.distanceStartingTree(null);
     }
 
     private static dr.evolution.tree.Tree startingTree(
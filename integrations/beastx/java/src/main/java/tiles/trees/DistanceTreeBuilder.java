@@ -0,0 +1,769 @@
+package tiles.trees;
+
+import dr.evolution.alignment.Alignment;
+import dr.evolution.tree.NodeRef;
+import dr.evolution.tree.SimpleNode;
+import dr.evolution.util.Taxon;
+import dr.evomodel.branchratemodel.BranchRateModel;
+import dr.evomodel.branchratemodel.StrictClockBranchRates;
+import dr.evomodel.tree.TreeModel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Builds distance-based starting trees from an observed alignment: UPGMA for
+ * strict clock models and midpoint-rooted neighbour joining otherwise.
+ *
+ * <p>UPGMA keeps the nearest neighbour of every row, which makes it roughly
+ * quadratic. Neighbour joining is cubic, so its minimum search runs in
+ * parallel and trees with more than {@link #MAX_NEIGHBOR_JOINING_TAXA} taxa
+ * fall back to UPGMA.</p>
+ */
+public final class DistanceTreeBuilder {
+
+    static final int MAX_NEIGHBOR_JOINING_TAXA = 2000;
+
+    // minimum branch length relative to the height of the distance tree
+    private static final double MIN_BRANCH_FRACTION = 1e-3;
+
+    private DistanceTreeBuilder() {
+    }
+
+    /**
+     * Replaces the topology and internal node heights of {@code treeModel}
+     * with a distance tree built from {@code alignment}.
+     *
+     * @return {@code false} if the tree was left unchanged, because the
+     * alignment does not cover every tip or the distance tree cannot be fitted
+     * below {@code rootHeight}
+     */
+    public static boolean applyDistanceTree(
+            TreeModel treeModel,
+            Alignment alignment,
+            BranchRateModel branchRateModel,
+            Double rootHeight
+    ) {
+        int tipCount =
+                treeModel.getExternalNodeCount();
+
+        if (tipCount < 3) {
+            return false;
+        }
+
+        List<Taxon> taxa =
+                new ArrayList<>(tipCount);
+
+        for (int i = 0; i < tipCount; i++) {
+            Taxon taxon =
+                    treeModel.getNodeTaxon(treeModel.getExternalNode(i));
+
+            if (taxon == null || alignment.getTaxonIndex(taxon.getId()) < 0) {
+                return false;
+            }
+
+            taxa.add(taxon);
+        }
+
+        PairwiseDistanceMatrix distances =
+                PairwiseDistanceMatrix.fromAlignment(alignment, taxa);
+
+        boolean strictClock =
+                branchRateModel == null || branchRateModel instanceof StrictClockBranchRates;
+
+        RootedTopology topology =
+                strictClock || tipCount > MAX_NEIGHBOR_JOINING_TAXA
+                        ? upgma(distances)
+                        : neighborJoining(distances);
+
+        double[] heights =
+                timeHeights(topology, taxa, clockRate(treeModel, branchRateModel), rootHeight);
+
+        if (heights == null) {
+            return false;
+        }
+
+        adopt(treeModel, topology, heights);
+
+        return true;
+    }
+
+    /**
+     * Builds a UPGMA tree. The distance matrix is used as working storage and
+     * is overwritten.
+     */
+    static RootedTopology upgma(PairwiseDistanceMatrix distances) {
+        int n =
+                distances.size();
+
+        RootedTopology topology =
+                new RootedTopology(n);
+
+        double[] nodeHeights =
+                new double[2 * n - 1];
+
+        int[] cluster =
+                new int[n];
+
+        int[] clusterSize =
+                new int[n];
+
+        boolean[] active =
+                new boolean[n];
+
+        double[] rowMin =
+                new double[n];
+
+        int[] rowArg =
+                new int[n];
+
+        for (int i = 0; i < n; i++) {
+            cluster[i] = i;
+            clusterSize[i] = 1;
+            active[i] = true;
+        }
+
+        for (int i = 0; i < n; i++) {
+            scanRow(distances, active, i, rowMin, rowArg);
+        }
+
+        for (int step = 0; step < n - 1; step++) {
+            int i = -1;
+            double best = Double.POSITIVE_INFINITY;
+
+            for (int row = 0; row < n; row++) {
+                if (active[row] && rowArg[row] >= 0 && rowMin[row] < best) {
+                    best = rowMin[row];
+                    i = row;
+                }
+            }
+
+            int j =
+                    rowArg[i];
+
+            int node =
+                    n + step;
+
+            nodeHeights[node] =
+                    Math.max(best / 2.0, Math.max(nodeHeights[cluster[i]], nodeHeights[cluster[j]]));
+
+            topology.join(node, cluster[i], cluster[j]);
+
+            for (int k = 0; k < n; k++) {
+                if (active[k] && k != i && k != j) {
+                    distances.set(
+                            i,
+                            k,
+                            (clusterSize[i] * distances.get(i, k) + clusterSize[j] * distances.get(j, k))
+                                    / (clusterSize[i] + clusterSize[j])
+                    );
+                }
+            }
+
+            active[j] = false;
+            cluster[i] = node;
+            clusterSize[i] += clusterSize[j];
+
+            // i > j, so only rows above j can have pointed at either cluster
+            scanRow(distances, active, i, rowMin, rowArg);
+
+            for (int k = j + 1; k < n; k++) {
+                if (!active[k] || k == i) {
+                    continue;
+                }
+
+                if (rowArg[k] == i || rowArg[k] == j) {
+                    scanRow(distances, active, k, rowMin, rowArg);
+                } else if (k > i && distances.get(k, i) < rowMin[k]) {
+                    rowMin[k] = distances.get(k, i);
+                    rowArg[k] = i;
+                }
+            }
+        }
+
+        topology.root = 2 * n - 2;
+
+        for (int node = 0; node < 2 * n - 2; node++) {
+            topology.branchLength[node] =
+                    nodeHeights[topology.parent[node]] - nodeHeights[node];
+        }
+
+        return topology;
+    }
+
+    private static void scanRow(
+            PairwiseDistanceMatrix distances,
+            boolean[] active,
+            int row,
+            double[] rowMin,
+            int[] rowArg
+    ) {
+        double min = Double.POSITIVE_INFINITY;
+        int arg = -1;
+
+        for (int column = 0; column < row; column++) {
+            if (active[column]) {
+                double distance =
+                        distances.get(row, column);
+
+                if (distance < min) {
+                    min = distance;
+                    arg = column;
+                }
+            }
+        }
+
+        rowMin[row] = min;
+        rowArg[row] = arg;
+    }
+
+    /**
+     * Builds a neighbour-joining tree and roots it at the midpoint of its
+     * longest path. The distance matrix is used as working storage and is
+     * overwritten.
+     */
+    static RootedTopology neighborJoining(PairwiseDistanceMatrix distances) {
+        int n =
+                distances.size();
+
+        // unrooted tree: n tips and n - 2 internal nodes, stored as an edge list
+        int nodeCount =
+                2 * n - 2;
+
+        int[] edgeFrom =
+                new int[nodeCount - 1];
+
+        int[] edgeTo =
+                new int[nodeCount - 1];
+
+        double[] edgeLength =
+                new double[nodeCount - 1];
+
+        int edgeCount = 0;
+
+        int[] cluster =
+                new int[n];
+
+        boolean[] active =
+                new boolean[n];
+
+        double[] rowSums =
+                new double[n];
+
+        for (int i = 0; i < n; i++) {
+            cluster[i] = i;
+            active[i] = true;
+        }
+
+        IntStream.range(0, n).parallel().forEach(i -> {
+            double sum = 0.0;
+
+            for (int k = 0; k < n; k++) {
+                sum += distances.get(i, k);
+            }
+
+            rowSums[i] = sum;
+        });
+
+        int remaining = n;
+        int nextNode = n;
+
+        while (remaining > 2) {
+            int r =
+                    remaining;
+
+            Join join =
+                    IntStream.range(1, n)
+                            .parallel()
+                            .filter(row -> active[row])
+                            .mapToObj(row -> bestJoinInRow(distances, active, rowSums, r, row))
+                            .reduce(Join.NONE, (a, b) -> b.q < a.q ? b : a);
+
+            int i = join.i;
+            int j = join.j;
+
+            double dij =
+                    distances.get(i, j);
+
+            double li =
+                    Math.clamp(0.5 * dij + (rowSums[i] - rowSums[j]) / (2.0 * (r - 2)), 0.0, Math.max(dij, 0.0));
+
+            double lj =
+                    Math.max(dij - li, 0.0);
+
+            int node =
+                    nextNode++;
+
+            edgeFrom[edgeCount] = node;
+            edgeTo[edgeCount] = cluster[i];
+            edgeLength[edgeCount++] = li;
+
+            edgeFrom[edgeCount] = node;
+            edgeTo[edgeCount] = cluster[j];
+            edgeLength[edgeCount++] = lj;
+
+            double newRowSum = 0.0;
+
+            for (int k = 0; k < n; k++) {
+                if (!active[k] || k == i || k == j) {
+                    continue;
+                }
+
+                double dik =
+                        distances.get(i, k);
+
+                double djk =
+                        distances.get(j, k);
+
+                double duk =
+                        0.5 * (dik + djk - dij);
+
+                rowSums[k] += duk - dik - djk;
+                newRowSum += duk;
+                distances.set(i, k, duk);
+            }
+
+            rowSums[i] = newRowSum;
+            active[j] = false;
+            cluster[i] = node;
+            remaining--;
+        }
+
+        int a = -1;
+        int b = -1;
+
+        for (int k = 0; k < n; k++) {
+            if (active[k]) {
+                if (a < 0) {
+                    a = k;
+                } else {
+                    b = k;
+                }
+            }
+        }
+
+        edgeFrom[edgeCount] = cluster[a];
+        edgeTo[edgeCount] = cluster[b];
+        edgeLength[edgeCount++] = Math.max(distances.get(a, b), 0.0);
+
+        return midpointRoot(n, nodeCount, edgeFrom, edgeTo, edgeLength);
+    }
+
+    private static Join bestJoinInRow(
+            PairwiseDistanceMatrix distances,
+            boolean[] active,
+            double[] rowSums,
+            int remaining,
+            int row
+    ) {
+        Join best =
+                Join.NONE;
+
+        for (int column = 0; column < row; column++) {
+            if (!active[column]) {
+                continue;
+            }
+
+            double q =
+                    (remaining - 2) * distances.get(row, column) - rowSums[row] - rowSums[column];
+
+            if (q < best.q) {
+                best = new Join(q, row, column);
+            }
+        }
+
+        return best;
+    }
+
+    private record Join(double q, int i, int j) {
+
+        static final Join NONE =
+                new Join(Double.POSITIVE_INFINITY, -1, -1);
+    }
+
+    private static RootedTopology midpointRoot(
+            int tipCount,
+            int nodeCount,
+            int[] edgeFrom,
+            int[] edgeTo,
+            double[] edgeLength
+    ) {
+        int[][] neighbors =
+                new int[nodeCount][];
+
+        double[][] lengths =
+                new double[nodeCount][];
+
+        int[] degree =
+                new int[nodeCount];
+
+        for (int e = 0; e < edgeFrom.length; e++) {
+            degree[edgeFrom[e]]++;
+            degree[edgeTo[e]]++;
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            neighbors[node] = new int[degree[node]];
+            lengths[node] = new double[degree[node]];
+        }
+
+        Arrays.fill(degree, 0);
+
+        for (int e = 0; e < edgeFrom.length; e++) {
+            int from = edgeFrom[e];
+            int to = edgeTo[e];
+
+            neighbors[from][degree[from]] = to;
+            lengths[from][degree[from]++] = edgeLength[e];
+            neighbors[to][degree[to]] = from;
+            lengths[to][degree[to]++] = edgeLength[e];
+        }
+
+        // the longest path runs between the tip furthest from tip 0 and the tip furthest from that one
+        int[] parent =
+                new int[nodeCount];
+
+        double[] distance =
+                new double[nodeCount];
+
+        int start =
+                furthestNode(0, neighbors, lengths, parent, distance);
+
+        int end =
+                furthestNode(start, neighbors, lengths, parent, distance);
+
+        double half =
+                distance[end] / 2.0;
+
+        // walk from the far end towards start until the midpoint is passed
+        int below = end;
+
+        if (parent[below] < 0) {
+            // all branch lengths are zero; any edge will do
+            below = neighbors[start][0];
+        }
+
+        while (parent[below] >= 0 && distance[parent[below]] > half) {
+            below = parent[below];
+        }
+
+        int above =
+                parent[below];
+
+        RootedTopology topology =
+                new RootedTopology(tipCount);
+
+        int root =
+                nodeCount;
+
+        topology.root = root;
+
+        // the root sits on the edge (above, below); hang both sides off it
+        Deque<int[]> stack =
+                new ArrayDeque<>();
+
+        topology.attach(root, below, distance[below] - half);
+        stack.push(new int[]{below, above});
+
+        topology.attach(root, above, half - distance[above]);
+        stack.push(new int[]{above, below});
+
+        while (!stack.isEmpty()) {
+            int[] entry =
+                    stack.pop();
+
+            int node = entry[0];
+            int from = entry[1];
+
+            for (int k = 0; k < neighbors[node].length; k++) {
+                int child =
+                        neighbors[node][k];
+
+                if (child != from) {
+                    topology.attach(node, child, lengths[node][k]);
+                    stack.push(new int[]{child, node});
+                }
+            }
+        }
+
+        return topology;
+    }
+
+    private static int furthestNode(
+            int start,
+            int[][] neighbors,
+            double[][] lengths,
+            int[] parent,
+            double[] distance
+    ) {
+        Arrays.fill(parent, -1);
+        distance[start] = 0.0;
+
+        Deque<int[]> stack =
+                new ArrayDeque<>();
+
+        stack.push(new int[]{start, -1});
+
+        int furthest = start;
+
+        while (!stack.isEmpty()) {
+            int[] entry =
+                    stack.pop();
+
+            int node = entry[0];
+            int from = entry[1];
+
+            if (distance[node] > distance[furthest]) {
+                furthest = node;
+            }
+
+            for (int k = 0; k < neighbors[node].length; k++) {
+                int next =
+                        neighbors[node][k];
+
+                if (next != from) {
+                    parent[next] = node;
+                    distance[next] = distance[node] + lengths[node][k];
+                    stack.push(new int[]{next, node});
+                }
+            }
+        }
+
+        return furthest;
+    }
+
+    private static double clockRate(TreeModel treeModel, BranchRateModel branchRateModel) {
+        if (!(branchRateModel instanceof StrictClockBranchRates)) {
+            return 1.0;
+        }
+
+        double rate =
+                branchRateModel.getBranchRate(treeModel, treeModel.getRoot());
+
+        return rate > 0.0 && Double.isFinite(rate) ? rate : 1.0;
+    }
+
+    /**
+     * Converts the branch lengths of {@code topology} to node heights in time
+     * units, respecting the tip dates and optionally a fixed root height.
+     *
+     * @return the node heights, or {@code null} if the tree does not fit below
+     * {@code rootHeight}
+     */
+    static double[] timeHeights(
+            RootedTopology topology,
+            List<Taxon> taxa,
+            double clockRate,
+            Double rootHeight
+    ) {
+        int[] postOrder =
+                topology.postOrder();
+
+        double[] heights =
+                new double[topology.nodeCount()];
+
+        for (int node : postOrder) {
+            if (topology.isTip(node)) {
+                heights[node] = Math.max(0.0, taxa.get(node).getHeight());
+            } else {
+                heights[node] =
+                        Math.max(
+                                heights[topology.left[node]] + topology.branchLength[topology.left[node]] / clockRate,
+                                heights[topology.right[node]] + topology.branchLength[topology.right[node]] / clockRate
+                        );
+            }
+        }
+
+        enforceMinimumBranches(
+                topology,
+                postOrder,
+                heights,
+                1.0,
+                MIN_BRANCH_FRACTION * Math.max(heights[topology.root], MIN_BRANCH_FRACTION)
+        );
+
+        if (rootHeight == null) {
+            return heights;
+        }
+
+        enforceMinimumBranches(
+                topology,
+                postOrder,
+                heights,
+                rootHeight / heights[topology.root],
+                MIN_BRANCH_FRACTION * MIN_BRANCH_FRACTION * rootHeight
+        );
+
+        if (heights[topology.root] > rootHeight * (1.0 + 1e-12)) {
+            return null;
+        }
+
+        heights[topology.root] = rootHeight;
+
+        return heights;
+    }
+
+    private static void enforceMinimumBranches(
+            RootedTopology topology,
+            int[] postOrder,
+            double[] heights,
+            double scale,
+            double minBranch
+    ) {
+        for (int node : postOrder) {
+            if (!topology.isTip(node)) {
+                heights[node] =
+                        Math.max(
+                                heights[node] * scale,
+                                Math.max(heights[topology.left[node]], heights[topology.right[node]]) + minBranch
+                        );
+            }
+        }
+    }
+
+    private static void adopt(TreeModel treeModel, RootedTopology topology, double[] heights) {
+        int nodeCount =
+                topology.nodeCount();
+
+        NodeRef[] nodes =
+                new NodeRef[nodeCount];
+
+        int internalIndex = 0;
+
+        for (int node = 0; node < nodeCount; node++) {
+            nodes[node] =
+                    topology.isTip(node)
+                            ? treeModel.getExternalNode(node)
+                            : treeModel.getInternalNode(internalIndex++);
+        }
+
+        treeModel.beginTreeEdit();
+
+        for (int i = 0; i < treeModel.getInternalNodeCount(); i++) {
+            NodeRef node =
+                    treeModel.getInternalNode(i);
+
+            while (treeModel.getChildCount(node) > 0) {
+                treeModel.removeChild(node, treeModel.getChild(node, 0));
+            }
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            if (!topology.isTip(node)) {
+                treeModel.addChild(nodes[node], nodes[topology.left[node]]);
+                treeModel.addChild(nodes[node], nodes[topology.right[node]]);
+                treeModel.setNodeHeight(nodes[node], heights[node]);
+            }
+        }
+
+        treeModel.setRoot(nodes[topology.root]);
+        treeModel.endTreeEdit();
+    }
+
+    /**
+     * Builds the starting tree as a {@link SimpleNode} hierarchy, mainly for
+     * inspection and tests.
+     */
+    static SimpleNode toSimpleNode(RootedTopology topology, List<Taxon> taxa, double[] heights) {
+        SimpleNode[] nodes =
+                new SimpleNode[topology.nodeCount()];
+
+        for (int node : topology.postOrder()) {
+            nodes[node] = new SimpleNode();
+            nodes[node].setHeight(heights[node]);
+
+            if (topology.isTip(node)) {
+                nodes[node].setTaxon(taxa.get(node));
+            } else {
+                nodes[node].addChild(nodes[topology.left[node]]);
+                nodes[node].addChild(nodes[topology.right[node]]);
+            }
+        }
+
+        return nodes[topology.root];
+    }
+
+    /**
+     * Rooted binary tree over node indices, where {@code 0..tipCount-1} are the
+     * tips in taxon order.
+     */
+    static final class RootedTopology {
+
+        final int tipCount;
+        final int[] left;
+        final int[] right;
+        final int[] parent;
+        final double[] branchLength;
+        int root = -1;
+
+        RootedTopology(int tipCount) {
+            this.tipCount = tipCount;
+            this.left = new int[2 * tipCount - 1];
+            this.right = new int[2 * tipCount - 1];
+            this.parent = new int[2 * tipCount - 1];
+            this.branchLength = new double[2 * tipCount - 1];
+
+            Arrays.fill(this.left, -1);
+            Arrays.fill(this.right, -1);
+            Arrays.fill(this.parent, -1);
+        }
+
+        int nodeCount() {
+            return 2 * this.tipCount - 1;
+        }
+
+        boolean isTip(int node) {
+            return node < this.tipCount;
+        }
+
+        void join(int node, int first, int second) {
+            this.left[node] = first;
+            this.right[node] = second;
+            this.parent[first] = node;
+            this.parent[second] = node;
+        }
+
+        void attach(int node, int child, double length) {
+            if (this.left[node] < 0) {
+                this.left[node] = child;
+            } else {
+                this.right[node] = child;
+            }
+
+            this.parent[child] = node;
+            this.branchLength[child] = Math.max(length, 0.0);
+        }
+
+        int[] postOrder() {
+            int[] order =
+                    new int[this.nodeCount()];
+
+            int[] stack =
+                    new int[this.nodeCount()];
+
+            int size = 0;
+            int position = order.length;
+
+            // reversed pre-order with right children visited first is a post-order
+            stack[size++] = this.root;
+
+            while (size > 0) {
+                int node =
+                        stack[--size];
+
+                order[--position] = node;
+
+                if (!this.isTip(node)) {
+                    stack[size++] = this.left[node];
+                    stack[size++] = this.right[node];
+                }
+            }
+
+            return order;
+        }
+    }
+}
@@ -219,6 +219,7 @@ public class FossilizedBirthDeathTile extends GeneratorTile<
         return new BoundDistribution<>(
                 likelihood,
                 defaultTreeModel,
+                InitialTreeBuilder.distanceStartingTree(rootAge),
                 treeModel -> {
                     // SpeciationLikelihood receives the tree in its constructor.
                 }
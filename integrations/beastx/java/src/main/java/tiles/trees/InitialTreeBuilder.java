@@ -7,12 +7,21 @@ import dr.evolution.util.Taxon;
 import org.phylospec.domain.NonNegativeReal;
 import org.phylospec.tiling.errors.TileApplicationError;
 import org.phylospec.types.RealScalar;
+import tiling.model.StartingTreeSpec;
 
 final class InitialTreeBuilder {
 
     private InitialTreeBuilder() {
     }
 
+    /**
+     * Starting tree spec for trees that begin as a balanced tree and are
+     * replaced by a distance tree once an alignment is observed on them.
+     */
+    static StartingTreeSpec distanceStartingTree(RealScalar<? extends NonNegativeReal> rootAge) {
+        return StartingTreeSpec.distanceTree(rootAge == null ? null : rootAge.get());
+    }
+
     static SimpleTree balancedTree(
             Taxa taxa,
             String modelName
@@ -112,6 +112,7 @@ public class SkylineCoalescentTile extends GeneratorTile<
         return new BoundDistribution<>(
                 likelihood,
                 defaultTreeModel,
+                InitialTreeBuilder.distanceStartingTree(null),
                 treeModel -> {
                     // CoalescentLikelihood receives TreeIntervals built from the initial tree.
                 }
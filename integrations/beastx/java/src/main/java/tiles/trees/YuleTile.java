@@ -68,6 +68,7 @@ public class YuleTile extends GeneratorTile<
 
         return new BoundDistribution<>(
                 defaultTreeModel,
+                InitialTreeBuilder.distanceStartingTree(rootAge),
                 treeModel -> {
                     return new SpeciationLikelihood(
                             treeModel,
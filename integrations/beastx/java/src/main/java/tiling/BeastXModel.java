@@ -2,7 +2,9 @@ package tiling;
 
 import dr.inference.model.CompoundLikelihood;
 import dr.inference.model.Likelihood;
+import tiling.cost.BeastXCostEstimator;
 import tiling.model.BeastXPhyloCTMCLikelihoodSpec;
+import tiling.model.SitePatternCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -43,6 +45,28 @@ public class BeastXModel {
             BeastXState beastState,
             boolean materializePhyloCTMC
     ) {
+        return fromBeastXState(
+                beastState,
+                materializePhyloCTMC,
+                1
+        );
+    }
+
+    /**
+     * Builds the model and evaluates independent likelihood terms on a
+     * thread pool of up to {@code likelihoodThreadCount} threads.
+     *
+     * <p>A value of {@code 1} keeps the sequential BEAST X default.</p>
+     */
+    public static BeastXModel fromBeastXState(
+            BeastXState beastState,
+            boolean materializePhyloCTMC,
+            int likelihoodThreadCount
+    ) {
+        if (likelihoodThreadCount <= 0) {
+            throw new IllegalArgumentException("likelihoodThreadCount must be positive.");
+        }
+
         if (materializePhyloCTMC) {
             materializePhyloCTMCLikelihoods(beastState);
         }
@@ -51,7 +75,7 @@ public class BeastXModel {
                 buildPrior(beastState);
 
         CompoundLikelihood likelihood =
-                buildLikelihood(beastState);
+                buildLikelihood(beastState, likelihoodThreadCount);
 
         CompoundLikelihood posterior =
                 buildPosterior(beastState, prior, likelihood);
@@ -68,13 +92,26 @@ public class BeastXModel {
         List<Likelihood> materializedLikelihoods =
                 new ArrayList<>();
 
+        // likelihoods of the same alignment, e.g. clock or site model variants, share its patterns
+        SitePatternCache sitePatternCache =
+                new SitePatternCache();
+
         for (Likelihood likelihood : beastState.likelihoodDistributions) {
             if (likelihood instanceof BeastXPhyloCTMCLikelihoodSpec phyloCTMCLikelihoodSpec) {
                 Likelihood materializedLikelihood =
-                        phyloCTMCLikelihoodSpec.materializeBeagleTreeLikelihood();
+                        phyloCTMCLikelihoodSpec.materializeLikelihood(
+                                sitePatternCache,
+                                beastState.likelihoodPatternChunks
+                        );
 
                 materializedLikelihood.setId(phyloCTMCLikelihoodSpec.getId());
                 materializedLikelihoods.add(materializedLikelihood);
+
+                beastState.likelihoodOperations.put(
+                        materializedLikelihood,
+                        BeastXCostEstimator.partitionCost(phyloCTMCLikelihoodSpec, sitePatternCache)
+                                .operationsPerEvaluation()
+                );
             } else {
                 materializedLikelihoods.add(likelihood);
             }
@@ -100,14 +137,23 @@ public class BeastXModel {
         return prior;
     }
 
-    private static CompoundLikelihood buildLikelihood(BeastXState beastState) {
+    private static CompoundLikelihood buildLikelihood(
+            BeastXState beastState,
+            int likelihoodThreadCount
+    ) {
         List<Likelihood> likelihoods =
                 new ArrayList<>(beastState.likelihoodDistributions);
 
         likelihoods.addAll(beastState.observedTreeDistributions.values());
 
+        // a thread pool only pays off with several independent terms, e.g. one per partition
+        int threadCount =
+                Math.min(likelihoodThreadCount, likelihoods.size());
+
         CompoundLikelihood likelihood =
-                new CompoundLikelihood(likelihoods);
+                threadCount > 1
+                        ? new CompoundLikelihood(threadCount, likelihoods)
+                        : new CompoundLikelihood(likelihoods);
 
         likelihood.setId(beastState.getAvailableID("likelihood"));
 
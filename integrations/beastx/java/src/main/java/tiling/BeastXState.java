@@ -10,6 +10,8 @@ import dr.inference.model.Likelihood;
 import dr.inference.model.Parameter;
 import dr.inference.model.Statistic;
 import org.phylospec.tiling.TypeToken;
+import tiling.gradients.LogDensityGradient;
+import tiling.mcmc.AsyncLogWriter;
 import tiling.model.StartingTreeSpec;
 import tiling.params.BeastXParam;
 import tiling.xml.XmlPlan;
@@ -46,12 +48,18 @@ public class BeastXState {
     // Tree models keyed by their original PhyloSpec variable names.
     public final Map<String, TreeModel> treeModelsByPhyloSpecName;
     public final Map<Parameter, AbstractDistributionLikelihood> priorDistributions;
+
+    // Analytic log-density derivatives of priors created by differentiable generator tiles.
+    public final Map<AbstractDistributionLikelihood, LogDensityGradient> priorLogDensityGradients;
     public final Map<TreeModel, AbstractModelLikelihood> treePriorDistributions;
     public final Map<TreeModel, AbstractModelLikelihood> observedTreeDistributions;
     public final Map<TreeModel, StartingTreeSpec> startingTreeSpecs;
     public final List<AbstractDistributionLikelihood> calibrationPriorDistributions;
     public final List<Likelihood> likelihoodDistributions;
 
+    // Multiply-adds of one full evaluation of every materialized PhyloCTMC likelihood.
+    public final Map<Likelihood, Double> likelihoodOperations;
+
     // Clock models associated with each tree.
     public final Map<TreeModel, List<Parameter>> treeClockRateParameters;
     public final Map<TreeModel, List<Parameter>> treeStrictClockRateParameters;
@@ -71,6 +79,39 @@ public class BeastXState {
     public String outputPrefix = null;
     public long defaultLogEvery = 1;
 
+    // Site pattern chunks each PhyloCTMC likelihood is split into and evaluated on in parallel.
+    public int likelihoodPatternChunks = 1;
+
+    // Characters buffered per log file before they are handed to its background writer.
+    public int logBufferSize = AsyncLogWriter.DEFAULT_BUFFER_SIZE;
+
+    // Whether every file logger also writes a binary columnar trace next to its tab-delimited log.
+    public boolean binaryTraces = false;
+
+    // States between posterior summary reports printed during the run; null disables the online summary.
+    public Long traceSummaryEvery = null;
+
+    // Leading fraction of the chain left out of the online posterior summary.
+    public double traceSummaryBurnInFraction = 0.1;
+
+    // Minimum ESS of every summarized column at which the chain stops before its length; null runs the full length.
+    public Double stopAtMinimumEss = null;
+
+    // States between checks of the convergence target.
+    public long convergenceCheckEvery = 10_000;
+
+    // Whether screen loggers print to standard output; batch runs turn them off.
+    public boolean screenLogging = true;
+
+    // Whether chains publish JFR events and a JMX MBean while they run.
+    public boolean chainMonitoring = true;
+
+    // Replacement values for constant literals, read when the tiling is applied.
+    public final LiteralOverrides literalOverrides = new LiteralOverrides();
+
+    // Data files loaded while the model was tiled, taken by the file tiles.
+    public DataPrefetch dataPrefetch = DataPrefetch.NONE;
+
     private final Set<String> ids;
 
     public BeastXState(String runName) {
@@ -81,11 +122,13 @@ public class BeastXState {
         this.calculationNodesByPhyloSpecName = new HashMap<>();
         this.treeModelsByPhyloSpecName = new HashMap<>();
         this.priorDistributions = new HashMap<>();
+        this.priorLogDensityGradients = new HashMap<>();
         this.treePriorDistributions = new HashMap<>();
         this.observedTreeDistributions = new HashMap<>();
         this.startingTreeSpecs = new HashMap<>();
         this.calibrationPriorDistributions = new ArrayList<>();
         this.likelihoodDistributions = new ArrayList<>();
+        this.likelihoodOperations = new HashMap<>();
         this.treeClockRateParameters = new HashMap<>();
         this.treeStrictClockRateParameters = new HashMap<>();
         this.treeRelaxedClockModels = new HashMap<>();
@@ -326,6 +369,18 @@ public class BeastXState {
         public double treeClockUpDownWeight = 5.0;
         public double treeClockUpDownScaleFactor = 0.75;
 
+        // Weight of the joint adaptive multivariate normal move over continuous parameters; 0 disables it.
+        public double multivariateOperatorWeight = 5.0;
+
+        // Weight of the Hamiltonian move for each continuous vector read only by a differentiable prior; off by default.
+        public double hamiltonianOperatorWeight = 0.0;
+
+        // Fraction of the chain during which operator weights adapt; off by default, 0 keeps the selected weights.
+        public double operatorAdaptationFraction = 0.0;
+
+        // Fraction of the chain during which adaptive moves learn their proposals; null uses the chain's burn-in.
+        public Double proposalAdaptationFraction = null;
+
         // Updates one supported operator setting by name.
         public void set(String settingName, double value) {
             switch (settingName) {
@@ -342,6 +397,8 @@ public class BeastXState {
                 case "treeWilsonBaldingWeight" -> this.treeWilsonBaldingWeight = value;
                 case "treeClockUpDownWeight" -> this.treeClockUpDownWeight = value;
                 case "treeClockUpDownScaleFactor" -> this.treeClockUpDownScaleFactor = value;
+                case "multivariateOperatorWeight" -> this.multivariateOperatorWeight = value;
+                case "hamiltonianOperatorWeight" -> this.hamiltonianOperatorWeight = value;
                 case "treeScaleFactor" -> this.treeScaleFactor = value;
                 case "treeNodeHeightWeight" -> {
                     this.treeUniformNodeHeightWeight = value / 2.0;
@@ -350,6 +407,8 @@ public class BeastXState {
                 case "treeUniformNodeHeightWeight" -> this.treeUniformNodeHeightWeight = value;
                 case "treeRandomWalkNodeHeightWeight" -> this.treeRandomWalkNodeHeightWeight = value;
                 case "treeRandomWalkNodeHeightSize" -> this.treeRandomWalkNodeHeightSize = value;
+                case "operatorAdaptationFraction" -> this.operatorAdaptationFraction = value;
+                case "proposalAdaptationFraction" -> this.proposalAdaptationFraction = value;
                 default -> throw new IllegalArgumentException("Unsupported BEAST X operator setting: " + settingName);
             }
         }
@@ -358,7 +417,8 @@ public class BeastXState {
         public static boolean isSupportedSetting(String settingName) {
             return isWeight(settingName)
                     || isScaleFactor(settingName)
-                    || isPositiveSetting(settingName);
+                    || isPositiveSetting(settingName)
+                    || isFraction(settingName);
         }
 
         public static boolean isWeight(String settingName) {
@@ -371,6 +431,8 @@ public class BeastXState {
                     "treeWideExchangeWeight",
                     "treeWilsonBaldingWeight",
                     "treeClockUpDownWeight",
+                    "multivariateOperatorWeight",
+                    "hamiltonianOperatorWeight",
                     "treeNodeHeightWeight",
                     "treeUniformNodeHeightWeight",
                     "treeRandomWalkNodeHeightWeight"
@@ -393,6 +455,13 @@ public class BeastXState {
                     "treeRandomWalkNodeHeightSize"
             ).contains(settingName);
         }
+
+        public static boolean isFraction(String settingName) {
+            return Set.of(
+                    "operatorAdaptationFraction",
+                    "proposalAdaptationFraction"
+            ).contains(settingName);
+        }
     }
 
     public record ScreenLoggerSpec(long logEvery, List<String> parameterNames) {
@@ -0,0 +1,211 @@
+package tiling;
+
+import org.phylospec.ast.Expr;
+import org.phylospec.ast.Stmt;
+import org.phylospec.profiling.PipelineProfile;
+import tiles.input.FromCSVTile;
+import tiles.input.FromFastaTile;
+import tiles.input.FromNexusTile;
+import tiles.input.FromTreeTile;
+import tiling.runner.BeastXRunPipeline;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Loads the data files a model names while the model is still being type
+ * checked and tiled, so that file I/O and parsing overlap with the rest of
+ * the pipeline instead of running when the file tiles are applied.
+ *
+ * <p>Files named by a string literal in a top-level assignment, such as
+ * {@code Alignment data = fromNexus("h1n1.nex")}, are loaded concurrently,
+ * each on its own virtual thread, by the loader of their generator. When a
+ * file tile is applied it takes the prefetched value of its generator and
+ * path with {@link #take(String, String, Function)}, or loads the file
+ * itself if nothing was prefetched for it, as when a build overrides the
+ * path.</p>
+ *
+ * <p>Every prefetched value is handed out once, so states never share the
+ * BEAST X objects read from a file. Values that were not taken by the first
+ * build are dropped by {@link #clear()}.</p>
+ */
+public final class DataPrefetch {
+
+    /**
+     * A prefetch that holds nothing, so every file tile loads its file.
+     */
+    public static final DataPrefetch NONE =
+            new DataPrefetch();
+
+    private static final Map<String, Function<String, ?>> LOADERS =
+            Map.of(
+                    "fromNexus", FromNexusTile::importAlignment,
+                    "fromFasta", FromFastaTile::readAlignment,
+                    "fromTree", FromTreeTile::importTree,
+                    "fromCSV", FromCSVTile::readFile
+            );
+
+    private final Map<Key, FutureTask<?>> loads =
+            new LinkedHashMap<>();
+
+    private DataPrefetch() {
+    }
+
+    /**
+     * Starts loading every data file named in the statements and returns at
+     * once. Every load is timed as a {@code prefetch-data} phase of the
+     * profile.
+     */
+    public static DataPrefetch start(List<Stmt> statements, PipelineProfile profile) {
+        if (statements == null) {
+            throw new IllegalArgumentException("statements must not be null.");
+        }
+
+        if (profile == null) {
+            throw new IllegalArgumentException("profile must not be null.");
+        }
+
+        DataPrefetch prefetch =
+                new DataPrefetch();
+
+        for (Stmt statement : statements) {
+            while (statement instanceof Stmt.Decorated decorated) {
+                statement = decorated.statement;
+            }
+
+            if (
+                    !(statement instanceof Stmt.Assignment assignment)
+                            || !(assignment.expression instanceof Expr.Call call)
+            ) {
+                continue;
+            }
+
+            String generatorName =
+                    call.functionName.substring(call.functionName.lastIndexOf('.') + 1);
+
+            Function<String, ?> loader =
+                    LOADERS.get(generatorName);
+
+            String path =
+                    findFileArgument(call);
+
+            if (loader == null || path == null) {
+                continue;
+            }
+
+            prefetch.submit(new Key(generatorName, path), loader, profile);
+        }
+
+        return prefetch;
+    }
+
+    /**
+     * Returns the number of files that are loading or loaded and not taken
+     * yet.
+     */
+    public synchronized int size() {
+        return this.loads.size();
+    }
+
+    /**
+     * Returns the prefetched value of the generator's file, waiting for it
+     * to finish loading, or loads the file with {@code loader} if it was not
+     * prefetched or has already been taken. A failed prefetch throws the
+     * error the loader threw, such as a
+     * {@link org.phylospec.tiling.errors.TileApplicationError}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T take(String generatorName, String path, Function<String, T> loader) {
+        if (loader == null) {
+            throw new IllegalArgumentException("loader must not be null.");
+        }
+
+        FutureTask<?> load;
+
+        synchronized (this) {
+            load = this.loads.remove(new Key(generatorName, path));
+        }
+
+        if (load == null) {
+            return loader.apply(path);
+        }
+
+        try {
+            return (T) load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for '" + path + "' to load.", e);
+        } catch (CancellationException e) {
+            return loader.apply(path);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+
+            throw new IllegalStateException("Could not load '" + path + "'.", e.getCause());
+        }
+    }
+
+    /**
+     * Drops every value that has not been taken and cancels loads that are
+     * still running.
+     */
+    public synchronized void clear() {
+        for (FutureTask<?> load : this.loads.values()) {
+            load.cancel(true);
+        }
+
+        this.loads.clear();
+    }
+
+    private synchronized void submit(Key key, Function<String, ?> loader, PipelineProfile profile) {
+        if (this.loads.containsKey(key)) {
+            // the first of several assignments reading the same file takes it, the others load their own copy
+            return;
+        }
+
+        FutureTask<?> load =
+                new FutureTask<>(() -> {
+                    try (PipelineProfile.Phase phase = profile.start(BeastXRunPipeline.PREFETCH_DATA)) {
+                        phase.count("files", 1);
+                        return loader.apply(key.path());
+                    }
+                });
+
+        this.loads.put(key, load);
+
+        Thread.ofVirtual()
+                .name("phylospec-prefetch-" + key.generatorName())
+                .start(load);
+    }
+
+    private static String findFileArgument(Expr.Call call) {
+        for (Expr.Argument argument : call.arguments) {
+            boolean fileArgument =
+                    "file".equals(argument.name)
+                            || (argument.name == null && call.arguments.length == 1);
+
+            if (
+                    fileArgument
+                            && argument.expression instanceof Expr.Literal literal
+                            && literal.value instanceof String path
+            ) {
+                return path;
+            }
+        }
+
+        return null;
+    }
+
+    private record Key(String generatorName, String path) {
+    }
+}
@@ -0,0 +1,73 @@
+package tiling;
+
+import org.phylospec.ast.Expr;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replacement values for constant literals of a tiled model, applied when
+ * the tiling is applied to a {@link BeastXState}.
+ *
+ * <p>Values are kept as text and converted by the literal tile to the type
+ * the tiling chose for the literal. Lookups are recorded, so literals that no
+ * tile read at application time can be reported instead of being silently
+ * ignored.</p>
+ */
+public final class LiteralOverrides {
+
+    private final Map<Expr.Literal, String> values =
+            new IdentityHashMap<>();
+
+    private final Set<Expr.Literal> used =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public void put(Expr.Literal literal, String value) {
+        if (literal == null) {
+            throw new IllegalArgumentException("literal must not be null.");
+        }
+
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null.");
+        }
+
+        this.values.put(literal, value);
+    }
+
+    /**
+     * Returns the replacement value of the literal, or {@code null} if it
+     * keeps its value from the source.
+     */
+    public String get(Expr.Literal literal) {
+        String value =
+                this.values.get(literal);
+
+        if (value != null) {
+            this.used.add(literal);
+        }
+
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return this.values.isEmpty();
+    }
+
+    /**
+     * Returns the overridden literals that have not been looked up so far.
+     */
+    public Set<Expr.Literal> unused() {
+        Set<Expr.Literal> unused =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Expr.Literal literal : this.values.keySet()) {
+            if (!this.used.contains(literal)) {
+                unused.add(literal);
+            }
+        }
+
+        return unused;
+    }
+}
@@ -0,0 +1,592 @@
+package tiling.alignment;
+
+import dr.evolution.datatype.AminoAcids;
+import dr.evolution.datatype.DataType;
+import dr.evolution.datatype.Nucleotides;
+import dr.evolution.io.Importer;
+import dr.evolution.util.Taxon;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads FASTA and NEXUS alignments into {@link PackedAlignment}s by
+ * memory-mapping the file and copying sequence characters straight into one
+ * byte array per taxon.
+ *
+ * <p>Unlike the BEAST X importers, which read through a character reader
+ * and grow a string buffer per sequence, no line is decoded into a string
+ * and rows are sized to the alignment length up front, after the first FASTA
+ * sequence or from a NEXUS block's dimensions. Files of any size can be
+ * mapped, and they are unmapped as soon as they are read.</p>
+ *
+ * <p>NEXUS is only read in its common layout, see {@link #readNexus(Path)};
+ * other files are left to the BEAST X {@code NexusImporter}.</p>
+ */
+public final class MappedAlignmentReader {
+
+    private static final int INITIAL_ROW_LENGTH = 1024;
+
+    private MappedAlignmentReader() {
+    }
+
+    /**
+     * Reads a FASTA file. Taxa are named by their header line, and
+     * whitespace within sequences is skipped.
+     *
+     * @throws java.nio.file.NoSuchFileException if the file does not exist
+     * @throws Importer.ImportException          if the file is not a FASTA
+     *                                           alignment
+     */
+    public static PackedAlignment readFasta(Path path, DataType dataType) throws IOException, Importer.ImportException {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null.");
+        }
+
+        if (dataType == null) {
+            throw new IllegalArgumentException("dataType must not be null.");
+        }
+
+        try (
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                Arena arena = Arena.ofConfined()
+        ) {
+            MemorySegment file =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+
+            return parseFasta(file, dataType);
+        }
+    }
+
+    static PackedAlignment parseFasta(MemorySegment file, DataType dataType) throws Importer.ImportException {
+        long size =
+                file.byteSize();
+
+        long position =
+                skipWhitespace(file, 0);
+
+        if (position == size) {
+            throw new Importer.ImportException("The FASTA file holds no sequences.");
+        }
+
+        if (byteAt(file, position) != '>') {
+            throw new Importer.ImportException("A FASTA file must start with a '>' header line.");
+        }
+
+        List<Taxon> taxa =
+                new ArrayList<>();
+
+        List<byte[]> rows =
+                new ArrayList<>();
+
+        int rowLength =
+                INITIAL_ROW_LENGTH;
+
+        while (position < size) {
+            long headerEnd =
+                    lineEnd(file, position);
+
+            String name =
+                    new String(
+                            file.asSlice(position + 1, headerEnd - position - 1).toArray(ValueLayout.JAVA_BYTE),
+                            StandardCharsets.UTF_8
+                    ).trim();
+
+            if (name.isEmpty()) {
+                throw new Importer.ImportException("Sequence " + (taxa.size() + 1) + " has no name.");
+            }
+
+            byte[] row =
+                    new byte[rowLength];
+
+            int length = 0;
+
+            for (position = headerEnd; position < size; position++) {
+                byte character =
+                        byteAt(file, position);
+
+                if (character == '>') {
+                    break;
+                }
+
+                if (character < 0) {
+                    throw new Importer.ImportException(
+                            "Sequence '" + name + "' has a non-ASCII character at site " + (length + 1) + "."
+                    );
+                }
+
+                if (character <= ' ') {
+                    continue;
+                }
+
+                if (length == row.length) {
+                    row = Arrays.copyOf(row, row.length + Math.max(row.length / 2, INITIAL_ROW_LENGTH));
+                }
+
+                row[length++] = character;
+            }
+
+            if (length == 0) {
+                throw new Importer.ImportException("Sequence '" + name + "' is empty.");
+            }
+
+            taxa.add(new Taxon(name));
+            rows.add(length == row.length ? row : Arrays.copyOf(row, length));
+
+            // aligned sequences all have the length of the first one
+            rowLength = length;
+        }
+
+        return new PackedAlignment(dataType, taxa, rows);
+    }
+
+    /**
+     * Reads the first DATA or CHARACTERS block of a NEXUS file if it has the
+     * layout most tools write: DNA, RNA, nucleotide or protein characters
+     * with the default missing ({@code ?}) and gap ({@code -}) symbols, and a
+     * matrix that is not interleaved, has no match character and holds one
+     * state per site. Taxa are named by their matrix labels, and comments are
+     * skipped.
+     *
+     * <p>Returns empty for any other block, such as an interleaved or
+     * STANDARD matrix, or one with polymorphic states, which the BEAST X
+     * {@code NexusImporter} reads instead.</p>
+     *
+     * @throws java.nio.file.NoSuchFileException if the file does not exist
+     * @throws Importer.ImportException          if the matrix does not hold
+     *                                           the taxa and sites its block
+     *                                           declares
+     */
+    public static Optional<PackedAlignment> readNexus(Path path) throws IOException, Importer.ImportException {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null.");
+        }
+
+        try (
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                Arena arena = Arena.ofConfined()
+        ) {
+            MemorySegment file =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+
+            return parseNexus(file);
+        }
+    }
+
+    static Optional<PackedAlignment> parseNexus(MemorySegment file) throws Importer.ImportException {
+        NexusTokens tokens =
+                new NexusTokens(file);
+
+        if (!"#NEXUS".equalsIgnoreCase(tokens.next())) {
+            return Optional.empty();
+        }
+
+        Integer taxonCount = null;
+
+        for (String token = tokens.next(); token != null; token = tokens.next()) {
+            if (!token.equalsIgnoreCase("BEGIN")) {
+                return Optional.empty();
+            }
+
+            String block =
+                    String.valueOf(tokens.next()).toUpperCase(Locale.ROOT);
+
+            if (!";".equals(tokens.next())) {
+                return Optional.empty();
+            }
+
+            if (block.equals("DATA") || block.equals("CHARACTERS")) {
+                return parseNexusCharacters(tokens, taxonCount);
+            }
+
+            for (String command = tokens.next(); !isBlockEnd(command); command = tokens.next()) {
+                List<String> arguments =
+                        tokens.arguments();
+
+                if (command == null || arguments == null) {
+                    return Optional.empty();
+                }
+
+                // a TAXA block may give the number of taxa that the characters block leaves out
+                if (block.equals("TAXA") && command.equalsIgnoreCase("DIMENSIONS")) {
+                    Map<String, String> settings =
+                            settings(arguments);
+
+                    taxonCount = settings != null ? parseCount(settings.get("NTAX")) : null;
+                }
+            }
+
+            tokens.arguments();
+        }
+
+        return Optional.empty();
+    }
+
+    private static Optional<PackedAlignment> parseNexusCharacters(
+            NexusTokens tokens,
+            Integer taxaBlockTaxonCount
+    ) throws Importer.ImportException {
+        Integer taxonCount =
+                taxaBlockTaxonCount;
+
+        Integer siteCount = null;
+
+        DataType dataType = null;
+
+        while (true) {
+            String command =
+                    tokens.next();
+
+            if (command == null || isBlockEnd(command)) {
+                return Optional.empty();
+            }
+
+            if (command.equalsIgnoreCase("MATRIX")) {
+                break;
+            }
+
+            List<String> arguments =
+                    tokens.arguments();
+
+            Map<String, String> settings =
+                    arguments != null ? settings(arguments) : null;
+
+            if (settings == null) {
+                return Optional.empty();
+            }
+
+            switch (command.toUpperCase(Locale.ROOT)) {
+                case "DIMENSIONS" -> {
+                    for (Map.Entry<String, String> setting : settings.entrySet()) {
+                        switch (setting.getKey()) {
+                            case "NTAX" -> taxonCount = parseCount(setting.getValue());
+                            case "NCHAR" -> siteCount = parseCount(setting.getValue());
+                            default -> {
+                                return Optional.empty();
+                            }
+                        }
+                    }
+                }
+                case "FORMAT" -> {
+                    for (Map.Entry<String, String> setting : settings.entrySet()) {
+                        boolean supported =
+                                switch (setting.getKey()) {
+                                    case "DATATYPE" -> (dataType = dataType(setting.getValue())) != null;
+                                    case "MISSING" -> setting.getValue().equals("?");
+                                    case "GAP" -> setting.getValue().equals("-");
+                                    case "INTERLEAVE" -> setting.getValue().equalsIgnoreCase("NO");
+                                    default -> false;
+                                };
+
+                        if (!supported) {
+                            return Optional.empty();
+                        }
+                    }
+                }
+                default -> {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        // NEXUS characters default to STANDARD, which only the importer reads
+        if (taxonCount == null || siteCount == null || dataType == null) {
+            return Optional.empty();
+        }
+
+        List<Taxon> taxa =
+                new ArrayList<>(taxonCount);
+
+        List<byte[]> rows =
+                new ArrayList<>(taxonCount);
+
+        for (int i = 0; i < taxonCount; i++) {
+            String name =
+                    tokens.next();
+
+            if (name == null || name.equals(";")) {
+                throw new Importer.ImportException(
+                        "The matrix holds " + i + " sequences, but NTAX is " + taxonCount + "."
+                );
+            }
+
+            byte[] row =
+                    new byte[siteCount];
+
+            int length =
+                    tokens.states(name, row);
+
+            // polymorphic or uncertain states
+            if (length < 0) {
+                return Optional.empty();
+            }
+
+            if (length < siteCount) {
+                throw new Importer.ImportException(
+                        "Sequence '" + name + "' has " + length + " sites, but NCHAR is " + siteCount + "."
+                );
+            }
+
+            taxa.add(new Taxon(name));
+            rows.add(row);
+        }
+
+        if (!";".equals(tokens.next())) {
+            throw new Importer.ImportException(
+                    "The matrix holds more than NTAX=" + taxonCount + " sequences of NCHAR=" + siteCount + " sites."
+            );
+        }
+
+        return Optional.of(new PackedAlignment(dataType, taxa, rows));
+    }
+
+    private static boolean isBlockEnd(String command) {
+        return command != null && (command.equalsIgnoreCase("END") || command.equalsIgnoreCase("ENDBLOCK"));
+    }
+
+    // reads KEY=value settings and bare flags, which map to an empty value, or returns null if malformed
+    private static Map<String, String> settings(List<String> arguments) {
+        Map<String, String> settings =
+                new HashMap<>();
+
+        for (int i = 0; i < arguments.size(); i++) {
+            String key =
+                    arguments.get(i).toUpperCase(Locale.ROOT);
+
+            if (key.equals("=")) {
+                return null;
+            }
+
+            if (i + 1 < arguments.size() && arguments.get(i + 1).equals("=")) {
+                if (i + 2 == arguments.size()) {
+                    return null;
+                }
+
+                settings.put(key, arguments.get(i + 2));
+                i += 2;
+            } else {
+                settings.put(key, "");
+            }
+        }
+
+        return settings;
+    }
+
+    private static Integer parseCount(String value) {
+        try {
+            int count =
+                    Integer.parseInt(value);
+
+            return count > 0 ? count : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static DataType dataType(String name) {
+        return switch (name.toUpperCase(Locale.ROOT)) {
+            case "DNA", "RNA", "NUCLEOTIDE" -> Nucleotides.INSTANCE;
+            case "PROTEIN" -> AminoAcids.INSTANCE;
+            default -> null;
+        };
+    }
+
+    private static long skipWhitespace(MemorySegment file, long position) {
+        while (position < file.byteSize() && byteAt(file, position) >= 0 && byteAt(file, position) <= ' ') {
+            position++;
+        }
+
+        return position;
+    }
+
+    private static long lineEnd(MemorySegment file, long position) {
+        while (position < file.byteSize() && byteAt(file, position) != '\n' && byteAt(file, position) != '\r') {
+            position++;
+        }
+
+        return position;
+    }
+
+    private static byte byteAt(MemorySegment file, long position) {
+        return file.get(ValueLayout.JAVA_BYTE, position);
+    }
+
+    // Splits NEXUS text into words, quoted words, '=' and ';', skipping whitespace and [comments].
+    private static final class NexusTokens {
+
+        private final MemorySegment file;
+
+        private long position;
+
+        NexusTokens(MemorySegment file) {
+            this.file = file;
+        }
+
+        String next() throws Importer.ImportException {
+            skipBlanks();
+
+            if (this.position == this.file.byteSize()) {
+                return null;
+            }
+
+            byte character =
+                    byteAt(this.file, this.position);
+
+            if (character == ';' || character == '=') {
+                this.position++;
+                return String.valueOf((char) character);
+            }
+
+            if (character == '\'') {
+                return quoted();
+            }
+
+            long start =
+                    this.position;
+
+            while (this.position < this.file.byteSize() && !isDelimiter(byteAt(this.file, this.position))) {
+                this.position++;
+            }
+
+            return text(start, this.position);
+        }
+
+        /**
+         * Returns the tokens up to the end of the current command, without its
+         * {@code ;}, or {@code null} if the file ends first.
+         */
+        List<String> arguments() throws Importer.ImportException {
+            List<String> arguments =
+                    new ArrayList<>();
+
+            for (String token = next(); !";".equals(token); token = next()) {
+                if (token == null) {
+                    return null;
+                }
+
+                arguments.add(token);
+            }
+
+            return arguments;
+        }
+
+        /**
+         * Copies the states of one matrix row into {@code row} until it is full
+         * or the matrix ends, and returns how many were copied, or {@code -1}
+         * at a polymorphic or uncertain state.
+         */
+        int states(String name, byte[] row) throws Importer.ImportException {
+            int length = 0;
+
+            while (length < row.length) {
+                skipBlanks();
+
+                if (this.position == this.file.byteSize()) {
+                    break;
+                }
+
+                byte character =
+                        byteAt(this.file, this.position);
+
+                if (character == ';') {
+                    break;
+                }
+
+                if (character == '(' || character == '{') {
+                    return -1;
+                }
+
+                if (character < 0) {
+                    throw new Importer.ImportException(
+                            "Sequence '" + name + "' has a non-ASCII character at site " + (length + 1) + "."
+                    );
+                }
+
+                row[length++] = character;
+                this.position++;
+            }
+
+            return length;
+        }
+
+        private String quoted() throws Importer.ImportException {
+            long start =
+                    ++this.position;
+
+            // a doubled quote stands for one quote within the name
+            while (this.position < this.file.byteSize()) {
+                if (byteAt(this.file, this.position) != '\'') {
+                    this.position++;
+                } else if (this.position + 1 < this.file.byteSize() && byteAt(this.file, this.position + 1) == '\'') {
+                    this.position += 2;
+                } else {
+                    String name =
+                            text(start, this.position++);
+
+                    return name.replace("''", "'");
+                }
+            }
+
+            throw new Importer.ImportException("A quoted name is not closed.");
+        }
+
+        private void skipBlanks() throws Importer.ImportException {
+            while (this.position < this.file.byteSize()) {
+                byte character =
+                        byteAt(this.file, this.position);
+
+                if (character == '[') {
+                    skipComment();
+                } else if (character >= 0 && character <= ' ') {
+                    this.position++;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        // comments may be nested
+        private void skipComment() throws Importer.ImportException {
+            int depth = 0;
+
+            do {
+                if (this.position == this.file.byteSize()) {
+                    throw new Importer.ImportException("A comment is not closed.");
+                }
+
+                byte character =
+                        byteAt(this.file, this.position++);
+
+                if (character == '[') {
+                    depth++;
+                } else if (character == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        }
+
+        private String text(long from, long to) {
+            return new String(
+                    this.file.asSlice(from, to - from).toArray(ValueLayout.JAVA_BYTE),
+                    StandardCharsets.UTF_8
+            );
+        }
+
+        private static boolean isDelimiter(byte character) {
+            return character >= 0 && (character <= ' ' || character == ';' || character == '=' || character == '[');
+        }
+    }
+}
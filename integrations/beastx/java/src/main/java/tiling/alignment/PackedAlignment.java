@@ -0,0 +1,212 @@
+package tiling.alignment;
+
+import dr.evolution.alignment.Alignment;
+import dr.evolution.alignment.SimpleAlignment;
+import dr.evolution.datatype.DataType;
+import dr.evolution.sequence.Sequence;
+import dr.evolution.util.Taxon;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An alignment holding every sequence as one byte per site, as read from
+ * the data file, instead of as a string buffer per sequence.
+ *
+ * <p>Site patterns are read straight from the packed rows through
+ * {@link #getSitePattern(int, int[])}, which fills a caller-owned array, so
+ * compressing a genome-scale alignment into patterns neither builds
+ * sequence strings nor allocates an array per site. Sequence strings are
+ * only built when asked for, such as when the alignment is written to
+ * BEAST X XML.</p>
+ *
+ * <p>Characters are restricted to ASCII, as in every alignment format read
+ * by PhyloSpec. Sites past the end of a shorter sequence are gaps.</p>
+ */
+public final class PackedAlignment extends SimpleAlignment {
+
+    private final byte[][] rows;
+
+    private volatile StateTable stateTable;
+
+    public PackedAlignment(DataType dataType, List<Taxon> taxa, List<byte[]> rows) {
+        if (dataType == null) {
+            throw new IllegalArgumentException("dataType must not be null.");
+        }
+
+        if (taxa == null || rows == null) {
+            throw new IllegalArgumentException("taxa and rows must not be null.");
+        }
+
+        if (taxa.size() != rows.size()) {
+            throw new IllegalArgumentException("Every taxon needs exactly one row.");
+        }
+
+        this.rows = rows.toArray(new byte[0][]);
+
+        setDataType(dataType);
+
+        for (int i = 0; i < this.rows.length; i++) {
+            addSequence(new PackedSequence(taxa.get(i), this.rows[i], dataType));
+        }
+
+        updateSiteCount();
+    }
+
+    /**
+     * Packs the sequences of an alignment read by a BEAST X importer. The
+     * taxa are shared with the given alignment, so dates set on them later
+     * apply to both.
+     */
+    public static PackedAlignment copyOf(Alignment alignment) {
+        if (alignment == null) {
+            throw new IllegalArgumentException("alignment must not be null.");
+        }
+
+        if (alignment instanceof PackedAlignment packed) {
+            return packed;
+        }
+
+        Taxon[] taxa =
+                new Taxon[alignment.getSequenceCount()];
+
+        byte[][] rows =
+                new byte[alignment.getSequenceCount()][];
+
+        for (int i = 0; i < rows.length; i++) {
+            taxa[i] = alignment.getSequence(i).getTaxon();
+            rows[i] = pack(alignment.getAlignedSequenceString(i), taxa[i]);
+        }
+
+        return new PackedAlignment(alignment.getDataType(), Arrays.asList(taxa), Arrays.asList(rows));
+    }
+
+    @Override
+    public int getState(int taxonIndex, int siteIndex) {
+        byte[] row =
+                this.rows[taxonIndex];
+
+        if (siteIndex >= row.length) {
+            return getDataType().getGapState();
+        }
+
+        return stateTable().states()[row[siteIndex]];
+    }
+
+    /**
+     * Writes the states of every taxon at a site into {@code pattern}, which
+     * must hold one entry per taxon, and returns it.
+     */
+    public int[] getSitePattern(int siteIndex, int[] pattern) {
+        if (pattern.length != this.rows.length) {
+            throw new IllegalArgumentException("pattern must hold one state per taxon.");
+        }
+
+        StateTable table =
+                stateTable();
+
+        for (int taxon = 0; taxon < this.rows.length; taxon++) {
+            byte[] row =
+                    this.rows[taxon];
+
+            pattern[taxon] =
+                    siteIndex < row.length ? table.states()[row[siteIndex]] : table.gapState();
+        }
+
+        return pattern;
+    }
+
+    /**
+     * Returns the number of bytes held by the packed rows, one per site of
+     * every sequence.
+     */
+    public long getPackedBytes() {
+        long bytes = 0;
+
+        for (byte[] row : this.rows) {
+            bytes += row.length;
+        }
+
+        return bytes;
+    }
+
+    private StateTable stateTable() {
+        StateTable table =
+                this.stateTable;
+
+        DataType dataType =
+                getDataType();
+
+        if (table == null || table.dataType() != dataType) {
+            int[] states =
+                    new int[128];
+
+            for (int character = 0; character < states.length; character++) {
+                states[character] = dataType.getState((char) character);
+            }
+
+            table = new StateTable(dataType, states, dataType.getGapState());
+            this.stateTable = table;
+        }
+
+        return table;
+    }
+
+    private static byte[] pack(String sequence, Taxon taxon) {
+        byte[] row =
+                new byte[sequence.length()];
+
+        for (int site = 0; site < row.length; site++) {
+            char character =
+                    sequence.charAt(site);
+
+            if (character >= 128) {
+                throw new IllegalArgumentException(
+                        "Sequence of taxon '" + taxon.getId() + "' has the non-ASCII character '"
+                                + character + "' at site " + (site + 1) + "."
+                );
+            }
+
+            row[site] = (byte) character;
+        }
+
+        return row;
+    }
+
+    // state of every ASCII character under one data type
+    private record StateTable(DataType dataType, int[] states, int gapState) {
+    }
+
+    private static final class PackedSequence extends Sequence {
+
+        private final byte[] characters;
+
+        private PackedSequence(Taxon taxon, byte[] characters, DataType dataType) {
+            super();
+            this.characters = characters;
+            setTaxon(taxon);
+            setDataType(dataType);
+        }
+
+        @Override
+        public String getSequenceString() {
+            return new String(this.characters, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public int getLength() {
+            return this.characters.length;
+        }
+
+        @Override
+        public char getChar(int index) {
+            return (char) this.characters[index];
+        }
+
+        @Override
+        public int getState(int index) {
+            return getDataType().getState(getChar(index));
+        }
+    }
+}
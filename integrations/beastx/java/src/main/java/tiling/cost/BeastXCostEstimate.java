@@ -0,0 +1,80 @@
+package tiling.cost;
+
+import org.phylospec.tiling.CostEstimate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Predicted memory, log volume and run time of a BEAST X chain, computed
+ * from its {@link tiling.BeastXState} by {@link BeastXCostEstimator}.
+ *
+ * @param parameterCount          dimensions of all sampled parameters
+ * @param secondsPerMillionStates single-core seconds, assuming every state
+ *                                evaluates all tree likelihoods in full
+ */
+public record BeastXCostEstimate(
+        List<PartitionCost> partitions,
+        int parameterCount,
+        int treeCount,
+        long chainLength,
+        long partialLikelihoodBytes,
+        long heapBytes,
+        long logBytesPerMillionStates,
+        double secondsPerMillionStates
+) {
+
+    public static final String ENGINE_NAME = "BEAST X";
+
+    public BeastXCostEstimate {
+        if (partitions == null) {
+            throw new IllegalArgumentException("partitions must not be null.");
+        }
+
+        partitions = List.copyOf(partitions);
+    }
+
+    public long logBytes() {
+        return (long) (this.logBytesPerMillionStates * (this.chainLength / 1e6));
+    }
+
+    public double seconds() {
+        return this.secondsPerMillionStates * (this.chainLength / 1e6);
+    }
+
+    /**
+     * Returns the estimate in the engine-independent form used by the CLI
+     * and the LSP.
+     */
+    public CostEstimate toCostEstimate() {
+        List<String> details =
+                new ArrayList<>();
+
+        for (PartitionCost partition : this.partitions) {
+            details.add(
+                    partition.toReportString() + ", "
+                            + CostEstimate.formatBytes(partition.partialLikelihoodBytes()) + " of partials"
+            );
+        }
+
+        details.add(this.parameterCount + " parameter dimensions, " + this.treeCount + " trees");
+        details.add(
+                "chain of " + this.chainLength + " states: "
+                        + CostEstimate.formatSeconds(seconds()) + ", "
+                        + CostEstimate.formatBytes(logBytes()) + " of logs"
+        );
+
+        return new CostEstimate(
+                ENGINE_NAME,
+                this.partialLikelihoodBytes,
+                this.heapBytes,
+                this.logBytesPerMillionStates,
+                this.secondsPerMillionStates,
+                details
+        );
+    }
+
+    public String toReportString() {
+        return toCostEstimate().toReportString();
+    }
+}
@@ -0,0 +1,295 @@
+package tiling.cost;
+
+import dr.evolution.alignment.Alignment;
+import dr.evomodel.tree.TreeModel;
+import dr.inference.model.Likelihood;
+import dr.inference.model.Parameter;
+import tiling.BeastXModel;
+import tiling.BeastXState;
+import tiling.mcmc.LoggerBuilder;
+import tiling.model.BeastXPhyloCTMCLikelihoodSpec;
+import tiling.model.SitePatternCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Predicts the memory, log volume and run time of a chain from the contents
+ * of a tiled {@link BeastXState}, without materializing or running it.
+ *
+ * <p>The predictions follow the buffers BEAGLE allocates for a tree
+ * likelihood: two partial likelihood and scaling buffers per internal node
+ * and two transition matrices per branch, each for every rate category, plus
+ * compact tip states. The time per state assumes that every state evaluates
+ * all tree likelihoods in full at {@code operationsPerSecond} multiply-adds
+ * per second, which bounds it from above, since most operators only change a
+ * few branches. Log volume counts the columns of every file logger and the
+ * nodes of every logged tree.</p>
+ */
+public final class BeastXCostEstimator {
+
+    /**
+     * Multiply-adds per second of one core running BEAGLE's CPU kernels.
+     */
+    public static final double DEFAULT_OPERATIONS_PER_SECOND = 1e9;
+
+    // classes, parsed model and tiles of a BEAST X run before any data is loaded
+    static final long JVM_BASELINE_BYTES = 256L << 20;
+
+    // headroom for garbage collection over the live data
+    static final double HEAP_HEADROOM = 1.5;
+
+    static final int BYTES_PER_DOUBLE = 8;
+
+    // a tab and a value such as -1234.5678901
+    static final int TEXT_BYTES_PER_VALUE = 14;
+
+    static final int TEXT_BYTES_PER_STATE = 12;
+
+    // a node number, a colon, a branch length and punctuation
+    static final int TREE_BYTES_PER_NODE = 24;
+
+    // a [&rate=...] annotation of relaxed clock trees
+    static final int TREE_BYTES_PER_RATE = 20;
+
+    static final int TREE_BYTES_PER_LINE = 40;
+
+    // proposal, acceptance and bookkeeping of one state
+    static final double SECONDS_PER_STATE = 2e-6;
+
+    static final double SECONDS_PER_PARAMETER_DIMENSION = 1e-7;
+
+    private final double operationsPerSecond;
+
+    public BeastXCostEstimator() {
+        this(DEFAULT_OPERATIONS_PER_SECOND);
+    }
+
+    public BeastXCostEstimator(double operationsPerSecond) {
+        if (!(operationsPerSecond > 0)) {
+            throw new IllegalArgumentException("operationsPerSecond must be positive.");
+        }
+
+        this.operationsPerSecond = operationsPerSecond;
+    }
+
+    public BeastXCostEstimate estimate(BeastXState beastState) {
+        if (beastState == null) {
+            throw new IllegalArgumentException("beastState must not be null.");
+        }
+
+        SitePatternCache sitePatternCache =
+                new SitePatternCache();
+
+        List<PartitionCost> partitions =
+                new ArrayList<>();
+
+        long partialLikelihoodBytes = 0;
+        long dataBytes = 0;
+        double operationsPerState = 0;
+
+        for (Likelihood likelihood : beastState.likelihoodDistributions) {
+            if (!(likelihood instanceof BeastXPhyloCTMCLikelihoodSpec spec)) {
+                continue;
+            }
+
+            PartitionCost partition =
+                    partitionCost(spec, sitePatternCache);
+
+            partitions.add(partition);
+
+            partialLikelihoodBytes += partition.partialLikelihoodBytes();
+            operationsPerState += partition.operationsPerEvaluation();
+
+            // the alignment's characters and the compressed patterns
+            dataBytes += 2L * partition.taxonCount() * partition.siteCount();
+            dataBytes += 4L * partition.taxonCount() * partition.patternCount();
+        }
+
+        int parameterCount = 0;
+
+        for (Parameter parameter : beastState.stateNodes.keySet()) {
+            parameterCount += parameter.getDimension();
+        }
+
+        double secondsPerState =
+                operationsPerState / this.operationsPerSecond
+                        + SECONDS_PER_STATE
+                        + parameterCount * SECONDS_PER_PARAMETER_DIMENSION;
+
+        return new BeastXCostEstimate(
+                partitions,
+                parameterCount,
+                beastState.treeModelsByPhyloSpecName.size(),
+                beastState.chainLength,
+                partialLikelihoodBytes,
+                JVM_BASELINE_BYTES + (long) (HEAP_HEADROOM * (partialLikelihoodBytes + dataBytes)),
+                logBytesPerMillionStates(beastState),
+                secondsPerState * 1e6
+        );
+    }
+
+    /**
+     * Predicts the cost of the tree likelihood of {@code spec}, compressing
+     * its alignment with {@code sitePatternCache}.
+     */
+    public static PartitionCost partitionCost(
+            BeastXPhyloCTMCLikelihoodSpec spec,
+            SitePatternCache sitePatternCache
+    ) {
+        Alignment alignment =
+                spec.getObservedAlignment();
+
+        int taxonCount =
+                alignment.getTaxonCount();
+
+        int patternCount =
+                sitePatternCache.patternsFor(alignment).getPatternCount();
+
+        int stateCount =
+                alignment.getDataType().getStateCount();
+
+        int categoryCount =
+                spec.getSiteRateModel().getCategoryCount();
+
+        long internalNodeCount =
+                Math.max(taxonCount - 1, 0);
+
+        long branchCount =
+                Math.max(2L * taxonCount - 2, 0);
+
+        long partialsPerNode =
+                (long) patternCount * stateCount * categoryCount;
+
+        // current and stored buffers for partials, scaling factors and matrices
+        long partialLikelihoodBytes =
+                2 * internalNodeCount * partialsPerNode * BYTES_PER_DOUBLE
+                        + 2 * internalNodeCount * patternCount * BYTES_PER_DOUBLE
+                        + 2 * branchCount * categoryCount * stateCount * stateCount * BYTES_PER_DOUBLE
+                        + (long) taxonCount * patternCount * Integer.BYTES;
+
+        // each internal node combines the partials of its two children
+        double operationsPerEvaluation =
+                2.0 * internalNodeCount * partialsPerNode * stateCount
+                        + (double) branchCount * categoryCount * stateCount * stateCount * stateCount;
+
+        return new PartitionCost(
+                spec.getId(),
+                taxonCount,
+                alignment.getSiteCount(),
+                patternCount,
+                stateCount,
+                categoryCount,
+                partialLikelihoodBytes,
+                operationsPerEvaluation
+        );
+    }
+
+    /**
+     * Returns the multiply-adds of one move that changes {@code terms}: the
+     * bookkeeping of a state and a full evaluation of every term. Tree
+     * likelihoods cost what {@link #partitionCost} predicted when they were
+     * materialized, see {@link BeastXState#likelihoodOperations}, and other
+     * terms, such as priors, as much as a parameter dimension.
+     */
+    public static double operationsPerMove(Collection<? extends Likelihood> terms, BeastXState beastState) {
+        double operations =
+                SECONDS_PER_STATE * DEFAULT_OPERATIONS_PER_SECOND;
+
+        for (Likelihood term : terms) {
+            operations += beastState.likelihoodOperations.getOrDefault(
+                    term,
+                    SECONDS_PER_PARAMETER_DIMENSION * DEFAULT_OPERATIONS_PER_SECOND
+            );
+        }
+
+        return operations;
+    }
+
+    private static long logBytesPerMillionStates(BeastXState beastState) {
+        List<BeastXState.FileLoggerSpec> fileLoggers =
+                new ArrayList<>(beastState.fileLoggerSpecs);
+
+        if (fileLoggers.isEmpty() && beastState.outputPrefix != null) {
+            fileLoggers.add(new BeastXState.FileLoggerSpec(
+                    beastState.defaultLogEvery,
+                    beastState.outputPrefix + ".log",
+                    null
+            ));
+        }
+
+        List<BeastXState.TreeLoggerSpec> treeLoggers =
+                new ArrayList<>(beastState.treeLoggerSpecs);
+
+        if (
+                treeLoggers.isEmpty()
+                        && beastState.outputPrefix != null
+                        && !beastState.treePriorDistributions.isEmpty()
+        ) {
+            treeLoggers.add(new BeastXState.TreeLoggerSpec(
+                    beastState.defaultLogEvery,
+                    beastState.outputPrefix + ".trees",
+                    null
+            ));
+        }
+
+        double bytes = 0;
+
+        if (!fileLoggers.isEmpty()) {
+            // loggers count the columns of the posterior, prior and likelihood too
+            BeastXModel model =
+                    BeastXModel.fromBeastXState(beastState, false);
+
+            LoggerBuilder loggerBuilder =
+                    new LoggerBuilder();
+
+            for (BeastXState.FileLoggerSpec spec : fileLoggers) {
+                int values =
+                        loggerBuilder.countLoggedValues(model, spec.parameterNames());
+
+                double lines =
+                        1e6 / spec.logEvery();
+
+                bytes += lines * (TEXT_BYTES_PER_STATE + (double) values * TEXT_BYTES_PER_VALUE);
+
+                if (beastState.binaryTraces) {
+                    bytes += lines * (Long.BYTES + (double) values * BYTES_PER_DOUBLE);
+                }
+            }
+        }
+
+        for (BeastXState.TreeLoggerSpec spec : treeLoggers) {
+            for (TreeModel tree : loggedTrees(beastState, spec.treeNames())) {
+                int bytesPerNode =
+                        beastState.treeRelaxedClockModels.containsKey(tree)
+                                ? TREE_BYTES_PER_NODE + TREE_BYTES_PER_RATE
+                                : TREE_BYTES_PER_NODE;
+
+                bytes += 1e6 / spec.logEvery() * (TREE_BYTES_PER_LINE + (double) tree.getNodeCount() * bytesPerNode);
+            }
+        }
+
+        return (long) bytes;
+    }
+
+    private static List<TreeModel> loggedTrees(BeastXState beastState, List<String> treeNames) {
+        if (treeNames == null || treeNames.isEmpty()) {
+            return List.copyOf(beastState.treeModelsByPhyloSpecName.values());
+        }
+
+        List<TreeModel> trees =
+                new ArrayList<>();
+
+        for (String treeName : treeNames) {
+            TreeModel tree =
+                    beastState.treeModelsByPhyloSpecName.get(treeName);
+
+            if (tree != null) {
+                trees.add(tree);
+            }
+        }
+
+        return trees;
+    }
+}
@@ -0,0 +1,32 @@
+package tiling.cost;
+
+/**
+ * Predicted cost of one PhyloCTMC tree likelihood.
+ *
+ * @param partialLikelihoodBytes memory of the partial likelihood, tip state,
+ *                               scaling and transition matrix buffers
+ * @param operationsPerEvaluation multiply-adds of one full evaluation,
+ *                                including the transition matrices
+ */
+public record PartitionCost(
+        String id,
+        int taxonCount,
+        int siteCount,
+        int patternCount,
+        int stateCount,
+        int categoryCount,
+        long partialLikelihoodBytes,
+        double operationsPerEvaluation
+) {
+
+    public String toReportString() {
+        return "%s: %d taxa, %d sites in %d patterns, %d states, %d rate categories".formatted(
+                this.id,
+                this.taxonCount,
+                this.siteCount,
+                this.patternCount,
+                this.stateCount,
+                this.categoryCount
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package tiling.gradients;
+
+import dr.inference.model.Parameter;
+
+/**
+ * Derivative of a univariate log density with respect to its argument.
+ *
+ * <p>Generator tiles register one for each prior they create in
+ * {@link tiling.BeastXState#priorLogDensityGradients}, which marks the prior
+ * as differentiable for gradient-based operators. Distribution parameters are
+ * read whenever the derivative is evaluated, so priors whose hyperparameters
+ * are themselves sampled stay correct. Like the BEAST X distribution models
+ * they mirror, the densities are univariate and apply to every dimension of
+ * their data, so their hyperparameters must be scalars.</p>
+ */
+@FunctionalInterface
+public interface LogDensityGradient {
+
+    double at(double x);
+
+    /** Returns the derivative of this density shifted to the right by {@code offset}. */
+    default LogDensityGradient shifted(double offset) {
+        return x -> this.at(x - offset);
+    }
+
+    static LogDensityGradient normal(Parameter mean, Parameter sd) {
+        requireScalars(mean, sd);
+
+        return x -> {
+            double sigma =
+                    sd.getParameterValue(0);
+
+            return -(x - mean.getParameterValue(0)) / (sigma * sigma);
+        };
+    }
+
+    static LogDensityGradient logNormal(Parameter mu, Parameter sigma) {
+        requireScalars(mu, sigma);
+
+        return x -> logNormalAt(x, mu.getParameterValue(0), sigma.getParameterValue(0));
+    }
+
+    /** Log-normal parameterized by its real-space mean and its log-space standard deviation. */
+    static LogDensityGradient logNormalWithRealSpaceMean(Parameter mean, Parameter sigma) {
+        requireScalars(mean, sigma);
+
+        return x -> {
+            double s =
+                    sigma.getParameterValue(0);
+
+            return logNormalAt(x, Math.log(mean.getParameterValue(0)) - 0.5 * s * s, s);
+        };
+    }
+
+    static LogDensityGradient gamma(Parameter shape, Parameter rate) {
+        requireScalars(shape, rate);
+
+        return x -> (shape.getParameterValue(0) - 1.0) / x - rate.getParameterValue(0);
+    }
+
+    static LogDensityGradient exponential(Parameter mean) {
+        requireScalars(mean);
+
+        return x -> -1.0 / mean.getParameterValue(0);
+    }
+
+    static LogDensityGradient beta(Parameter alpha, Parameter beta) {
+        requireScalars(alpha, beta);
+
+        return x -> (alpha.getParameterValue(0) - 1.0) / x
+                - (beta.getParameterValue(0) - 1.0) / (1.0 - x);
+    }
+
+    static LogDensityGradient cauchy(double location, double scale) {
+        return x -> {
+            double centered =
+                    x - location;
+
+            return -2.0 * centered / (scale * scale + centered * centered);
+        };
+    }
+
+    private static void requireScalars(Parameter... hyperparameters) {
+        for (Parameter hyperparameter : hyperparameters) {
+            if (hyperparameter == null) {
+                throw new IllegalArgumentException("hyperparameters must not be null.");
+            }
+
+            if (hyperparameter.getDimension() != 1) {
+                throw new IllegalArgumentException(
+                        "Hyperparameter '" + hyperparameter.getId() + "' must be a scalar but has dimension "
+                                + hyperparameter.getDimension() + "."
+                );
+            }
+        }
+    }
+
+    private static double logNormalAt(double x, double mu, double sigma) {
+        return -(1.0 + (Math.log(x) - mu) / (sigma * sigma)) / x;
+    }
+}
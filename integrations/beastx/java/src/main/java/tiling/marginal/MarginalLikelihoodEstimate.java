@@ -0,0 +1,224 @@
+package tiling.marginal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stepping-stone and path-sampling estimates of the log marginal likelihood
+ * from the log-likelihood samples of a series of power-posterior chains.
+ *
+ * <p>The stepping-stone estimate (Xie et al. 2011) multiplies the ratios of
+ * the normalizing constants of neighbouring power posteriors, each estimated
+ * by importance sampling from the chain with the smaller power. The
+ * path-sampling estimate (Lartillot and Philippe 2006) integrates the mean
+ * log likelihood over the powers with the trapezoidal rule.</p>
+ *
+ * <p>Standard errors treat the chains as independent and use the effective
+ * sample size of each chain's log likelihood. As the mean log likelihood grows
+ * with the power, the exact path integral lies between the left and right
+ * Riemann sums, so half their distance bounds the discretization error of the
+ * path-sampling estimate.</p>
+ */
+public record MarginalLikelihoodEstimate(
+        List<PowerPosteriorStep> steps,
+        double logSteppingStone,
+        double steppingStoneStandardError,
+        double logPathSampling,
+        double pathSamplingStandardError,
+        double pathSamplingDiscretizationError
+) {
+
+    public MarginalLikelihoodEstimate {
+        if (steps == null) {
+            throw new IllegalArgumentException("steps must not be null.");
+        }
+
+        steps = List.copyOf(steps);
+    }
+
+    /**
+     * Estimates the log marginal likelihood from the log-likelihood samples
+     * of the chain of each power.
+     *
+     * @param effectiveSampleSizes effective sample size of each chain's log
+     *                             likelihood; {@code NaN} counts every sample
+     */
+    public static MarginalLikelihoodEstimate from(
+            List<Double> betas,
+            List<double[]> logLikelihoods,
+            double[] effectiveSampleSizes
+    ) {
+        if (betas == null || logLikelihoods == null || effectiveSampleSizes == null) {
+            throw new IllegalArgumentException("betas, logLikelihoods and effectiveSampleSizes must not be null.");
+        }
+
+        if (betas.size() < 2) {
+            throw new IllegalArgumentException("At least two powers are required.");
+        }
+
+        if (logLikelihoods.size() != betas.size() || effectiveSampleSizes.length != betas.size()) {
+            throw new IllegalArgumentException("Expected samples and an effective sample size for every power.");
+        }
+
+        List<PowerPosteriorStep> steps =
+                new ArrayList<>(betas.size());
+
+        double[] means =
+                new double[betas.size()];
+
+        double[] meanVariances =
+                new double[betas.size()];
+
+        for (int k = 0; k < betas.size(); k++) {
+            double[] samples =
+                    logLikelihoods.get(k);
+
+            if (samples.length == 0) {
+                throw new IllegalArgumentException(
+                        "The chain at power " + betas.get(k) + " has no samples after its burn-in."
+                );
+            }
+
+            means[k] = mean(samples);
+
+            double variance =
+                    variance(samples, means[k]);
+
+            meanVariances[k] = variance / effectiveCount(samples.length, effectiveSampleSizes[k]);
+
+            steps.add(new PowerPosteriorStep(
+                    betas.get(k),
+                    samples.length,
+                    means[k],
+                    Math.sqrt(variance),
+                    effectiveSampleSizes[k]
+            ));
+        }
+
+        double logSteppingStone = 0;
+        double steppingStoneVariance = 0;
+
+        double logPathSampling = 0;
+        double pathSamplingVariance = 0;
+        double discretizationError = 0;
+
+        for (int k = 1; k < betas.size(); k++) {
+            double step =
+                    betas.get(k) - betas.get(k - 1);
+
+            double[] samples =
+                    logLikelihoods.get(k - 1);
+
+            // factor out the largest term so the exponentials do not overflow
+            double max = Double.NEGATIVE_INFINITY;
+
+            for (double sample : samples) {
+                max = Math.max(max, sample);
+            }
+
+            double[] ratios =
+                    new double[samples.length];
+
+            for (int i = 0; i < samples.length; i++) {
+                ratios[i] = Math.exp(step * (samples[i] - max));
+            }
+
+            double ratioMean =
+                    mean(ratios);
+
+            logSteppingStone += step * max + Math.log(ratioMean);
+            steppingStoneVariance +=
+                    variance(ratios, ratioMean)
+                            / (effectiveCount(samples.length, effectiveSampleSizes[k - 1]) * ratioMean * ratioMean);
+
+            logPathSampling += step * (means[k] + means[k - 1]) / 2;
+            discretizationError += step * Math.abs(means[k] - means[k - 1]) / 2;
+        }
+
+        for (int k = 0; k < betas.size(); k++) {
+            double weight =
+                    (k > 0 ? betas.get(k) - betas.get(k - 1) : 0)
+                            + (k < betas.size() - 1 ? betas.get(k + 1) - betas.get(k) : 0);
+
+            pathSamplingVariance += weight * weight / 4 * meanVariances[k];
+        }
+
+        return new MarginalLikelihoodEstimate(
+                steps,
+                logSteppingStone,
+                Math.sqrt(steppingStoneVariance),
+                logPathSampling,
+                Math.sqrt(pathSamplingVariance),
+                discretizationError
+        );
+    }
+
+    public String toReportString(String title) {
+        StringBuilder report =
+                new StringBuilder();
+
+        report.append(title).append('\n');
+        report.append(
+                "%-16s  %14.6f  +/- %.6f%n".formatted(
+                        "stepping stone",
+                        this.logSteppingStone,
+                        this.steppingStoneStandardError
+                )
+        );
+        report.append(
+                "%-16s  %14.6f  +/- %.6f  (discretization <= %.6f)%n".formatted(
+                        "path sampling",
+                        this.logPathSampling,
+                        this.pathSamplingStandardError,
+                        this.pathSamplingDiscretizationError
+                )
+        );
+        report.append(
+                "%12s  %8s  %14s  %12s  %8s%n".formatted(
+                        "beta", "samples", "mean logL", "sd logL", "ESS"
+                )
+        );
+
+        for (PowerPosteriorStep step : this.steps) {
+            report.append(
+                    "%12.6g  %8d  %14.6g  %12.6g  %8.1f%n".formatted(
+                            step.beta(),
+                            step.sampleCount(),
+                            step.meanLogLikelihood(),
+                            step.logLikelihoodStandardDeviation(),
+                            step.effectiveSampleSize()
+                    )
+            );
+        }
+
+        return report.toString();
+    }
+
+    private static double effectiveCount(int sampleCount, double effectiveSampleSize) {
+        return Double.isNaN(effectiveSampleSize) ? sampleCount : Math.max(1, effectiveSampleSize);
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+
+        for (double value : values) {
+            sum += value;
+        }
+
+        return sum / values.length;
+    }
+
+    private static double variance(double[] values, double mean) {
+        if (values.length < 2) {
+            return 0;
+        }
+
+        double sumOfSquares = 0;
+
+        for (double value : values) {
+            sumOfSquares += (value - mean) * (value - mean);
+        }
+
+        return sumOfSquares / (values.length - 1);
+    }
+}
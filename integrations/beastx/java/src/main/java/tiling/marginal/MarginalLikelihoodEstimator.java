@@ -0,0 +1,296 @@
+package tiling.marginal;
+
+import dr.inference.mcmc.MCMC;
+import dr.inference.model.CompoundLikelihood;
+import dr.inference.model.Likelihood;
+import dr.inference.model.PathLikelihood;
+import tiling.BeastXModel;
+import tiling.BeastXState;
+import tiling.runner.BeastXRunPipeline;
+import tiling.runner.BeastXRunResult;
+import tiling.runner.RunMode;
+import tiling.runner.RunnerOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Estimates the marginal likelihood of a model by running one
+ * power-posterior chain for every power of a schedule.
+ *
+ * <p>Every chain builds its own {@link BeastXState} from the state factory,
+ * usually a compiled model, and samples from
+ * {@code prior * likelihood^beta} using the prior and likelihood of its
+ * {@link BeastXModel}. The chain at power {@code 1} samples the posterior
+ * and keeps the model's loggers, so its output is that of an ordinary run;
+ * the other chains log nothing but their log likelihoods.</p>
+ *
+ * <p>BEAST X draws every random number from one generator per JVM, so
+ * chains that run concurrently interleave their draws. A random seed in the
+ * model therefore gives the chain of every step its own seed, the model's
+ * seed plus the step's index in the schedule, and seeded chains run one at a
+ * time, so a seeded estimate does not depend on the worker count. Only
+ * unseeded estimates, which are not reproducible anyway, run their chains in
+ * parallel.</p>
+ */
+public final class MarginalLikelihoodEstimator {
+
+    private final Function<String, BeastXState> stateFactory;
+
+    private final BeastXRunPipeline runPipeline;
+
+    // seeded chains hold the generator to themselves, unseeded ones share it
+    private final ReadWriteLock randomNumberGenerator =
+            new ReentrantReadWriteLock();
+
+    public MarginalLikelihoodEstimator(
+            Function<String, BeastXState> stateFactory,
+            BeastXRunPipeline runPipeline
+    ) {
+        if (stateFactory == null) {
+            throw new IllegalArgumentException("stateFactory must not be null.");
+        }
+
+        if (runPipeline == null) {
+            throw new IllegalArgumentException("runPipeline must not be null.");
+        }
+
+        this.stateFactory = stateFactory;
+        this.runPipeline = runPipeline;
+    }
+
+    /**
+     * Runs the power-posterior chains and returns the run of the posterior
+     * chain, carrying the estimate.
+     */
+    public BeastXRunResult estimate(RunnerOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("options must not be null.");
+        }
+
+        if (options.mode() != RunMode.ESTIMATE_MARGINAL_LIKELIHOOD) {
+            throw new IllegalArgumentException("options must use the ESTIMATE_MARGINAL_LIKELIHOOD run mode.");
+        }
+
+        MarginalLikelihoodOptions marginalOptions =
+                options.resolvedMarginalLikelihood();
+
+        List<Double> betas =
+                marginalOptions.betas();
+
+        AtomicInteger workerIndex =
+                new AtomicInteger();
+
+        List<Future<PowerPosteriorChain>> futures =
+                new ArrayList<>(betas.size());
+
+        try (
+                ExecutorService workers = Executors.newFixedThreadPool(
+                        Math.min(marginalOptions.workerCount(), betas.size()),
+                        task -> Thread.ofPlatform()
+                                .name("power-posterior-" + workerIndex.incrementAndGet())
+                                .daemon(true)
+                                .unstarted(task)
+                )
+        ) {
+            for (int k = 0; k < betas.size(); k++) {
+                double beta =
+                        betas.get(k);
+
+                int step = k;
+
+                futures.add(workers.submit(() -> runChain(beta, step, options, marginalOptions)));
+            }
+
+            List<PowerPosteriorChain> chains =
+                    new ArrayList<>(betas.size());
+
+            try {
+                for (Future<PowerPosteriorChain> future : futures) {
+                    chains.add(await(future));
+                }
+            } finally {
+                for (Future<PowerPosteriorChain> future : futures) {
+                    future.cancel(true);
+                }
+            }
+
+            return summarize(betas, chains, options);
+        }
+    }
+
+    private BeastXRunResult summarize(
+            List<Double> betas,
+            List<PowerPosteriorChain> chains,
+            RunnerOptions options
+    ) {
+        List<double[]> logLikelihoods =
+                new ArrayList<>(chains.size());
+
+        double[] effectiveSampleSizes =
+                new double[chains.size()];
+
+        for (int k = 0; k < chains.size(); k++) {
+            logLikelihoods.add(chains.get(k).logger().samples());
+            effectiveSampleSizes[k] = chains.get(k).logger().effectiveSampleSize();
+        }
+
+        MarginalLikelihoodEstimate estimate =
+                MarginalLikelihoodEstimate.from(betas, logLikelihoods, effectiveSampleSizes);
+
+        PowerPosteriorChain posterior =
+                chains.getLast();
+
+        if (posterior.model().beastState.screenLogging) {
+            System.out.print(estimate.toReportString("Log marginal likelihood of " + options.runName() + ":"));
+        }
+
+        return new BeastXRunResult(
+                options.runName(),
+                options,
+                posterior.model().beastState,
+                posterior.model(),
+                posterior.mcmc(),
+                options.materializePhyloCTMC(),
+                true,
+                estimate
+        );
+    }
+
+    private PowerPosteriorChain runChain(
+            double beta,
+            int step,
+            RunnerOptions options,
+            MarginalLikelihoodOptions marginalOptions
+    ) {
+        BeastXState beastState =
+                this.stateFactory.apply(options.runName());
+
+        options.applyTo(beastState);
+
+        if (beta < 1.0) {
+            isolate(beastState);
+        }
+
+        if (beastState.randomSeed != null) {
+            beastState.randomSeed += step;
+        }
+
+        long chainLength =
+                marginalOptions.stepChainLength() != null
+                        ? marginalOptions.stepChainLength()
+                        : beastState.chainLength;
+
+        long sampleEvery =
+                marginalOptions.sampleEvery() != null
+                        ? marginalOptions.sampleEvery()
+                        : beastState.defaultLogEvery;
+
+        // MCMCBuilder reseeds the shared generator when it builds a seeded chain
+        Lock lock =
+                beastState.randomSeed != null
+                        ? this.randomNumberGenerator.writeLock()
+                        : this.randomNumberGenerator.readLock();
+
+        lock.lock();
+
+        try {
+            return runPowerPosterior(beastState, beta, chainLength, sampleEvery, options, marginalOptions);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PowerPosteriorChain runPowerPosterior(
+            BeastXState beastState,
+            double beta,
+            long chainLength,
+            long sampleEvery,
+            RunnerOptions options,
+            MarginalLikelihoodOptions marginalOptions
+    ) {
+        BeastXModel model =
+                this.runPipeline
+                        .buildModel(beastState, options);
+
+        PowerPosteriorLogger logger =
+                new PowerPosteriorLogger(
+                        model.likelihood,
+                        sampleEvery,
+                        (long) (chainLength * marginalOptions.burnInFraction())
+                );
+
+        beastState.mcmcLoggers.add(logger);
+
+        MCMC mcmc =
+                this.runPipeline
+                        .buildMCMC(beta < 1.0 ? powerPosterior(model, beta) : model, chainLength);
+
+        this.runPipeline
+                .runMCMC(mcmc);
+
+        return new PowerPosteriorChain(model, mcmc, logger);
+    }
+
+    // Replaces the posterior by prior * likelihood^beta, which operators and the chain then follow.
+    private static BeastXModel powerPosterior(BeastXModel model, double beta) {
+        PathLikelihood path =
+                new PathLikelihood(model.posterior, model.prior);
+
+        path.setPathParameter(beta);
+
+        CompoundLikelihood powerPosterior =
+                new CompoundLikelihood(List.<Likelihood>of(path));
+
+        powerPosterior.setId(model.beastState.getAvailableID("powerPosterior"));
+
+        return new BeastXModel(
+                model.beastState,
+                model.prior,
+                model.likelihood,
+                powerPosterior
+        );
+    }
+
+    // Keeps the chains below the posterior from printing or writing the model's logs.
+    private static void isolate(BeastXState beastState) {
+        beastState.screenLogging = false;
+        beastState.outputPrefix = null;
+        beastState.binaryTraces = false;
+        beastState.traceSummaryEvery = null;
+        beastState.stopAtMinimumEss = null;
+        beastState.fileLoggerSpecs.clear();
+        beastState.treeLoggerSpecs.clear();
+    }
+
+    private static PowerPosteriorChain await(Future<PowerPosteriorChain> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for power-posterior chains.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+
+            throw new IllegalStateException("Could not run power-posterior chain.", e.getCause());
+        }
+    }
+
+    private record PowerPosteriorChain(
+            BeastXModel model,
+            MCMC mcmc,
+            PowerPosteriorLogger logger
+    ) {
+    }
+}
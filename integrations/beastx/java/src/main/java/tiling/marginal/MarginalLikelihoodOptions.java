@@ -0,0 +1,182 @@
+package tiling.marginal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of a stepping-stone and path-sampling estimate of the marginal
+ * likelihood.
+ *
+ * <p>One power-posterior chain runs for every power {@code beta} of the
+ * schedule, sampling from {@code prior * likelihood^beta}. Without an explicit
+ * schedule, the powers are the {@code k / stepCount} quantiles of a
+ * {@code Beta(betaShape, 1)} distribution, which puts most of them close to
+ * the prior, where the likelihood changes fastest.</p>
+ *
+ * @param betaSchedule    powers from {@code 0} to {@code 1}, or {@code null}
+ *                        for the quantile schedule
+ * @param stepChainLength length of every power-posterior chain, or
+ *                        {@code null} for the model's chain length
+ * @param sampleEvery     states between likelihood samples, or {@code null}
+ *                        for the model's log interval
+ * @param workerCount     chains run at once; the chains of a seeded model
+ *                        run one at a time regardless
+ */
+public record MarginalLikelihoodOptions(
+        int stepCount,
+        double betaShape,
+        List<Double> betaSchedule,
+        Long stepChainLength,
+        double burnInFraction,
+        Long sampleEvery,
+        int workerCount
+) {
+
+    public static final int DEFAULT_STEP_COUNT = 32;
+
+    public static final double DEFAULT_BETA_SHAPE = 0.3;
+
+    public MarginalLikelihoodOptions {
+        if (stepCount <= 0) {
+            throw new IllegalArgumentException("stepCount must be positive.");
+        }
+
+        if (!(betaShape > 0)) {
+            throw new IllegalArgumentException("betaShape must be positive.");
+        }
+
+        if (betaSchedule != null) {
+            betaSchedule = List.copyOf(betaSchedule);
+            validateSchedule(betaSchedule);
+        }
+
+        if (stepChainLength != null && stepChainLength <= 0) {
+            throw new IllegalArgumentException("stepChainLength must be positive.");
+        }
+
+        if (!(burnInFraction >= 0.0 && burnInFraction < 1.0)) {
+            throw new IllegalArgumentException("burnInFraction must be in [0, 1).");
+        }
+
+        if (sampleEvery != null && sampleEvery <= 0) {
+            throw new IllegalArgumentException("sampleEvery must be positive.");
+        }
+
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive.");
+        }
+    }
+
+    public static MarginalLikelihoodOptions defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the powers of the power-posterior chains, from {@code 0} (the
+     * prior) to {@code 1} (the posterior).
+     */
+    public List<Double> betas() {
+        if (this.betaSchedule != null) {
+            return this.betaSchedule;
+        }
+
+        List<Double> betas =
+                new ArrayList<>(this.stepCount + 1);
+
+        for (int k = 0; k <= this.stepCount; k++) {
+            betas.add(Math.pow((double) k / this.stepCount, 1.0 / this.betaShape));
+        }
+
+        return List.copyOf(betas);
+    }
+
+    private static void validateSchedule(List<Double> betaSchedule) {
+        if (betaSchedule.size() < 2) {
+            throw new IllegalArgumentException("betaSchedule must have at least two powers.");
+        }
+
+        if (betaSchedule.getFirst() != 0.0 || betaSchedule.getLast() != 1.0) {
+            throw new IllegalArgumentException("betaSchedule must start at 0 and end at 1.");
+        }
+
+        for (int k = 1; k < betaSchedule.size(); k++) {
+            if (!(betaSchedule.get(k) > betaSchedule.get(k - 1))) {
+                throw new IllegalArgumentException("betaSchedule must be strictly increasing.");
+            }
+        }
+    }
+
+    public static class Builder {
+        private int stepCount = DEFAULT_STEP_COUNT;
+        private double betaShape = DEFAULT_BETA_SHAPE;
+        private List<Double> betaSchedule;
+        private Long stepChainLength;
+        private double burnInFraction = 0.1;
+        private Long sampleEvery;
+        private int workerCount = Runtime.getRuntime().availableProcessors();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of steps between the prior and the posterior, which
+         * runs {@code stepCount + 1} chains.
+         */
+        public Builder stepCount(int stepCount) {
+            this.stepCount = stepCount;
+            return this;
+        }
+
+        public Builder betaShape(double betaShape) {
+            this.betaShape = betaShape;
+            return this;
+        }
+
+        /**
+         * Uses the given powers instead of the quantile schedule.
+         */
+        public Builder betaSchedule(List<Double> betaSchedule) {
+            this.betaSchedule = betaSchedule;
+            return this;
+        }
+
+        public Builder stepChainLength(long stepChainLength) {
+            this.stepChainLength = stepChainLength;
+            return this;
+        }
+
+        public Builder burnInFraction(double burnInFraction) {
+            this.burnInFraction = burnInFraction;
+            return this;
+        }
+
+        public Builder sampleEvery(long sampleEvery) {
+            this.sampleEvery = sampleEvery;
+            return this;
+        }
+
+        /**
+         * Sets how many power-posterior chains run at the same time.
+         */
+        public Builder workerCount(int workerCount) {
+            this.workerCount = workerCount;
+            return this;
+        }
+
+        public MarginalLikelihoodOptions build() {
+            return new MarginalLikelihoodOptions(
+                    this.stepCount,
+                    this.betaShape,
+                    this.betaSchedule,
+                    this.stepChainLength,
+                    this.burnInFraction,
+                    this.sampleEvery,
+                    this.workerCount
+            );
+        }
+    }
+}
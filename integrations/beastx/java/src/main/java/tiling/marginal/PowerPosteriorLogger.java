@@ -0,0 +1,75 @@
+package tiling.marginal;
+
+import dr.inference.loggers.Logger;
+import dr.inference.model.Likelihood;
+import tiling.summary.OnlineTraceSummary;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the log likelihood of a power-posterior chain every
+ * {@code sampleEvery} states after its burn-in.
+ */
+final class PowerPosteriorLogger implements Logger {
+
+    private static final String COLUMN = "likelihood";
+
+    private final Likelihood likelihood;
+    private final long sampleEvery;
+    private final long burnIn;
+    private final OnlineTraceSummary summary;
+
+    private double[] samples =
+            new double[1024];
+
+    private int sampleCount;
+
+    PowerPosteriorLogger(
+            Likelihood likelihood,
+            long sampleEvery,
+            long burnIn
+    ) {
+        if (sampleEvery <= 0) {
+            throw new IllegalArgumentException("sampleEvery must be positive.");
+        }
+
+        this.likelihood = likelihood;
+        this.sampleEvery = sampleEvery;
+        this.burnIn = burnIn;
+        this.summary = new OnlineTraceSummary(List.of(COLUMN), burnIn);
+    }
+
+    double[] samples() {
+        return Arrays.copyOf(this.samples, this.sampleCount);
+    }
+
+    double effectiveSampleSize() {
+        return this.summary.summary(COLUMN).effectiveSampleSize();
+    }
+
+    @Override
+    public void startLogging() {
+    }
+
+    @Override
+    public void log(long state) {
+        if (state < this.burnIn || state % this.sampleEvery != 0) {
+            return;
+        }
+
+        double logLikelihood =
+                this.likelihood.getLogLikelihood();
+
+        if (this.sampleCount == this.samples.length) {
+            this.samples = Arrays.copyOf(this.samples, this.samples.length * 2);
+        }
+
+        this.samples[this.sampleCount++] = logLikelihood;
+        this.summary.add(state, new double[]{logLikelihood});
+    }
+
+    @Override
+    public void stopLogging() {
+    }
+}
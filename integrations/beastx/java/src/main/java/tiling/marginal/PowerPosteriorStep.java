@@ -0,0 +1,16 @@
+package tiling.marginal;
+
+/**
+ * Log-likelihood samples of one power-posterior chain after its burn-in.
+ *
+ * @param effectiveSampleSize batch-means estimate, {@code NaN} when the chain
+ *                            had too few samples for one
+ */
+public record PowerPosteriorStep(
+        double beta,
+        long sampleCount,
+        double meanLogLikelihood,
+        double logLikelihoodStandardDeviation,
+        double effectiveSampleSize
+) {
+}
@@ -0,0 +1,360 @@
+package tiling.mcmc;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Log file writer that moves encoding, compression and file I/O off the MCMC
+ * thread.
+ *
+ * <p>Logged text is collected in one of at most {@link #BUFFER_COUNT}
+ * character buffers. A full buffer is handed to a background thread, which writes it
+ * and returns it for reuse, so the buffers form a bounded ring: when the disk
+ * falls behind by all of them, the chain waits instead of growing memory.
+ * Files whose name ends in {@code .gz} are gzip-compressed.</p>
+ *
+ * <p>{@link #flush()} does not wait for the disk, because formatters flush
+ * after every line. {@link #sync()} does: it writes everything logged so far
+ * and, for compressed files, ends the current gzip member, so the file can
+ * be truncated to its current length and appended to with a new member.
+ * Chain checkpoints sync before recording log lengths, and a shutdown hook
+ * syncs and closes writers that are still open when the JVM exits.</p>
+ */
+public final class AsyncLogWriter extends Writer implements LogFile {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    static final int BUFFER_COUNT = 8;
+
+    private record Block(char[] chars, int length, CompletableFuture<Void> synced, boolean last) {
+    }
+
+    private final Path path;
+    private final boolean compressed;
+    private final int bufferSize;
+
+    private final BlockingQueue<Block> filled =
+            new ArrayBlockingQueue<>(BUFFER_COUNT + 2);
+
+    private final BlockingQueue<char[]> empty =
+            new ArrayBlockingQueue<>(BUFFER_COUNT);
+
+    private final Thread shutdownHook;
+
+    private char[] current;
+    private int length;
+    private int allocatedBuffers;
+
+    private Thread writerThread;
+    private volatile IOException failure;
+    private boolean closed;
+
+    // owned by the writer thread
+    private BufferedOutputStream fileStream;
+    private GZIPOutputStream gzipStream;
+    private Writer encoder;
+
+    /**
+     * @param append whether to continue an existing file, as when a chain is
+     *               resumed from a checkpoint, instead of replacing it
+     */
+    public AsyncLogWriter(Path path, boolean append, int bufferSize) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null.");
+        }
+
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive.");
+        }
+
+        this.path = path;
+        this.compressed = path.getFileName().toString().endsWith(".gz");
+        this.bufferSize = bufferSize;
+
+        if (!append) {
+            Files.deleteIfExists(path);
+        }
+
+        // create the file up front so it exists even before the first block is written
+        Files.write(path, new byte[0], StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        this.current = new char[bufferSize];
+        this.allocatedBuffers = 1;
+
+        this.shutdownHook =
+                new Thread(this::closeQuietly, "log-writer-shutdown-" + path.getFileName());
+
+        Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    }
+
+    @Override
+    public Path path() {
+        return this.path;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int count) throws IOException {
+        synchronized (this.lock) {
+            this.ensureOpen();
+
+            while (count > 0) {
+                int copied =
+                        Math.min(count, this.bufferSize - this.length);
+
+                System.arraycopy(chars, offset, this.current, this.length, copied);
+
+                this.length += copied;
+                offset += copied;
+                count -= copied;
+
+                if (this.length == this.bufferSize) {
+                    this.handOff(null, false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void write(String text, int offset, int count) throws IOException {
+        synchronized (this.lock) {
+            this.ensureOpen();
+
+            while (count > 0) {
+                int copied =
+                        Math.min(count, this.bufferSize - this.length);
+
+                text.getChars(offset, offset + copied, this.current, this.length);
+
+                this.length += copied;
+                offset += copied;
+                count -= copied;
+
+                if (this.length == this.bufferSize) {
+                    this.handOff(null, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Does nothing beyond reporting an earlier write failure; see
+     * {@link #sync()}.
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (this.lock) {
+            this.ensureOpen();
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        synchronized (this.lock) {
+            this.ensureOpen();
+            this.await(this.handOff(new CompletableFuture<>(), false));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this.lock) {
+            if (this.closed) {
+                return;
+            }
+
+            try {
+                this.await(this.handOff(new CompletableFuture<>(), true));
+            } finally {
+                this.closed = true;
+                this.current = null;
+
+                try {
+                    Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+                } catch (IllegalStateException e) {
+                    // the JVM is already shutting down and running this hook
+                }
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            this.close();
+        } catch (IOException e) {
+            System.err.println("Could not finish log file '" + this.path + "': " + e.getMessage());
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("Log file '" + this.path + "' is closed.");
+        }
+
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    private CompletableFuture<Void> handOff(CompletableFuture<Void> synced, boolean last) throws IOException {
+        if (this.writerThread == null) {
+            this.writerThread = Thread.ofPlatform()
+                    .name("log-writer-" + this.path.getFileName())
+                    .daemon(true)
+                    .start(this::drain);
+        }
+
+        try {
+            if (this.length > 0 || synced == null) {
+                this.filled.put(new Block(this.current, this.length, synced, last));
+                this.current = last ? null : this.nextBuffer();
+            } else {
+                this.filled.put(new Block(null, 0, synced, last));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing log file '" + this.path + "'.", e);
+        }
+
+        this.length = 0;
+
+        return synced;
+    }
+
+    // Reuses a written buffer, allocating up to BUFFER_COUNT buffers before waiting for the writer thread.
+    private char[] nextBuffer() throws InterruptedException {
+        char[] buffer =
+                this.empty.poll();
+
+        if (buffer != null) {
+            return buffer;
+        }
+
+        if (this.allocatedBuffers < BUFFER_COUNT) {
+            this.allocatedBuffers++;
+            return new char[this.bufferSize];
+        }
+
+        return this.empty.take();
+    }
+
+    private void await(CompletableFuture<Void> synced) throws IOException {
+        try {
+            synced.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while syncing log file '" + this.path + "'.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io
+                    ? io
+                    : new IOException("Could not write log file '" + this.path + "'.", e.getCause());
+        }
+    }
+
+    // Background loop: writes blocks in order until the closing block arrives.
+    private void drain() {
+        while (true) {
+            Block block;
+
+            try {
+                block = this.filled.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                if (this.failure == null) {
+                    this.writeBlock(block);
+                }
+
+                if (block.synced() != null) {
+                    if (this.failure == null) {
+                        this.finishBlock(block.last());
+                    }
+
+                    if (this.failure == null) {
+                        block.synced().complete(null);
+                    } else {
+                        block.synced().completeExceptionally(this.failure);
+                    }
+                }
+            } catch (IOException e) {
+                this.failure = e;
+
+                if (block.synced() != null) {
+                    block.synced().completeExceptionally(e);
+                }
+            } finally {
+                if (block.chars() != null && !block.last()) {
+                    this.empty.add(block.chars());
+                }
+            }
+
+            if (block.last()) {
+                return;
+            }
+        }
+    }
+
+    private void writeBlock(Block block) throws IOException {
+        if (block.chars() == null || block.length() == 0) {
+            return;
+        }
+
+        if (this.encoder == null) {
+            if (this.fileStream == null) {
+                OutputStream file =
+                        new FileOutputStream(this.path.toFile(), true);
+
+                this.fileStream = new BufferedOutputStream(file, Math.max(8192, this.bufferSize));
+            }
+
+            OutputStream target =
+                    this.fileStream;
+
+            if (this.compressed) {
+                this.gzipStream = new GZIPOutputStream(this.fileStream, Math.max(512, this.bufferSize));
+                target = this.gzipStream;
+            }
+
+            this.encoder = new OutputStreamWriter(target, StandardCharsets.UTF_8);
+        }
+
+        this.encoder.write(block.chars(), 0, block.length());
+    }
+
+    // Pushes everything to the file, ending the gzip member so the file is complete at this length.
+    private void finishBlock(boolean last) throws IOException {
+        if (this.encoder != null) {
+            this.encoder.flush();
+
+            if (this.gzipStream != null) {
+                this.gzipStream.finish();
+                this.gzipStream = null;
+                this.encoder = null;
+            }
+        }
+
+        if (this.fileStream != null) {
+            this.fileStream.flush();
+
+            if (last) {
+                this.fileStream.close();
+                this.fileStream = null;
+                this.encoder = null;
+            }
+        }
+    }
+}
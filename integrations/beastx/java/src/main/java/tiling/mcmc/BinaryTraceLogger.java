@@ -0,0 +1,75 @@
+package tiling.mcmc;
+
+import dr.inference.loggers.Loggable;
+import dr.inference.loggers.Logger;
+import tiling.trace.BinaryTraceWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Logs the columns of a file logger to a {@link BinaryTraceWriter binary trace}
+ * next to its tab-delimited log.
+ *
+ * <p>The trace and its header are written when the logger is built, so a
+ * resumed chain, which does not restart file loggers, continues the trace of
+ * the original run.</p>
+ */
+final class BinaryTraceLogger implements Logger, LogFile {
+
+    private final long logEvery;
+    private final LoggedColumns columns;
+    private final double[] values;
+    private final BinaryTraceWriter writer;
+
+    BinaryTraceLogger(Path path, boolean append, long logEvery, List<Loggable> loggables) throws IOException {
+        this.logEvery = logEvery;
+        this.columns = new LoggedColumns(loggables);
+        this.values = new double[this.columns.size()];
+        this.writer = new BinaryTraceWriter(path, this.columns.labels(), append, BinaryTraceWriter.DEFAULT_BLOCK_SIZE);
+    }
+
+    @Override
+    public Path path() {
+        return this.writer.path();
+    }
+
+    @Override
+    public void startLogging() {
+    }
+
+    @Override
+    public void log(long state) {
+        if (this.logEvery <= 0 || state % this.logEvery != 0) {
+            return;
+        }
+
+        this.columns.read(this.values);
+
+        try {
+            this.writer.write(state, this.values);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write BEAST X binary trace '" + this.path() + "'.", e);
+        }
+    }
+
+    @Override
+    public void stopLogging() {
+        try {
+            this.writer.sync();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write BEAST X binary trace '" + this.path() + "'.", e);
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        this.writer.sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
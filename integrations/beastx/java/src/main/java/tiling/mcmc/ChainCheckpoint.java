@@ -0,0 +1,681 @@
+package tiling.mcmc;
+
+import dr.evolution.tree.NodeRef;
+import dr.evomodel.tree.TreeModel;
+import dr.inference.model.Parameter;
+import dr.inference.operators.AdaptableMCMCOperator;
+import dr.inference.operators.MCMCOperator;
+import dr.inference.operators.OperatorSchedule;
+import dr.math.MathUtils;
+import tiling.BeastXModel;
+import tiling.BeastXState;
+import tiling.operators.Checkpointable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a running chain, written periodically by
+ * {@link CheckpointLogger} and read back to resume a run.
+ *
+ * <p>A checkpoint holds the sampled parameter values and tree topologies and
+ * heights, the weight, acceptance counts and tuning of every operator, the
+ * adaptation state of the operator schedule, the random number generator
+ * state, and the length of every log file at the checkpointed state. Restoring
+ * it into an MCMC built from the same compiled model and truncating the logs
+ * to the saved lengths lets the chain continue exactly as if it had not been
+ * interrupted.</p>
+ *
+ * <p>BEAST X draws every random number from one {@link MathUtils} generator
+ * per JVM, so its state belongs to the chain only while no other chain runs.
+ * Checkpoints are therefore neither captured nor restored while another chain
+ * runs through {@link MCMCBuilder#run}: the batch runner runs checkpointed
+ * instances one at a time, and marginal likelihood estimation does not
+ * checkpoint its chains.</p>
+ */
+public final class ChainCheckpoint {
+
+    private static final int MAGIC = 0x42584350;
+
+    private static final int FORMAT_VERSION = 4;
+
+    // relative difference tolerated between the saved and the recomputed log posterior
+    private static final double LOG_POSTERIOR_TOLERANCE = 1e-8;
+
+    private final long state;
+    private final double logPosterior;
+    private final Map<String, double[]> parameterValues;
+    private final Map<String, TreeState> trees;
+    private final List<OperatorState> operators;
+    private final byte[] scheduleState;
+    private final int[] randomState;
+    private final Map<Path, Long> logLengths;
+
+    private record TreeState(int root, double[] heights, int[][] children) {
+    }
+
+    private record OperatorState(
+            String name,
+            String type,
+            double weight,
+            long acceptCount,
+            long rejectCount,
+            double adaptableParameter,
+            long adaptationCount,
+            byte[] extraState
+    ) {
+    }
+
+    private ChainCheckpoint(
+            long state,
+            double logPosterior,
+            Map<String, double[]> parameterValues,
+            Map<String, TreeState> trees,
+            List<OperatorState> operators,
+            byte[] scheduleState,
+            int[] randomState,
+            Map<Path, Long> logLengths
+    ) {
+        this.state = state;
+        this.logPosterior = logPosterior;
+        this.parameterValues = parameterValues;
+        this.trees = trees;
+        this.operators = operators;
+        this.scheduleState = scheduleState;
+        this.randomState = randomState;
+        this.logLengths = logLengths;
+    }
+
+    /**
+     * Captures the chain at {@code state}. Must be called between two MCMC
+     * steps, which is when loggers run.
+     */
+    public static ChainCheckpoint capture(
+            BeastXModel model,
+            OperatorSchedule schedule,
+            long state,
+            List<Path> logFiles
+    ) throws IOException {
+        // the checkpointing chain itself runs, and is called from its logger
+        rejectConcurrentChains(1);
+
+        Map<String, double[]> parameterValues =
+                new LinkedHashMap<>();
+
+        for (Parameter parameter : sampledParameters(model.beastState)) {
+            parameterValues.put(parameter.getId(), parameter.getParameterValues());
+        }
+
+        Map<String, TreeState> trees =
+                new LinkedHashMap<>();
+
+        for (TreeModel treeModel : sampledTrees(model.beastState)) {
+            trees.put(treeModel.getId(), captureTree(treeModel));
+        }
+
+        List<OperatorState> operators =
+                new ArrayList<>();
+
+        for (int i = 0; i < schedule.getOperatorCount(); i++) {
+            operators.add(captureOperator(schedule.getOperator(i)));
+        }
+
+        Map<Path, Long> logLengths =
+                new LinkedHashMap<>();
+
+        for (Path logFile : logFiles) {
+            logLengths.put(logFile, Files.exists(logFile) ? Files.size(logFile) : 0L);
+        }
+
+        return new ChainCheckpoint(
+                state,
+                model.posterior.getLogLikelihood(),
+                parameterValues,
+                trees,
+                operators,
+                schedule instanceof Checkpointable checkpointable ? serialize(checkpointable) : new byte[0],
+                MathUtils.getRandomState(),
+                logLengths
+        );
+    }
+
+    public long state() {
+        return this.state;
+    }
+
+    /**
+     * Cuts every log file back to its length at the checkpointed state, so a
+     * resumed chain appends to it without duplicating samples.
+     */
+    public void truncateLogs() throws IOException {
+        for (Map.Entry<Path, Long> entry : this.logLengths.entrySet()) {
+            Path logFile =
+                    entry.getKey();
+
+            long length =
+                    entry.getValue();
+
+            if (!Files.exists(logFile) || Files.size(logFile) < length) {
+                throw new IllegalStateException(
+                        "Log file '" + logFile + "' is shorter than at checkpoint state " + this.state + "."
+                );
+            }
+
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+        }
+    }
+
+    /**
+     * Loads the checkpoint into a freshly built chain, after checking that the
+     * chain samples parameters and trees of the same dimensions with operators
+     * of the same names and types, and that the restored state reproduces the
+     * saved posterior.
+     */
+    public void restore(BeastXModel model, OperatorSchedule schedule) throws IOException {
+        // the resumed chain is built, but not yet running
+        rejectConcurrentChains(0);
+
+        List<Parameter> parameters =
+                sampledParameters(model.beastState);
+
+        List<TreeModel> treeModels =
+                sampledTrees(model.beastState);
+
+        this.validate(parameters, treeModels, schedule);
+
+        for (Parameter parameter : parameters) {
+            double[] values =
+                    this.parameterValues.get(parameter.getId());
+
+            for (int i = 0; i < values.length; i++) {
+                parameter.setParameterValueQuietly(i, values[i]);
+            }
+
+            parameter.fireParameterChangedEvent();
+        }
+
+        for (TreeModel treeModel : treeModels) {
+            restoreTree(treeModel, this.trees.get(treeModel.getId()));
+        }
+
+        for (int i = 0; i < schedule.getOperatorCount(); i++) {
+            restoreOperator(schedule.getOperator(i), this.operators.get(i));
+        }
+
+        if (schedule instanceof Checkpointable checkpointable) {
+            checkpointable.readCheckpoint(new DataInputStream(new ByteArrayInputStream(this.scheduleState)));
+        }
+
+        model.posterior.makeDirty();
+
+        double logPosterior =
+                model.posterior.getLogLikelihood();
+
+        if (!(Math.abs(logPosterior - this.logPosterior)
+                <= LOG_POSTERIOR_TOLERANCE * Math.max(1.0, Math.abs(this.logPosterior)))) {
+            throw new IllegalStateException(
+                    "Checkpoint does not match the compiled model: saved log posterior " + this.logPosterior
+                            + " but the restored state evaluates to " + logPosterior + "."
+            );
+        }
+
+        MathUtils.setRandomState(this.randomState);
+    }
+
+    private static void rejectConcurrentChains(int ownChains) {
+        int otherChains =
+                MCMCBuilder.runningChainCount() - ownChains;
+
+        if (otherChains > 0) {
+            throw new IllegalStateException(
+                    "Cannot checkpoint a chain while " + otherChains + " other chain(s) run in this JVM: "
+                            + "they share its random number generator, so its state cannot be saved or restored."
+            );
+        }
+    }
+
+    private void validate(
+            List<Parameter> parameters,
+            List<TreeModel> treeModels,
+            OperatorSchedule schedule
+    ) {
+        List<String> problems =
+                new ArrayList<>();
+
+        if (parameters.size() != this.parameterValues.size()) {
+            problems.add(
+                    "expected " + this.parameterValues.size() + " sampled parameters but found " + parameters.size()
+            );
+        }
+
+        for (Parameter parameter : parameters) {
+            double[] values =
+                    this.parameterValues.get(parameter.getId());
+
+            if (values == null) {
+                problems.add("parameter '" + parameter.getId() + "' is not in the checkpoint");
+            } else if (values.length != parameter.getDimension()) {
+                problems.add(
+                        "parameter '" + parameter.getId() + "' has dimension " + parameter.getDimension()
+                                + " but " + values.length + " in the checkpoint"
+                );
+            }
+        }
+
+        if (treeModels.size() != this.trees.size()) {
+            problems.add("expected " + this.trees.size() + " sampled trees but found " + treeModels.size());
+        }
+
+        for (TreeModel treeModel : treeModels) {
+            TreeState tree =
+                    this.trees.get(treeModel.getId());
+
+            if (tree == null) {
+                problems.add("tree '" + treeModel.getId() + "' is not in the checkpoint");
+            } else if (tree.heights().length != treeModel.getNodeCount()) {
+                problems.add(
+                        "tree '" + treeModel.getId() + "' has " + treeModel.getNodeCount()
+                                + " nodes but " + tree.heights().length + " in the checkpoint"
+                );
+            }
+        }
+
+        if (schedule.getOperatorCount() != this.operators.size()) {
+            problems.add(
+                    "expected " + this.operators.size() + " operators but found " + schedule.getOperatorCount()
+            );
+        } else {
+            for (int i = 0; i < this.operators.size(); i++) {
+                String name =
+                        schedule.getOperator(i).getOperatorName();
+
+                String type =
+                        schedule.getOperator(i).getClass().getName();
+
+                if (!name.equals(this.operators.get(i).name())) {
+                    problems.add(
+                            "operator " + i + " is '" + name + "' but '" + this.operators.get(i).name()
+                                    + "' in the checkpoint"
+                    );
+                } else if (!type.equals(this.operators.get(i).type())) {
+                    problems.add(
+                            "operator '" + name + "' is a " + type + " but a " + this.operators.get(i).type()
+                                    + " in the checkpoint"
+                    );
+                }
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException(
+                    "Checkpoint does not match the compiled model: " + String.join("; ", problems) + "."
+            );
+        }
+    }
+
+    private static List<Parameter> sampledParameters(BeastXState beastState) {
+        List<Parameter> parameters =
+                new ArrayList<>(beastState.stateNodes.keySet());
+
+        parameters.sort(Comparator.comparing(Parameter::getId));
+
+        return parameters;
+    }
+
+    private static List<TreeModel> sampledTrees(BeastXState beastState) {
+        List<TreeModel> treeModels =
+                new ArrayList<>(beastState.treePriorDistributions.keySet());
+
+        treeModels.sort(Comparator.comparing(TreeModel::getId));
+
+        return treeModels;
+    }
+
+    private static TreeState captureTree(TreeModel treeModel) {
+        int nodeCount =
+                treeModel.getNodeCount();
+
+        double[] heights =
+                new double[nodeCount];
+
+        int[][] children =
+                new int[nodeCount][];
+
+        for (int i = 0; i < nodeCount; i++) {
+            NodeRef node =
+                    treeModel.getNode(i);
+
+            heights[i] = treeModel.getNodeHeight(node);
+            children[i] = new int[treeModel.getChildCount(node)];
+
+            for (int j = 0; j < children[i].length; j++) {
+                children[i][j] = treeModel.getChild(node, j).getNumber();
+            }
+        }
+
+        return new TreeState(treeModel.getRoot().getNumber(), heights, children);
+    }
+
+    private static void restoreTree(TreeModel treeModel, TreeState tree) {
+        treeModel.beginTreeEdit();
+
+        for (int i = 0; i < treeModel.getInternalNodeCount(); i++) {
+            NodeRef node =
+                    treeModel.getInternalNode(i);
+
+            while (treeModel.getChildCount(node) > 0) {
+                treeModel.removeChild(node, treeModel.getChild(node, 0));
+            }
+        }
+
+        for (int i = 0; i < tree.heights().length; i++) {
+            NodeRef node =
+                    treeModel.getNode(i);
+
+            for (int child : tree.children()[i]) {
+                treeModel.addChild(node, treeModel.getNode(child));
+            }
+
+            // tips too, since sampled tip dates move their heights
+            treeModel.setNodeHeight(node, tree.heights()[i]);
+        }
+
+        treeModel.setRoot(treeModel.getNode(tree.root()));
+        treeModel.endTreeEdit();
+    }
+
+    private static OperatorState captureOperator(MCMCOperator operator) throws IOException {
+        double adaptableParameter = Double.NaN;
+        long adaptationCount = 0;
+
+        if (operator instanceof AdaptableMCMCOperator adaptable) {
+            adaptableParameter = adaptable.getAdaptableParameter();
+            adaptationCount = adaptable.getAdaptationCount();
+        }
+
+        return new OperatorState(
+                operator.getOperatorName(),
+                operator.getClass().getName(),
+                operator.getWeight(),
+                operator.getAcceptCount(),
+                operator.getRejectCount(),
+                adaptableParameter,
+                adaptationCount,
+                operator instanceof Checkpointable checkpointable ? serialize(checkpointable) : new byte[0]
+        );
+    }
+
+    private static void restoreOperator(MCMCOperator operator, OperatorState saved) throws IOException {
+        operator.setWeight(saved.weight());
+        operator.setAcceptCount(saved.acceptCount());
+        operator.setRejectCount(saved.rejectCount());
+
+        if (operator instanceof AdaptableMCMCOperator adaptable) {
+            adaptable.setAdaptableParameter(saved.adaptableParameter());
+            adaptable.setAdaptationCount(saved.adaptationCount());
+        }
+
+        if (operator instanceof Checkpointable checkpointable) {
+            checkpointable.readCheckpoint(new DataInputStream(new ByteArrayInputStream(saved.extraState())));
+        }
+    }
+
+    private static byte[] serialize(Checkpointable checkpointable) throws IOException {
+        ByteArrayOutputStream bytes =
+                new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            checkpointable.writeCheckpoint(out);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the checkpoint next to {@code path}, forces it to disk and then
+     * moves it into place, so a crash never leaves a partial checkpoint behind.
+     */
+    public void write(Path path) throws IOException {
+        Path parent =
+                path.toAbsolutePath().getParent();
+
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path temporary =
+                path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            this.writeTo(out);
+            out.flush();
+            file.getFD().sync();
+        }
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static ChainCheckpoint read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return readFrom(in);
+        }
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(this.state);
+        out.writeDouble(this.logPosterior);
+
+        out.writeInt(this.parameterValues.size());
+
+        for (Map.Entry<String, double[]> entry : this.parameterValues.entrySet()) {
+            out.writeUTF(entry.getKey());
+            Checkpointable.writeDoubles(out, entry.getValue());
+        }
+
+        out.writeInt(this.trees.size());
+
+        for (Map.Entry<String, TreeState> entry : this.trees.entrySet()) {
+            TreeState tree =
+                    entry.getValue();
+
+            out.writeUTF(entry.getKey());
+            out.writeInt(tree.root());
+            Checkpointable.writeDoubles(out, tree.heights());
+
+            for (int[] children : tree.children()) {
+                out.writeInt(children.length);
+
+                for (int child : children) {
+                    out.writeInt(child);
+                }
+            }
+        }
+
+        out.writeInt(this.operators.size());
+
+        for (OperatorState operator : this.operators) {
+            out.writeUTF(operator.name());
+            out.writeUTF(operator.type());
+            out.writeDouble(operator.weight());
+            out.writeLong(operator.acceptCount());
+            out.writeLong(operator.rejectCount());
+            out.writeDouble(operator.adaptableParameter());
+            out.writeLong(operator.adaptationCount());
+            out.writeInt(operator.extraState().length);
+            out.write(operator.extraState());
+        }
+
+        out.writeInt(this.scheduleState.length);
+        out.write(this.scheduleState);
+
+        out.writeInt(this.randomState.length);
+
+        for (int word : this.randomState) {
+            out.writeInt(word);
+        }
+
+        out.writeInt(this.logLengths.size());
+
+        for (Map.Entry<Path, Long> entry : this.logLengths.entrySet()) {
+            out.writeUTF(entry.getKey().toString());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static ChainCheckpoint readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a BEAST X chain checkpoint.");
+        }
+
+        int version =
+                in.readInt();
+
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported chain checkpoint format version " + version + ".");
+        }
+
+        long state =
+                in.readLong();
+
+        double logPosterior =
+                in.readDouble();
+
+        Map<String, double[]> parameterValues =
+                new LinkedHashMap<>();
+
+        for (int count = in.readInt(), i = 0; i < count; i++) {
+            String id =
+                    in.readUTF();
+
+            parameterValues.put(id, readDoubles(in));
+        }
+
+        Map<String, TreeState> trees =
+                new LinkedHashMap<>();
+
+        for (int count = in.readInt(), i = 0; i < count; i++) {
+            String id =
+                    in.readUTF();
+
+            int root =
+                    in.readInt();
+
+            double[] heights =
+                    readDoubles(in);
+
+            int[][] children =
+                    new int[heights.length][];
+
+            for (int node = 0; node < heights.length; node++) {
+                children[node] = new int[in.readInt()];
+
+                for (int j = 0; j < children[node].length; j++) {
+                    children[node][j] = in.readInt();
+                }
+            }
+
+            trees.put(id, new TreeState(root, heights, children));
+        }
+
+        List<OperatorState> operators =
+                new ArrayList<>();
+
+        for (int count = in.readInt(), i = 0; i < count; i++) {
+            operators.add(new OperatorState(
+                    in.readUTF(),
+                    in.readUTF(),
+                    in.readDouble(),
+                    in.readLong(),
+                    in.readLong(),
+                    in.readDouble(),
+                    in.readLong(),
+                    readBytes(in)
+            ));
+        }
+
+        byte[] scheduleState =
+                readBytes(in);
+
+        int[] randomState =
+                new int[in.readInt()];
+
+        for (int i = 0; i < randomState.length; i++) {
+            randomState[i] = in.readInt();
+        }
+
+        Map<Path, Long> logLengths =
+                new LinkedHashMap<>();
+
+        for (int count = in.readInt(), i = 0; i < count; i++) {
+            logLengths.put(Path.of(in.readUTF()), in.readLong());
+        }
+
+        return new ChainCheckpoint(
+                state,
+                logPosterior,
+                parameterValues,
+                trees,
+                List.copyOf(operators),
+                scheduleState,
+                randomState,
+                logLengths
+        );
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] values =
+                new double[in.readInt()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readDouble();
+        }
+
+        return values;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes =
+                new byte[in.readInt()];
+
+        in.readFully(bytes);
+
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ChainCheckpoint(state=%s, logPosterior=%s, parameters=%s, trees=%s, operators=%s)".formatted(
+                this.state,
+                this.logPosterior,
+                this.parameterValues.keySet(),
+                this.trees.keySet(),
+                this.operators.size()
+        );
+    }
+}
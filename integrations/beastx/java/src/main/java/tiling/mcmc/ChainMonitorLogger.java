@@ -0,0 +1,55 @@
+package tiling.mcmc;
+
+import dr.inference.loggers.Logger;
+import tiling.monitoring.ChainMonitor;
+
+/**
+ * Reports the loggers of every state to a {@link ChainMonitor}. One of these
+ * comes before all other loggers of a chain and one after them, so the time
+ * in between is the time spent logging.
+ */
+final class ChainMonitorLogger implements Logger {
+
+    private final ChainMonitor monitor;
+    private final boolean first;
+
+    private ChainMonitorLogger(ChainMonitor monitor, boolean first) {
+        this.monitor = monitor;
+        this.first = first;
+    }
+
+    static ChainMonitorLogger first(ChainMonitor monitor) {
+        return new ChainMonitorLogger(monitor, true);
+    }
+
+    static ChainMonitorLogger last(ChainMonitor monitor) {
+        return new ChainMonitorLogger(monitor, false);
+    }
+
+    ChainMonitor monitor() {
+        return this.monitor;
+    }
+
+    @Override
+    public void startLogging() {
+        if (this.first) {
+            this.monitor.start();
+        }
+    }
+
+    @Override
+    public void log(long state) {
+        if (this.first) {
+            this.monitor.loggingStarted();
+        } else {
+            this.monitor.loggingFinished(state);
+        }
+    }
+
+    @Override
+    public void stopLogging() {
+        if (!this.first) {
+            this.monitor.stop();
+        }
+    }
+}
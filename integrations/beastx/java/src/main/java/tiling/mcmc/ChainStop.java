@@ -0,0 +1,33 @@
+package tiling.mcmc;
+
+/**
+ * Why and where a chain with a convergence target stopped.
+ *
+ * @param minimumEffectiveSampleSize smallest effective sample size over the
+ *                                   summarized columns when the chain stopped,
+ *                                   {@code NaN} if too few samples were seen
+ */
+public record ChainStop(Reason reason, long state, double minimumEffectiveSampleSize) {
+
+    public enum Reason {
+        CONVERGED,
+        CHAIN_LENGTH_REACHED
+    }
+
+    public ChainStop {
+        if (reason == null) {
+            throw new IllegalArgumentException("reason must not be null.");
+        }
+    }
+
+    public String describe() {
+        return switch (this.reason) {
+            case CONVERGED -> "Chain converged at state %d with minimum ESS %.1f.".formatted(
+                    this.state, this.minimumEffectiveSampleSize
+            );
+            case CHAIN_LENGTH_REACHED -> "Chain reached its length at state %d with minimum ESS %.1f.".formatted(
+                    this.state, this.minimumEffectiveSampleSize
+            );
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package tiling.mcmc;
+
+import dr.inference.loggers.Logger;
+import dr.inference.operators.OperatorSchedule;
+import tiling.BeastXModel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a {@link ChainCheckpoint} every {@code checkpointEvery} states.
+ *
+ * <p>It has to come after the file loggers of the chain. Their files are
+ * synced before the log file lengths are recorded, so the lengths include
+ * the samples logged for the same state.</p>
+ */
+final class CheckpointLogger implements Logger {
+
+    private final Path checkpointPath;
+    private final long checkpointEvery;
+    private final BeastXModel model;
+    private final OperatorSchedule schedule;
+    private final List<LogFile> logFiles;
+
+    CheckpointLogger(
+            Path checkpointPath,
+            long checkpointEvery,
+            BeastXModel model,
+            OperatorSchedule schedule,
+            List<LogFile> logFiles
+    ) {
+        this.checkpointPath = checkpointPath;
+        this.checkpointEvery = checkpointEvery;
+        this.model = model;
+        this.schedule = schedule;
+        this.logFiles = List.copyOf(logFiles);
+    }
+
+    @Override
+    public void startLogging() {
+    }
+
+    @Override
+    public void log(long state) {
+        if (state == 0 || state % this.checkpointEvery != 0) {
+            return;
+        }
+
+        try {
+            List<Path> logPaths =
+                    new ArrayList<>();
+
+            for (LogFile logFile : this.logFiles) {
+                logFile.sync();
+                logPaths.add(logFile.path());
+            }
+
+            ChainCheckpoint.capture(this.model, this.schedule, state, logPaths)
+                    .write(this.checkpointPath);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Could not write BEAST X chain checkpoint '" + this.checkpointPath + "'.",
+                    e
+            );
+        }
+    }
+
+    @Override
+    public void stopLogging() {
+    }
+}
@@ -0,0 +1,86 @@
+package tiling.mcmc;
+
+import dr.inference.loggers.Logger;
+import dr.inference.mcmc.MCMC;
+import tiling.summary.OnlineTraceSummary;
+
+import java.io.PrintStream;
+
+/**
+ * Stops a chain once every column of its {@link OnlineTraceSummary} reaches
+ * a minimum effective sample size, checked every {@code checkEvery} states.
+ *
+ * <p>It has to come after the {@link TraceSummaryLogger} feeding the summary,
+ * so a check sees the state it is made at. The chain is stopped through
+ * {@link MCMC#pleaseStop()}, which ends it after the current state, and the
+ * loggers are stopped as at the end of a full-length run.</p>
+ */
+final class ConvergenceStopLogger implements Logger {
+
+    private final MCMC mcmc;
+    private final OnlineTraceSummary summary;
+    private final double minimumEss;
+    private final long checkEvery;
+    private final PrintStream out;
+
+    private ChainStop stop;
+
+    ConvergenceStopLogger(
+            MCMC mcmc,
+            OnlineTraceSummary summary,
+            double minimumEss,
+            long checkEvery,
+            PrintStream out
+    ) {
+        if (!(minimumEss > 0)) {
+            throw new IllegalArgumentException("minimumEss must be positive.");
+        }
+
+        if (checkEvery <= 0) {
+            throw new IllegalArgumentException("checkEvery must be positive.");
+        }
+
+        this.mcmc = mcmc;
+        this.summary = summary;
+        this.minimumEss = minimumEss;
+        this.checkEvery = checkEvery;
+        this.out = out;
+    }
+
+    ChainStop stop() {
+        return this.stop;
+    }
+
+    @Override
+    public void startLogging() {
+    }
+
+    @Override
+    public void log(long state) {
+        if (this.stop != null || state == 0 || state % this.checkEvery != 0) {
+            return;
+        }
+
+        double ess =
+                this.summary.minimumEffectiveSampleSize();
+
+        if (ess >= this.minimumEss) {
+            this.stop = new ChainStop(ChainStop.Reason.CONVERGED, state, ess);
+            this.out.println(this.stop.describe());
+            this.mcmc.pleaseStop();
+        }
+    }
+
+    @Override
+    public void stopLogging() {
+        if (this.stop == null) {
+            this.stop = new ChainStop(
+                    ChainStop.Reason.CHAIN_LENGTH_REACHED,
+                    this.summary.lastState(),
+                    this.summary.minimumEffectiveSampleSize()
+            );
+
+            this.out.println(this.stop.describe());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package tiling.mcmc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Output file of a chain logger whose buffered content can be pushed to disk
+ * on demand, so that chain checkpoints can record its length.
+ */
+public interface LogFile extends Closeable {
+
+    Path path();
+
+    /**
+     * Blocks until everything logged so far is in the file, and leaves the
+     * file in a state where it can be truncated to its current length and
+     * appended to.
+     */
+    void sync() throws IOException;
+}
@@ -0,0 +1,41 @@
+package tiling.mcmc;
+
+import dr.inference.loggers.Logger;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Closes the log files of a chain once all loggers have stopped, which
+ * writes out everything still buffered. It has to be the last logger.
+ */
+final class LogFileCloser implements Logger {
+
+    private final List<LogFile> logFiles;
+
+    LogFileCloser(List<LogFile> logFiles) {
+        this.logFiles = List.copyOf(logFiles);
+    }
+
+    @Override
+    public void startLogging() {
+    }
+
+    @Override
+    public void log(long state) {
+    }
+
+    @Override
+    public void stopLogging() {
+        for (LogFile logFile : this.logFiles) {
+            try {
+                logFile.close();
+            } catch (IOException e) {
+                throw new IllegalStateException(
+                        "Could not finish BEAST X log file '" + logFile.path() + "'.",
+                        e
+                );
+            }
+        }
+    }
+}
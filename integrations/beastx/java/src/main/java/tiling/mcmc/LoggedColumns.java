@@ -0,0 +1,65 @@
+package tiling.mcmc;
+
+import dr.inference.loggers.LogColumn;
+import dr.inference.loggers.Loggable;
+import dr.inference.loggers.NumberColumn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Numeric view of the columns of logged loggables, for loggers that record
+ * values rather than formatted text.
+ */
+final class LoggedColumns {
+
+    private final LogColumn[] columns;
+
+    LoggedColumns(List<Loggable> loggables) {
+        List<LogColumn> columns =
+                new ArrayList<>();
+
+        for (Loggable loggable : loggables) {
+            columns.addAll(List.of(loggable.getColumns()));
+        }
+
+        this.columns = columns.toArray(new LogColumn[0]);
+    }
+
+    int size() {
+        return this.columns.length;
+    }
+
+    List<String> labels() {
+        List<String> labels =
+                new ArrayList<>(this.columns.length);
+
+        for (LogColumn column : this.columns) {
+            labels.add(column.getLabel());
+        }
+
+        return labels;
+    }
+
+    /**
+     * Reads the current value of every column. Columns that are not numbers
+     * are read by parsing their formatted value, or as {@code NaN}.
+     */
+    void read(double[] values) {
+        for (int i = 0; i < this.columns.length; i++) {
+            values[i] = valueOf(this.columns[i]);
+        }
+    }
+
+    private static double valueOf(LogColumn column) {
+        if (column instanceof NumberColumn number) {
+            return number.getDoubleValue();
+        }
+
+        try {
+            return Double.parseDouble(column.getFormatted().trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
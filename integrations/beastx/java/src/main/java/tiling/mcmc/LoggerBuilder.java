@@ -12,20 +12,78 @@ import dr.inference.model.Statistic;
 import tiling.BeastXModel;
 import tiling.BeastXState;
 import tiling.loggables.TreeStatisticsLoggable;
+import tiling.trace.BinaryTraceWriter;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Builds BEAST X runtime loggers from logger specs collected in a {@link BeastXState} or a {@link BeastXModel}.
  */
 public class LoggerBuilder {
 
+    private final boolean appendToExistingFiles;
+
+    private final List<LogFile> logFiles =
+            new ArrayList<>();
+
+    private int logBufferSize =
+            AsyncLogWriter.DEFAULT_BUFFER_SIZE;
+
+    private boolean binaryTraces;
+
+    private final Set<Logger> fileLoggers =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public LoggerBuilder() {
+        this(false);
+    }
+
+    /**
+     * @param appendToExistingFiles whether file loggers continue existing
+     *                              output, as when a chain is resumed from a
+     *                              checkpoint, instead of overwriting it
+     */
+    public LoggerBuilder(boolean appendToExistingFiles) {
+        this.appendToExistingFiles = appendToExistingFiles;
+    }
+
+    /**
+     * Returns the files written by the file, tree and binary trace loggers
+     * built so far. They must be closed once logging stops, which
+     * {@link MCMCBuilder} arranges for the chains it builds.
+     */
+    public List<LogFile> getLogFiles() {
+        return List.copyOf(this.logFiles);
+    }
+
+    /**
+     * Returns whether the logger was built by this builder and writes to one
+     * of {@link #getLogFiles()}.
+     */
+    public boolean writesToFile(Logger logger) {
+        return this.fileLoggers.contains(logger);
+    }
+
+    /**
+     * Returns the number of values a logger of the named loggables writes per
+     * logged state, where {@code null} names the default loggables.
+     */
+    public int countLoggedValues(
+            BeastXModel model,
+            List<String> loggableNames
+    ) {
+        return new LoggedColumns(getLoggedLoggables(model, model.beastState, loggableNames))
+                .size();
+    }
+
     public List<Logger> build(BeastXState beastState) {
         return build(null, beastState);
     }
@@ -35,6 +93,9 @@ public class LoggerBuilder {
     }
 
     private List<Logger> build(BeastXModel model, BeastXState beastState) {
+        this.logBufferSize = beastState.logBufferSize;
+        this.binaryTraces = beastState.binaryTraces;
+
         List<Logger> loggers =
                 new ArrayList<>(beastState.mcmcLoggers);
 
@@ -49,26 +110,21 @@ public class LoggerBuilder {
             BeastXState beastState,
             List<Logger> loggers
     ) {
-        for (BeastXState.ScreenLoggerSpec spec : beastState.screenLoggerSpecs) {
-            MCLogger logger =
-                    new MCLogger(new TabDelimitedFormatter(System.out), spec.logEvery(), true);
+        if (beastState.screenLogging) {
+            for (BeastXState.ScreenLoggerSpec spec : beastState.screenLoggerSpecs) {
+                MCLogger logger =
+                        new MCLogger(new TabDelimitedFormatter(System.out), spec.logEvery(), true);
 
-            for (Loggable loggable : getLoggedLoggables(model, beastState, spec.parameterNames())) {
-                logger.add(loggable);
-            }
+                for (Loggable loggable : getLoggedLoggables(model, beastState, spec.parameterNames())) {
+                    logger.add(loggable);
+                }
 
-            loggers.add(logger);
+                loggers.add(logger);
+            }
         }
 
         for (BeastXState.FileLoggerSpec spec : beastState.fileLoggerSpecs) {
-            MCLogger logger =
-                    buildFileLogger(spec);
-
-            for (Loggable loggable : getLoggedLoggables(model, beastState, spec.parameterNames())) {
-                logger.add(loggable);
-            }
-
-            loggers.add(logger);
+            addFileLoggers(spec, getLoggedLoggables(model, beastState, spec.parameterNames()), loggers);
         }
 
         for (BeastXState.TreeLoggerSpec spec : beastState.treeLoggerSpecs) {
@@ -87,7 +143,7 @@ public class LoggerBuilder {
             return;
         }
 
-        if (beastState.screenLoggerSpecs.isEmpty()) {
+        if (beastState.screenLogging && beastState.screenLoggerSpecs.isEmpty()) {
             BeastXState.ScreenLoggerSpec screenLoggerSpec =
                     new BeastXState.ScreenLoggerSpec(
                             beastState.defaultLogEvery,
@@ -112,14 +168,7 @@ public class LoggerBuilder {
                             null
                     );
 
-            MCLogger logger =
-                    buildFileLogger(fileLoggerSpec);
-
-            for (Loggable loggable : getLoggedLoggables(model, beastState, null)) {
-                logger.add(loggable);
-            }
-
-            loggers.add(logger);
+            addFileLoggers(fileLoggerSpec, getLoggedLoggables(model, beastState, null), loggers);
         }
 
         if (beastState.treeLoggerSpecs.isEmpty() && !beastState.treePriorDistributions.isEmpty()) {
@@ -136,11 +185,43 @@ public class LoggerBuilder {
         }
     }
 
-    private MCLogger buildFileLogger(BeastXState.FileLoggerSpec spec) {
+    /**
+     * Adds the logger of a file logger spec and, if binary traces are
+     * enabled, the logger of the binary trace next to its file.
+     */
+    private void addFileLoggers(
+            BeastXState.FileLoggerSpec spec,
+            List<Loggable> loggables,
+            List<Logger> loggers
+    ) {
         try {
-            ensureParentDirectoryExists(spec.fileName());
+            MCLogger logger =
+                    new MCLogger(
+                            new TabDelimitedFormatter(openLogWriter(spec.fileName())),
+                            spec.logEvery(),
+                            false
+                    );
+
+            for (Loggable loggable : loggables) {
+                logger.add(loggable);
+            }
+
+            this.fileLoggers.add(logger);
+            loggers.add(logger);
 
-            return new MCLogger(spec.fileName(), spec.logEvery(), false, 0);
+            if (this.binaryTraces) {
+                BinaryTraceLogger traceLogger =
+                        new BinaryTraceLogger(
+                                BinaryTraceWriter.pathFor(Path.of(spec.fileName())),
+                                this.appendToExistingFiles,
+                                spec.logEvery(),
+                                loggables
+                        );
+
+                this.logFiles.add(traceLogger);
+                this.fileLoggers.add(traceLogger);
+                loggers.add(traceLogger);
+            }
         } catch (IOException e) {
             throw new IllegalStateException(
                     "Could not create BEAST X file logger for '" + spec.fileName() + "'.",
@@ -151,16 +232,19 @@ public class LoggerBuilder {
 
     private TreeLogger buildTreeLogger(BeastXState.TreeLoggerSpec spec, TreeModel treeModel) {
         try {
-            ensureParentDirectoryExists(spec.fileName());
-
-            return new TreeLogger(
-                    treeModel,
-                    new TabDelimitedFormatter(new PrintWriter(new FileWriter(spec.fileName()))),
-                    Math.toIntExact(spec.logEvery()),
-                    true,
-                    true,
-                    false
-            );
+            TreeLogger logger =
+                    new TreeLogger(
+                            treeModel,
+                            new TabDelimitedFormatter(openLogWriter(spec.fileName())),
+                            Math.toIntExact(spec.logEvery()),
+                            true,
+                            true,
+                            false
+                    );
+
+            this.fileLoggers.add(logger);
+
+            return logger;
         } catch (IOException e) {
             throw new IllegalStateException(
                     "Could not create BEAST X tree logger for '" + spec.fileName() + "'.",
@@ -169,6 +253,21 @@ public class LoggerBuilder {
         }
     }
 
+    /**
+     * Opens a log file whose writes happen on a background thread. Names
+     * ending in {@code .gz} are compressed.
+     */
+    private PrintWriter openLogWriter(String fileName) throws IOException {
+        ensureParentDirectoryExists(fileName);
+
+        AsyncLogWriter writer =
+                new AsyncLogWriter(Path.of(fileName), this.appendToExistingFiles, this.logBufferSize);
+
+        this.logFiles.add(writer);
+
+        return new PrintWriter(writer);
+    }
+
     private void ensureParentDirectoryExists(String fileName) throws IOException {
         Path path =
                 Path.of(fileName);
@@ -200,7 +299,7 @@ public class LoggerBuilder {
         return loggables;
     }
 
-    private List<Loggable> getDefaultLoggedLoggables(
+    List<Loggable> getDefaultLoggedLoggables(
             BeastXModel model,
             BeastXState beastState
     ) {
@@ -5,25 +5,43 @@ import dr.inference.mcmc.MCMC;
 import dr.inference.mcmc.MCMCOptions;
 import dr.inference.model.Likelihood;
 import dr.inference.operators.MCMCOperator;
-import dr.inference.operators.SimpleOperatorSchedule;
 import dr.math.MathUtils;
 import tiling.BeastXModel;
 import tiling.BeastXState;
 import tiling.model.BeastXPhyloCTMCLikelihoodSpec;
+import tiling.monitoring.ChainMonitor;
+import tiling.operators.AdaptiveOperatorSchedule;
 import tiling.operators.OperatorBuilder;
+import tiling.summary.OnlineTraceSummary;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Builds runnable BEAST X MCMC objects from an in-memory {@link BeastXModel}.
  *
  * Connects the model, operators, loggers, chain length, and random seed
- * into the MCMC structure expected by BEAST X.
+ * into the MCMC structure expected by BEAST X, optionally writing periodic
+ * {@link ChainCheckpoint}s or continuing from one. Unless
+ * {@link BeastXState#chainMonitoring} is off, the chain reports to a
+ * {@link ChainMonitor}.
  */
 public class MCMCBuilder {
 
+    // chains running in this JVM, which all draw from the one MathUtils generator
+    private static final AtomicInteger RUNNING_CHAINS =
+            new AtomicInteger();
+
     private final Long chainLengthOverride;
 
+    private Path checkpointPath;
+    private long checkpointEvery;
+    private ChainCheckpoint resumeFrom;
+
     public MCMCBuilder() {
         this.chainLengthOverride = null;
     }
@@ -36,26 +54,85 @@ public class MCMCBuilder {
         this.chainLengthOverride = chainLength;
     }
 
+    /**
+     * Writes a {@link ChainCheckpoint} of the running chain to
+     * {@code checkpointPath} every {@code checkpointEvery} states.
+     */
+    public MCMCBuilder checkpointEvery(long checkpointEvery, Path checkpointPath) {
+        if (checkpointEvery <= 0) {
+            throw new IllegalArgumentException("checkpointEvery must be positive.");
+        }
+
+        if (checkpointPath == null) {
+            throw new IllegalArgumentException("checkpointPath must not be null.");
+        }
+
+        this.checkpointEvery = checkpointEvery;
+        this.checkpointPath = checkpointPath;
+        return this;
+    }
+
+    /**
+     * Continues the chain from a checkpoint written by an earlier run of the
+     * same model. The built MCMC continues counting states from the
+     * checkpoint, so state-dependent schedules pick up where they stopped,
+     * and appends to the earlier run's log files.
+     */
+    public MCMCBuilder resumeFrom(ChainCheckpoint checkpoint) {
+        if (checkpoint == null) {
+            throw new IllegalArgumentException("checkpoint must not be null.");
+        }
+
+        this.resumeFrom = checkpoint;
+        return this;
+    }
+
     public MCMC build(BeastXModel model) {
         rejectUnmaterializedPhyloCTMCLikelihoods(model);
         applyRandomSeed(model.beastState);
 
+        long resumedState =
+                this.resumeFrom == null ? 0 : this.resumeFrom.state();
+
+        if (resumedState > getChainLength(model)) {
+            throw new IllegalStateException(
+                    "Cannot resume at checkpoint state " + resumedState
+                            + " beyond the chain length " + getChainLength(model) + "."
+            );
+        }
+
         MCMC mcmc =
                 new MCMC(model.beastState.getAvailableID("mcmc"));
 
+        // the markov chain runs this many states on from its current length, which is restored below
         MCMCOptions options =
-                new MCMCOptions(getChainLength(model));
+                new MCMCOptions(getChainLength(model) - resumedState);
+
+        AdaptiveOperatorSchedule operatorSchedule =
+                new AdaptiveOperatorSchedule(
+                        getOperatorAdaptationLength(model),
+                        getProposalAdaptationLength(model)
+                );
 
-        SimpleOperatorSchedule operatorSchedule =
-                new SimpleOperatorSchedule();
+        OperatorBuilder operatorBuilder =
+                new OperatorBuilder();
 
         List<MCMCOperator> operators =
-                new OperatorBuilder().build(model.beastState);
+                operatorBuilder.build(model.beastState);
 
         operatorSchedule.addOperators(operators);
+        operatorSchedule.setOperatorCosts(operatorBuilder.costs(model.beastState));
+        operatorSchedule.setOperatorTargets(operatorBuilder.targets(model.beastState));
+
+        ChainMonitor monitor = null;
+
+        if (model.beastState.chainMonitoring) {
+            monitor = new ChainMonitor(model.beastState.runName, getChainLength(model), operators);
+            operatorSchedule.setMonitor(monitor);
+        }
 
         Logger[] loggers =
-                new LoggerBuilder().build(model).toArray(new Logger[0]);
+                buildLoggers(model, mcmc, operatorSchedule, monitor).toArray(new Logger[0]);
 
         mcmc.init(
                 options,
@@ -64,9 +141,110 @@ public class MCMCBuilder {
                 loggers
         );
 
+        if (this.resumeFrom != null) {
+            try {
+                this.resumeFrom.restore(model, operatorSchedule);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not restore BEAST X chain checkpoint.", e);
+            }
+
+            mcmc.getMarkovChain().setCurrentLength(resumedState);
+        }
+
         return mcmc;
     }
 
+    private List<Logger> buildLoggers(
+            BeastXModel model,
+            MCMC mcmc,
+            AdaptiveOperatorSchedule operatorSchedule,
+            ChainMonitor monitor
+    ) {
+        if (this.resumeFrom != null) {
+            try {
+                this.resumeFrom.truncateLogs();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not truncate BEAST X logs to the chain checkpoint.", e);
+            }
+        }
+
+        LoggerBuilder loggerBuilder =
+                new LoggerBuilder(this.resumeFrom != null);
+
+        List<Logger> loggers =
+                new ArrayList<>();
+
+        if (monitor != null) {
+            loggers.add(ChainMonitorLogger.first(monitor));
+        }
+
+        loggers.addAll(loggerBuilder.build(model));
+
+        if (model.beastState.traceSummaryEvery != null || model.beastState.stopAtMinimumEss != null) {
+            TraceSummaryLogger summaryLogger =
+                    new TraceSummaryLogger(
+                            loggerBuilder.getDefaultLoggedLoggables(model, model.beastState),
+                            model.beastState.defaultLogEvery,
+                            model.beastState.traceSummaryEvery,
+                            (long) (getChainLength(model) * model.beastState.traceSummaryBurnInFraction),
+                            System.out
+                    );
+
+            loggers.add(summaryLogger);
+
+            if (model.beastState.stopAtMinimumEss != null) {
+                loggers.add(
+                        new ConvergenceStopLogger(
+                                mcmc,
+                                summaryLogger.summary(),
+                                model.beastState.stopAtMinimumEss,
+                                model.beastState.convergenceCheckEvery,
+                                System.out
+                        )
+                );
+            }
+        }
+
+        if (this.checkpointPath != null) {
+            loggers.add(
+                    new CheckpointLogger(
+                            this.checkpointPath,
+                            this.checkpointEvery,
+                            model,
+                            operatorSchedule,
+                            loggerBuilder.getLogFiles()
+                    )
+            );
+        }
+
+        if (monitor != null) {
+            loggers.add(ChainMonitorLogger.last(monitor));
+        }
+
+        if (!loggerBuilder.getLogFiles().isEmpty()) {
+            loggers.add(new LogFileCloser(loggerBuilder.getLogFiles()));
+        }
+
+        if (this.resumeFrom == null) {
+            return loggers;
+        }
+
+        List<Logger> resumedLoggers =
+                new ArrayList<>();
+
+        for (Logger logger : loggers) {
+            resumedLoggers.add(
+                    new ResumedLogger(
+                            logger,
+                            this.resumeFrom.state(),
+                            !loggerBuilder.writesToFile(logger)
+                    )
+            );
+        }
+
+        return resumedLoggers;
+    }
+
     public List<Logger> buildLoggers(BeastXState beastState) {
         return new LoggerBuilder().build(beastState);
     }
@@ -75,6 +253,74 @@ public class MCMCBuilder {
         return new LoggerBuilder().build(model);
     }
 
+    /**
+     * Returns the online posterior summary of a chain built with
+     * {@link BeastXState#traceSummaryEvery} or
+     * {@link BeastXState#stopAtMinimumEss} set, or an empty optional for
+     * other chains.
+     */
+    public static Optional<OnlineTraceSummary> traceSummary(MCMC mcmc) {
+        return findLogger(mcmc, TraceSummaryLogger.class)
+                .map(TraceSummaryLogger::summary);
+    }
+
+    /**
+     * Returns why a chain built with {@link BeastXState#stopAtMinimumEss} set
+     * stopped, or an empty optional for other chains and chains that have
+     * not finished.
+     */
+    public static Optional<ChainStop> chainStop(MCMC mcmc) {
+        return findLogger(mcmc, ConvergenceStopLogger.class)
+                .map(ConvergenceStopLogger::stop);
+    }
+
+    /**
+     * Returns the monitor of a chain built with
+     * {@link BeastXState#chainMonitoring} on, or an empty optional for other
+     * chains.
+     */
+    public static Optional<ChainMonitor> chainMonitor(MCMC mcmc) {
+        return findLogger(mcmc, ChainMonitorLogger.class)
+                .map(ChainMonitorLogger::monitor);
+    }
+
+    /**
+     * Runs a chain built by this class. A chain that fails does not stop its
+     * loggers, so its monitor is closed here.
+     */
+    public static void run(MCMC mcmc) {
+        RUNNING_CHAINS.incrementAndGet();
+
+        try {
+            mcmc.run();
+        } finally {
+            RUNNING_CHAINS.decrementAndGet();
+            chainMonitor(mcmc).ifPresent(ChainMonitor::close);
+        }
+    }
+
+    /**
+     * Returns how many chains are running through {@link #run(MCMC)} in this
+     * JVM.
+     */
+    static int runningChainCount() {
+        return RUNNING_CHAINS.get();
+    }
+
+    private static <T extends Logger> Optional<T> findLogger(MCMC mcmc, Class<T> type) {
+        for (Logger logger : mcmc.getLoggers()) {
+            if (logger instanceof ResumedLogger resumed) {
+                logger = resumed.logger();
+            }
+
+            if (type.isInstance(logger)) {
+                return Optional.of(type.cast(logger));
+            }
+        }
+
+        return Optional.empty();
+    }
+
     private void applyRandomSeed(BeastXState beastState) {
         if (beastState.randomSeed != null) {
             MathUtils.setSeed(beastState.randomSeed);
@@ -89,6 +335,18 @@ public class MCMCBuilder {
         return model.beastState.chainLength;
     }
 
+    private long getOperatorAdaptationLength(BeastXModel model) {
+        return (long) (getChainLength(model) * model.beastState.operatorConfig.operatorAdaptationFraction);
+    }
+
+    // adaptive moves learn their proposals over the chain's burn-in unless configured otherwise
+    private long getProposalAdaptationLength(BeastXModel model) {
+        Double fraction =
+                model.beastState.operatorConfig.proposalAdaptationFraction;
+
+        return (long) (getChainLength(model) * (fraction == null ? model.beastState.traceSummaryBurnInFraction : fraction));
+    }
+
     /**
      * Ensures that all PhyloCTMC likelihood specifications have been converted
      * into concrete BEAST X likelihood objects before MCMC initialization.
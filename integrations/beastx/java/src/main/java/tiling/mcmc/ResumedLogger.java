@@ -0,0 +1,49 @@
+package tiling.mcmc;
+
+import dr.inference.loggers.Logger;
+
+/**
+ * Adapts a logger to a chain resumed from a checkpoint.
+ *
+ * <p>The resumed MCMC continues counting from the checkpointed state, which
+ * was already logged before the checkpoint was written and is skipped.
+ * Loggers writing to files that were truncated back to the checkpoint keep
+ * the headers they wrote originally instead of starting over.</p>
+ */
+final class ResumedLogger implements Logger {
+
+    private final Logger logger;
+    private final long resumedState;
+    private final boolean restartLogging;
+
+    ResumedLogger(Logger logger, long resumedState, boolean restartLogging) {
+        this.logger = logger;
+        this.resumedState = resumedState;
+        this.restartLogging = restartLogging;
+    }
+
+    Logger logger() {
+        return this.logger;
+    }
+
+    @Override
+    public void startLogging() {
+        if (this.restartLogging) {
+            this.logger.startLogging();
+        }
+    }
+
+    @Override
+    public void log(long state) {
+        if (state == this.resumedState) {
+            return;
+        }
+
+        this.logger.log(state);
+    }
+
+    @Override
+    public void stopLogging() {
+        this.logger.stopLogging();
+    }
+}
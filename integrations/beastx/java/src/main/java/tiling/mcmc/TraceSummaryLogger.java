@@ -0,0 +1,73 @@
+package tiling.mcmc;
+
+import dr.inference.loggers.Loggable;
+import dr.inference.loggers.Logger;
+import tiling.summary.OnlineTraceSummary;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Feeds logged states into an {@link OnlineTraceSummary}, prints the summary
+ * every {@code reportEvery} states and once more when the chain stops. Without
+ * {@code reportEvery} it only keeps the summary, as for convergence checks.
+ */
+public final class TraceSummaryLogger implements Logger {
+
+    private final LoggedColumns columns;
+    private final double[] values;
+    private final long logEvery;
+    private final Long reportEvery;
+    private final PrintStream out;
+    private final OnlineTraceSummary summary;
+
+    TraceSummaryLogger(
+            List<Loggable> loggables,
+            long logEvery,
+            Long reportEvery,
+            long burnIn,
+            PrintStream out
+    ) {
+        if (reportEvery != null && reportEvery <= 0) {
+            throw new IllegalArgumentException("reportEvery must be positive.");
+        }
+
+        this.columns = new LoggedColumns(loggables);
+        this.values = new double[this.columns.size()];
+        this.logEvery = logEvery;
+        this.reportEvery = reportEvery;
+        this.out = out;
+        this.summary = new OnlineTraceSummary(this.columns.labels(), burnIn);
+    }
+
+    public OnlineTraceSummary summary() {
+        return this.summary;
+    }
+
+    @Override
+    public void startLogging() {
+    }
+
+    @Override
+    public void log(long state) {
+        if (this.logEvery > 0 && state % this.logEvery == 0) {
+            this.columns.read(this.values);
+            this.summary.add(state, this.values);
+        }
+
+        if (this.reportEvery != null && state > 0 && state % this.reportEvery == 0) {
+            this.out.print(this.summary.toReportString("Posterior summary at state " + state + ":"));
+        }
+    }
+
+    @Override
+    public void stopLogging() {
+        if (this.reportEvery == null) {
+            return;
+        }
+
+        this.out.print(
+                this.summary.toReportString("Posterior summary after state " + this.summary.lastState() + ":")
+        );
+    }
+}
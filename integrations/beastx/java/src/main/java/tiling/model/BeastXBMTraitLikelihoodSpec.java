@@ -4,13 +4,19 @@ import dr.evolution.alignment.Alignment;
 import dr.evolution.tree.NodeRef;
 import dr.evolution.util.Taxon;
 import dr.evomodel.branchratemodel.BranchRateModel;
+import dr.evomodel.tree.TreeChangedEvent;
 import dr.evomodel.tree.TreeModel;
 import dr.inference.model.AbstractModelLikelihood;
 import dr.inference.model.Model;
 import dr.inference.model.Parameter;
 import dr.inference.model.Variable;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -23,16 +29,47 @@ import java.util.Set;
  * the model at a higher level while BEAST X still receives a standard
  * {@link AbstractModelLikelihood} object that is marked dirty when the tree,
  * branch rates, or trait parameters change.</p>
+ *
+ * <p>All k traits are evolved independently with one rate per trait and are
+ * evaluated in a single post-order pass that prunes quadratic messages
+ * {@code log m(x) = c - P x^2 / 2 + Q x} from the tips to the root. The
+ * messages of each internal node are kept in double-buffered arrays, so that a
+ * node-height or single-branch rate change only recomputes the messages on the
+ * path from the changed node to the root.</p>
  */
 public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
+
+    // Variance added to each observed tip, matching the jitter of the dense covariance.
+    private static final double TIP_VARIANCE = 1e-10;
+
     private final Alignment observedTraits;
     private final TreeModel treeModel;
     private final BranchRateModel branchRateModel;
     private final Parameter siteRates;
     private final Parameter rootValues;
+    private final int traitCount;
 
     private boolean dirty = true;
     private double logLikelihood = Double.NaN;
+    private double storedLogLikelihood = Double.NaN;
+    private boolean storedDirty = true;
+
+    // Observed trait values indexed by external node number and trait, resolved once.
+    private double[][] tipTraitValues;
+    private boolean[] tipObserved;
+
+    // Unit-rate branch messages per node and trait, double-buffered by node.
+    private double[][] precision;
+    private double[][] linear;
+    private double[][] logScale;
+    private int[] bufferIndex;
+    private int[] storedBufferIndex;
+
+    private boolean[] nodeDirty;
+    private int[] dirtyNodes;
+    private int dirtyNodeCount;
+    private boolean allNodesDirty = true;
+    private boolean storedAllNodesDirty = true;
 
     public BeastXBMTraitLikelihoodSpec(
             String id,
@@ -48,6 +85,7 @@ public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
         this.branchRateModel = branchRateModel;
         this.siteRates = siteRates;
         this.rootValues = rootValues;
+        this.traitCount = siteRates.getDimension();
 
         ContinuousTraitValidation.validateObservedTraits(
                 "PhyloBM",
@@ -55,16 +93,17 @@ public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
                 treeModel
         );
 
-        ContinuousTraitValidation.requireSingleTraitParameter(
+        ContinuousTraitValidation.requireTraitCount(
                 "PhyloBM",
-                siteRates,
-                "siteRates"
+                observedTraits,
+                traitCount
         );
 
-        ContinuousTraitValidation.requireSingleTraitParameter(
+        ContinuousTraitValidation.requireTraitParameterDimension(
                 "PhyloBM",
                 rootValues,
-                "rootValues"
+                "rootValues",
+                traitCount
         );
 
         this.addModel(treeModel);
@@ -76,6 +115,10 @@ public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
         }
     }
 
+    public int getTraitCount() {
+        return traitCount;
+    }
+
     @Override
     public Model getModel() {
         return this;
@@ -98,35 +141,318 @@ public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
             return Double.NEGATIVE_INFINITY;
         }
 
-        double siteRate = siteRates.getParameterValue(0);
+        for (int trait = 0; trait < traitCount; trait++) {
+            double siteRate = siteRates.getParameterValue(trait);
+
+            if (!(siteRate > 0.0) || Double.isNaN(siteRate)) {
+                return Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        initializeMessages();
+        updateMessages();
+
+        int root = treeModel.getRoot().getNumber();
+        int rootBuffer = bufferIndex[root];
+
+        double result = 0.0;
+
+        for (int trait = 0; trait < traitCount; trait++) {
+            double p = precision[rootBuffer][root * traitCount + trait];
+            double q = linear[rootBuffer][root * traitCount + trait];
+            double c = logScale[rootBuffer][root * traitCount + trait];
+
+            if (rootValues != null) {
+                double rootValue = rootValues.getParameterValue(trait);
+                result += c - 0.5 * p * rootValue * rootValue + q * rootValue;
+            } else if (p > 0.0) {
+                // plug in the generalized least-squares root estimate q / p
+                result += c + 0.5 * q * q / p;
+            } else {
+                result += c;
+            }
+        }
+
+        return Double.isNaN(result) ? Double.NEGATIVE_INFINITY : result;
+    }
+
+    /**
+     * Recomputes the messages of every dirty node and of all its ancestors,
+     * visiting children before parents.
+     */
+    private void updateMessages() {
+        NodeRef[] updateOrder =
+                allNodesDirty
+                        ? postOrderNodes()
+                        : dirtyPathsPostOrder();
+
+        double[] siteRateValues = new double[traitCount];
+
+        for (int trait = 0; trait < traitCount; trait++) {
+            siteRateValues[trait] = siteRates.getParameterValue(trait);
+        }
+
+        for (NodeRef node : updateOrder) {
+            int nodeNumber = node.getNumber();
+
+            if (treeModel.isExternal(node)) {
+                continue;
+            }
+
+            // write into the buffer not held by storeState so that restoreState can swap back
+            if (bufferIndex[nodeNumber] == storedBufferIndex[nodeNumber]) {
+                bufferIndex[nodeNumber] = 1 - bufferIndex[nodeNumber];
+            }
+
+            int buffer = bufferIndex[nodeNumber];
+            int offset = nodeNumber * traitCount;
+
+            Arrays.fill(precision[buffer], offset, offset + traitCount, 0.0);
+            Arrays.fill(linear[buffer], offset, offset + traitCount, 0.0);
+            Arrays.fill(logScale[buffer], offset, offset + traitCount, 0.0);
+
+            for (int i = 0; i < treeModel.getChildCount(node); i++) {
+                addChildMessage(node, treeModel.getChild(node, i), buffer, siteRateValues);
+            }
+        }
+
+        clearDirtyNodes();
+        allNodesDirty = false;
+    }
+
+    /**
+     * Returns the union of the paths from each dirty node to the root, children
+     * before parents, in time proportional to the number of nodes on them.
+     */
+    private NodeRef[] dirtyPathsPostOrder() {
+        // extend the dirty set to the root along the current topology
+        int pathNodeCount = dirtyNodeCount;
+
+        for (int i = 0; i < pathNodeCount; i++) {
+            NodeRef node = treeModel.getNode(dirtyNodes[i]);
+
+            if (treeModel.isRoot(node)) {
+                continue;
+            }
+
+            int parentNumber = treeModel.getParent(node).getNumber();
+
+            if (!nodeDirty[parentNumber]) {
+                nodeDirty[parentNumber] = true;
+                dirtyNodes[pathNodeCount++] = parentNumber;
+            }
+        }
+
+        dirtyNodeCount = pathNodeCount;
+
+        if (pathNodeCount == 0) {
+            return new NodeRef[0];
+        }
+
+        // the dirty nodes form a rooted subtree, so only descend into dirty children
+        NodeRef[] order = new NodeRef[pathNodeCount];
+        Deque<NodeRef> stack = new ArrayDeque<>();
+
+        stack.push(treeModel.getRoot());
+
+        int position = order.length;
+
+        while (!stack.isEmpty()) {
+            NodeRef node = stack.pop();
+            order[--position] = node;
+
+            for (int i = 0; i < treeModel.getChildCount(node); i++) {
+                NodeRef child = treeModel.getChild(node, i);
+
+                if (nodeDirty[child.getNumber()]) {
+                    stack.push(child);
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Adds the message of a child, integrated over the Brownian branch above
+     * it, to the message of its parent.
+     */
+    private void addChildMessage(
+            NodeRef parent,
+            NodeRef child,
+            int parentBuffer,
+            double[] siteRateValues
+    ) {
+        int childNumber = child.getNumber();
+        int parentOffset = parent.getNumber() * traitCount;
+
+        double branchTime =
+                treeModel.getNodeHeight(parent) - treeModel.getNodeHeight(child);
+
+        double branchLength =
+                branchTime * branchRateModel.getBranchRate(treeModel, child);
+
+        if (treeModel.isExternal(child)) {
+            if (!tipObserved[childNumber]) {
+                return;
+            }
+
+            for (int trait = 0; trait < traitCount; trait++) {
+                double tipVariance = siteRateValues[trait] * branchLength + TIP_VARIANCE;
+                double y = tipTraitValues[childNumber][trait];
 
-        if (!(siteRate > 0.0) || Double.isNaN(siteRate)) {
+                precision[parentBuffer][parentOffset + trait] += 1.0 / tipVariance;
+                linear[parentBuffer][parentOffset + trait] += y / tipVariance;
+                logScale[parentBuffer][parentOffset + trait] +=
+                        -0.5 * (Math.log(2.0 * Math.PI * tipVariance) + y * y / tipVariance);
+            }
+
+            return;
+        }
+
+        int childBuffer = bufferIndex[childNumber];
+        int childOffset = childNumber * traitCount;
+
+        for (int trait = 0; trait < traitCount; trait++) {
+            double v = siteRateValues[trait] * branchLength;
+            double p = precision[childBuffer][childOffset + trait];
+            double q = linear[childBuffer][childOffset + trait];
+            double d = 1.0 + p * v;
+
+            precision[parentBuffer][parentOffset + trait] += p / d;
+            linear[parentBuffer][parentOffset + trait] += q / d;
+            logScale[parentBuffer][parentOffset + trait] +=
+                    logScale[childBuffer][childOffset + trait]
+                            - 0.5 * Math.log(d)
+                            + 0.5 * q * q * v / d;
+        }
+    }
+
+    private NodeRef[] postOrderNodes() {
+        NodeRef[] order = new NodeRef[treeModel.getNodeCount()];
+        Deque<NodeRef> stack = new ArrayDeque<>();
+
+        stack.push(treeModel.getRoot());
+
+        int position = order.length;
+
+        while (!stack.isEmpty()) {
+            NodeRef node = stack.pop();
+            order[--position] = node;
+
+            for (int i = 0; i < treeModel.getChildCount(node); i++) {
+                stack.push(treeModel.getChild(node, i));
+            }
+        }
+
+        return order;
+    }
+
+    private void initializeMessages() {
+        if (precision != null) {
+            return;
+        }
+
+        int nodeCount = treeModel.getNodeCount();
+
+        precision = new double[2][nodeCount * traitCount];
+        linear = new double[2][nodeCount * traitCount];
+        logScale = new double[2][nodeCount * traitCount];
+        bufferIndex = new int[nodeCount];
+        storedBufferIndex = new int[nodeCount];
+        nodeDirty = new boolean[nodeCount];
+        dirtyNodes = new int[nodeCount];
+        dirtyNodeCount = 0;
+        allNodesDirty = true;
+
+        Map<String, NodeRef> tipsByTaxonId = new HashMap<>();
+
+        for (int i = 0; i < treeModel.getExternalNodeCount(); i++) {
+            NodeRef tip = treeModel.getExternalNode(i);
+            tipsByTaxonId.put(treeModel.getNodeTaxon(tip).getId(), tip);
+        }
+
+        tipTraitValues = new double[nodeCount][];
+        tipObserved = new boolean[nodeCount];
+
+        for (int i = 0; i < observedTraits.getSequenceCount(); i++) {
+            Taxon taxon = observedTraits.getTaxon(i);
+            NodeRef tip = tipsByTaxonId.get(taxon.getId());
+
+            if (tip == null) {
+                tip = externalNodeForTaxon(taxon.getId());
+            }
+
+            tipTraitValues[tip.getNumber()] = readTraitValues(i);
+            tipObserved[tip.getNumber()] = true;
+        }
+    }
+
+    private void markNodeDirty(int nodeNumber) {
+        if (nodeDirty == null || nodeNumber < 0 || nodeNumber >= nodeDirty.length) {
+            allNodesDirty = true;
+            return;
+        }
+
+        if (!nodeDirty[nodeNumber]) {
+            nodeDirty[nodeNumber] = true;
+            dirtyNodes[dirtyNodeCount++] = nodeNumber;
+        }
+    }
+
+    private void clearDirtyNodes() {
+        for (int i = 0; i < dirtyNodeCount; i++) {
+            nodeDirty[dirtyNodes[i]] = false;
+        }
+
+        dirtyNodeCount = 0;
+    }
+
+    /**
+     * Reference implementation evaluating each trait through the dense n x n
+     * tip covariance matrix and its Cholesky decomposition.
+     */
+    double calculateDenseLogLikelihood() {
+        int n = observedTraits.getSequenceCount();
+
+        if (n == 0) {
             return Double.NEGATIVE_INFINITY;
         }
 
-        double[] y = observedTraitValues();
         NodeRef[] tips = observedTipNodes();
-        double[][] covariance = covarianceMatrix(tips, siteRate);
+        double result = 0.0;
 
-        double rootMean = rootValues == null
-                ? estimateRootMean(y, covariance)
-                : rootValues.getParameterValue(0);
+        for (int trait = 0; trait < traitCount; trait++) {
+            double siteRate = siteRates.getParameterValue(trait);
 
-        double[] mean = new double[n];
+            if (!(siteRate > 0.0) || Double.isNaN(siteRate)) {
+                return Double.NEGATIVE_INFINITY;
+            }
 
-        for (int i = 0; i < n; i++) {
-            mean[i] = rootMean;
+            double[] y = observedTraitValues(trait);
+            double[][] covariance = covarianceMatrix(tips, siteRate);
+
+            double rootMean = rootValues == null
+                    ? estimateRootMean(y, covariance)
+                    : rootValues.getParameterValue(trait);
+
+            double[] mean = new double[n];
+
+            for (int i = 0; i < n; i++) {
+                mean[i] = rootMean;
+            }
+
+            result += multivariateNormalLogDensity(y, mean, covariance);
         }
 
-        return multivariateNormalLogDensity(y, mean, covariance);
+        return result;
     }
 
-    private double[] observedTraitValues() {
+    private double[] observedTraitValues(int trait) {
         double[] values = new double[observedTraits.getSequenceCount()];
 
         for (int i = 0; i < values.length; i++) {
-            Taxon taxon = observedTraits.getTaxon(i);
-            values[i] = readTraitValue(i, taxon);
+            values[i] = readTraitValues(i)[trait];
         }
 
         return values;
@@ -165,7 +491,7 @@ public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
                         siteRate * sharedPathLength;
 
                 if (i == j) {
-                    value += 1e-10;
+                    value += TIP_VARIANCE;
                 }
 
                 covariance[i][j] = value;
@@ -362,8 +688,8 @@ public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
         return x;
     }
 
-    private double readTraitValue(int sequenceIndex, Taxon taxon) {
-        return ContinuousTraitValidation.readTraitValue(
+    private double[] readTraitValues(int sequenceIndex) {
+        return ContinuousTraitValidation.readTraitValues(
                 "PhyloBM",
                 observedTraits,
                 sequenceIndex
@@ -373,12 +699,25 @@ public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
     @Override
     public void makeDirty() {
         dirty = true;
+        allNodesDirty = true;
         this.fireModelChanged();
     }
 
     @Override
     protected void handleModelChangedEvent(Model model, Object object, int index) {
         dirty = true;
+
+        if (model == treeModel && object instanceof TreeChangedEvent event
+                && event.isHeightChanged() && event.getNode() != null) {
+            // a height change alters the branch above the node and those below it
+            markNodeDirty(event.getNode().getNumber());
+        } else if (model == branchRateModel && object == null && index >= 0) {
+            // the rate of the single branch above node 'index' changed
+            markNodeDirty(index);
+        } else {
+            allNodesDirty = true;
+        }
+
         this.fireModelChanged(object, index);
     }
 
@@ -389,19 +728,43 @@ public class BeastXBMTraitLikelihoodSpec extends AbstractModelLikelihood {
             Variable.ChangeType type
     ) {
         dirty = true;
+
+        // trait rates scale every branch, whereas root values only enter at the root
+        if (variable == siteRates) {
+            allNodesDirty = true;
+        }
+
         this.fireModelChanged(variable, index);
     }
 
     @Override
     protected void storeState() {
+        storedLogLikelihood = logLikelihood;
+        storedDirty = dirty;
+
+        // pending single-node updates are not stored, so recompute everything after a restore
+        storedAllNodesDirty = allNodesDirty || dirty;
+
+        if (bufferIndex != null) {
+            System.arraycopy(bufferIndex, 0, storedBufferIndex, 0, bufferIndex.length);
+        }
     }
 
     @Override
     protected void restoreState() {
-        dirty = true;
+        logLikelihood = storedLogLikelihood;
+        dirty = storedDirty;
+        allNodesDirty = storedAllNodesDirty;
+
+        if (bufferIndex != null) {
+            int[] swap = bufferIndex;
+            bufferIndex = storedBufferIndex;
+            storedBufferIndex = swap;
+            clearDirtyNodes();
+        }
     }
 
     @Override
     protected void acceptState() {
     }
-}
\ No newline at end of file
+}
@@ -9,7 +9,11 @@ import dr.inference.model.Model;
 import dr.inference.model.Parameter;
 import dr.inference.model.Variable;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -22,6 +26,11 @@ import java.util.Set;
  * dedicated model class lets the corresponding PhyloSpec tiles stay focused on
  * model construction while the likelihood remains connected to BEAST X's model
  * and variable change notifications.</p>
+ *
+ * <p>The likelihood is evaluated in O(n) by pruning Gaussian messages from the
+ * tips to the root (Ho &amp; An&eacute;'s three-point structure). The dense
+ * covariance formulation is kept as a reference implementation for
+ * validation.</p>
  */
 public class BeastXOUTraitLikelihoodSpec extends AbstractModelLikelihood {
     private final Alignment observedTraits;
@@ -31,9 +40,16 @@ public class BeastXOUTraitLikelihoodSpec extends AbstractModelLikelihood {
     private final Parameter siteOptima;
     private final Parameter rootValues;
 
+    // Variance added to each observed tip, matching the jitter of the dense covariance.
+    private static final double TIP_VARIANCE = 1e-10;
+
     private boolean dirty = true;
     private double logLikelihood = Double.NaN;
 
+    // Observed trait values indexed by external node number, resolved once.
+    private double[] tipTraitValues;
+    private boolean[] tipObserved;
+
     public BeastXOUTraitLikelihoodSpec(
             String id,
             Alignment observedTraits,
@@ -106,6 +122,10 @@ public class BeastXOUTraitLikelihoodSpec extends AbstractModelLikelihood {
         return logLikelihood;
     }
 
+    /**
+     * Computes the OU log-likelihood by pruning quadratic messages
+     * {@code log m(x) = c - P x^2 / 2 + Q x} from the tips to the root.
+     */
     private double calculateLogLikelihood() {
         int n =
                 observedTraits.getSequenceCount();
@@ -132,6 +152,198 @@ public class BeastXOUTraitLikelihoodSpec extends AbstractModelLikelihood {
             return Double.NEGATIVE_INFINITY;
         }
 
+        resolveTipTraitValues();
+
+        int nodeCount =
+                treeModel.getNodeCount();
+
+        double[] precision =
+                new double[nodeCount];
+
+        double[] linear =
+                new double[nodeCount];
+
+        double[] logScale =
+                new double[nodeCount];
+
+        double stationaryVariance =
+                variance / (2.0 * alpha);
+
+        for (NodeRef node : postOrderNodes()) {
+            if (treeModel.isRoot(node)) {
+                continue;
+            }
+
+            int nodeNumber =
+                    node.getNumber();
+
+            NodeRef parent =
+                    treeModel.getParent(node);
+
+            int parentNumber =
+                    parent.getNumber();
+
+            double branchTime =
+                    treeModel.getNodeHeight(parent) - treeModel.getNodeHeight(node);
+
+            // the child value is a * parentValue + b plus noise of variance v
+            double a =
+                    Math.exp(-alpha * branchTime);
+
+            double b =
+                    optimum * (1.0 - a);
+
+            double v =
+                    stationaryVariance * (1.0 - a * a);
+
+            if (treeModel.isExternal(node)) {
+                if (!tipObserved[nodeNumber]) {
+                    continue;
+                }
+
+                double tipVariance =
+                        v + TIP_VARIANCE;
+
+                double residual =
+                        tipTraitValues[nodeNumber] - b;
+
+                precision[parentNumber] += a * a / tipVariance;
+                linear[parentNumber] += a * residual / tipVariance;
+                logScale[parentNumber] +=
+                        -0.5 * (Math.log(2.0 * Math.PI * tipVariance) + residual * residual / tipVariance);
+
+                continue;
+            }
+
+            // integrate the child value out of N(x; a * parentValue + b, v) * m(x)
+            double p =
+                    precision[nodeNumber];
+
+            double q =
+                    linear[nodeNumber];
+
+            double d =
+                    1.0 + p * v;
+
+            precision[parentNumber] += a * a * p / d;
+            linear[parentNumber] += a * (q - p * b) / d;
+            logScale[parentNumber] +=
+                    logScale[nodeNumber]
+                            - 0.5 * Math.log(d)
+                            + (q * b - 0.5 * p * b * b + 0.5 * q * q * v) / d;
+        }
+
+        int rootNumber =
+                treeModel.getRoot().getNumber();
+
+        double result =
+                logScale[rootNumber]
+                        - 0.5 * precision[rootNumber] * rootValue * rootValue
+                        + linear[rootNumber] * rootValue;
+
+        return Double.isNaN(result) ? Double.NEGATIVE_INFINITY : result;
+    }
+
+    /**
+     * Returns all nodes with every child listed before its parent, without
+     * recursing so that deep caterpillar trees cannot overflow the stack.
+     */
+    private NodeRef[] postOrderNodes() {
+        NodeRef[] order =
+                new NodeRef[treeModel.getNodeCount()];
+
+        Deque<NodeRef> stack =
+                new ArrayDeque<>();
+
+        stack.push(treeModel.getRoot());
+
+        int position =
+                order.length;
+
+        while (!stack.isEmpty()) {
+            NodeRef node =
+                    stack.pop();
+
+            order[--position] = node;
+
+            for (int i = 0; i < treeModel.getChildCount(node); i++) {
+                stack.push(treeModel.getChild(node, i));
+            }
+        }
+
+        return order;
+    }
+
+    private void resolveTipTraitValues() {
+        if (tipTraitValues != null) {
+            return;
+        }
+
+        Map<String, NodeRef> tipsByTaxonId =
+                new HashMap<>();
+
+        for (int i = 0; i < treeModel.getExternalNodeCount(); i++) {
+            NodeRef tip =
+                    treeModel.getExternalNode(i);
+
+            tipsByTaxonId.put(treeModel.getNodeTaxon(tip).getId(), tip);
+        }
+
+        double[] values =
+                new double[treeModel.getNodeCount()];
+
+        boolean[] observed =
+                new boolean[treeModel.getNodeCount()];
+
+        for (int i = 0; i < observedTraits.getSequenceCount(); i++) {
+            Taxon taxon =
+                    observedTraits.getTaxon(i);
+
+            NodeRef tip =
+                    tipsByTaxonId.get(taxon.getId());
+
+            if (tip == null) {
+                tip = externalNodeForTaxon(taxon.getId());
+            }
+
+            values[tip.getNumber()] = readTraitValue(i, taxon);
+            observed[tip.getNumber()] = true;
+        }
+
+        this.tipTraitValues = values;
+        this.tipObserved = observed;
+    }
+
+    /**
+     * Reference implementation evaluating the OU likelihood through the dense
+     * n x n tip covariance matrix and its Cholesky decomposition.
+     */
+    double calculateDenseLogLikelihood() {
+        int n =
+                observedTraits.getSequenceCount();
+
+        if (n == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        double variance =
+                siteVariances.getParameterValue(0);
+
+        double alpha =
+                selectionStrength.getParameterValue(0);
+
+        double optimum =
+                siteOptima.getParameterValue(0);
+
+        double rootValue =
+                rootValues == null
+                        ? optimum
+                        : rootValues.getParameterValue(0);
+
+        if (!(variance > 0.0) || !(alpha > 0.0)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+
         double[] y =
                 observedTraitValues();
 
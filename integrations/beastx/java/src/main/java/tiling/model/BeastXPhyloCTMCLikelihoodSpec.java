@@ -1,7 +1,7 @@
 package tiling.model;
 
 import dr.evolution.alignment.Alignment;
-import dr.evolution.alignment.SitePatterns;
+import dr.evolution.alignment.PatternList;
 import dr.evomodel.branchmodel.BranchModel;
 import dr.evomodel.branchratemodel.BranchRateModel;
 import dr.evomodel.siteratemodel.SiteRateModel;
@@ -9,9 +9,14 @@ import dr.evomodel.tree.TreeModel;
 import dr.evomodel.treelikelihood.BeagleTreeLikelihood;
 import dr.evomodel.treelikelihood.PartialsRescalingScheme;
 import dr.inference.model.AbstractModelLikelihood;
+import dr.inference.model.CompoundLikelihood;
+import dr.inference.model.Likelihood;
 import dr.inference.model.Model;
 import dr.inference.model.Variable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This is a wrapper of {@link BeagleTreeLikelihood}.
  *
@@ -68,9 +73,53 @@ public class BeastXPhyloCTMCLikelihoodSpec extends AbstractModelLikelihood {
     }
 
     public BeagleTreeLikelihood materializeBeagleTreeLikelihood() {
-        SitePatterns patterns =
-                new SitePatterns(this.observedAlignment);
+        return materializeBeagleTreeLikelihood(new SitePatternCache());
+    }
+
+    /**
+     * Materializes the likelihood with site patterns from {@code cache}, which
+     * compresses each alignment only once for all likelihoods built with it.
+     */
+    public BeagleTreeLikelihood materializeBeagleTreeLikelihood(SitePatternCache cache) {
+        return buildBeagleTreeLikelihood(cache.patternsFor(this.observedAlignment));
+    }
+
+    /**
+     * Materializes the likelihood with its site patterns split into
+     * {@code patternChunks} chunks. Each chunk gets its own
+     * {@link BeagleTreeLikelihood} on the shared tree, branch, site rate and
+     * clock models, and the chunks are evaluated on one thread each by a
+     * {@link CompoundLikelihood}, so a single long partition can use several
+     * cores without a GPU. With one chunk, or a single pattern, this is
+     * {@link #materializeBeagleTreeLikelihood(SitePatternCache)}.
+     */
+    public Likelihood materializeLikelihood(SitePatternCache cache, int patternChunks) {
+        if (patternChunks <= 1) {
+            return materializeBeagleTreeLikelihood(cache);
+        }
+
+        List<PatternList> chunks =
+                cache.patternChunksFor(this.observedAlignment, patternChunks);
+
+        if (chunks.size() == 1) {
+            return buildBeagleTreeLikelihood(chunks.getFirst());
+        }
+
+        List<Likelihood> chunkLikelihoods =
+                new ArrayList<>(chunks.size());
+
+        for (int i = 0; i < chunks.size(); i++) {
+            BeagleTreeLikelihood chunkLikelihood =
+                    buildBeagleTreeLikelihood(chunks.get(i));
+
+            chunkLikelihood.setId(this.getId() + "_chunk" + (i + 1));
+            chunkLikelihoods.add(chunkLikelihood);
+        }
+
+        return new CompoundLikelihood(chunkLikelihoods.size(), chunkLikelihoods);
+    }
 
+    private BeagleTreeLikelihood buildBeagleTreeLikelihood(PatternList patterns) {
         return new BeagleTreeLikelihood(
                 patterns,
                 this.treeModel,
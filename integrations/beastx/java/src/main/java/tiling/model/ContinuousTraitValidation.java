@@ -7,6 +7,8 @@ import dr.evolution.util.Taxon;
 import dr.evomodel.tree.TreeModel;
 import dr.inference.model.Parameter;
 
+import java.util.regex.Pattern;
+
 /**
  * Validates observed continuous trait data before building trait likelihoods.
  */
@@ -14,6 +16,9 @@ public final class ContinuousTraitValidation {
 
     public static final String TRAIT_ATTRIBUTE = "continuousTrait";
 
+    private static final Pattern VALUE_SEPARATOR =
+            Pattern.compile("[\\s,]+");
+
     private ContinuousTraitValidation() {
     }
 
@@ -51,14 +56,37 @@ public final class ContinuousTraitValidation {
 
             externalNodeForTaxon(modelName, treeModel, taxon.getId());
 
-            double value =
-                    readTraitValue(modelName, observedTraits, i);
+            for (double value : readTraitValues(modelName, observedTraits, i)) {
+                if (!Double.isFinite(value)) {
+                    throw new IllegalArgumentException(
+                            modelName + " continuous trait value for taxon '"
+                                    + taxon.getId()
+                                    + "' must be finite."
+                    );
+                }
+            }
+        }
+    }
+
+    public static void requireTraitCount(
+            String modelName,
+            Alignment observedTraits,
+            int traitCount
+    ) {
+        for (int i = 0; i < observedTraits.getSequenceCount(); i++) {
+            int actualCount =
+                    readTraitValues(modelName, observedTraits, i).length;
 
-            if (!Double.isFinite(value)) {
+            if (actualCount != traitCount) {
                 throw new IllegalArgumentException(
-                        modelName + " continuous trait value for taxon '"
-                                + taxon.getId()
-                                + "' must be finite."
+                        modelName
+                                + " expects "
+                                + traitCount
+                                + " continuous trait values per taxon, but taxon '"
+                                + taxonId(observedTraits.getTaxon(i))
+                                + "' has "
+                                + actualCount
+                                + "."
                 );
             }
         }
@@ -85,10 +113,63 @@ public final class ContinuousTraitValidation {
         }
     }
 
+    public static void requireTraitParameterDimension(
+            String modelName,
+            Parameter parameter,
+            String argumentName,
+            int traitCount
+    ) {
+        if (parameter == null) {
+            return;
+        }
+
+        if (parameter.getDimension() != traitCount) {
+            throw new IllegalArgumentException(
+                    modelName
+                            + " argument '"
+                            + argumentName
+                            + "' must have one entry per continuous trait ("
+                            + traitCount
+                            + "), but has dimension "
+                            + parameter.getDimension()
+                            + "."
+            );
+        }
+    }
+
     public static double readTraitValue(
             String modelName,
             Alignment observedTraits,
             int sequenceIndex
+    ) {
+        double[] values =
+                readTraitValues(modelName, observedTraits, sequenceIndex);
+
+        if (values.length != 1) {
+            throw new IllegalArgumentException(
+                    modelName
+                            + " currently supports one continuous trait in the BEAST X backend, but taxon '"
+                            + taxonId(observedTraits.getTaxon(sequenceIndex))
+                            + "' has "
+                            + values.length
+                            + " trait values."
+            );
+        }
+
+        return values[0];
+    }
+
+    /**
+     * Reads all continuous trait values of one taxon.
+     *
+     * <p>Multiple traits may be stored as a {@code double[]}, a
+     * {@code Number[]}, or a string of whitespace- or comma-separated
+     * numbers.</p>
+     */
+    public static double[] readTraitValues(
+            String modelName,
+            Alignment observedTraits,
+            int sequenceIndex
     ) {
         Taxon taxon =
                 observedTraits.getTaxon(sequenceIndex);
@@ -101,16 +182,41 @@ public final class ContinuousTraitValidation {
         }
 
         if (value instanceof Number number) {
-            return number.doubleValue();
+            return new double[]{number.doubleValue()};
         }
 
         if (value instanceof Continuous continuous) {
-            return continuous.getValue();
+            return new double[]{continuous.getValue()};
+        }
+
+        if (value instanceof double[] array) {
+            return array.clone();
+        }
+
+        if (value instanceof Number[] numbers) {
+            double[] values =
+                    new double[numbers.length];
+
+            for (int i = 0; i < numbers.length; i++) {
+                values[i] = numbers[i].doubleValue();
+            }
+
+            return values;
         }
 
         if (value instanceof String string) {
+            String[] parts =
+                    VALUE_SEPARATOR.split(string.trim());
+
+            double[] values =
+                    new double[parts.length];
+
             try {
-                return Double.parseDouble(string);
+                for (int i = 0; i < parts.length; i++) {
+                    values[i] = Double.parseDouble(parts[i]);
+                }
+
+                return values;
             } catch (NumberFormatException exception) {
                 throw new IllegalArgumentException(
                         modelName
@@ -0,0 +1,312 @@
+package tiling.model;
+
+import dr.evolution.alignment.Alignment;
+import dr.evolution.alignment.PatternList;
+import dr.evolution.alignment.Patterns;
+import dr.evolution.alignment.SitePatterns;
+import dr.evolution.datatype.DataType;
+import dr.evolution.util.TaxonList;
+import tiling.alignment.PackedAlignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Compresses alignments into site patterns once per alignment, so that
+ * likelihoods sharing an alignment, such as clock or site model variants of
+ * the same data, share one pattern list.
+ *
+ * <p>Alignments are keyed by identity. Long alignments are compressed in
+ * blocks of at least {@link #DEFAULT_MINIMUM_BLOCK_SITES} sites in
+ * parallel, and the block patterns are merged in order of first
+ * appearance, so the result has the same patterns, order and weights as a
+ * {@link SitePatterns} over the whole alignment that strips constant gap and
+ * ambiguous sites and merges duplicates.</p>
+ *
+ * <p>Every block reads its sites into one reused pattern array, which a
+ * {@link PackedAlignment} fills straight from its packed rows, so only the
+ * distinct patterns are ever allocated. The pattern list is built from the
+ * distinct patterns and their weights at once, instead of adding patterns
+ * one by one and searching the list for duplicates each time. Unlike
+ * {@link SitePatterns}, it does not record which pattern every site has, as
+ * nothing downstream logs sites or reconstructs them.</p>
+ */
+public final class SitePatternCache {
+
+    public static final int DEFAULT_MINIMUM_BLOCK_SITES = 4096;
+
+    private record Key(Alignment alignment) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.alignment == this.alignment;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.alignment);
+        }
+    }
+
+    private record ChunksKey(Key patterns, int chunkCount) {
+    }
+
+    private record Pattern(int[] states) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Pattern pattern && Arrays.equals(pattern.states, this.states);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.states);
+        }
+    }
+
+    private final int minimumBlockSites;
+
+    private final Map<Key, CompressedPatterns> patterns =
+            new ConcurrentHashMap<>();
+
+    private final Map<ChunksKey, List<PatternList>> chunks =
+            new ConcurrentHashMap<>();
+
+    public SitePatternCache() {
+        this(DEFAULT_MINIMUM_BLOCK_SITES);
+    }
+
+    SitePatternCache(int minimumBlockSites) {
+        if (minimumBlockSites <= 0) {
+            throw new IllegalArgumentException("minimumBlockSites must be positive.");
+        }
+
+        this.minimumBlockSites = minimumBlockSites;
+    }
+
+    public PatternList patternsFor(Alignment alignment) {
+        return compressed(alignment);
+    }
+
+    /**
+     * Splits the patterns of an alignment into at most {@code chunkCount}
+     * consecutive chunks of about equal size, for likelihoods that evaluate
+     * the chunks in parallel. The chunks hold every pattern exactly once with
+     * its weight, so their log likelihoods add up to the likelihood of the
+     * whole pattern list.
+     */
+    public List<PatternList> patternChunksFor(Alignment alignment, int chunkCount) {
+        if (chunkCount <= 0) {
+            throw new IllegalArgumentException("chunkCount must be positive.");
+        }
+
+        CompressedPatterns patterns =
+                compressed(alignment);
+
+        return this.chunks.computeIfAbsent(
+                new ChunksKey(new Key(alignment), chunkCount),
+                key -> split(patterns, chunkCount)
+        );
+    }
+
+    /**
+     * Returns the number of alignments compressed so far.
+     */
+    public int size() {
+        return this.patterns.size();
+    }
+
+    private CompressedPatterns compressed(Alignment alignment) {
+        if (alignment == null) {
+            throw new IllegalArgumentException("alignment must not be null.");
+        }
+
+        return this.patterns.computeIfAbsent(
+                new Key(alignment),
+                key -> compress(key.alignment())
+        );
+    }
+
+    private CompressedPatterns compress(Alignment alignment) {
+        int siteCount =
+                alignment.getSiteCount();
+
+        int blockCount =
+                Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), siteCount / this.minimumBlockSites));
+
+        int sitesPerBlock =
+                (siteCount + blockCount - 1) / blockCount;
+
+        List<Map<Pattern, double[]>> blocks =
+                IntStream.range(0, blockCount)
+                        .parallel()
+                        .mapToObj(block -> scan(
+                                alignment,
+                                block * sitesPerBlock,
+                                Math.min(siteCount, (block + 1) * sitesPerBlock)
+                        ))
+                        .toList();
+
+        Map<Pattern, double[]> weights =
+                blocks.getFirst();
+
+        for (Map<Pattern, double[]> block : blocks.subList(1, blocks.size())) {
+            block.forEach((pattern, weight) -> weights.computeIfAbsent(pattern, key -> new double[1])[0] += weight[0]);
+        }
+
+        int[][] patterns =
+                new int[weights.size()][];
+
+        double[] patternWeights =
+                new double[weights.size()];
+
+        int index = 0;
+
+        for (Map.Entry<Pattern, double[]> entry : weights.entrySet()) {
+            patterns[index] = entry.getKey().states();
+            patternWeights[index] = entry.getValue()[0];
+            index++;
+        }
+
+        return new CompressedPatterns(alignment.getDataType(), alignment, patterns, patternWeights);
+    }
+
+    // counts the patterns of sites [from, to) in order of first appearance
+    private static Map<Pattern, double[]> scan(Alignment alignment, int from, int to) {
+        Map<Pattern, double[]> weights =
+                new LinkedHashMap<>();
+
+        DataType dataType =
+                alignment.getDataType();
+
+        int[] buffer =
+                new int[alignment.getSequenceCount()];
+
+        for (int site = from; site < to; site++) {
+            int[] states =
+                    alignment instanceof PackedAlignment packed
+                            ? packed.getSitePattern(site, buffer)
+                            : alignment.getSitePattern(site);
+
+            if (isStripped(dataType, states)) {
+                continue;
+            }
+
+            double[] weight =
+                    weights.get(new Pattern(states));
+
+            if (weight == null) {
+                weight = new double[1];
+                weights.put(new Pattern(states == buffer ? states.clone() : states), weight);
+            }
+
+            weight[0] += 1.0;
+        }
+
+        return weights;
+    }
+
+    // stripped like SitePatterns: constant sites of gaps, ambiguous or unknown states
+    private static boolean isStripped(DataType dataType, int[] states) {
+        if (states.length == 0) {
+            return false;
+        }
+
+        int state =
+                states[0];
+
+        for (int i = 1; i < states.length; i++) {
+            if (states[i] != state) {
+                return false;
+            }
+        }
+
+        return dataType.isGapState(state) || dataType.isAmbiguousState(state) || dataType.isUnknownState(state);
+    }
+
+    private static List<PatternList> split(CompressedPatterns patterns, int chunkCount) {
+        int patternCount =
+                patterns.getPatternCount();
+
+        int actualChunkCount =
+                Math.max(1, Math.min(chunkCount, patternCount));
+
+        if (actualChunkCount == 1) {
+            return List.of(patterns);
+        }
+
+        List<PatternList> chunks =
+                new ArrayList<>(actualChunkCount);
+
+        for (int chunk = 0; chunk < actualChunkCount; chunk++) {
+            chunks.add(patterns.slice(
+                    (int) ((long) patternCount * chunk / actualChunkCount),
+                    (int) ((long) patternCount * (chunk + 1) / actualChunkCount)
+            ));
+        }
+
+        return List.copyOf(chunks);
+    }
+
+    /**
+     * Distinct patterns with their weights, given at construction instead of
+     * added one by one through {@link Patterns}, which searches its patterns
+     * for a duplicate on every addition.
+     */
+    private static final class CompressedPatterns extends Patterns {
+
+        private final int[][] patterns;
+        private final double[] weights;
+
+        CompressedPatterns(DataType dataType, TaxonList taxa, int[][] patterns, double[] weights) {
+            super(dataType, taxa);
+
+            this.patterns = patterns;
+            this.weights = weights;
+        }
+
+        CompressedPatterns slice(int from, int to) {
+            return new CompressedPatterns(
+                    getDataType(),
+                    this,
+                    Arrays.copyOfRange(this.patterns, from, to),
+                    Arrays.copyOfRange(this.weights, from, to)
+            );
+        }
+
+        @Override
+        public int getPatternCount() {
+            return this.patterns.length;
+        }
+
+        @Override
+        public int getPatternLength() {
+            return getTaxonCount();
+        }
+
+        @Override
+        public int[] getPattern(int patternIndex) {
+            return this.patterns[patternIndex];
+        }
+
+        @Override
+        public int getPatternState(int taxonIndex, int patternIndex) {
+            return this.patterns[patternIndex][taxonIndex];
+        }
+
+        @Override
+        public double getPatternWeight(int patternIndex) {
+            return this.weights[patternIndex];
+        }
+
+        @Override
+        public double[] getPatternWeights() {
+            return this.weights.clone();
+        }
+    }
+}
@@ -2,18 +2,32 @@ package tiling.model;
 
 /**
  * Describes how a tree model should receive its starting tree during XML export.
+ *
+ * <p>{@link Type#DISTANCE_TREE} trees start out balanced and are replaced by
+ * a UPGMA or neighbour-joining tree once an alignment is observed on them;
+ * {@code fixedRootHeight} is the root age the distance tree must be fitted
+ * to, or {@code null} if it is free.</p>
  */
-public record StartingTreeSpec(Type type) {
+public record StartingTreeSpec(Type type, Double fixedRootHeight) {
 
     public enum Type {
         COALESCENT_SIMULATOR,
+        DISTANCE_TREE,
         FIXED_NEWICK
     }
 
+    public StartingTreeSpec(Type type) {
+        this(type, null);
+    }
+
     public static StartingTreeSpec coalescentSimulator() {
         return new StartingTreeSpec(Type.COALESCENT_SIMULATOR);
     }
 
+    public static StartingTreeSpec distanceTree(Double fixedRootHeight) {
+        return new StartingTreeSpec(Type.DISTANCE_TREE, fixedRootHeight);
+    }
+
     public static StartingTreeSpec fixedNewick() {
         return new StartingTreeSpec(Type.FIXED_NEWICK);
     }
@@ -0,0 +1,361 @@
+package tiling.monitoring;
+
+import dr.inference.operators.MCMCOperator;
+import jdk.jfr.EventType;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures a running chain and publishes the measurements as JDK Flight
+ * Recorder events and through JMX, so production runs can be profiled with
+ * JDK Mission Control, {@code jcmd JFR.start} or JConsole without
+ * restarting them.
+ *
+ * <p>The chain thread reports every selected operator and the start and end
+ * of the loggers of every state. The time from selecting an operator to the
+ * next loggers is charged to that operator, and the time in between the
+ * loggers to logging. About once a second the counters are published as a
+ * {@link ChainProgressEvent}, an {@link OperatorEvent} per operator and a
+ * snapshot read by the {@link ChainMonitorMXBean}. States whose loggers are
+ * slow are recorded as {@link LoggingEvent}s.</p>
+ *
+ * <p>All methods but the MXBean getters must be called from the chain
+ * thread.</p>
+ */
+public final class ChainMonitor implements ChainMonitorMXBean, AutoCloseable {
+
+    public static final String JMX_DOMAIN = "org.phylospec.beastx";
+
+    // wall-clock time between two publications of the counters
+    static final long PUBLISH_INTERVAL_NANOS = 1_000_000_000L;
+
+    private static final AtomicLong CHAIN_IDS =
+            new AtomicLong();
+
+    private static final EventType LOGGING_EVENTS =
+            EventType.getEventType(LoggingEvent.class);
+
+    private final String runName;
+    private final long chainLength;
+    private final List<MCMCOperator> operators;
+    private final OperatorCounters[] counters;
+    private final ObjectName objectName;
+
+    private int selectedOperator = -1;
+    private long selectedAt;
+
+    private long loggingStartedAt;
+    private LoggingEvent loggingEvent;
+
+    private long startedAt;
+    private long state;
+    private long firstState = -1;
+    private long operatorNanos;
+    private long loggerNanos;
+
+    private long publishedAt;
+    private long publishedState;
+    private long publishedOperatorNanos;
+    private long publishedLoggerNanos;
+
+    private boolean registered;
+
+    private volatile Snapshot snapshot;
+
+    public ChainMonitor(String runName, long chainLength, List<MCMCOperator> operators) {
+        if (operators == null) {
+            throw new IllegalArgumentException("operators must not be null.");
+        }
+
+        this.runName = runName == null ? "" : runName;
+        this.chainLength = chainLength;
+        this.operators = List.copyOf(operators);
+        this.counters = new OperatorCounters[this.operators.size()];
+
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i] = new OperatorCounters();
+        }
+
+        try {
+            this.objectName = new ObjectName(
+                    JMX_DOMAIN + ":type=Chain,id=" + CHAIN_IDS.incrementAndGet()
+                            + ",name=" + ObjectName.quote(this.runName)
+            );
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException("Could not name the JMX MBean of BEAST X chain '" + this.runName + "'.", e);
+        }
+
+        this.snapshot = new Snapshot(0, 0.0, 0.0, 0.0, 0.0, List.of());
+    }
+
+    public ObjectName getObjectName() {
+        return this.objectName;
+    }
+
+    /**
+     * Starts the clock and registers the MXBean with the platform MBean
+     * server.
+     */
+    public void start() {
+        this.startedAt = System.nanoTime();
+        this.publishedAt = this.startedAt;
+
+        // operators of a resumed chain already count the moves before the checkpoint
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i].publishedAccepted = this.operators.get(i).getAcceptCount();
+            this.counters[i].publishedRejected = this.operators.get(i).getRejectCount();
+        }
+
+        MBeanServer server =
+                ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            server.registerMBean(this, this.objectName);
+            this.registered = true;
+        } catch (JMException e) {
+            throw new IllegalStateException(
+                    "Could not register the JMX MBean of BEAST X chain '" + this.runName + "'.",
+                    e
+            );
+        }
+    }
+
+    public void operatorSelected(int operatorIndex) {
+        this.selectedOperator = operatorIndex;
+        this.selectedAt = System.nanoTime();
+    }
+
+    public void loggingStarted() {
+        long now =
+                System.nanoTime();
+
+        if (this.selectedOperator >= 0) {
+            OperatorCounters operator =
+                    this.counters[this.selectedOperator];
+
+            operator.proposals++;
+            operator.stepNanos += now - this.selectedAt;
+            this.operatorNanos += now - this.selectedAt;
+            this.selectedOperator = -1;
+        }
+
+        if (LOGGING_EVENTS.isEnabled()) {
+            this.loggingEvent = new LoggingEvent();
+            this.loggingEvent.begin();
+        }
+
+        this.loggingStartedAt = now;
+    }
+
+    public void loggingFinished(long state) {
+        long now =
+                System.nanoTime();
+
+        this.loggerNanos += now - this.loggingStartedAt;
+        this.state = state;
+
+        if (this.firstState < 0) {
+            // a resumed chain starts counting at its checkpoint
+            this.firstState = state;
+            this.publishedState = state;
+        }
+
+        if (this.loggingEvent != null) {
+            this.loggingEvent.end();
+
+            if (this.loggingEvent.shouldCommit()) {
+                this.loggingEvent.runName = this.runName;
+                this.loggingEvent.state = state;
+                this.loggingEvent.commit();
+            }
+
+            this.loggingEvent = null;
+        }
+
+        if (now - this.publishedAt >= PUBLISH_INTERVAL_NANOS) {
+            this.publish(now);
+        }
+    }
+
+    /**
+     * Publishes the final counters and unregisters the MXBean.
+     */
+    public void stop() {
+        this.publish(System.nanoTime());
+        this.close();
+    }
+
+    /**
+     * Unregisters the MXBean, which {@link #stop()} does once the chain
+     * finishes, but a failed chain leaves to its caller.
+     */
+    @Override
+    public void close() {
+        if (!this.registered) {
+            return;
+        }
+
+        this.registered = false;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        } catch (InstanceNotFoundException e) {
+            // already unregistered through JMX
+        } catch (JMException e) {
+            throw new IllegalStateException(
+                    "Could not unregister the JMX MBean of BEAST X chain '" + this.runName + "'.",
+                    e
+            );
+        }
+    }
+
+    private void publish(long now) {
+        List<OperatorStatistics> statistics =
+                new ArrayList<>(this.operators.size());
+
+        for (int i = 0; i < this.counters.length; i++) {
+            MCMCOperator operator =
+                    this.operators.get(i);
+
+            OperatorCounters counters =
+                    this.counters[i];
+
+            long accepted =
+                    operator.getAcceptCount();
+
+            long rejected =
+                    operator.getRejectCount();
+
+            OperatorEvent event =
+                    new OperatorEvent();
+
+            if (event.shouldCommit()) {
+                event.runName = this.runName;
+                event.operator = operator.getOperatorName();
+                event.weight = operator.getWeight();
+                event.proposals = counters.proposals - counters.publishedProposals;
+                event.accepted = accepted - counters.publishedAccepted;
+                event.rejected = rejected - counters.publishedRejected;
+                event.stepTime = counters.stepNanos - counters.publishedStepNanos;
+                event.commit();
+            }
+
+            counters.publishedProposals = counters.proposals;
+            counters.publishedAccepted = accepted;
+            counters.publishedRejected = rejected;
+            counters.publishedStepNanos = counters.stepNanos;
+
+            statistics.add(
+                    new OperatorStatistics(
+                            operator.getOperatorName(),
+                            operator.getWeight(),
+                            counters.proposals,
+                            accepted,
+                            rejected,
+                            counters.stepNanos / 1e9
+                    )
+            );
+        }
+
+        double intervalSeconds =
+                (now - this.publishedAt) / 1e9;
+
+        double statesPerSecond =
+                intervalSeconds > 0.0 ? (this.state - this.publishedState) / intervalSeconds : 0.0;
+
+        ChainProgressEvent event =
+                new ChainProgressEvent();
+
+        if (event.shouldCommit()) {
+            event.runName = this.runName;
+            event.state = this.state;
+            event.chainLength = this.chainLength;
+            event.statesPerSecond = statesPerSecond;
+            event.operatorTime = this.operatorNanos - this.publishedOperatorNanos;
+            event.loggerTime = this.loggerNanos - this.publishedLoggerNanos;
+            event.commit();
+        }
+
+        this.publishedAt = now;
+        this.publishedState = this.state;
+        this.publishedOperatorNanos = this.operatorNanos;
+        this.publishedLoggerNanos = this.loggerNanos;
+
+        this.snapshot = new Snapshot(
+                this.state,
+                statesPerSecond,
+                (now - this.startedAt) / 1e9,
+                this.operatorNanos / 1e9,
+                this.loggerNanos / 1e9,
+                List.copyOf(statistics)
+        );
+    }
+
+    @Override
+    public String getRunName() {
+        return this.runName;
+    }
+
+    @Override
+    public long getState() {
+        return this.snapshot.state();
+    }
+
+    @Override
+    public long getChainLength() {
+        return this.chainLength;
+    }
+
+    @Override
+    public double getStatesPerSecond() {
+        return this.snapshot.statesPerSecond();
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        return this.snapshot.elapsedSeconds();
+    }
+
+    @Override
+    public double getOperatorSeconds() {
+        return this.snapshot.operatorSeconds();
+    }
+
+    @Override
+    public double getLoggerSeconds() {
+        return this.snapshot.loggerSeconds();
+    }
+
+    @Override
+    public List<OperatorStatistics> getOperators() {
+        return this.snapshot.operators();
+    }
+
+    private static final class OperatorCounters {
+        long proposals;
+        long stepNanos;
+
+        long publishedProposals;
+        long publishedAccepted;
+        long publishedRejected;
+        long publishedStepNanos;
+    }
+
+    private record Snapshot(
+            long state,
+            double statesPerSecond,
+            double elapsedSeconds,
+            double operatorSeconds,
+            double loggerSeconds,
+            List<OperatorStatistics> operators
+    ) {
+    }
+}
@@ -0,0 +1,38 @@
+package tiling.monitoring;
+
+import java.util.List;
+
+/**
+ * JMX view of a running chain, registered as
+ * {@code org.phylospec.beastx:type=Chain,id=<n>,name=<run name>} while it
+ * runs. The values are refreshed about once a second.
+ */
+public interface ChainMonitorMXBean {
+
+    String getRunName();
+
+    long getState();
+
+    long getChainLength();
+
+    /**
+     * Returns the states per second over the last refresh interval.
+     */
+    double getStatesPerSecond();
+
+    double getElapsedSeconds();
+
+    /**
+     * Returns the time spent proposing, evaluating and accepting or rejecting
+     * moves, which is mostly spent computing likelihoods.
+     */
+    double getOperatorSeconds();
+
+    /**
+     * Returns the time spent in the chain's loggers, which is mostly spent
+     * writing logs.
+     */
+    double getLoggerSeconds();
+
+    List<OperatorStatistics> getOperators();
+}
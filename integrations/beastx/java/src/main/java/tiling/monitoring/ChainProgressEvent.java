@@ -0,0 +1,42 @@
+package tiling.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event committed by a {@link ChainMonitor} about once a
+ * second, covering the states run since its previous event.
+ */
+@Name("org.phylospec.beastx.ChainProgress")
+@Label("MCMC Progress")
+@Category({"PhyloSpec", "BEAST X"})
+@Description("States completed by a BEAST X chain since the previous progress event.")
+@StackTrace(false)
+final class ChainProgressEvent extends jdk.jfr.Event {
+
+    @Label("Run")
+    String runName;
+
+    @Label("State")
+    long state;
+
+    @Label("Chain Length")
+    long chainLength;
+
+    @Label("States per Second")
+    double statesPerSecond;
+
+    @Label("Operator Time")
+    @Description("Time spent proposing, evaluating and accepting or rejecting moves.")
+    @Timespan(Timespan.NANOSECONDS)
+    long operatorTime;
+
+    @Label("Logger Time")
+    @Description("Time spent in the chain's loggers, mostly writing logs.")
+    @Timespan(Timespan.NANOSECONDS)
+    long loggerTime;
+}
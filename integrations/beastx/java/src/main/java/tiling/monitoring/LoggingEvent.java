@@ -0,0 +1,28 @@
+package tiling.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event spanning the loggers of one state of a chain.
+ * Only states whose loggers take longer than the threshold are recorded,
+ * such as those flushing a log buffer or writing a checkpoint.
+ */
+@Name("org.phylospec.beastx.Logging")
+@Label("MCMC Logging")
+@Category({"PhyloSpec", "BEAST X"})
+@Description("Loggers of one state of a BEAST X chain that took longer than the threshold.")
+@Threshold("10 ms")
+@StackTrace(false)
+final class LoggingEvent extends jdk.jfr.Event {
+
+    @Label("Run")
+    String runName;
+
+    @Label("State")
+    long state;
+}
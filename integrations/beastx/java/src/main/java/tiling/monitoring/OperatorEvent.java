@@ -0,0 +1,43 @@
+package tiling.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event committed by a {@link ChainMonitor} for every
+ * operator along with each {@link ChainProgressEvent}.
+ */
+@Name("org.phylospec.beastx.Operator")
+@Label("MCMC Operator")
+@Category({"PhyloSpec", "BEAST X"})
+@Description("Moves proposed by one operator of a BEAST X chain since the previous progress event.")
+@StackTrace(false)
+final class OperatorEvent extends jdk.jfr.Event {
+
+    @Label("Run")
+    String runName;
+
+    @Label("Operator")
+    String operator;
+
+    @Label("Weight")
+    double weight;
+
+    @Label("Proposals")
+    long proposals;
+
+    @Label("Accepted")
+    long accepted;
+
+    @Label("Rejected")
+    long rejected;
+
+    @Label("Step Time")
+    @Description("Time spent proposing the moves, evaluating the posterior and accepting or rejecting them.")
+    @Timespan(Timespan.NANOSECONDS)
+    long stepTime;
+}
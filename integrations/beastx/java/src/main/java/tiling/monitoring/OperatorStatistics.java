@@ -0,0 +1,27 @@
+package tiling.monitoring;
+
+/**
+ * Moves proposed by one operator of a monitored chain.
+ *
+ * @param proposals   moves proposed since the chain started
+ * @param accepted    accepted moves, including those before a resumed checkpoint
+ * @param rejected    rejected moves, including those before a resumed checkpoint
+ * @param stepSeconds time spent proposing, evaluating and accepting or
+ *                    rejecting the moves since the chain started
+ */
+public record OperatorStatistics(
+        String name,
+        double weight,
+        long proposals,
+        long accepted,
+        long rejected,
+        double stepSeconds
+) {
+
+    public double acceptanceRate() {
+        long moves =
+                this.accepted + this.rejected;
+
+        return moves == 0 ? Double.NaN : (double) this.accepted / moves;
+    }
+}
@@ -0,0 +1,359 @@
+package tiling.operators;
+
+import dr.inference.model.Bounds;
+import dr.inference.model.Parameter;
+import dr.inference.operators.SimpleMCMCOperator;
+import dr.math.MathUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Jointly proposes several continuous parameters from a multivariate normal
+ * whose covariance is learned from the chain.
+ *
+ * <p>Positive parameters are moved on the log scale and all others on their
+ * natural scale. Every call records the current state in a running mean and
+ * covariance. Once {@link #initialProposals(int)} states have been seen, the
+ * proposal is {@code N(x, 2.38^2 / d * S)} for the empirical covariance
+ * {@code S}, mixed with a small isotropic proposal with probability
+ * {@link #ISOTROPIC_PROBABILITY} so that the chain can never lock onto a
+ * degenerate covariance. The covariance stops changing once
+ * {@link #stopAdaptation()} is called at the end of burn-in.</p>
+ */
+public class AdaptiveMultivariateNormalOperator extends SimpleMCMCOperator
+        implements AdaptsDuringBurnIn, Checkpointable {
+
+    public static final double ISOTROPIC_PROBABILITY = 0.05;
+
+    private static final double ISOTROPIC_SCALE = 0.1;
+
+    private static final double OPTIMAL_SCALE = 2.38;
+
+    // keeps the empirical covariance positive definite when a coordinate has not moved yet
+    private static final double COVARIANCE_JITTER = 1e-8;
+
+    private final Parameter[] parameters;
+    private final boolean[] logScale;
+    private final int dimension;
+    private final double scaleFactor;
+
+    private final double[] mean;
+    private final double[][] scatter;
+    private long samples;
+
+    private double[][] cholesky;
+    private boolean adapting = true;
+
+    public AdaptiveMultivariateNormalOperator(
+            List<OperatorSpec.Component> components,
+            double scaleFactor,
+            double weight
+    ) {
+        if (components == null || components.isEmpty()) {
+            throw new IllegalArgumentException("components must not be empty.");
+        }
+
+        if (!(scaleFactor > 0.0)) {
+            throw new IllegalArgumentException("scaleFactor must be positive.");
+        }
+
+        this.parameters = components.stream()
+                .map(OperatorSpec.Component::parameter)
+                .toArray(Parameter[]::new);
+        this.dimension = Arrays.stream(this.parameters)
+                .mapToInt(Parameter::getDimension)
+                .sum();
+        this.logScale = new boolean[this.dimension];
+
+        int offset = 0;
+
+        for (OperatorSpec.Component component : components) {
+            Arrays.fill(
+                    this.logScale,
+                    offset,
+                    offset + component.parameter().getDimension(),
+                    component.logScale()
+            );
+            offset += component.parameter().getDimension();
+        }
+
+        this.scaleFactor = scaleFactor;
+        this.mean = new double[this.dimension];
+        this.scatter = new double[this.dimension][this.dimension];
+
+        this.setWeight(weight);
+    }
+
+    /**
+     * Number of recorded states after which the empirical covariance replaces
+     * the isotropic start-up proposal.
+     */
+    public static int initialProposals(int dimension) {
+        return Math.max(200, 20 * dimension);
+    }
+
+    @Override
+    public double doOperation() {
+        double[] current =
+                this.currentPoint();
+
+        if (this.adapting) {
+            this.record(current);
+
+            if (this.samples >= initialProposals(this.dimension) && this.samples % this.dimension == 0) {
+                this.refreshCholesky();
+            }
+        }
+
+        double[] step =
+                this.proposalStep();
+
+        double logHastingsRatio = 0.0;
+
+        int index = 0;
+
+        for (Parameter parameter : this.parameters) {
+            Bounds<Double> bounds =
+                    parameter.getBounds();
+
+            for (int i = 0; i < parameter.getDimension(); i++, index++) {
+                double proposed =
+                        current[index] + step[index];
+
+                double value =
+                        this.logScale[index] ? Math.exp(proposed) : proposed;
+
+                if (bounds != null
+                        && (value < bounds.getLowerLimit(i) || value > bounds.getUpperLimit(i))) {
+                    return Double.NEGATIVE_INFINITY;
+                }
+
+                if (this.logScale[index]) {
+                    logHastingsRatio += step[index];
+                }
+            }
+        }
+
+        index = 0;
+
+        for (Parameter parameter : this.parameters) {
+            for (int i = 0; i < parameter.getDimension(); i++, index++) {
+                double proposed =
+                        current[index] + step[index];
+
+                parameter.setParameterValueQuietly(
+                        i,
+                        this.logScale[index] ? Math.exp(proposed) : proposed
+                );
+            }
+
+            parameter.fireParameterChangedEvent();
+        }
+
+        return logHastingsRatio;
+    }
+
+    private double[] currentPoint() {
+        double[] point =
+                new double[this.dimension];
+
+        int index = 0;
+
+        for (Parameter parameter : this.parameters) {
+            for (int i = 0; i < parameter.getDimension(); i++, index++) {
+                double value =
+                        parameter.getParameterValue(i);
+
+                point[index] = this.logScale[index] ? Math.log(value) : value;
+            }
+        }
+
+        return point;
+    }
+
+    // Welford update of the running mean and the scatter matrix of the recorded states.
+    private void record(double[] point) {
+        this.samples++;
+
+        double[] delta =
+                new double[this.dimension];
+
+        for (int i = 0; i < this.dimension; i++) {
+            delta[i] = point[i] - this.mean[i];
+            this.mean[i] += delta[i] / this.samples;
+        }
+
+        for (int i = 0; i < this.dimension; i++) {
+            double after =
+                    point[i] - this.mean[i];
+
+            for (int j = 0; j <= i; j++) {
+                this.scatter[i][j] += delta[j] * after;
+            }
+        }
+    }
+
+    private void refreshCholesky() {
+        double[][] covariance =
+                new double[this.dimension][this.dimension];
+
+        for (int i = 0; i < this.dimension; i++) {
+            for (int j = 0; j <= i; j++) {
+                covariance[i][j] = this.scatter[i][j] / (this.samples - 1);
+            }
+
+            covariance[i][i] += COVARIANCE_JITTER;
+        }
+
+        double[][] factor =
+                choleskyFactor(covariance);
+
+        // keep the previous factor if rounding made the estimate indefinite
+        if (factor != null) {
+            this.cholesky = factor;
+        }
+    }
+
+    private double[] proposalStep() {
+        double[] normal =
+                new double[this.dimension];
+
+        for (int i = 0; i < this.dimension; i++) {
+            normal[i] = MathUtils.nextGaussian();
+        }
+
+        if (this.cholesky == null || MathUtils.nextDouble() < ISOTROPIC_PROBABILITY) {
+            double scale =
+                    this.scaleFactor * ISOTROPIC_SCALE / Math.sqrt(this.dimension);
+
+            for (int i = 0; i < this.dimension; i++) {
+                normal[i] *= scale;
+            }
+
+            return normal;
+        }
+
+        double scale =
+                this.scaleFactor * OPTIMAL_SCALE / Math.sqrt(this.dimension);
+
+        double[] step =
+                new double[this.dimension];
+
+        for (int i = 0; i < this.dimension; i++) {
+            double sum = 0.0;
+
+            for (int j = 0; j <= i; j++) {
+                sum += this.cholesky[i][j] * normal[j];
+            }
+
+            step[i] = scale * sum;
+        }
+
+        return step;
+    }
+
+    /**
+     * Returns the lower-triangular factor {@code L} with {@code L L^T} equal to
+     * the symmetric matrix whose lower triangle is given, or {@code null} if the
+     * matrix is not positive definite.
+     */
+    static double[][] choleskyFactor(double[][] lower) {
+        int n =
+                lower.length;
+
+        double[][] factor =
+                new double[n][n];
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum =
+                        lower[i][j];
+
+                for (int k = 0; k < j; k++) {
+                    sum -= factor[i][k] * factor[j][k];
+                }
+
+                if (i == j) {
+                    if (!(sum > 0.0)) {
+                        return null;
+                    }
+
+                    factor[i][i] = Math.sqrt(sum);
+                } else {
+                    factor[i][j] = sum / factor[j][j];
+                }
+            }
+        }
+
+        return factor;
+    }
+
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        out.writeBoolean(this.adapting);
+        out.writeLong(this.samples);
+        Checkpointable.writeDoubles(out, this.mean);
+
+        for (double[] row : this.scatter) {
+            Checkpointable.writeDoubles(out, row);
+        }
+
+        out.writeBoolean(this.cholesky != null);
+
+        if (this.cholesky != null) {
+            for (double[] row : this.cholesky) {
+                Checkpointable.writeDoubles(out, row);
+            }
+        }
+    }
+
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        this.adapting = in.readBoolean();
+        this.samples = in.readLong();
+        Checkpointable.readDoubles(in, this.mean);
+
+        for (double[] row : this.scatter) {
+            Checkpointable.readDoubles(in, row);
+        }
+
+        if (in.readBoolean()) {
+            this.cholesky = new double[this.dimension][this.dimension];
+
+            for (double[] row : this.cholesky) {
+                Checkpointable.readDoubles(in, row);
+            }
+        } else {
+            this.cholesky = null;
+        }
+    }
+
+    @Override
+    public void stopAdaptation() {
+        if (this.adapting && this.samples >= initialProposals(this.dimension)) {
+            this.refreshCholesky();
+        }
+
+        this.adapting = false;
+    }
+
+    public boolean isAdapting() {
+        return this.adapting;
+    }
+
+    public int getDimension() {
+        return this.dimension;
+    }
+
+    @Override
+    public String getOperatorName() {
+        return Arrays.stream(this.parameters)
+                .map(Parameter::getId)
+                .collect(Collectors.joining(",", "adaptiveMultivariateNormal(", ")"));
+    }
+}
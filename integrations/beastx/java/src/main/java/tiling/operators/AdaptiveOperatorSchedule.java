@@ -0,0 +1,532 @@
+package tiling.operators;
+
+import dr.inference.operators.MCMCOperator;
+import dr.inference.operators.SimpleOperatorSchedule;
+import tiling.monitoring.ChainMonitor;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Operator schedule that reweights operators during burn-in.
+ *
+ * <p>While the weights adapt, every move is measured by its squared jump
+ * distance: the squared change of each value of the operator's
+ * {@link OperatorTargets}, divided by the variance of that value seen so far,
+ * averaged over the values. A rejected move jumps nowhere. The mean jump per
+ * move is a proxy for the effective samples a move yields, so it rewards
+ * moves that travel far rather than moves that are merely accepted.</p>
+ *
+ * <p>Every {@link #ADAPTATION_INTERVAL} steps the weights are recomputed from
+ * these jumps relative to the selected weights, see {@link #adaptedWeights}:
+ * moves are shifted away from parameters and trees that already mix well
+ * towards those that mix slowest, and among operators moving the same
+ * targets towards the one that jumps furthest per unit cost. The cost of an
+ * operator is given by {@link OperatorBuilder#costs} and grows with the
+ * likelihood work its moves cause. Neither jumps nor costs depend on timing,
+ * so chains with the same seed adapt the same way. After
+ * {@code weightAdaptationLength} steps the weights are frozen.</p>
+ *
+ * <p>Operators that {@link AdaptsDuringBurnIn} learn their proposals for
+ * their own {@code proposalAdaptationLength} steps, usually the chain's
+ * burn-in, whether or not the weights adapt. After both lengths the rest of
+ * the chain runs under a fixed schedule with fixed proposals.</p>
+ *
+ * <p>With a {@link ChainMonitor} set, every selected operator is reported to
+ * it for the whole chain.</p>
+ */
+public class AdaptiveOperatorSchedule extends SimpleOperatorSchedule implements Checkpointable {
+
+    static final int ADAPTATION_INTERVAL = 1000;
+
+    // every operator keeps between 1/MAX_WEIGHT_FACTOR and MAX_WEIGHT_FACTOR of its selected weight
+    static final double MAX_WEIGHT_FACTOR = 10.0;
+
+    private final long weightAdaptationLength;
+    private final long proposalAdaptationLength;
+
+    private double[] operatorCosts;
+    private OperatorTargets[] operatorTargets;
+    private double[] baseWeights;
+    private MoveStatistics[] moveStatistics;
+    private int pendingOperator = -1;
+
+    private long steps;
+    private boolean proposalAdaptationStopped;
+
+    private ChainMonitor monitor;
+
+    public AdaptiveOperatorSchedule(long weightAdaptationLength, long proposalAdaptationLength) {
+        if (weightAdaptationLength < 0) {
+            throw new IllegalArgumentException("weightAdaptationLength must be non-negative.");
+        }
+
+        if (proposalAdaptationLength < 0) {
+            throw new IllegalArgumentException("proposalAdaptationLength must be non-negative.");
+        }
+
+        this.weightAdaptationLength = weightAdaptationLength;
+        this.proposalAdaptationLength = proposalAdaptationLength;
+    }
+
+    public void setMonitor(ChainMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Sets the cost of a move of every operator, in the order the operators
+     * were added. Without costs every move costs the same.
+     */
+    public void setOperatorCosts(double[] operatorCosts) {
+        if (operatorCosts == null) {
+            throw new IllegalArgumentException("operatorCosts must not be null.");
+        }
+
+        this.operatorCosts = operatorCosts.clone();
+    }
+
+    /**
+     * Sets what every operator moves, in the order the operators were added.
+     * Without targets the moves cannot be measured and the weights stay as
+     * selected.
+     */
+    public void setOperatorTargets(List<OperatorTargets> operatorTargets) {
+        if (operatorTargets == null) {
+            throw new IllegalArgumentException("operatorTargets must not be null.");
+        }
+
+        this.operatorTargets = operatorTargets.toArray(new OperatorTargets[0]);
+    }
+
+    @Override
+    public int getNextOperatorIndex() {
+        int next =
+                this.selectNextOperator();
+
+        if (this.monitor != null) {
+            this.monitor.operatorSelected(next);
+        }
+
+        return next;
+    }
+
+    private int selectNextOperator() {
+        boolean adaptingWeights = false;
+
+        if (this.steps < Math.max(this.weightAdaptationLength, this.proposalAdaptationLength)) {
+            this.steps++;
+
+            if (this.steps <= this.weightAdaptationLength) {
+                adaptingWeights = true;
+                this.adaptWeights();
+            }
+        }
+
+        if (this.steps >= this.proposalAdaptationLength && !this.proposalAdaptationStopped) {
+            this.stopProposalAdaptation();
+        }
+
+        int next =
+                super.getNextOperatorIndex();
+
+        // the move is measured when the next operator is selected, after it was accepted or rejected
+        if (adaptingWeights && this.steps < this.weightAdaptationLength && this.moveStatistics[next] != null) {
+            this.moveStatistics[next].start();
+            this.pendingOperator = next;
+        }
+
+        return next;
+    }
+
+    private void adaptWeights() {
+        if (this.baseWeights == null) {
+            this.startAdaptation();
+        }
+
+        if (this.pendingOperator >= 0) {
+            this.moveStatistics[this.pendingOperator].complete();
+            this.pendingOperator = -1;
+        }
+
+        if (this.steps % ADAPTATION_INTERVAL == 0 || this.steps == this.weightAdaptationLength) {
+            this.reweight();
+        }
+    }
+
+    private void startAdaptation() {
+        int operatorCount =
+                this.getOperatorCount();
+
+        if (this.operatorCosts != null && this.operatorCosts.length != operatorCount) {
+            throw new IllegalStateException(
+                    "Operator costs were set for " + this.operatorCosts.length
+                            + " operators but the schedule has " + operatorCount + "."
+            );
+        }
+
+        if (this.operatorTargets != null && this.operatorTargets.length != operatorCount) {
+            throw new IllegalStateException(
+                    "Operator targets were set for " + this.operatorTargets.length
+                            + " operators but the schedule has " + operatorCount + "."
+            );
+        }
+
+        this.baseWeights = new double[operatorCount];
+        this.moveStatistics = new MoveStatistics[operatorCount];
+
+        for (int i = 0; i < operatorCount; i++) {
+            this.baseWeights[i] = this.getOperator(i).getWeight();
+
+            if (this.operatorTargets != null && this.operatorTargets[i].dimension() > 0) {
+                this.moveStatistics[i] = new MoveStatistics(this.operatorTargets[i]);
+            }
+        }
+    }
+
+    private void stopProposalAdaptation() {
+        for (int i = 0; i < this.getOperatorCount(); i++) {
+            if (this.getOperator(i) instanceof AdaptsDuringBurnIn operator) {
+                operator.stopAdaptation();
+            }
+        }
+
+        this.proposalAdaptationStopped = true;
+    }
+
+    private void reweight() {
+        int operatorCount =
+                this.baseWeights.length;
+
+        double[] jumps =
+                new double[operatorCount];
+
+        double[] costs =
+                new double[operatorCount];
+
+        for (int i = 0; i < operatorCount; i++) {
+            jumps[i] = this.moveStatistics[i] == null ? Double.NaN : this.moveStatistics[i].meanJump();
+            costs[i] = this.operatorCosts == null ? 1.0 : this.operatorCosts[i];
+        }
+
+        double[] weights =
+                adaptedWeights(this.baseWeights, jumps, costs, this.targetGroups());
+
+        for (int i = 0; i < operatorCount; i++) {
+            this.getOperator(i).setWeight(weights[i]);
+        }
+
+        this.operatorsHasBeenUpdated();
+    }
+
+    // operators moving the same parameters and trees share a group
+    private int[] targetGroups() {
+        int operatorCount =
+                this.baseWeights.length;
+
+        int[] groups =
+                new int[operatorCount];
+
+        int groupCount = 0;
+
+        for (int i = 0; i < operatorCount; i++) {
+            groups[i] = -1;
+
+            for (int j = 0; j < i && this.operatorTargets != null; j++) {
+                if (this.operatorTargets[i].sameTargets(this.operatorTargets[j])) {
+                    groups[i] = groups[j];
+                    break;
+                }
+            }
+
+            if (groups[i] < 0) {
+                groups[i] = groupCount++;
+            }
+        }
+
+        return groups;
+    }
+
+    /**
+     * Scales each selected weight towards an allocation that gives every
+     * group of operators moving the same targets a share of the moves
+     * inversely proportional to its mean jump per move, so that all targets
+     * gain effective samples at a similar rate, and splits each group's
+     * share in proportion to the jump per unit cost of its operators. The
+     * factor is the square root of the ratio of allocated to selected weight,
+     * bounded by {@link #MAX_WEIGHT_FACTOR}, and the weights are then rescaled
+     * so the total weight is unchanged.
+     *
+     * <p>Operators without a measured jump or a finite positive cost, and
+     * groups none of whose moves have jumped yet, keep their selected
+     * weight.</p>
+     */
+    static double[] adaptedWeights(
+            double[] baseWeights,
+            double[] jumps,
+            double[] costs,
+            int[] groups
+    ) {
+        int operatorCount =
+                baseWeights.length;
+
+        int groupCount =
+                Arrays.stream(groups).max().orElse(-1) + 1;
+
+        double[] groupWeights =
+                new double[groupCount];
+
+        double[] groupJumps =
+                new double[groupCount];
+
+        double[] groupEfficiencies =
+                new double[groupCount];
+
+        double totalWeight = 0.0;
+
+        for (int i = 0; i < operatorCount; i++) {
+            totalWeight += baseWeights[i];
+
+            if (isMeasured(jumps[i], costs[i])) {
+                groupWeights[groups[i]] += baseWeights[i];
+                groupJumps[groups[i]] += baseWeights[i] * jumps[i];
+                groupEfficiencies[groups[i]] += baseWeights[i] * jumps[i] / costs[i];
+            }
+        }
+
+        double measuredWeight = 0.0;
+        double measuredJumps = 0.0;
+
+        for (int group = 0; group < groupCount; group++) {
+            if (groupJumps[group] > 0.0) {
+                measuredWeight += groupWeights[group];
+                measuredJumps += groupJumps[group];
+            }
+        }
+
+        double[] weights =
+                baseWeights.clone();
+
+        if (measuredJumps == 0.0) {
+            return weights;
+        }
+
+        double meanJump =
+                measuredJumps / measuredWeight;
+
+        double adaptedTotal = 0.0;
+
+        for (int i = 0; i < operatorCount; i++) {
+            int group =
+                    groups[i];
+
+            if (isMeasured(jumps[i], costs[i]) && groupJumps[group] > 0.0) {
+                double groupShare =
+                        meanJump / (groupJumps[group] / groupWeights[group]);
+
+                double operatorShare =
+                        (jumps[i] / costs[i]) / (groupEfficiencies[group] / groupWeights[group]);
+
+                double factor =
+                        Math.clamp(Math.sqrt(groupShare * operatorShare), 1.0 / MAX_WEIGHT_FACTOR, MAX_WEIGHT_FACTOR);
+
+                weights[i] = baseWeights[i] * factor;
+            }
+
+            adaptedTotal += weights[i];
+        }
+
+        for (int i = 0; i < operatorCount; i++) {
+            weights[i] *= totalWeight / adaptedTotal;
+        }
+
+        return weights;
+    }
+
+    private static boolean isMeasured(double jump, double cost) {
+        return Double.isFinite(jump) && jump >= 0.0 && Double.isFinite(cost) && cost > 0.0;
+    }
+
+    /**
+     * Writes the adaptation progress, including the jumps measured so far and
+     * the move in progress. The current operator weights are saved with the
+     * operators themselves.
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        out.writeLong(this.steps);
+        out.writeBoolean(this.proposalAdaptationStopped);
+        out.writeBoolean(this.baseWeights != null);
+
+        if (this.baseWeights != null) {
+            Checkpointable.writeDoubles(out, this.baseWeights);
+            out.writeInt(this.pendingOperator);
+
+            for (MoveStatistics statistics : this.moveStatistics) {
+                out.writeBoolean(statistics != null);
+
+                if (statistics != null) {
+                    statistics.write(out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores the adaptation progress.
+     */
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        this.steps = in.readLong();
+        this.proposalAdaptationStopped = in.readBoolean();
+
+        if (in.readBoolean()) {
+            this.startAdaptation();
+            Checkpointable.readDoubles(in, this.baseWeights);
+            this.pendingOperator = in.readInt();
+
+            for (MoveStatistics statistics : this.moveStatistics) {
+                if (in.readBoolean() != (statistics != null)) {
+                    throw new IOException("Checkpoint measures the moves of different operators.");
+                }
+
+                if (statistics != null) {
+                    statistics.read(in);
+                }
+            }
+        } else {
+            this.baseWeights = null;
+            this.moveStatistics = null;
+            this.pendingOperator = -1;
+        }
+
+        this.operatorsHasBeenUpdated();
+    }
+
+    /**
+     * Describes the selected and current weight of every operator.
+     */
+    public List<String> describeWeights() {
+        List<String> descriptions =
+                new ArrayList<>();
+
+        for (int i = 0; i < this.getOperatorCount(); i++) {
+            MCMCOperator operator =
+                    this.getOperator(i);
+
+            double baseWeight =
+                    this.baseWeights == null ? operator.getWeight() : this.baseWeights[i];
+
+            descriptions.add(
+                    "%s: %s -> %s".formatted(
+                            operator.getOperatorName(),
+                            baseWeight,
+                            operator.getWeight()
+                    )
+            );
+        }
+
+        return descriptions;
+    }
+
+    public long getWeightAdaptationLength() {
+        return this.weightAdaptationLength;
+    }
+
+    public long getProposalAdaptationLength() {
+        return this.proposalAdaptationLength;
+    }
+
+    /**
+     * The squared jump distances of one operator's moves, each value scaled
+     * by its running variance, which Welford's update keeps from the values
+     * seen before every move.
+     */
+    private static final class MoveStatistics {
+
+        private final OperatorTargets targets;
+        private final double[] before;
+        private final double[] after;
+        private final double[] means;
+        private final double[] squaredDeviations;
+
+        private long observations;
+        private long moves;
+        private double jumps;
+
+        private MoveStatistics(OperatorTargets targets) {
+            this.targets = targets;
+            this.before = new double[targets.dimension()];
+            this.after = new double[targets.dimension()];
+            this.means = new double[targets.dimension()];
+            this.squaredDeviations = new double[targets.dimension()];
+        }
+
+        private void start() {
+            this.targets.read(this.before);
+            this.observations++;
+
+            for (int i = 0; i < this.before.length; i++) {
+                double delta =
+                        this.before[i] - this.means[i];
+
+                this.means[i] += delta / this.observations;
+                this.squaredDeviations[i] += delta * (this.before[i] - this.means[i]);
+            }
+        }
+
+        private void complete() {
+            if (this.observations < 2) {
+                return;
+            }
+
+            this.targets.read(this.after);
+
+            double jump = 0.0;
+            int varying = 0;
+
+            for (int i = 0; i < this.after.length; i++) {
+                double variance =
+                        this.squaredDeviations[i] / (this.observations - 1);
+
+                if (variance > 0.0) {
+                    double change =
+                            this.after[i] - this.before[i];
+
+                    jump += change * change / variance;
+                    varying++;
+                }
+            }
+
+            if (varying > 0) {
+                this.jumps += jump / varying;
+                this.moves++;
+            }
+        }
+
+        private double meanJump() {
+            return this.moves == 0 ? Double.NaN : this.jumps / this.moves;
+        }
+
+        private void write(DataOutput out) throws IOException {
+            out.writeLong(this.observations);
+            out.writeLong(this.moves);
+            out.writeDouble(this.jumps);
+            Checkpointable.writeDoubles(out, this.before);
+            Checkpointable.writeDoubles(out, this.means);
+            Checkpointable.writeDoubles(out, this.squaredDeviations);
+        }
+
+        private void read(DataInput in) throws IOException {
+            this.observations = in.readLong();
+            this.moves = in.readLong();
+            this.jumps = in.readDouble();
+            Checkpointable.readDoubles(in, this.before);
+            Checkpointable.readDoubles(in, this.means);
+            Checkpointable.readDoubles(in, this.squaredDeviations);
+        }
+    }
+}
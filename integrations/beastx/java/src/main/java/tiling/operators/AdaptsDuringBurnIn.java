@@ -0,0 +1,12 @@
+package tiling.operators;
+
+/**
+ * Operator that learns its proposal from the chain until
+ * {@link AdaptiveOperatorSchedule} ends proposal adaptation, by default at the
+ * end of the chain's burn-in, independently of weight adaptation.
+ */
+public interface AdaptsDuringBurnIn {
+
+    /** Freezes the learned proposal for the remainder of the chain. */
+    void stopAdaptation();
+}
@@ -0,0 +1,44 @@
+package tiling.operators;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Operator or schedule state that BEAST X's operator API does not expose,
+ * such as learned covariances or step sizes, and that a chain checkpoint has
+ * to carry for a resumed run to continue exactly where it stopped.
+ */
+public interface Checkpointable {
+
+    void writeCheckpoint(DataOutput out) throws IOException;
+
+    /**
+     * Restores state written by {@link #writeCheckpoint(DataOutput)} on an
+     * object built from the same model.
+     */
+    void readCheckpoint(DataInput in) throws IOException;
+
+    static void writeDoubles(DataOutput out, double[] values) throws IOException {
+        out.writeInt(values.length);
+
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    static void readDoubles(DataInput in, double[] target) throws IOException {
+        int length =
+                in.readInt();
+
+        if (length != target.length) {
+            throw new IOException(
+                    "Checkpoint holds " + length + " values where " + target.length + " are expected."
+            );
+        }
+
+        for (int i = 0; i < length; i++) {
+            target[i] = in.readDouble();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package tiling.operators;
+
+import dr.inference.model.Bounds;
+import dr.inference.model.Likelihood;
+import dr.inference.model.Parameter;
+import dr.inference.operators.SimpleMCMCOperator;
+import dr.math.MathUtils;
+import tiling.gradients.LogDensityGradient;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Hamiltonian Monte Carlo move for one continuous vector parameter.
+ *
+ * <p>Positive parameters are moved on the log scale. The gradient is the
+ * analytic derivative of the parameter's own prior, so the move is only
+ * selected for parameters that no other posterior term reads, where that
+ * derivative is the gradient of the whole log posterior.</p>
+ *
+ * <p>No gradients of tree likelihoods, trait likelihoods or deterministic
+ * functions are wired in. Parameters coupled to the data, such as branch
+ * rates, therefore never get this move.</p>
+ *
+ * <p>During burn-in the step size is tuned towards
+ * {@link #TARGET_ACCEPTANCE} and a diagonal mass matrix is learned from the
+ * running variance of each coordinate. Both are frozen by
+ * {@link #stopAdaptation()}.</p>
+ */
+public class HamiltonianOperator extends SimpleMCMCOperator implements AdaptsDuringBurnIn, Checkpointable {
+
+    static final int LEAPFROG_STEPS = 10;
+
+    static final double TARGET_ACCEPTANCE = 0.65;
+
+    // each trajectory draws its step size uniformly within this fraction of the tuned step size
+    private static final double STEP_SIZE_JITTER = 0.2;
+
+    // states recorded before the running variance replaces the unit mass matrix
+    private static final int MASS_WARMUP = 100;
+
+    private final Parameter parameter;
+    private final boolean logScale;
+    private final Likelihood prior;
+    private final LogDensityGradient priorGradient;
+    private final int dimension;
+
+    private double stepSize;
+    private boolean adapting = true;
+    private long adaptedProposals;
+
+    private final double[] mean;
+    private final double[] scatter;
+    private final double[] inverseMass;
+    private long samples;
+
+    public HamiltonianOperator(
+            Parameter parameter,
+            boolean logScale,
+            Likelihood prior,
+            LogDensityGradient priorGradient,
+            double stepSize,
+            double weight
+    ) {
+        if (parameter == null) {
+            throw new IllegalArgumentException("parameter must not be null.");
+        }
+
+        if (prior == null) {
+            throw new IllegalArgumentException("prior must not be null.");
+        }
+
+        if (priorGradient == null) {
+            throw new IllegalArgumentException("priorGradient must not be null.");
+        }
+
+        if (!(stepSize > 0.0)) {
+            throw new IllegalArgumentException("stepSize must be positive.");
+        }
+
+        this.parameter = parameter;
+        this.logScale = logScale;
+        this.prior = prior;
+        this.priorGradient = priorGradient;
+        this.dimension = parameter.getDimension();
+        this.stepSize = stepSize;
+
+        this.mean = new double[this.dimension];
+        this.scatter = new double[this.dimension];
+        this.inverseMass = new double[this.dimension];
+        Arrays.fill(this.inverseMass, 1.0);
+
+        this.setWeight(weight);
+    }
+
+    @Override
+    public double doOperation() {
+        double[] position =
+                this.position();
+
+        if (this.adapting) {
+            this.record(position);
+        }
+
+        double[] momentum =
+                new double[this.dimension];
+
+        for (int i = 0; i < this.dimension; i++) {
+            momentum[i] = MathUtils.nextGaussian() / Math.sqrt(this.inverseMass[i]);
+        }
+
+        double initialKinetic =
+                this.kineticEnergy(momentum);
+
+        double initialJacobian =
+                this.logJacobian(position);
+
+        double initialTarget =
+                this.adapting ? this.logTarget() + initialJacobian : Double.NaN;
+
+        double epsilon =
+                this.stepSize * (1.0 + STEP_SIZE_JITTER * (2.0 * MathUtils.nextDouble() - 1.0));
+
+        double[] gradient =
+                this.gradient(position);
+
+        for (int step = 0; step < LEAPFROG_STEPS; step++) {
+            if (gradient == null) {
+                return this.rejectTrajectory();
+            }
+
+            for (int i = 0; i < this.dimension; i++) {
+                momentum[i] += 0.5 * epsilon * gradient[i];
+                position[i] += epsilon * this.inverseMass[i] * momentum[i];
+            }
+
+            if (!this.moveTo(position)) {
+                return this.rejectTrajectory();
+            }
+
+            gradient = this.gradient(position);
+
+            if (gradient == null) {
+                return this.rejectTrajectory();
+            }
+
+            for (int i = 0; i < this.dimension; i++) {
+                momentum[i] += 0.5 * epsilon * gradient[i];
+            }
+        }
+
+        double logHastingsRatio =
+                initialKinetic - this.kineticEnergy(momentum) + this.logJacobian(position) - initialJacobian;
+
+        if (this.adapting) {
+            double logAcceptance =
+                    this.logTarget() + this.logJacobian(position) - initialTarget
+                            + initialKinetic - this.kineticEnergy(momentum);
+
+            this.adaptStepSize(Double.isNaN(logAcceptance) ? 0.0 : Math.min(1.0, Math.exp(logAcceptance)));
+        }
+
+        return logHastingsRatio;
+    }
+
+    private double rejectTrajectory() {
+        if (this.adapting) {
+            this.adaptStepSize(0.0);
+        }
+
+        return Double.NEGATIVE_INFINITY;
+    }
+
+    // Robbins-Monro update of the log step size with a decaying gain.
+    private void adaptStepSize(double acceptance) {
+        this.adaptedProposals++;
+
+        this.stepSize *= Math.exp((acceptance - TARGET_ACCEPTANCE) / Math.sqrt(this.adaptedProposals + 10.0));
+    }
+
+    // Welford update of the per-coordinate variance, regularized towards 1e-3 while it is short.
+    private void record(double[] position) {
+        this.samples++;
+
+        for (int i = 0; i < this.dimension; i++) {
+            double delta =
+                    position[i] - this.mean[i];
+
+            this.mean[i] += delta / this.samples;
+            this.scatter[i] += delta * (position[i] - this.mean[i]);
+        }
+
+        if (this.samples >= MASS_WARMUP) {
+            double shrinkage =
+                    this.samples / (this.samples + 5.0);
+
+            for (int i = 0; i < this.dimension; i++) {
+                this.inverseMass[i] = shrinkage * this.scatter[i] / (this.samples - 1)
+                        + 1e-3 * (1.0 - shrinkage);
+            }
+        }
+    }
+
+    private double kineticEnergy(double[] momentum) {
+        double kinetic = 0.0;
+
+        for (int i = 0; i < this.dimension; i++) {
+            kinetic += 0.5 * momentum[i] * momentum[i] * this.inverseMass[i];
+        }
+
+        return kinetic;
+    }
+
+    private double logJacobian(double[] position) {
+        if (!this.logScale) {
+            return 0.0;
+        }
+
+        double sum = 0.0;
+
+        for (double coordinate : position) {
+            sum += coordinate;
+        }
+
+        return sum;
+    }
+
+    private double logTarget() {
+        return this.prior.getLogLikelihood();
+    }
+
+    private double[] position() {
+        double[] position =
+                new double[this.dimension];
+
+        for (int i = 0; i < this.dimension; i++) {
+            double value =
+                    this.parameter.getParameterValue(i);
+
+            position[i] = this.logScale ? Math.log(value) : value;
+        }
+
+        return position;
+    }
+
+    private double value(double coordinate) {
+        return this.logScale ? Math.exp(coordinate) : coordinate;
+    }
+
+    private boolean moveTo(double[] position) {
+        Bounds<Double> bounds =
+                this.parameter.getBounds();
+
+        for (int i = 0; i < this.dimension; i++) {
+            double value =
+                    this.value(position[i]);
+
+            if (!Double.isFinite(value)
+                    || (bounds != null && (value < bounds.getLowerLimit(i) || value > bounds.getUpperLimit(i)))) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < this.dimension; i++) {
+            this.parameter.setParameterValueQuietly(i, this.value(position[i]));
+        }
+
+        this.parameter.fireParameterChangedEvent();
+
+        return true;
+    }
+
+    /**
+     * Gradient of the log target on the proposal scale at the current
+     * parameter value, or {@code null} if it is not finite.
+     */
+    private double[] gradient(double[] position) {
+        double[] gradient =
+                new double[this.dimension];
+
+        for (int i = 0; i < this.dimension; i++) {
+            double value =
+                    this.value(position[i]);
+
+            double derivative =
+                    this.priorGradient.at(value);
+
+            gradient[i] = this.logScale ? derivative * value + 1.0 : derivative;
+        }
+
+        for (double component : gradient) {
+            if (!Double.isFinite(component)) {
+                return null;
+            }
+        }
+
+        return gradient;
+    }
+
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        out.writeBoolean(this.adapting);
+        out.writeDouble(this.stepSize);
+        out.writeLong(this.adaptedProposals);
+        out.writeLong(this.samples);
+        Checkpointable.writeDoubles(out, this.mean);
+        Checkpointable.writeDoubles(out, this.scatter);
+        Checkpointable.writeDoubles(out, this.inverseMass);
+    }
+
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        this.adapting = in.readBoolean();
+        this.stepSize = in.readDouble();
+        this.adaptedProposals = in.readLong();
+        this.samples = in.readLong();
+        Checkpointable.readDoubles(in, this.mean);
+        Checkpointable.readDoubles(in, this.scatter);
+        Checkpointable.readDoubles(in, this.inverseMass);
+    }
+
+    @Override
+    public void stopAdaptation() {
+        this.adapting = false;
+    }
+
+    public boolean isAdapting() {
+        return this.adapting;
+    }
+
+    public double getStepSize() {
+        return this.stepSize;
+    }
+
+    @Override
+    public String getOperatorName() {
+        return "hamiltonian(" + this.parameter.getId() + ")";
+    }
+}
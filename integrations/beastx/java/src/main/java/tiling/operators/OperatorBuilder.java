@@ -6,6 +6,7 @@ import dr.evomodel.operators.SubtreeSlideOperator;
 import dr.evomodel.operators.UniformNodeHeightOperator;
 import dr.evomodel.operators.WilsonBalding;
 import dr.evomodel.tree.DefaultTreeModel;
+import dr.inference.distribution.AbstractDistributionLikelihood;
 import dr.inference.model.Bounds;
 import dr.inference.model.Parameter;
 import dr.inference.operators.AdaptationMode;
@@ -20,6 +21,7 @@ import dr.inference.operators.SwapOperator;
 import dr.inference.operators.UniformIntegerOperator;
 import dr.inference.operators.UpDownOperator;
 import tiling.BeastXState;
+import tiling.cost.BeastXCostEstimator;
 
 import java.util.List;
 
@@ -27,7 +29,30 @@ import java.util.List;
 public final class OperatorBuilder {
 
     public List<MCMCOperator> build(BeastXState state) {
-        return selected(state).stream().map(this::build).toList();
+        return selected(state).stream().map(spec -> build(spec, state)).toList();
+    }
+
+    /**
+     * Returns, for every operator built from the state and in the same order,
+     * the predicted multiply-adds of one of its moves, which grow with the
+     * patterns, taxa, states and rate categories of every tree likelihood the
+     * move changes, see {@link BeastXCostEstimator#operationsPerMove}. Unlike
+     * a measured time it is the same in every run.
+     */
+    public double[] costs(BeastXState state) {
+        PosteriorTerms terms = new PosteriorTerms(state);
+        return selected(state).stream()
+                .mapToDouble(spec -> BeastXCostEstimator.operationsPerMove(
+                        terms.reading(PosteriorTerms.targets(spec)), state))
+                .toArray();
+    }
+
+    /**
+     * Returns, for every operator built from the state and in the same order,
+     * the parameters and trees it moves.
+     */
+    public List<OperatorTargets> targets(BeastXState state) {
+        return selected(state).stream().map(OperatorTargets::of).toList();
     }
 
     public List<String> summarize(BeastXState state) {
@@ -40,7 +65,7 @@ public final class OperatorBuilder {
                 .toList();
     }
 
-    private MCMCOperator build(OperatorSpec spec) {
+    private MCMCOperator build(OperatorSpec spec, BeastXState state) {
         return switch (spec.family()) {
             case SCALE -> new ScaleOperator(
                     spec.parameter(), spec.tuning(), AdaptationMode.DEFAULT, spec.weight());
@@ -70,9 +95,23 @@ public final class OperatorBuilder {
                     ExchangeOperator.WIDE, spec.tree(), spec.weight());
             case TREE_WILSON_BALDING -> new WilsonBalding(spec.tree(), spec.weight());
             case TREE_CLOCK_UP_DOWN -> treeClockUpDownOperator(spec);
+            case ADAPTIVE_MULTIVARIATE_NORMAL -> new AdaptiveMultivariateNormalOperator(
+                    spec.components(), spec.tuning(), spec.weight());
+            case HAMILTONIAN -> hamiltonianOperator(spec, state);
         };
     }
 
+    private HamiltonianOperator hamiltonianOperator(OperatorSpec spec, BeastXState state) {
+        AbstractDistributionLikelihood prior = state.priorDistributions.get(spec.parameter());
+        return new HamiltonianOperator(
+                spec.parameter(),
+                spec.components().getFirst().logScale(),
+                prior,
+                state.priorLogDensityGradients.get(prior),
+                spec.tuning(),
+                spec.weight());
+    }
+
     private SwapOperator swapOperator(OperatorSpec spec) {
         SwapOperator operator = new SwapOperator(spec.parameter(), (int) spec.tuning());
         operator.setWeight(spec.weight());
@@ -162,9 +201,24 @@ public final class OperatorBuilder {
                     .formatted(tree, spec.weight());
             case TREE_CLOCK_UP_DOWN -> "UpDownOperator(up=[%s], down=[%s.allInternalNodeHeights], weight=%s, scaleFactor=%s)"
                     .formatted(parameter, tree, spec.weight(), spec.tuning());
+            case ADAPTIVE_MULTIVARIATE_NORMAL -> multivariateSummary(spec);
+            case HAMILTONIAN -> "HamiltonianOperator(parameter=%s, weight=%s, stepSize=%s, logScale=%s)"
+                    .formatted(parameter, spec.weight(), spec.tuning(), spec.components().getFirst().logScale());
         };
     }
 
+    private String multivariateSummary(OperatorSpec spec) {
+        List<String> parameters = spec.components().stream()
+                .map(component -> parameterId(component.parameter()))
+                .toList();
+        List<String> logScale = spec.components().stream()
+                .filter(OperatorSpec.Component::logScale)
+                .map(component -> parameterId(component.parameter()))
+                .toList();
+        return "AdaptiveMultivariateNormalOperator(parameters=%s, logScale=%s, weight=%s, scaleFactor=%s)"
+                .formatted(parameters, logScale, spec.weight(), spec.tuning());
+    }
+
     private String integerUniformSummary(OperatorSpec spec, String parameter) {
         Bounds<Double> bounds = requiredBounds(spec.parameter());
         return "UniformIntegerOperator(parameter=%s, weight=%s, count=%d, lower=%d, upper=%d)"
@@ -13,6 +13,8 @@ import org.phylospec.types.RealScalar;
 import org.phylospec.types.RealVector;
 import org.phylospec.types.Simplex;
 import tiling.BeastXState;
+import tiling.operators.joint.AdaptiveMultivariateOperatorSelector;
+import tiling.operators.joint.HamiltonianOperatorSelector;
 import tiling.operators.joint.JointOperatorSelector;
 import tiling.operators.joint.StrictClockTreeUpDownOperatorSelector;
 
@@ -27,7 +29,10 @@ public final class OperatorSelector {
     private static final double NO_TUNING = 0.0;
 
     private static final List<JointOperatorSelector> JOINT_SELECTORS =
-            List.of(new StrictClockTreeUpDownOperatorSelector());
+            List.of(
+                    new StrictClockTreeUpDownOperatorSelector(),
+                    new AdaptiveMultivariateOperatorSelector(),
+                    new HamiltonianOperatorSelector());
 
     private static final TypeToken<?> SIMPLEX = new TypeToken<Simplex>() {};
     private static final TypeToken<?> POSITIVE_REAL_SCALAR =
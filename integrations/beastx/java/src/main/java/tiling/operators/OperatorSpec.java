@@ -3,13 +3,21 @@ package tiling.operators;
 import dr.evomodel.tree.TreeModel;
 import dr.inference.model.Parameter;
 
-/** Describes one selected BEAST X operator independently of its output form. */
+import java.util.List;
+
+/**
+ * Describes one selected BEAST X operator independently of its output form.
+ *
+ * <p>Operators that update several parameters at once list them as
+ * {@code components}; single-parameter and tree operators leave it empty.</p>
+ */
 public record OperatorSpec(
         Family family,
         Parameter parameter,
         TreeModel tree,
         double weight,
-        double tuning
+        double tuning,
+        List<Component> components
 ) {
     public enum Family {
         SCALE,
@@ -27,7 +35,23 @@ public record OperatorSpec(
         TREE_NARROW_EXCHANGE,
         TREE_WIDE_EXCHANGE,
         TREE_WILSON_BALDING,
-        TREE_CLOCK_UP_DOWN
+        TREE_CLOCK_UP_DOWN,
+        ADAPTIVE_MULTIVARIATE_NORMAL,
+        HAMILTONIAN
+    }
+
+    /** One parameter of a joint operator, proposed on the log scale if {@code logScale}. */
+    public record Component(Parameter parameter, boolean logScale) {
+    }
+
+    public OperatorSpec(
+            Family family,
+            Parameter parameter,
+            TreeModel tree,
+            double weight,
+            double tuning
+    ) {
+        this(family, parameter, tree, weight, tuning, List.of());
     }
 
     public OperatorSpec {
@@ -37,5 +61,6 @@ public record OperatorSpec(
         if (weight < 0.0) {
             throw new IllegalArgumentException("weight must not be negative.");
         }
+        components = components == null ? List.of() : List.copyOf(components);
     }
 }
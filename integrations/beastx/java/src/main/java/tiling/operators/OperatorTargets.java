@@ -0,0 +1,114 @@
+package tiling.operators;
+
+import dr.evolution.tree.NodeRef;
+import dr.evolution.tree.Tree;
+import dr.inference.model.Parameter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The parameters and trees an operator moves, read as one vector of values
+ * so that {@link AdaptiveOperatorSchedule} can measure how far its moves go.
+ *
+ * <p>A parameter contributes its values. A tree contributes the height of
+ * every node and of that node's parent, so moves that change the topology
+ * without changing any height, such as exchanges, still move the vector.</p>
+ */
+public final class OperatorTargets {
+
+    private final List<Object> targets;
+    private final int dimension;
+
+    public OperatorTargets(Collection<?> targets) {
+        if (targets == null) {
+            throw new IllegalArgumentException("targets must not be null.");
+        }
+
+        List<Object> distinctTargets =
+                new ArrayList<>();
+
+        int dimension = 0;
+
+        for (Object target : targets) {
+            if (target == null || containsSame(distinctTargets, target)) {
+                continue;
+            }
+
+            if (target instanceof Parameter parameter) {
+                dimension += parameter.getDimension();
+            } else if (target instanceof Tree tree) {
+                dimension += 2 * tree.getNodeCount();
+            } else {
+                throw new IllegalArgumentException(
+                        "Operator targets must be parameters or trees, not " + target.getClass().getSimpleName() + "."
+                );
+            }
+
+            distinctTargets.add(target);
+        }
+
+        this.targets = List.copyOf(distinctTargets);
+        this.dimension = dimension;
+    }
+
+    static OperatorTargets of(OperatorSpec spec) {
+        return new OperatorTargets(PosteriorTerms.targets(spec));
+    }
+
+    int dimension() {
+        return this.dimension;
+    }
+
+    /**
+     * Returns whether both operators move exactly the same parameters and
+     * trees.
+     */
+    boolean sameTargets(OperatorTargets other) {
+        if (this.targets.size() != other.targets.size()) {
+            return false;
+        }
+
+        for (Object target : this.targets) {
+            if (!containsSame(other.targets, target)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    void read(double[] values) {
+        int index = 0;
+
+        for (Object target : this.targets) {
+            if (target instanceof Parameter parameter) {
+                for (int i = 0; i < parameter.getDimension(); i++) {
+                    values[index++] = parameter.getParameterValue(i);
+                }
+            } else {
+                Tree tree =
+                        (Tree) target;
+
+                for (int i = 0; i < tree.getNodeCount(); i++) {
+                    NodeRef node =
+                            tree.getNode(i);
+
+                    values[index++] = tree.getNodeHeight(node);
+                    values[index++] = tree.isRoot(node) ? tree.getNodeHeight(node) : tree.getNodeHeight(tree.getParent(node));
+                }
+            }
+        }
+    }
+
+    private static boolean containsSame(List<Object> targets, Object target) {
+        for (Object candidate : targets) {
+            if (candidate == target) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
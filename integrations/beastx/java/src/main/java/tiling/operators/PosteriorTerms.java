@@ -0,0 +1,162 @@
+package tiling.operators;
+
+import dr.inference.distribution.AbstractDistributionLikelihood;
+import dr.inference.model.Attribute;
+import dr.inference.model.CompoundParameter;
+import dr.inference.model.Likelihood;
+import dr.inference.model.Model;
+import tiling.BeastXState;
+import tiling.params.BeastXDerivedScalarParameter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the terms of a model's posterior that read a parameter or tree.
+ *
+ * <p>The terms are the priors, tree priors, calibrations, likelihoods and
+ * observed tree distributions that {@link tiling.BeastXModel} multiplies into
+ * the posterior. A term reads a parameter or tree if it is among the data of
+ * a distribution, or among the variables and submodels of the term's model,
+ * directly, within a compound parameter, or through a
+ * {@link BeastXDerivedScalarParameter}.</p>
+ */
+public final class PosteriorTerms {
+
+    private final List<Likelihood> terms;
+
+    public PosteriorTerms(BeastXState state) {
+        if (state == null) {
+            throw new IllegalArgumentException("state must not be null.");
+        }
+
+        List<Likelihood> terms =
+                new ArrayList<>();
+
+        terms.addAll(state.priorDistributions.values());
+        terms.addAll(state.treePriorDistributions.values());
+        terms.addAll(state.calibrationPriorDistributions);
+        terms.addAll(state.likelihoodDistributions);
+        terms.addAll(state.observedTreeDistributions.values());
+
+        this.terms = List.copyOf(terms);
+    }
+
+    public List<Likelihood> terms() {
+        return this.terms;
+    }
+
+    /**
+     * Returns the terms that read any of {@code targets}, which are
+     * parameters or trees.
+     */
+    public List<Likelihood> reading(Collection<?> targets) {
+        Set<Object> targetSet =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Object target : targets) {
+            if (target != null) {
+                targetSet.add(target);
+            }
+        }
+
+        List<Likelihood> reading =
+                new ArrayList<>();
+
+        for (Likelihood term : this.terms) {
+            if (reads(term, targetSet)) {
+                reading.add(term);
+            }
+        }
+
+        return reading;
+    }
+
+    /**
+     * Returns the parameters and trees an operator moves.
+     */
+    public static List<Object> targets(OperatorSpec spec) {
+        List<Object> targets =
+                new ArrayList<>();
+
+        targets.add(spec.parameter());
+        targets.add(spec.tree());
+
+        for (OperatorSpec.Component component : spec.components()) {
+            targets.add(component.parameter());
+        }
+
+        return targets;
+    }
+
+    private static boolean reads(Likelihood term, Set<Object> targets) {
+        Set<Object> visited =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        if (term instanceof AbstractDistributionLikelihood distribution) {
+            for (Attribute<double[]> data : distribution.getDataList()) {
+                if (readsVariable(data, targets, visited)) {
+                    return true;
+                }
+            }
+        }
+
+        return readsModel(term.getModel(), targets, visited);
+    }
+
+    private static boolean readsModel(Model model, Set<Object> targets, Set<Object> visited) {
+        if (model == null || !visited.add(model)) {
+            return false;
+        }
+
+        if (targets.contains(model)) {
+            return true;
+        }
+
+        for (int i = 0; i < model.getVariableCount(); i++) {
+            if (readsVariable(model.getVariable(i), targets, visited)) {
+                return true;
+            }
+        }
+
+        for (int i = 0; i < model.getModelCount(); i++) {
+            if (readsModel(model.getModel(i), targets, visited)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean readsVariable(Object variable, Set<Object> targets, Set<Object> visited) {
+        if (variable == null || !visited.add(variable)) {
+            return false;
+        }
+
+        if (targets.contains(variable)) {
+            return true;
+        }
+
+        if (variable instanceof BeastXDerivedScalarParameter derived) {
+            for (Object dependency : derived.getDependencies()) {
+                if (readsVariable(dependency, targets, visited)) {
+                    return true;
+                }
+            }
+        }
+
+        if (variable instanceof CompoundParameter compound) {
+            for (int i = 0; i < compound.getParameterCount(); i++) {
+                if (readsVariable(compound.getParameter(i), targets, visited)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,91 @@
+package tiling.operators.joint;
+
+import dr.inference.model.Parameter;
+import org.phylospec.domain.PositiveReal;
+import org.phylospec.tiling.TypeToken;
+import org.phylospec.types.RealScalar;
+import org.phylospec.types.RealVector;
+import org.phylospec.types.Simplex;
+import tiling.BeastXState;
+import tiling.operators.OperatorSpec;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects one adaptive multivariate normal move over all continuous non-tree
+ * parameters once a model has more than a few of them.
+ *
+ * <p>The move complements the single-parameter operators rather than
+ * replacing them. Models with more than {@link #MAX_DIMENSION} continuous
+ * dimensions are left to the single-parameter operators, because the learned
+ * covariance grows quadratically and its factorization cubically.</p>
+ */
+public final class AdaptiveMultivariateOperatorSelector implements JointOperatorSelector {
+
+    static final int MIN_PARAMETERS = 4;
+
+    static final int MAX_DIMENSION = 100;
+
+    private static final double SCALE_FACTOR = 1.0;
+
+    private static final TypeToken<?> SIMPLEX = new TypeToken<Simplex>() {};
+    private static final TypeToken<?> REAL_SCALAR =
+            new TypeToken<RealScalar<? extends org.phylospec.domain.Real>>() {};
+    private static final TypeToken<?> REAL_VECTOR =
+            new TypeToken<RealVector<? extends org.phylospec.domain.Real>>() {};
+    private static final TypeToken<?> POSITIVE_REAL_SCALAR =
+            new TypeToken<RealScalar<? extends PositiveReal>>() {};
+    private static final TypeToken<?> POSITIVE_REAL_VECTOR =
+            new TypeToken<RealVector<? extends PositiveReal>>() {};
+
+    @Override
+    public List<OperatorSpec> select(BeastXState state) {
+        if (state.operatorConfig.multivariateOperatorWeight <= 0.0) {
+            return List.of();
+        }
+
+        List<Map.Entry<Parameter, TypeToken<?>>> entries =
+                new ArrayList<>(state.stateNodes.entrySet());
+        entries.sort(Comparator.comparing(entry -> parameterId(entry.getKey())));
+
+        List<OperatorSpec.Component> components = new ArrayList<>();
+        int dimension = 0;
+        for (Map.Entry<Parameter, TypeToken<?>> entry : entries) {
+            TypeToken<?> type = entry.getValue();
+            if (!isContinuous(type)) {
+                continue;
+            }
+            components.add(new OperatorSpec.Component(entry.getKey(), isPositive(type)));
+            dimension += entry.getKey().getDimension();
+        }
+
+        if (components.size() < MIN_PARAMETERS || dimension > MAX_DIMENSION) {
+            return List.of();
+        }
+
+        return List.of(new OperatorSpec(
+                OperatorSpec.Family.ADAPTIVE_MULTIVARIATE_NORMAL,
+                null,
+                null,
+                state.operatorConfig.multivariateOperatorWeight,
+                SCALE_FACTOR,
+                components));
+    }
+
+    private static boolean isContinuous(TypeToken<?> type) {
+        return type != null && !SIMPLEX.isAssignableFrom(type)
+                && (REAL_SCALAR.isAssignableFrom(type) || REAL_VECTOR.isAssignableFrom(type));
+    }
+
+    private static boolean isPositive(TypeToken<?> type) {
+        return POSITIVE_REAL_SCALAR.isAssignableFrom(type)
+                || POSITIVE_REAL_VECTOR.isAssignableFrom(type);
+    }
+
+    private static String parameterId(Parameter parameter) {
+        return parameter.getId() == null ? "" : parameter.getId();
+    }
+}
@@ -0,0 +1,83 @@
+package tiling.operators.joint;
+
+import dr.inference.distribution.AbstractDistributionLikelihood;
+import dr.inference.model.Parameter;
+import org.phylospec.domain.PositiveReal;
+import org.phylospec.tiling.TypeToken;
+import org.phylospec.types.RealVector;
+import org.phylospec.types.Simplex;
+import tiling.BeastXState;
+import tiling.operators.OperatorSpec;
+import tiling.operators.PosteriorTerms;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects a Hamiltonian move for every continuous vector parameter whose prior
+ * has an analytic log-density derivative registered by its generator tile and
+ * is the only posterior term reading the parameter. Likelihoods and
+ * deterministic functions have no gradients yet, so parameters they read keep
+ * their single-parameter moves, and the move is off unless
+ * {@code hamiltonianOperatorWeight} is set.
+ *
+ * <p>Vectors shorter than {@link #MIN_DIMENSION} keep only their
+ * single-parameter moves, since a trajectory costs several gradient
+ * evaluations and only pays off when it replaces many one-coordinate
+ * updates.</p>
+ */
+public final class HamiltonianOperatorSelector implements JointOperatorSelector {
+
+    static final int MIN_DIMENSION = 8;
+
+    private static final double INITIAL_STEP_SIZE = 0.1;
+
+    private static final TypeToken<?> SIMPLEX = new TypeToken<Simplex>() {};
+    private static final TypeToken<?> REAL_VECTOR =
+            new TypeToken<RealVector<? extends org.phylospec.domain.Real>>() {};
+    private static final TypeToken<?> POSITIVE_REAL_VECTOR =
+            new TypeToken<RealVector<? extends PositiveReal>>() {};
+
+    @Override
+    public List<OperatorSpec> select(BeastXState state) {
+        if (state.operatorConfig.hamiltonianOperatorWeight <= 0.0) {
+            return List.of();
+        }
+
+        List<Map.Entry<Parameter, TypeToken<?>>> entries =
+                new ArrayList<>(state.stateNodes.entrySet());
+        entries.sort(Comparator.comparing(entry -> parameterId(entry.getKey())));
+
+        List<OperatorSpec> operators = new ArrayList<>();
+        for (Map.Entry<Parameter, TypeToken<?>> entry : entries) {
+            Parameter parameter = entry.getKey();
+            TypeToken<?> type = entry.getValue();
+            if (type == null || SIMPLEX.isAssignableFrom(type) || !REAL_VECTOR.isAssignableFrom(type)
+                    || parameter.getDimension() < MIN_DIMENSION || !isDifferentiable(state, parameter)) {
+                continue;
+            }
+
+            operators.add(new OperatorSpec(
+                    OperatorSpec.Family.HAMILTONIAN,
+                    parameter,
+                    null,
+                    state.operatorConfig.hamiltonianOperatorWeight,
+                    INITIAL_STEP_SIZE,
+                    List.of(new OperatorSpec.Component(
+                            parameter, POSITIVE_REAL_VECTOR.isAssignableFrom(type)))));
+        }
+        return List.copyOf(operators);
+    }
+
+    private static boolean isDifferentiable(BeastXState state, Parameter parameter) {
+        AbstractDistributionLikelihood prior = state.priorDistributions.get(parameter);
+        return prior != null && state.priorLogDensityGradients.containsKey(prior)
+                && new PosteriorTerms(state).reading(List.of(parameter)).equals(List.of(prior));
+    }
+
+    private static String parameterId(Parameter parameter) {
+        return parameter.getId() == null ? "" : parameter.getId();
+    }
+}
@@ -0,0 +1,220 @@
+package tiling.rpn;
+
+import dr.inference.model.Statistic;
+import org.phylospec.lexer.TokenType;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Typed evaluator node for a deterministic PhyloSpec arithmetic expression.
+ *
+ * <p>Every node caches its last value together with a version counter that
+ * only advances when the value actually changes. A parent recomputes itself
+ * only if one of its children reports a new version, so the arithmetic of
+ * sub-expressions whose inputs did not move during an MCMC step is not
+ * repeated. The statistics at the leaves are still read on every
+ * evaluation: BEAST X restores parameters after a rejected proposal without
+ * notifying their listeners, so a leaf cannot tell from events alone that its
+ * value went back.</p>
+ *
+ * <p>Nodes may be shared by several expressions, whose statistics can be
+ * read by likelihoods evaluated on different threads, so every node guards
+ * its cache with its own lock. A node only takes the locks of its children
+ * while holding its own, and expressions have no cycles, so the locks are
+ * always taken from parents to children.</p>
+ */
+public abstract class BeastXCompiledExpression {
+
+    private double value;
+    private long version = -1;
+
+    /**
+     * Returns the current value of this expression, recomputing only the
+     * sub-expressions whose inputs have changed.
+     */
+    public final synchronized double evaluate() {
+        this.refresh();
+        return this.value;
+    }
+
+    /**
+     * Brings this node up to date and returns its version. Implementations
+     * hold the lock of this node.
+     */
+    abstract long refresh();
+
+    final synchronized long version() {
+        return this.version;
+    }
+
+    final synchronized double value() {
+        return this.value;
+    }
+
+    final synchronized long update(double newValue) {
+        if (this.version < 0 || Double.doubleToLongBits(newValue) != Double.doubleToLongBits(this.value)) {
+            this.value = newValue;
+            this.version++;
+        }
+
+        return this.version;
+    }
+
+    public static BeastXCompiledExpression constant(double value) {
+        return new Constant(value);
+    }
+
+    public static BeastXCompiledExpression of(Statistic statistic) {
+        if (statistic instanceof BeastXCompiledExpressionStatistic compiled) {
+            return compiled.getExpression();
+        }
+
+        return new StatisticValue(statistic);
+    }
+
+    public static BeastXCompiledExpression binary(
+            TokenType operator,
+            BeastXCompiledExpression left,
+            BeastXCompiledExpression right
+    ) {
+        DoubleBinaryOperator function =
+                switch (operator) {
+                    case PLUS -> Double::sum;
+                    case MINUS -> (a, b) -> a - b;
+                    case STAR -> (a, b) -> a * b;
+                    case SLASH -> (a, b) -> a / b;
+                    default -> throw new IllegalArgumentException(
+                            "Unsupported binary operator " + TokenType.getLexeme(operator) + "."
+                    );
+                };
+
+        return binary(function, left, right);
+    }
+
+    static BeastXCompiledExpression binary(
+            DoubleBinaryOperator function,
+            BeastXCompiledExpression left,
+            BeastXCompiledExpression right
+    ) {
+        return new Binary(function, left, right);
+    }
+
+    /**
+     * Builds a unary node from the operator name used in BEAST's RPN calculator
+     * ({@code chs}, {@code exp}, {@code log}, {@code sqrt}).
+     */
+    public static BeastXCompiledExpression unary(
+            String operator,
+            BeastXCompiledExpression operand
+    ) {
+        DoubleUnaryOperator function =
+                switch (operator) {
+                    case "chs" -> a -> -a;
+                    case "exp" -> Math::exp;
+                    case "log" -> Math::log;
+                    case "sqrt" -> Math::sqrt;
+                    default -> throw new IllegalArgumentException(
+                            "Unsupported unary operator " + operator + "."
+                    );
+                };
+
+        return unary(function, operand);
+    }
+
+    static BeastXCompiledExpression unary(
+            DoubleUnaryOperator function,
+            BeastXCompiledExpression operand
+    ) {
+        return new Unary(function, operand);
+    }
+
+    private static final class Constant extends BeastXCompiledExpression {
+
+        private Constant(double value) {
+            this.update(value);
+        }
+
+        @Override
+        synchronized long refresh() {
+            return this.version();
+        }
+    }
+
+    private static final class StatisticValue extends BeastXCompiledExpression {
+
+        private final Statistic statistic;
+
+        private StatisticValue(Statistic statistic) {
+            this.statistic = statistic;
+        }
+
+        @Override
+        synchronized long refresh() {
+            return this.update(this.statistic.getStatisticValue(0));
+        }
+    }
+
+    private static final class Unary extends BeastXCompiledExpression {
+
+        private final DoubleUnaryOperator function;
+        private final BeastXCompiledExpression operand;
+        private long operandVersion = -1;
+
+        private Unary(DoubleUnaryOperator function, BeastXCompiledExpression operand) {
+            this.function = function;
+            this.operand = operand;
+        }
+
+        @Override
+        synchronized long refresh() {
+            long currentOperandVersion =
+                    this.operand.refresh();
+
+            if (this.version() < 0 || currentOperandVersion != this.operandVersion) {
+                this.operandVersion = currentOperandVersion;
+                return this.update(this.function.applyAsDouble(this.operand.value()));
+            }
+
+            return this.version();
+        }
+    }
+
+    private static final class Binary extends BeastXCompiledExpression {
+
+        private final DoubleBinaryOperator function;
+        private final BeastXCompiledExpression left;
+        private final BeastXCompiledExpression right;
+        private long leftVersion = -1;
+        private long rightVersion = -1;
+
+        private Binary(
+                DoubleBinaryOperator function,
+                BeastXCompiledExpression left,
+                BeastXCompiledExpression right
+        ) {
+            this.function = function;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        synchronized long refresh() {
+            long currentLeftVersion =
+                    this.left.refresh();
+
+            long currentRightVersion =
+                    this.right.refresh();
+
+            if (this.version() < 0
+                    || currentLeftVersion != this.leftVersion
+                    || currentRightVersion != this.rightVersion) {
+                this.leftVersion = currentLeftVersion;
+                this.rightVersion = currentRightVersion;
+                return this.update(this.function.applyAsDouble(this.left.value(), this.right.value()));
+            }
+
+            return this.version();
+        }
+    }
+}
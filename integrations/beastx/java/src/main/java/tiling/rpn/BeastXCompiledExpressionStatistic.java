@@ -0,0 +1,54 @@
+package tiling.rpn;
+
+import dr.inference.model.Statistic;
+
+/**
+ * BEAST X statistic backed by a compiled expression tree, used for PhyloSpec
+ * deterministic assignments in place of {@code RPNcalculatorStatistic}.
+ *
+ * <p>The RPN form of the expression is kept for diagnostics only; evaluation
+ * never re-parses it.</p>
+ */
+public class BeastXCompiledExpressionStatistic extends Statistic.Abstract {
+
+    private final BeastXCompiledExpression expression;
+    private final String calculation;
+
+    public BeastXCompiledExpressionStatistic(
+            String name,
+            BeastXCompiledExpression expression,
+            String calculation
+    ) {
+        super(name);
+
+        if (expression == null) {
+            throw new IllegalArgumentException("expression must not be null.");
+        }
+
+        this.expression = expression;
+        this.calculation = calculation;
+    }
+
+    public BeastXCompiledExpression getExpression() {
+        return this.expression;
+    }
+
+    public String getCalculation() {
+        return this.calculation;
+    }
+
+    @Override
+    public int getDimension() {
+        return 1;
+    }
+
+    @Override
+    public String getDimensionName(int dim) {
+        return this.getStatisticName();
+    }
+
+    @Override
+    public double getStatisticValue(int dim) {
+        return this.expression.evaluate();
+    }
+}
@@ -13,11 +13,14 @@ import java.util.Map;
 
 /**
  * Holds an in-progress RPN expression as a string together with the BEAST X statistics it
- * references and the names that identify each statistic within the expression.
+ * references and the names that identify each statistic within the expression. The same
+ * expression is also compiled into a tree of typed evaluator nodes, which is what gets
+ * evaluated during MCMC.
  */
 public record BeastXRPNCalculationResult(
         String calculation,
-        Map<String, Statistic> variables
+        Map<String, Statistic> variables,
+        BeastXCompiledExpression expression
 ) {
 
     public static BeastXRPNCalculationResult combine(
@@ -38,7 +41,11 @@ public record BeastXRPNCalculationResult(
                         + " "
                         + TokenType.getLexeme(operator);
 
-        return new BeastXRPNCalculationResult(calculation, variables);
+        return new BeastXRPNCalculationResult(
+                calculation,
+                variables,
+                BeastXCompiledExpression.binary(operator, left.expression, right.expression)
+        );
     }
 
     public static BeastXRPNCalculationResult combineUnary(
@@ -47,7 +54,8 @@ public record BeastXRPNCalculationResult(
     ) {
         return new BeastXRPNCalculationResult(
                 value.calculation + " " + operator,
-                new LinkedHashMap<>(value.variables)
+                new LinkedHashMap<>(value.variables),
+                BeastXCompiledExpression.unary(operator, value.expression)
         );
     }
 
@@ -81,7 +89,8 @@ public record BeastXRPNCalculationResult(
 
         return new BeastXRPNCalculationResult(
                 statistic.getId(),
-                variables
+                variables,
+                BeastXCompiledExpression.of(statistic)
         );
     }
 }
@@ -0,0 +1,33 @@
+package tiling.runner;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * One run of a batch: a name, used for the run and its output directory,
+ * and the constants and data files it replaces in the shared model.
+ */
+public record BatchInstance(
+        String name,
+        Map<String, String> overrides
+) {
+
+    private static final Pattern NAME =
+            Pattern.compile("[A-Za-z0-9._-]+");
+
+    public BatchInstance {
+        if (name == null || !NAME.matcher(name).matches() || name.equals(".") || name.equals("..")) {
+            throw new IllegalArgumentException(
+                    "Batch instance name '" + name + "' must consist of letters, digits, '.', '_' and '-'."
+            );
+        }
+
+        if (overrides == null) {
+            throw new IllegalArgumentException("overrides must not be null.");
+        }
+
+        overrides = Collections.unmodifiableMap(new LinkedHashMap<>(overrides));
+    }
+}
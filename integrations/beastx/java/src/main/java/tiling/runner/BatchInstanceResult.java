@@ -0,0 +1,39 @@
+package tiling.runner;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Outcome of one batch instance: its run, or the failure that ended it.
+ *
+ * @param outputDirectory directory holding the instance's output files
+ * @param randomSeed      seed the instance's chain started from, or
+ *                        {@code null} for an unseeded model
+ */
+public record BatchInstanceResult(
+        BatchInstance instance,
+        Path outputDirectory,
+        Long randomSeed,
+        BeastXRunResult run,
+        Throwable failure,
+        Duration elapsed
+) {
+
+    public BatchInstanceResult {
+        if (instance == null) {
+            throw new IllegalArgumentException("instance must not be null.");
+        }
+
+        if ((run == null) == (failure == null)) {
+            throw new IllegalArgumentException("Exactly one of run and failure must be given.");
+        }
+
+        if (elapsed == null) {
+            throw new IllegalArgumentException("elapsed must not be null.");
+        }
+    }
+
+    public boolean succeeded() {
+        return this.run != null;
+    }
+}
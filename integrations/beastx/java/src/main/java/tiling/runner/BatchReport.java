@@ -0,0 +1,125 @@
+package tiling.runner;
+
+import tiling.mcmc.ChainStop;
+import tiling.summary.OnlineTraceSummary;
+import tiling.summary.ParameterSummary;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Consolidated results of a batch run, one entry per instance in table order.
+ *
+ * <p>{@link #writeTo(Path)} writes {@value #RUNS_FILE}, with one line per
+ * instance and the seed it ran with, and, for instances that summarized
+ * their posterior while running, {@value #SUMMARY_FILE}, with one line per
+ * instance and parameter.</p>
+ */
+public record BatchReport(List<BatchInstanceResult> results) {
+
+    public static final String RUNS_FILE = "batch-runs.tsv";
+
+    public static final String SUMMARY_FILE = "batch-summary.tsv";
+
+    public BatchReport {
+        if (results == null) {
+            throw new IllegalArgumentException("results must not be null.");
+        }
+
+        results = List.copyOf(results);
+    }
+
+    public long failureCount() {
+        return this.results.stream()
+                .filter(result -> !result.succeeded())
+                .count();
+    }
+
+    public Optional<BatchInstanceResult> result(String instanceName) {
+        return this.results.stream()
+                .filter(result -> result.instance().name().equals(instanceName))
+                .findFirst();
+    }
+
+    public void writeTo(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null.");
+        }
+
+        Files.createDirectories(directory);
+
+        try (Writer writer = Files.newBufferedWriter(directory.resolve(RUNS_FILE), StandardCharsets.UTF_8)) {
+            writer.write("name\tstatus\tseed\tseconds\tstop\tstate\tminimumEss\toutputDirectory\terror\n");
+
+            for (BatchInstanceResult result : this.results) {
+                Optional<ChainStop> stop =
+                        result.succeeded() ? result.run().chainStop() : Optional.empty();
+
+                writer.write(String.join(
+                        "\t",
+                        result.instance().name(),
+                        result.succeeded() ? "OK" : "FAILED",
+                        result.randomSeed() != null ? result.randomSeed().toString() : "",
+                        format(result.elapsed().toNanos() / 1e9),
+                        stop.map(chainStop -> chainStop.reason().name()).orElse(""),
+                        stop.map(chainStop -> Long.toString(chainStop.state())).orElse(""),
+                        stop.map(chainStop -> format(chainStop.minimumEffectiveSampleSize())).orElse(""),
+                        result.outputDirectory() != null ? result.outputDirectory().toString() : "",
+                        result.succeeded() ? "" : describe(result.failure())
+                ));
+                writer.write("\n");
+            }
+        }
+
+        try (Writer writer = Files.newBufferedWriter(directory.resolve(SUMMARY_FILE), StandardCharsets.UTF_8)) {
+            writer.write("name\tparameter\tsamples\tmean\tsd\tess\tmedian\thpdLower\thpdUpper\n");
+
+            for (BatchInstanceResult result : this.results) {
+                if (!result.succeeded()) {
+                    continue;
+                }
+
+                Optional<OnlineTraceSummary> summary =
+                        result.run().traceSummary();
+
+                if (summary.isEmpty()) {
+                    continue;
+                }
+
+                for (ParameterSummary parameter : summary.get().summaries()) {
+                    writer.write(String.join(
+                            "\t",
+                            result.instance().name(),
+                            parameter.name(),
+                            Long.toString(parameter.sampleCount()),
+                            format(parameter.mean()),
+                            format(parameter.standardDeviation()),
+                            format(parameter.effectiveSampleSize()),
+                            format(parameter.median()),
+                            format(parameter.hpdLower()),
+                            format(parameter.hpdUpper())
+                    ));
+                    writer.write("\n");
+                }
+            }
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6g", value);
+    }
+
+    // keeps the report one line per instance
+    private static String describe(Throwable failure) {
+        String message =
+                failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+
+        return message.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,120 @@
+package tiling.runner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the instances of a batch run from a table.
+ *
+ * <p>The first line names the columns, every further line is one instance.
+ * A column called {@value #NAME_COLUMN} names the instance; without it,
+ * instances are called {@code instance1}, {@code instance2}, and so on. Every
+ * other column overrides the model constant or data file of the same name,
+ * and an empty cell keeps the value from the model. Cells are separated by
+ * tabs, or by commas in {@code .csv} files; quoting is not supported, so the
+ * elements of a vector constant are separated by spaces or semicolons in
+ * {@code .csv} files. Blank lines and lines starting with {@code #} are
+ * skipped.</p>
+ */
+public final class BatchTable {
+
+    public static final String NAME_COLUMN = "name";
+
+    private BatchTable() {
+    }
+
+    public static List<BatchInstance> read(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null.");
+        }
+
+        String delimiter =
+                path.getFileName().toString().toLowerCase().endsWith(".csv") ? "," : "\t";
+
+        return parse(Files.readAllLines(path, StandardCharsets.UTF_8), delimiter);
+    }
+
+    static List<BatchInstance> parse(List<String> lines, String delimiter) {
+        List<String[]> rows =
+                new ArrayList<>();
+
+        for (String line : lines) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] cells =
+                    line.split(delimiter, -1);
+
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = cells[i].trim();
+            }
+
+            rows.add(cells);
+        }
+
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Batch table has no header line.");
+        }
+
+        String[] header =
+                rows.getFirst();
+
+        Set<String> columns =
+                new HashSet<>();
+
+        for (String column : header) {
+            if (column.isEmpty() || !columns.add(column)) {
+                throw new IllegalArgumentException("Batch table columns must be named and unique.");
+            }
+        }
+
+        List<BatchInstance> instances =
+                new ArrayList<>();
+
+        Set<String> names =
+                new HashSet<>();
+
+        for (int row = 1; row < rows.size(); row++) {
+            String[] cells =
+                    rows.get(row);
+
+            if (cells.length != header.length) {
+                throw new IllegalArgumentException(
+                        "Batch table row " + row + " has " + cells.length + " cells where "
+                                + header.length + " columns are named."
+                );
+            }
+
+            String name =
+                    "instance" + row;
+
+            Map<String, String> overrides =
+                    new LinkedHashMap<>();
+
+            for (int column = 0; column < header.length; column++) {
+                if (header[column].equals(NAME_COLUMN)) {
+                    name = cells[column];
+                } else if (!cells[column].isEmpty()) {
+                    overrides.put(header[column], cells[column]);
+                }
+            }
+
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Batch instance name '" + name + "' is used twice.");
+            }
+
+            instances.add(new BatchInstance(name, overrides));
+        }
+
+        return instances;
+    }
+}
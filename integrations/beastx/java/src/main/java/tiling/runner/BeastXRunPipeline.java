@@ -1,20 +1,53 @@
 package tiling.runner;
 
 import dr.inference.mcmc.MCMC;
+import org.phylospec.profiling.PipelineProfile;
 import tiling.BeastXModel;
 import tiling.BeastXState;
+import tiling.mcmc.ChainCheckpoint;
 import tiling.mcmc.MCMCBuilder;
 import tiling.xml.StateXmlGenerator;
 import tiling.xml.XmlRunner;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
  * Coordinates BEAST X state, model, MCMC, XML, and execution steps.
+ *
+ * Every step is timed as a phase of the pipeline's {@link PipelineProfile},
+ * which the runner shares for the engine-independent phases.
  */
 public final class BeastXRunPipeline {
 
+    // phases of the BEAST X part of the pipeline
+    public static final String PREFETCH_DATA = "prefetch-data";
+    public static final String LOAD_TILES = "load-tiles";
+    public static final String BUILD_MODEL = "build-model";
+    public static final String BUILD_MCMC = "build-mcmc";
+    public static final String RUN_MCMC = "run-mcmc";
+    public static final String WRITE_XML = "write-xml";
+    public static final String PARSE_XML = "parse-xml";
+
+    private final PipelineProfile profile;
+
+    public BeastXRunPipeline() {
+        this(new PipelineProfile());
+    }
+
+    public BeastXRunPipeline(PipelineProfile profile) {
+        if (profile == null) {
+            throw new IllegalArgumentException("profile must not be null.");
+        }
+
+        this.profile = profile;
+    }
+
+    public PipelineProfile getProfile() {
+        return this.profile;
+    }
+
     public BeastXRunResult run(
             BeastXState beastState,
             RunnerOptions options
@@ -29,6 +62,13 @@ public final class BeastXRunPipeline {
             throw new IllegalArgumentException("options must not be null.");
         }
 
+        if (options.mode() == RunMode.ESTIMATE_MARGINAL_LIKELIHOOD) {
+            // every power-posterior chain needs its own state, see MarginalLikelihoodEstimator
+            throw new IllegalArgumentException(
+                    "Marginal likelihood estimation builds a state per chain and must be run from a compiled model."
+            );
+        }
+
         // apply options
 
         options.applyTo(beastState);
@@ -42,17 +82,15 @@ public final class BeastXRunPipeline {
                     null,
                     null,
                     options.materializePhyloCTMC(),
-                    false
+                    false,
+                    null
             );
         }
 
         // build the BeastXModel from the BeastXState
 
         BeastXModel model =
-                buildModel(
-                        beastState,
-                        options.materializePhyloCTMC()
-                );
+                buildModel(beastState, options);
 
         if (options.mode() == RunMode.BUILD_MODEL) {
             // we have built the model and are done
@@ -63,7 +101,8 @@ public final class BeastXRunPipeline {
                     model,
                     null,
                     options.materializePhyloCTMC(),
-                    false
+                    false,
+                    null
             );
         }
 
@@ -80,7 +119,8 @@ public final class BeastXRunPipeline {
                         model,
                         mcmc,
                         options.materializePhyloCTMC(),
-                        false
+                        false,
+                        null
                 );
 
         if (options.mode() == RunMode.BUILD_MCMC) {
@@ -90,9 +130,9 @@ public final class BeastXRunPipeline {
 
         // run MCMC
 
-        mcmc.run();
+        runMCMC(mcmc);
 
-        if (options.mode() == RunMode.EXECUTE_MCMC) {
+        if (options.mode() == RunMode.EXECUTE_MCMC || options.mode() == RunMode.RESUME_MCMC) {
             return run.asExecuted();
         }
 
@@ -107,60 +147,141 @@ public final class BeastXRunPipeline {
             BeastXState beastState,
             boolean materializePhyloCTMC
     ) {
-        return BeastXModel.fromBeastXState(
-                beastState,
-                materializePhyloCTMC
-        );
+        try (PipelineProfile.Phase phase = this.profile.start(BUILD_MODEL)) {
+            return countModel(
+                    BeastXModel.fromBeastXState(
+                            beastState,
+                            materializePhyloCTMC
+                    ),
+                    phase
+            );
+        }
+    }
+
+    public BeastXModel buildModel(
+            BeastXState beastState,
+            RunnerOptions options
+    ) {
+        try (PipelineProfile.Phase phase = this.profile.start(BUILD_MODEL)) {
+            return countModel(
+                    BeastXModel.fromBeastXState(
+                            beastState,
+                            options.materializePhyloCTMC(),
+                            options.resolvedLikelihoodThreadCount()
+                    ),
+                    phase
+            );
+        }
+    }
+
+    private static BeastXModel countModel(BeastXModel model, PipelineProfile.Phase phase) {
+        phase.count("stateNodes", model.beastState.stateNodes.size());
+        phase.count("likelihoods", model.beastState.likelihoodDistributions.size());
+        phase.count("trees", model.beastState.treeModelsByPhyloSpecName.size());
+        return model;
     }
 
     public MCMC buildMCMC(BeastXModel model) {
-        return new MCMCBuilder()
-                .build(model);
+        try (PipelineProfile.Phase phase = this.profile.start(BUILD_MCMC)) {
+            return new MCMCBuilder()
+                    .build(model);
+        }
     }
 
     public MCMC buildMCMC(
             BeastXModel model,
             long chainLength
     ) {
-        return new MCMCBuilder(chainLength)
-                .build(model);
+        try (PipelineProfile.Phase phase = this.profile.start(BUILD_MCMC)) {
+            return new MCMCBuilder(chainLength)
+                    .build(model);
+        }
     }
 
     public MCMC buildMCMC(
             BeastXModel model,
             RunnerOptions options
     ) {
-        if (options.chainLengthOverride() == null) {
-            return buildMCMC(model);
+        MCMCBuilder builder =
+                options.chainLengthOverride() == null
+                        ? new MCMCBuilder()
+                        : new MCMCBuilder(options.chainLengthOverride());
+
+        if (options.checkpointEvery() != null) {
+            builder.checkpointEvery(
+                    options.checkpointEvery(),
+                    options.resolvedCheckpointPath()
+            );
         }
 
-        return buildMCMC(
-                model,
-                options.chainLengthOverride()
-        );
+        if (options.mode() == RunMode.RESUME_MCMC) {
+            builder.resumeFrom(readCheckpoint(options.resolvedCheckpointPath()));
+        }
+
+        try (PipelineProfile.Phase phase = this.profile.start(BUILD_MCMC)) {
+            return builder.build(model);
+        }
+    }
+
+    /**
+     * Runs a chain built by this pipeline, see {@link MCMCBuilder#run(MCMC)}.
+     */
+    public void runMCMC(MCMC mcmc) {
+        try (PipelineProfile.Phase phase = this.profile.start(RUN_MCMC)) {
+            MCMCBuilder.run(mcmc);
+        }
+    }
+
+    private ChainCheckpoint readCheckpoint(Path checkpointPath) {
+        try {
+            return ChainCheckpoint.read(checkpointPath);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Could not read BEAST X chain checkpoint '" + checkpointPath + "'.",
+                    e
+            );
+        }
     }
 
     public String toXml(BeastXModel model) {
-        return new StateXmlGenerator()
-                .toXml(model);
+        try (PipelineProfile.Phase phase = this.profile.start(WRITE_XML)) {
+            String xml =
+                    new StateXmlGenerator()
+                            .toXml(model);
+
+            phase.count("characters", xml.length());
+            return xml;
+        }
     }
 
     public void writeXml(
             BeastXModel model,
             Path xmlPath
     ) throws IOException {
-        new StateXmlGenerator()
-                .write(model, xmlPath);
+        try (PipelineProfile.Phase phase = this.profile.start(WRITE_XML)) {
+            new StateXmlGenerator()
+                    .write(model, xmlPath);
+
+            phase.count("bytes", Files.size(xmlPath));
+        }
     }
 
     public MCMC parseXmlMCMC(Path xmlPath) throws Exception {
-        return new XmlRunner()
-                .parse(xmlPath);
+        try (PipelineProfile.Phase phase = this.profile.start(PARSE_XML)) {
+            return new XmlRunner()
+                    .parse(xmlPath);
+        }
     }
 
     public MCMC runXmlMCMC(Path xmlPath) throws Exception {
-        return new XmlRunner()
-                .run(xmlPath);
+        MCMC mcmc =
+                parseXmlMCMC(xmlPath);
+
+        try (PipelineProfile.Phase phase = this.profile.start(RUN_MCMC)) {
+            mcmc.run();
+        }
+
+        return mcmc;
     }
 
     public XmlRunResult runXml(
@@ -193,7 +314,9 @@ public final class BeastXRunPipeline {
             return run;
         }
 
-        mcmc.run();
+        try (PipelineProfile.Phase phase = this.profile.start(RUN_MCMC)) {
+            mcmc.run();
+        }
 
         return run.asExecuted();
     }
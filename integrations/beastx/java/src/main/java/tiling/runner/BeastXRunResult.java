@@ -3,6 +3,10 @@ package tiling.runner;
 import dr.inference.mcmc.MCMC;
 import tiling.BeastXModel;
 import tiling.BeastXState;
+import tiling.mcmc.ChainStop;
+import tiling.marginal.MarginalLikelihoodEstimate;
+import tiling.mcmc.MCMCBuilder;
+import tiling.summary.OnlineTraceSummary;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -12,6 +16,11 @@ import java.util.Optional;
 
 /**
  * Captures the artifacts and output paths produced by a BEAST X run pipeline.
+ *
+ * @param marginalLikelihood estimate of a
+ *                           {@link RunMode#ESTIMATE_MARGINAL_LIKELIHOOD} run,
+ *                           whose other artifacts are those of its posterior
+ *                           chain, or {@code null} for other runs
  */
 public record BeastXRunResult(
         String runName,
@@ -20,7 +29,8 @@ public record BeastXRunResult(
         BeastXModel model,
         MCMC mcmc,
         boolean materialized,
-        boolean executed
+        boolean executed,
+        MarginalLikelihoodEstimate marginalLikelihood
 ) {
 
     public BeastXRunResult {
@@ -45,6 +55,10 @@ public record BeastXRunResult(
         return this.mcmc != null;
     }
 
+    public boolean hasMarginalLikelihood() {
+        return this.marginalLikelihood != null;
+    }
+
     public BeastXRunResult asExecuted() {
         if (this.mcmc == null) {
             throw new IllegalStateException("Cannot mark a run as executed when no MCMC object was built.");
@@ -57,10 +71,35 @@ public record BeastXRunResult(
                 this.model,
                 this.mcmc,
                 this.materialized,
-                true
+                true,
+                this.marginalLikelihood
         );
     }
 
+    /**
+     * Returns the posterior summary computed while the chain ran, if
+     * {@link RunnerOptions#traceSummaryEvery()} was set.
+     */
+    public Optional<OnlineTraceSummary> traceSummary() {
+        if (this.mcmc == null) {
+            return Optional.empty();
+        }
+
+        return MCMCBuilder.traceSummary(this.mcmc);
+    }
+
+    /**
+     * Returns why the chain stopped, if it ran with
+     * {@link RunnerOptions#stopAtMinimumEss()} set.
+     */
+    public Optional<ChainStop> chainStop() {
+        if (this.mcmc == null || !this.executed) {
+            return Optional.empty();
+        }
+
+        return MCMCBuilder.chainStop(this.mcmc);
+    }
+
     public List<Path> fileLogPaths() {
         LinkedHashSet<Path> paths =
                 new LinkedHashSet<>();
@@ -2,10 +2,19 @@ package tiling.runner;
 
 /**
  * Defines how far the BEAST X run pipeline should execute.
+ *
+ * <p>{@link #RESUME_MCMC} executes the MCMC like {@link #EXECUTE_MCMC}, but
+ * continues from the checkpoint at {@link RunnerOptions#resolvedCheckpointPath()}.</p>
+ *
+ * <p>{@link #ESTIMATE_MARGINAL_LIKELIHOOD} runs power-posterior chains as
+ * configured by {@link RunnerOptions#resolvedMarginalLikelihood()}, one of
+ * them an ordinary posterior run, and estimates the marginal likelihood.</p>
  */
 public enum RunMode {
     BUILD_STATE,
     BUILD_MODEL,
     BUILD_MCMC,
-    EXECUTE_MCMC
+    EXECUTE_MCMC,
+    RESUME_MCMC,
+    ESTIMATE_MARGINAL_LIKELIHOOD
 }
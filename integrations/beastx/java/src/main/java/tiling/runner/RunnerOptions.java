@@ -1,6 +1,7 @@
 package tiling.runner;
 
 import tiling.BeastXState;
+import tiling.marginal.MarginalLikelihoodOptions;
 
 import java.nio.file.Path;
 
@@ -14,7 +15,18 @@ public record RunnerOptions(
         boolean materializePhyloCTMC,
         Long defaultLogEveryOverride,
         Path outputDirectory,
-        String outputFilePrefix
+        String outputFilePrefix,
+        Integer likelihoodThreadCount,
+        Long checkpointEvery,
+        Path checkpointPath,
+        Integer logBufferSize,
+        boolean binaryTraces,
+        Long traceSummaryEvery,
+        Double stopAtMinimumEss,
+        Long convergenceCheckEvery,
+        Integer likelihoodPatternChunks,
+        MarginalLikelihoodOptions marginalLikelihood,
+        Path profileReportPath
 ) {
 
     public RunnerOptions {
@@ -37,6 +49,46 @@ public record RunnerOptions(
         if (outputFilePrefix != null && outputFilePrefix.isBlank()) {
             throw new IllegalArgumentException("outputFilePrefix must not be blank.");
         }
+
+        if (likelihoodThreadCount != null && likelihoodThreadCount <= 0) {
+            throw new IllegalArgumentException("likelihoodThreadCount must be positive.");
+        }
+
+        if (likelihoodPatternChunks != null && likelihoodPatternChunks <= 0) {
+            throw new IllegalArgumentException("likelihoodPatternChunks must be positive.");
+        }
+
+        if (checkpointEvery != null && checkpointEvery <= 0) {
+            throw new IllegalArgumentException("checkpointEvery must be positive.");
+        }
+
+        if (logBufferSize != null && logBufferSize <= 0) {
+            throw new IllegalArgumentException("logBufferSize must be positive.");
+        }
+
+        if (traceSummaryEvery != null && traceSummaryEvery <= 0) {
+            throw new IllegalArgumentException("traceSummaryEvery must be positive.");
+        }
+
+        if (stopAtMinimumEss != null && !(stopAtMinimumEss > 0)) {
+            throw new IllegalArgumentException("stopAtMinimumEss must be positive.");
+        }
+
+        if (convergenceCheckEvery != null && convergenceCheckEvery <= 0) {
+            throw new IllegalArgumentException("convergenceCheckEvery must be positive.");
+        }
+
+        if (
+                (checkpointEvery != null || mode == RunMode.RESUME_MCMC)
+                        && checkpointPath == null
+                        && outputFilePrefix == null
+        ) {
+            throw new IllegalArgumentException("Checkpointing requires checkpointPath or outputFilePrefix.");
+        }
+
+        if (mode == RunMode.ESTIMATE_MARGINAL_LIKELIHOOD && checkpointEvery != null) {
+            throw new IllegalArgumentException("Marginal likelihood estimation does not support checkpoints.");
+        }
     }
 
     public static RunnerOptions of(String runName) {
@@ -48,13 +100,55 @@ public record RunnerOptions(
     }
 
     public Builder toBuilder() {
-        return new Builder(this.runName)
+        return toBuilder(this.runName);
+    }
+
+    /**
+     * Returns a builder with these options for a run of a different name.
+     */
+    public Builder toBuilder(String runName) {
+        return new Builder(runName)
                 .mode(this.mode)
                 .chainLengthOverride(this.chainLengthOverride)
                 .materializePhyloCTMC(this.materializePhyloCTMC)
                 .defaultLogEveryOverride(this.defaultLogEveryOverride)
                 .outputDirectory(this.outputDirectory)
-                .outputFilePrefix(this.outputFilePrefix);
+                .outputFilePrefix(this.outputFilePrefix)
+                .likelihoodThreadCount(this.likelihoodThreadCount)
+                .checkpointEvery(this.checkpointEvery)
+                .checkpointPath(this.checkpointPath)
+                .logBufferSize(this.logBufferSize)
+                .binaryTraces(this.binaryTraces)
+                .traceSummaryEvery(this.traceSummaryEvery)
+                .stopAtMinimumEss(this.stopAtMinimumEss)
+                .convergenceCheckEvery(this.convergenceCheckEvery)
+                .likelihoodPatternChunks(this.likelihoodPatternChunks)
+                .marginalLikelihood(this.marginalLikelihood)
+                .profileReportPath(this.profileReportPath);
+    }
+
+    /**
+     * Returns the number of threads used to evaluate independent likelihood
+     * terms, where {@code 1} means sequential evaluation.
+     */
+    public int resolvedLikelihoodThreadCount() {
+        if (likelihoodThreadCount == null) {
+            return 1;
+        }
+
+        return likelihoodThreadCount;
+    }
+
+    /**
+     * Returns the options of a marginal likelihood estimate, or the defaults
+     * when none were set.
+     */
+    public MarginalLikelihoodOptions resolvedMarginalLikelihood() {
+        if (marginalLikelihood == null) {
+            return MarginalLikelihoodOptions.defaults();
+        }
+
+        return marginalLikelihood;
     }
 
     public void applyTo(BeastXState beastState) {
@@ -66,6 +160,30 @@ public record RunnerOptions(
             beastState.defaultLogEvery = defaultLogEveryOverride;
         }
 
+        if (likelihoodPatternChunks != null) {
+            beastState.likelihoodPatternChunks = likelihoodPatternChunks;
+        }
+
+        if (logBufferSize != null) {
+            beastState.logBufferSize = logBufferSize;
+        }
+
+        if (binaryTraces) {
+            beastState.binaryTraces = true;
+        }
+
+        if (traceSummaryEvery != null) {
+            beastState.traceSummaryEvery = traceSummaryEvery;
+        }
+
+        if (stopAtMinimumEss != null) {
+            beastState.stopAtMinimumEss = stopAtMinimumEss;
+        }
+
+        if (convergenceCheckEvery != null) {
+            beastState.convergenceCheckEvery = convergenceCheckEvery;
+        }
+
         String resolvedOutputPrefix =
                 resolvedOutputPrefix();
 
@@ -86,6 +204,26 @@ public record RunnerOptions(
         return outputDirectory.resolve(outputFilePrefix).toString();
     }
 
+    /**
+     * Returns where chain checkpoints are written and resumed from: the
+     * configured checkpoint path, or the output prefix with a
+     * {@code .checkpoint} extension.
+     */
+    public Path resolvedCheckpointPath() {
+        if (checkpointPath != null) {
+            return checkpointPath;
+        }
+
+        String resolvedOutputPrefix =
+                resolvedOutputPrefix();
+
+        if (resolvedOutputPrefix == null) {
+            return null;
+        }
+
+        return Path.of(resolvedOutputPrefix + ".checkpoint");
+    }
+
     public static class Builder {
         private final String runName;
         private RunMode mode = RunMode.BUILD_MCMC;
@@ -94,6 +232,17 @@ public record RunnerOptions(
         private Long defaultLogEveryOverride;
         private Path outputDirectory;
         private String outputFilePrefix;
+        private Integer likelihoodThreadCount;
+        private Long checkpointEvery;
+        private Path checkpointPath;
+        private Integer logBufferSize;
+        private boolean binaryTraces;
+        private Long traceSummaryEvery;
+        private Double stopAtMinimumEss;
+        private Long convergenceCheckEvery;
+        private Integer likelihoodPatternChunks;
+        private MarginalLikelihoodOptions marginalLikelihood;
+        private Path profileReportPath;
 
         private Builder(String runName) {
             this.runName = runName;
@@ -145,6 +294,153 @@ public record RunnerOptions(
             return this;
         }
 
+        public Builder likelihoodThreadCount(Integer likelihoodThreadCount) {
+            this.likelihoodThreadCount = likelihoodThreadCount;
+            return this;
+        }
+
+        public Builder likelihoodThreadCount(int likelihoodThreadCount) {
+            this.likelihoodThreadCount = likelihoodThreadCount;
+            return this;
+        }
+
+        /**
+         * Uses one likelihood thread per available processor.
+         */
+        public Builder parallelLikelihoods() {
+            this.likelihoodThreadCount = Runtime.getRuntime().availableProcessors();
+            return this;
+        }
+
+        public Builder likelihoodPatternChunks(Integer likelihoodPatternChunks) {
+            this.likelihoodPatternChunks = likelihoodPatternChunks;
+            return this;
+        }
+
+        /**
+         * Splits the site patterns of each PhyloCTMC likelihood into
+         * {@code likelihoodPatternChunks} chunks that are evaluated in
+         * parallel, which spreads a single long partition over several cores.
+         */
+        public Builder likelihoodPatternChunks(int likelihoodPatternChunks) {
+            this.likelihoodPatternChunks = likelihoodPatternChunks;
+            return this;
+        }
+
+        public Builder checkpointEvery(Long checkpointEvery) {
+            this.checkpointEvery = checkpointEvery;
+            return this;
+        }
+
+        /**
+         * Writes a chain checkpoint every {@code checkpointEvery} states.
+         */
+        public Builder checkpointEvery(long checkpointEvery) {
+            this.checkpointEvery = checkpointEvery;
+            return this;
+        }
+
+        public Builder checkpointPath(Path checkpointPath) {
+            this.checkpointPath = checkpointPath;
+            return this;
+        }
+
+        public Builder logBufferSize(Integer logBufferSize) {
+            this.logBufferSize = logBufferSize;
+            return this;
+        }
+
+        /**
+         * Sets how many characters each log file buffers before handing them
+         * to its background writer.
+         */
+        public Builder logBufferSize(int logBufferSize) {
+            this.logBufferSize = logBufferSize;
+            return this;
+        }
+
+        /**
+         * Makes every file logger also write a binary columnar trace next to
+         * its tab-delimited log, with a {@code .bxt} extension.
+         */
+        public Builder binaryTraces(boolean binaryTraces) {
+            this.binaryTraces = binaryTraces;
+            return this;
+        }
+
+        public Builder traceSummaryEvery(Long traceSummaryEvery) {
+            this.traceSummaryEvery = traceSummaryEvery;
+            return this;
+        }
+
+        /**
+         * Summarizes the posterior while the chain runs, printing means,
+         * effective sample sizes and 95% HPD intervals every
+         * {@code traceSummaryEvery} states and at the end of the run.
+         */
+        public Builder traceSummaryEvery(long traceSummaryEvery) {
+            this.traceSummaryEvery = traceSummaryEvery;
+            return this;
+        }
+
+        public Builder stopAtMinimumEss(Double stopAtMinimumEss) {
+            this.stopAtMinimumEss = stopAtMinimumEss;
+            return this;
+        }
+
+        /**
+         * Stops the chain early once every summarized column has an effective
+         * sample size of at least {@code minimumEss}. The chain length, or
+         * {@link #chainLengthOverride(long)}, becomes the maximum length.
+         */
+        public Builder stopAtMinimumEss(double minimumEss) {
+            this.stopAtMinimumEss = minimumEss;
+            return this;
+        }
+
+        public Builder convergenceCheckEvery(Long convergenceCheckEvery) {
+            this.convergenceCheckEvery = convergenceCheckEvery;
+            return this;
+        }
+
+        /**
+         * Sets how many states pass between checks of
+         * {@link #stopAtMinimumEss(double)}.
+         */
+        public Builder convergenceCheckEvery(long convergenceCheckEvery) {
+            this.convergenceCheckEvery = convergenceCheckEvery;
+            return this;
+        }
+
+        /**
+         * Configures the power-posterior chains of
+         * {@link RunMode#ESTIMATE_MARGINAL_LIKELIHOOD} runs.
+         */
+        public Builder marginalLikelihood(MarginalLikelihoodOptions marginalLikelihood) {
+            this.marginalLikelihood = marginalLikelihood;
+            return this;
+        }
+
+        /**
+         * Estimates the marginal likelihood with the given power-posterior
+         * chains instead of running a single chain.
+         */
+        public Builder estimateMarginalLikelihood(MarginalLikelihoodOptions marginalLikelihood) {
+            this.mode = RunMode.ESTIMATE_MARGINAL_LIKELIHOOD;
+            this.marginalLikelihood = marginalLikelihood;
+            return this;
+        }
+
+        /**
+         * Writes the time and counters of every pipeline phase run so far as
+         * JSON to {@code profileReportPath} once the run finishes, see
+         * {@link org.phylospec.profiling.PipelineProfile}.
+         */
+        public Builder profileReportPath(Path profileReportPath) {
+            this.profileReportPath = profileReportPath;
+            return this;
+        }
+
         public RunnerOptions build() {
             return new RunnerOptions(
                     this.runName,
@@ -153,7 +449,18 @@ public record RunnerOptions(
                     this.materializePhyloCTMC,
                     this.defaultLogEveryOverride,
                     this.outputDirectory,
-                    this.outputFilePrefix
+                    this.outputFilePrefix,
+                    this.likelihoodThreadCount,
+                    this.checkpointEvery,
+                    this.checkpointPath,
+                    this.logBufferSize,
+                    this.binaryTraces,
+                    this.traceSummaryEvery,
+                    this.stopAtMinimumEss,
+                    this.convergenceCheckEvery,
+                    this.likelihoodPatternChunks,
+                    this.marginalLikelihood,
+                    this.profileReportPath
             );
         }
     }
@@ -0,0 +1,319 @@
+package tiling.simulation;
+
+import dr.inference.distribution.AbstractDistributionLikelihood;
+import dr.inference.distribution.DistributionLikelihood;
+import dr.inference.loggers.LogColumn;
+import dr.inference.model.Likelihood;
+import dr.inference.model.Model;
+import dr.inference.model.Parameter;
+import dr.inference.model.Variable;
+import dr.math.distributions.Distribution;
+import dr.util.Attribute;
+import tiling.BeastXState;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Draws joint samples from the BEAST X distribution objects of one
+ * {@link BeastXState} of a univariate-prior model.
+ *
+ * <p>Parameters are drawn from their priors by inverting the prior's
+ * distribution function, in an order where every parameter comes after the
+ * parameters its prior depends on. Replicated observations are then drawn
+ * from the distributions of the observed values. A sampler changes the
+ * parameters of its state, so every worker uses its own.</p>
+ */
+final class ForwardSampler {
+
+    private record Draw(String id, Parameter parameter, Distribution distribution) {
+    }
+
+    private record Replicate(String id, int dimension, Distribution distribution) {
+    }
+
+    private final List<Draw> draws;
+    private final List<Replicate> replicates;
+    private final List<String> parameterColumns;
+    private final List<String> replicateColumns;
+
+    ForwardSampler(BeastXState beastState) {
+        List<String> unsupported =
+                new ArrayList<>();
+
+        for (Likelihood treePrior : beastState.treePriorDistributions.values()) {
+            unsupported.add(treePrior.getId());
+        }
+
+        for (Likelihood calibration : beastState.calibrationPriorDistributions) {
+            unsupported.add(calibration.getId());
+        }
+
+        List<Draw> draws =
+                new ArrayList<>();
+
+        for (Map.Entry<Parameter, AbstractDistributionLikelihood> prior : beastState.priorDistributions.entrySet()) {
+            if (prior.getValue() instanceof DistributionLikelihood likelihood) {
+                draws.add(new Draw(prior.getKey().getId(), prior.getKey(), likelihood.getDistribution()));
+            } else {
+                unsupported.add(prior.getValue().getId());
+            }
+        }
+
+        List<Replicate> replicates =
+                new ArrayList<>();
+
+        for (Likelihood observation : beastState.likelihoodDistributions) {
+            if (!(observation instanceof DistributionLikelihood likelihood)) {
+                unsupported.add(observation.getId());
+                continue;
+            }
+
+            for (Attribute<double[]> data : likelihood.getDataList()) {
+                replicates.add(new Replicate(
+                        data.getAttributeName(),
+                        data.getAttributeValue().length,
+                        likelihood.getDistribution()
+                ));
+            }
+        }
+
+        if (!unsupported.isEmpty()) {
+            Collections.sort(unsupported);
+
+            throw new IllegalArgumentException(
+                    "Forward simulation is a preview that supports univariate-prior models only: every parameter"
+                            + " needs a univariate prior and every observation a univariate distribution. The model"
+                            + " also contains " + String.join(", ", unsupported)
+                            + ", which would need tree or sequence simulation; run an MCMC chain instead."
+            );
+        }
+
+        // sort by id first so the order does not depend on hashing
+        draws.sort(Comparator.comparing(Draw::id));
+
+        this.draws = orderByDependencies(draws, beastState);
+        this.replicates = List.copyOf(replicates);
+
+        this.parameterColumns = new ArrayList<>();
+        this.replicateColumns = new ArrayList<>();
+
+        for (Draw draw : this.draws) {
+            for (LogColumn column : draw.parameter().getColumns()) {
+                this.parameterColumns.add(column.getLabel());
+            }
+        }
+
+        for (Replicate replicate : this.replicates) {
+            for (int i = 0; i < replicate.dimension(); i++) {
+                this.replicateColumns.add(
+                        replicate.dimension() == 1
+                                ? replicate.id() + ".rep"
+                                : replicate.id() + ".rep" + (i + 1)
+                );
+            }
+        }
+    }
+
+    /**
+     * Returns the labels of the parameter columns, as the parameters are
+     * logged by a chain.
+     */
+    List<String> parameterColumns() {
+        return List.copyOf(this.parameterColumns);
+    }
+
+    List<String> columnNames() {
+        List<String> columns =
+                new ArrayList<>(this.parameterColumns);
+
+        columns.addAll(this.replicateColumns);
+
+        return columns;
+    }
+
+    /**
+     * Draws samples of a block, from the priors or, when posterior samples are
+     * given, from the observation distributions at posterior samples
+     * {@code first} to {@code first + count - 1}.
+     */
+    double[][] drawBlock(
+            long seed,
+            long first,
+            int count,
+            double[][] posterior
+    ) {
+        SplittableRandom random =
+                new SplittableRandom(seed);
+
+        double[][] rows =
+                new double[count][this.parameterColumns.size() + this.replicateColumns.size()];
+
+        for (int i = 0; i < count; i++) {
+            if (posterior == null) {
+                drawParameters(random);
+            } else {
+                setParameters(posterior[Math.toIntExact(first + i)]);
+            }
+
+            int column = 0;
+
+            for (Draw draw : this.draws) {
+                for (int j = 0; j < draw.parameter().getDimension(); j++) {
+                    rows[i][column++] = draw.parameter().getParameterValue(j);
+                }
+            }
+
+            for (Replicate replicate : this.replicates) {
+                for (int j = 0; j < replicate.dimension(); j++) {
+                    rows[i][column++] = quantile(replicate.id(), replicate.distribution(), random);
+                }
+            }
+        }
+
+        return rows;
+    }
+
+    private void drawParameters(SplittableRandom random) {
+        for (Draw draw : this.draws) {
+            for (int j = 0; j < draw.parameter().getDimension(); j++) {
+                draw.parameter().setParameterValue(j, quantile(draw.id(), draw.distribution(), random));
+            }
+        }
+    }
+
+    private void setParameters(double[] values) {
+        int column = 0;
+
+        for (Draw draw : this.draws) {
+            for (int j = 0; j < draw.parameter().getDimension(); j++) {
+                draw.parameter().setParameterValue(j, values[column++]);
+            }
+        }
+    }
+
+    private static double quantile(
+            String id,
+            Distribution distribution,
+            SplittableRandom random
+    ) {
+        double probability;
+
+        do {
+            probability = random.nextDouble();
+        } while (probability == 0.0);
+
+        double value;
+
+        try {
+            value = distribution.quantile(probability);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not draw '" + id + "' from its distribution.", e);
+        }
+
+        if (Double.isNaN(value)) {
+            throw new IllegalStateException("Could not draw '" + id + "' from its distribution.");
+        }
+
+        return value;
+    }
+
+    // Orders the draws so that every prior only depends on parameters drawn before it.
+    private static List<Draw> orderByDependencies(List<Draw> draws, BeastXState beastState) {
+        Map<Variable<?>, Draw> drawsByParameter =
+                new IdentityHashMap<>();
+
+        for (Draw draw : draws) {
+            drawsByParameter.put(draw.parameter(), draw);
+        }
+
+        Map<Draw, List<Draw>> dependents =
+                new IdentityHashMap<>();
+
+        Map<Draw, Integer> dependencyCounts =
+                new IdentityHashMap<>();
+
+        for (Draw draw : draws) {
+            dependents.put(draw, new ArrayList<>());
+            dependencyCounts.put(draw, 0);
+        }
+
+        for (Draw draw : draws) {
+            Set<Variable<?>> variables =
+                    Collections.newSetFromMap(new IdentityHashMap<>());
+
+            collectVariables(
+                    beastState.priorDistributions.get(draw.parameter()),
+                    variables,
+                    Collections.newSetFromMap(new IdentityHashMap<>())
+            );
+
+            for (Variable<?> variable : variables) {
+                Draw dependency =
+                        drawsByParameter.get(variable);
+
+                if (dependency != null && dependency != draw) {
+                    dependents.get(dependency).add(draw);
+                    dependencyCounts.merge(draw, 1, Integer::sum);
+                }
+            }
+        }
+
+        Deque<Draw> ready =
+                new ArrayDeque<>();
+
+        for (Draw draw : draws) {
+            if (dependencyCounts.get(draw) == 0) {
+                ready.add(draw);
+            }
+        }
+
+        List<Draw> ordered =
+                new ArrayList<>(draws.size());
+
+        while (!ready.isEmpty()) {
+            Draw draw =
+                    ready.poll();
+
+            ordered.add(draw);
+
+            for (Draw dependent : dependents.get(draw)) {
+                if (dependencyCounts.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (ordered.size() != draws.size()) {
+            throw new IllegalArgumentException("The priors of the model depend on each other in a cycle.");
+        }
+
+        return List.copyOf(ordered);
+    }
+
+    private static void collectVariables(
+            Model model,
+            Set<Variable<?>> variables,
+            Set<Model> visited
+    ) {
+        if (!visited.add(model)) {
+            return;
+        }
+
+        for (int i = 0; i < model.getVariableCount(); i++) {
+            variables.add(model.getVariable(i));
+        }
+
+        for (int i = 0; i < model.getModelCount(); i++) {
+            collectVariables(model.getModel(i), variables, visited);
+        }
+    }
+}
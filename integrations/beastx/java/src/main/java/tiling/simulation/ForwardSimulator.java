@@ -0,0 +1,216 @@
+package tiling.simulation;
+
+import tiling.BeastXState;
+import tiling.summary.OnlineTraceSummary;
+import tiling.trace.BinaryTraceReader;
+import tiling.trace.BinaryTraceWriter;
+import tiling.trace.TraceBlock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Draws independent joint samples from the generative model instead of
+ * running a chain, for prior and posterior predictive checks and
+ * simulation-based calibration.
+ *
+ * <p>This is a preview limited to scalar models. Every parameter must have a
+ * univariate prior and every observation a univariate distribution; models
+ * with trees, calibrations, multivariate priors or sequence likelihoods are
+ * rejected before any sample is drawn, as they would need the tree and
+ * sequence simulators of BEAST X, which are not wired in.</p>
+ *
+ * <p>Samples are drawn in blocks of {@value #BLOCK_SIZE} on a pool of worker
+ * threads. Every worker builds its own {@link BeastXState} from the state
+ * factory, usually a compiled model, and every block draws from its own
+ * random stream split off the seed, so the samples do not depend on the
+ * number of workers. Blocks are written to a binary trace in order, and
+ * summarized while they are written.</p>
+ */
+public final class ForwardSimulator {
+
+    static final int BLOCK_SIZE = 256;
+
+    private final Supplier<BeastXState> stateFactory;
+
+    public ForwardSimulator(Supplier<BeastXState> stateFactory) {
+        if (stateFactory == null) {
+            throw new IllegalArgumentException("stateFactory must not be null.");
+        }
+
+        this.stateFactory = stateFactory;
+    }
+
+    public SimulationResult simulate(SimulationOptions options) throws IOException {
+        if (options == null) {
+            throw new IllegalArgumentException("options must not be null.");
+        }
+
+        // fails fast on models the simulator does not support
+        ForwardSampler sampler =
+                new ForwardSampler(this.stateFactory.get());
+
+        List<String> columnNames =
+                sampler.columnNames();
+
+        double[][] posterior =
+                options.posteriorPredictive()
+                        ? readPosterior(options, sampler.parameterColumns())
+                        : null;
+
+        long sampleCount =
+                posterior != null
+                        ? Math.min(options.sampleCount(), posterior.length)
+                        : options.sampleCount();
+
+        int blockCount =
+                Math.toIntExact((sampleCount + BLOCK_SIZE - 1) / BLOCK_SIZE);
+
+        SplittableRandom seeds =
+                new SplittableRandom(options.seed());
+
+        OnlineTraceSummary summary =
+                new OnlineTraceSummary(columnNames, 0);
+
+        ThreadLocal<ForwardSampler> samplers =
+                ThreadLocal.withInitial(() -> new ForwardSampler(this.stateFactory.get()));
+
+        AtomicInteger workerIndex =
+                new AtomicInteger();
+
+        if (options.tracePath().getParent() != null) {
+            Files.createDirectories(options.tracePath().getParent());
+        }
+
+        try (
+                ExecutorService workers = Executors.newFixedThreadPool(
+                        options.workerCount(),
+                        task -> Thread.ofPlatform()
+                                .name("forward-simulation-" + workerIndex.incrementAndGet())
+                                .daemon(true)
+                                .unstarted(task)
+                );
+                BinaryTraceWriter writer = new BinaryTraceWriter(
+                        options.tracePath(),
+                        columnNames,
+                        false,
+                        BinaryTraceWriter.DEFAULT_BLOCK_SIZE
+                )
+        ) {
+            List<Future<double[][]>> blocks =
+                    new ArrayList<>(blockCount);
+
+            for (int block = 0; block < blockCount; block++) {
+                long seed =
+                        seeds.nextLong();
+
+                long first =
+                        (long) block * BLOCK_SIZE;
+
+                int count =
+                        (int) Math.min(BLOCK_SIZE, sampleCount - first);
+
+                blocks.add(workers.submit(() -> samplers.get().drawBlock(seed, first, count, posterior)));
+            }
+
+            try {
+                long sample = 0;
+
+                for (Future<double[][]> block : blocks) {
+                    for (double[] row : await(block)) {
+                        writer.write(sample, row);
+                        summary.add(sample, row);
+                        sample++;
+                    }
+                }
+            } finally {
+                for (Future<double[][]> block : blocks) {
+                    block.cancel(true);
+                }
+            }
+        }
+
+        return new SimulationResult(
+                options.tracePath(),
+                sampleCount,
+                columnNames,
+                summary
+        );
+    }
+
+    // Reads the parameter columns of the posterior samples after the burn-in, in the sampler's column order.
+    private static double[][] readPosterior(
+            SimulationOptions options,
+            List<String> parameterColumns
+    ) throws IOException {
+        List<double[]> rows =
+                new ArrayList<>();
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(options.posteriorTrace())) {
+            int[] traceColumns =
+                    new int[parameterColumns.size()];
+
+            for (int i = 0; i < traceColumns.length; i++) {
+                traceColumns[i] = reader.columnNames().indexOf(parameterColumns.get(i));
+
+                if (traceColumns[i] < 0) {
+                    throw new IllegalArgumentException(
+                            "Posterior trace '" + options.posteriorTrace() + "' has no column '"
+                                    + parameterColumns.get(i) + "'."
+                    );
+                }
+            }
+
+            TraceBlock block;
+
+            while ((block = reader.nextBlock()) != null) {
+                for (int row = 0; row < block.rowCount(); row++) {
+                    double[] values =
+                            new double[traceColumns.length];
+
+                    for (int i = 0; i < traceColumns.length; i++) {
+                        values[i] = block.columns()[traceColumns[i]][row];
+                    }
+
+                    rows.add(values);
+                }
+            }
+        }
+
+        int burnIn =
+                (int) (rows.size() * options.posteriorBurnInFraction());
+
+        if (burnIn >= rows.size()) {
+            throw new IllegalArgumentException(
+                    "Posterior trace '" + options.posteriorTrace() + "' has no samples after the burn-in."
+            );
+        }
+
+        return rows.subList(burnIn, rows.size()).toArray(new double[0][]);
+    }
+
+    private static double[][] await(Future<double[][]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while simulating.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+
+            throw new IllegalStateException("Could not simulate from the model.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package tiling.simulation;
+
+import java.nio.file.Path;
+
+/**
+ * Options of a forward simulation of a univariate-prior model, see
+ * {@link ForwardSimulator}.
+ *
+ * <p>Without a posterior trace, the simulation draws {@code sampleCount}
+ * joint samples of the parameters from their priors, together with
+ * replicated observations (prior predictive). With a binary posterior trace,
+ * it sets the parameters to each posterior sample after the burn-in, up to
+ * {@code sampleCount} of them, and draws replicated observations from the
+ * observation distributions (posterior predictive).</p>
+ *
+ * @param tracePath binary trace the samples are written to
+ * @param seed      seed of the simulation; runs with the same seed and
+ *                  options write the same samples for any worker count
+ */
+public record SimulationOptions(
+        long sampleCount,
+        int workerCount,
+        long seed,
+        Path tracePath,
+        Path posteriorTrace,
+        double posteriorBurnInFraction
+) {
+
+    public SimulationOptions {
+        if (sampleCount <= 0) {
+            throw new IllegalArgumentException("sampleCount must be positive.");
+        }
+
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive.");
+        }
+
+        if (tracePath == null) {
+            throw new IllegalArgumentException("tracePath must not be null.");
+        }
+
+        if (!(posteriorBurnInFraction >= 0.0 && posteriorBurnInFraction < 1.0)) {
+            throw new IllegalArgumentException("posteriorBurnInFraction must be in [0, 1).");
+        }
+    }
+
+    public boolean posteriorPredictive() {
+        return this.posteriorTrace != null;
+    }
+
+    public static Builder builder(Path tracePath) {
+        return new Builder(tracePath);
+    }
+
+    public static class Builder {
+        private final Path tracePath;
+        private long sampleCount = 1_000;
+        private int workerCount = Runtime.getRuntime().availableProcessors();
+        private long seed = System.nanoTime();
+        private Path posteriorTrace;
+        private double posteriorBurnInFraction = 0.1;
+
+        private Builder(Path tracePath) {
+            this.tracePath = tracePath;
+        }
+
+        public Builder sampleCount(long sampleCount) {
+            this.sampleCount = sampleCount;
+            return this;
+        }
+
+        public Builder workerCount(int workerCount) {
+            this.workerCount = workerCount;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Simulates from the posterior samples in this binary trace instead of
+         * from the priors.
+         */
+        public Builder posteriorTrace(Path posteriorTrace) {
+            this.posteriorTrace = posteriorTrace;
+            return this;
+        }
+
+        public Builder posteriorBurnInFraction(double posteriorBurnInFraction) {
+            this.posteriorBurnInFraction = posteriorBurnInFraction;
+            return this;
+        }
+
+        public SimulationOptions build() {
+            return new SimulationOptions(
+                    this.sampleCount,
+                    this.workerCount,
+                    this.seed,
+                    this.tracePath,
+                    this.posteriorTrace,
+                    this.posteriorBurnInFraction
+            );
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package tiling.simulation;
+
+import tiling.summary.OnlineTraceSummary;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Samples written by a forward simulation, with their summary.
+ *
+ * @param columnNames parameter columns followed by replicated observation
+ *                    columns, as in the trace
+ */
+public record SimulationResult(
+        Path tracePath,
+        long sampleCount,
+        List<String> columnNames,
+        OnlineTraceSummary summary
+) {
+
+    public SimulationResult {
+        if (tracePath == null) {
+            throw new IllegalArgumentException("tracePath must not be null.");
+        }
+
+        if (columnNames == null) {
+            throw new IllegalArgumentException("columnNames must not be null.");
+        }
+
+        if (summary == null) {
+            throw new IllegalArgumentException("summary must not be null.");
+        }
+
+        columnNames = List.copyOf(columnNames);
+    }
+}
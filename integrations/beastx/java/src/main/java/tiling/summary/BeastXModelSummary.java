@@ -5,12 +5,14 @@ import dr.inference.distribution.AbstractDistributionLikelihood;
 import dr.inference.model.AbstractModelLikelihood;
 import dr.inference.model.Likelihood;
 import dr.inference.model.Parameter;
+import dr.inference.mcmc.MCMC;
 import dr.inference.model.Statistic;
 import dr.inference.operators.MCMCOperator;
 import org.phylospec.tiling.TypeToken;
 
 import tiling.BeastXModel;
 import tiling.BeastXState;
+import tiling.operators.AdaptiveOperatorSchedule;
 import tiling.operators.OperatorBuilder;
 
 import java.util.ArrayList;
@@ -34,6 +36,7 @@ public class BeastXModelSummary {
     public final List<String> likelihoods;
     public final List<String> operators;
     public final List<String> operatorDetails;
+    public final List<String> adaptedOperatorWeights;
 
     public final long chainLength;
     public final List<String> screenLoggers;
@@ -52,6 +55,7 @@ public class BeastXModelSummary {
             List<String> likelihoods,
             List<String> operators,
             List<String> operatorDetails,
+            List<String> adaptedOperatorWeights,
             long chainLength,
             List<String> screenLoggers,
             List<String> fileLoggers,
@@ -68,6 +72,7 @@ public class BeastXModelSummary {
         this.likelihoods = likelihoods;
         this.operators = operators;
         this.operatorDetails = operatorDetails;
+        this.adaptedOperatorWeights = adaptedOperatorWeights;
         this.chainLength = chainLength;
         this.screenLoggers = screenLoggers;
         this.fileLoggers = fileLoggers;
@@ -75,6 +80,14 @@ public class BeastXModelSummary {
     }
 
     public static BeastXModelSummary from(BeastXModel model) {
+        return from(model, null);
+    }
+
+    /**
+     * Creates a summary that also reports the operator weights chosen by the
+     * adaptive operator schedule of {@code mcmc}, typically after it has run.
+     */
+    public static BeastXModelSummary from(BeastXModel model, MCMC mcmc) {
         List<String> stateNodes = new ArrayList<>();
         List<String> stateNodeTypes = new ArrayList<>();
 
@@ -143,6 +156,11 @@ public class BeastXModelSummary {
         List<String> operatorDetails =
                 operatorBuilder.summarize(model.beastState);
 
+        List<String> adaptedOperatorWeights =
+                mcmc != null && mcmc.getOperatorSchedule() instanceof AdaptiveOperatorSchedule schedule
+                        ? schedule.describeWeights()
+                        : List.of();
+
         List<String> screenLoggers = new ArrayList<>();
 
         for (BeastXState.ScreenLoggerSpec spec : model.beastState.screenLoggerSpecs) {
@@ -190,6 +208,7 @@ public class BeastXModelSummary {
                 sorted(likelihoods),
                 sorted(operators),
                 sorted(operatorDetails),
+                sorted(adaptedOperatorWeights),
                 model.beastState.chainLength,
                 sorted(screenLoggers),
                 sorted(fileLoggers),
@@ -211,6 +230,7 @@ public class BeastXModelSummary {
                 likelihoods: %s
                 operators: %s
                 operator details: %s
+                adapted operator weights: %s
                 chain length: %d
                 screen loggers: %s
                 file loggers: %s
@@ -228,6 +248,7 @@ public class BeastXModelSummary {
                 this.likelihoods,
                 this.operators,
                 this.operatorDetails,
+                this.adaptedOperatorWeights,
                 this.chainLength,
                 this.screenLoggers,
                 this.fileLoggers,
@@ -0,0 +1,178 @@
+package tiling.summary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Posterior summaries of the traced columns of a chain, updated as states
+ * are logged so a run can report convergence without re-reading its log.
+ *
+ * <p>Memory does not grow with the chain: each column keeps running moments,
+ * a bounded set of batch means and a quantile sketch, see
+ * {@link StreamingStatistics}. States before the burn-in are not
+ * summarized.</p>
+ */
+public final class OnlineTraceSummary {
+
+    public static final double HPD_MASS = 0.95;
+
+    private final List<String> columnNames;
+    private final long burnIn;
+    private final StreamingStatistics[] statistics;
+
+    private long lastState = -1;
+
+    public OnlineTraceSummary(List<String> columnNames, long burnIn) {
+        if (columnNames == null) {
+            throw new IllegalArgumentException("columnNames must not be null.");
+        }
+
+        if (burnIn < 0) {
+            throw new IllegalArgumentException("burnIn must be non-negative.");
+        }
+
+        this.columnNames = List.copyOf(columnNames);
+        this.burnIn = burnIn;
+        this.statistics = new StreamingStatistics[this.columnNames.size()];
+
+        for (int i = 0; i < this.statistics.length; i++) {
+            this.statistics[i] = new StreamingStatistics();
+        }
+    }
+
+    public List<String> columnNames() {
+        return this.columnNames;
+    }
+
+    public long burnIn() {
+        return this.burnIn;
+    }
+
+    /**
+     * Adds the values of all columns logged at a state.
+     */
+    public synchronized void add(long state, double[] values) {
+        if (values.length != this.statistics.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + this.statistics.length + " values but got " + values.length + "."
+            );
+        }
+
+        this.lastState = state;
+
+        if (state < this.burnIn) {
+            return;
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            this.statistics[i].add(values[i]);
+        }
+    }
+
+    /**
+     * Returns the last state added, or {@code -1} before the first.
+     */
+    public synchronized long lastState() {
+        return this.lastState;
+    }
+
+    public synchronized List<ParameterSummary> summaries() {
+        List<ParameterSummary> summaries =
+                new ArrayList<>(this.statistics.length);
+
+        for (int i = 0; i < this.statistics.length; i++) {
+            summaries.add(summarize(this.columnNames.get(i), this.statistics[i]));
+        }
+
+        return List.copyOf(summaries);
+    }
+
+    public synchronized ParameterSummary summary(String columnName) {
+        int index =
+                this.columnNames.indexOf(columnName);
+
+        if (index < 0) {
+            throw new IllegalArgumentException("No traced column named '" + columnName + "' exists.");
+        }
+
+        return summarize(columnName, this.statistics[index]);
+    }
+
+    /**
+     * Returns the smallest effective sample size over all columns, or
+     * {@code NaN} while any column has too few samples for an estimate.
+     * Constant columns, such as fixed parameters, are not counted.
+     */
+    public synchronized double minimumEffectiveSampleSize() {
+        double minimum = Double.POSITIVE_INFINITY;
+
+        for (StreamingStatistics column : this.statistics) {
+            if (column.count() >= 2 && column.variance() == 0) {
+                continue;
+            }
+
+            double ess =
+                    column.effectiveSampleSize();
+
+            if (Double.isNaN(ess)) {
+                return Double.NaN;
+            }
+
+            minimum = Math.min(minimum, ess);
+        }
+
+        return minimum;
+    }
+
+    public String toReportString(String title) {
+        StringBuilder report =
+                new StringBuilder();
+
+        int nameWidth =
+                this.columnNames.stream()
+                        .mapToInt(String::length)
+                        .max()
+                        .orElse(0);
+
+        nameWidth = Math.max(nameWidth, "parameter".length());
+
+        report.append(title).append('\n');
+        report.append(
+                ("%-" + nameWidth + "s  %12s  %12s  %8s  %12s  %27s%n").formatted(
+                        "parameter", "mean", "sd", "ESS", "median", "95% HPD"
+                )
+        );
+
+        for (ParameterSummary summary : this.summaries()) {
+            report.append(
+                    ("%-" + nameWidth + "s  %12.6g  %12.6g  %8.1f  %12.6g  [%12.6g, %12.6g]%n").formatted(
+                            summary.name(),
+                            summary.mean(),
+                            summary.standardDeviation(),
+                            summary.effectiveSampleSize(),
+                            summary.median(),
+                            summary.hpdLower(),
+                            summary.hpdUpper()
+                    )
+            );
+        }
+
+        return report.toString();
+    }
+
+    private static ParameterSummary summarize(String name, StreamingStatistics statistics) {
+        double[] hpd =
+                statistics.highestDensityInterval(HPD_MASS);
+
+        return new ParameterSummary(
+                name,
+                statistics.count(),
+                statistics.mean(),
+                Math.sqrt(statistics.variance()),
+                statistics.effectiveSampleSize(),
+                statistics.quantile(0.5),
+                hpd[0],
+                hpd[1]
+        );
+    }
+}
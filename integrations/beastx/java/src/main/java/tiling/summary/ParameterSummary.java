@@ -0,0 +1,29 @@
+package tiling.summary;
+
+/**
+ * Posterior summary of one traced value.
+ *
+ * @param effectiveSampleSize batch-means estimate, {@code NaN} while too few
+ *                            samples were seen
+ * @param hpdLower            lower bound of the 95% highest posterior density
+ *                            interval
+ * @param hpdUpper            upper bound of the 95% highest posterior density
+ *                            interval
+ */
+public record ParameterSummary(
+        String name,
+        long sampleCount,
+        double mean,
+        double standardDeviation,
+        double effectiveSampleSize,
+        double median,
+        double hpdLower,
+        double hpdUpper
+) {
+
+    public ParameterSummary {
+        if (name == null) {
+            throw new IllegalArgumentException("name must not be null.");
+        }
+    }
+}
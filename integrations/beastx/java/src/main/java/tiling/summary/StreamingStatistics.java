@@ -0,0 +1,173 @@
+package tiling.summary;
+
+/**
+ * Summary statistics of one traced value, updated sample by sample in
+ * constant memory.
+ *
+ * <p>Mean and variance use Welford's update. The effective sample size is
+ * estimated by batch means over at most {@link #MAX_BATCHES} batches: when
+ * they are all full, neighbouring batches are merged and the batch length
+ * doubles, so batches stay long enough to absorb the autocorrelation of the
+ * chain. Quantiles and the highest posterior density interval come from a
+ * {@link TDigest}.</p>
+ */
+final class StreamingStatistics {
+
+    static final int MAX_BATCHES = 64;
+
+    static final int MIN_BATCHES = 8;
+
+    private static final double DIGEST_COMPRESSION = 100;
+
+    private static final int HPD_STEPS = 100;
+
+    private long count;
+    private double mean;
+    private double sumOfSquares;
+
+    private final double[] batchSums =
+            new double[MAX_BATCHES];
+
+    private int batchCount;
+    private long batchLength = 1;
+    private double currentBatchSum;
+    private long currentBatchCount;
+
+    private final TDigest digest =
+            new TDigest(DIGEST_COMPRESSION);
+
+    void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        this.count++;
+
+        double delta =
+                value - this.mean;
+
+        this.mean += delta / this.count;
+        this.sumOfSquares += delta * (value - this.mean);
+
+        this.currentBatchSum += value;
+        this.currentBatchCount++;
+
+        if (this.currentBatchCount == this.batchLength) {
+            this.completeBatch();
+        }
+
+        this.digest.add(value);
+    }
+
+    long count() {
+        return this.count;
+    }
+
+    double mean() {
+        return this.count == 0 ? Double.NaN : this.mean;
+    }
+
+    double variance() {
+        return this.count < 2 ? Double.NaN : this.sumOfSquares / (this.count - 1);
+    }
+
+    /**
+     * Returns the batch-means estimate of the effective sample size, or
+     * {@code NaN} while there are fewer than {@link #MIN_BATCHES} batches.
+     */
+    double effectiveSampleSize() {
+        if (this.batchCount < MIN_BATCHES) {
+            return Double.NaN;
+        }
+
+        double variance =
+                this.variance();
+
+        if (!(variance > 0)) {
+            return Double.NaN;
+        }
+
+        double batchMean = 0;
+
+        for (int i = 0; i < this.batchCount; i++) {
+            batchMean += this.batchSums[i] / this.batchLength;
+        }
+
+        batchMean /= this.batchCount;
+
+        double batchVariance = 0;
+
+        for (int i = 0; i < this.batchCount; i++) {
+            double deviation =
+                    this.batchSums[i] / this.batchLength - batchMean;
+
+            batchVariance += deviation * deviation;
+        }
+
+        batchVariance /= this.batchCount - 1;
+
+        long batchedSamples =
+                this.batchCount * this.batchLength;
+
+        if (batchVariance == 0) {
+            return batchedSamples;
+        }
+
+        double ess =
+                batchedSamples * variance / (this.batchLength * batchVariance);
+
+        return Math.min(ess, batchedSamples);
+    }
+
+    double quantile(double q) {
+        return this.digest.quantile(q);
+    }
+
+    /**
+     * Returns the narrowest interval between approximate quantiles that holds
+     * {@code mass} of the samples, as {@code {lower, upper}}.
+     */
+    double[] highestDensityInterval(double mass) {
+        if (this.count == 0) {
+            return new double[]{Double.NaN, Double.NaN};
+        }
+
+        double bestLower = Double.NaN;
+        double bestUpper = Double.NaN;
+        double bestWidth = Double.POSITIVE_INFINITY;
+
+        for (int step = 0; step <= HPD_STEPS; step++) {
+            double lowerQuantile =
+                    (1 - mass) * step / HPD_STEPS;
+
+            double lower =
+                    this.digest.quantile(lowerQuantile);
+
+            double upper =
+                    this.digest.quantile(lowerQuantile + mass);
+
+            if (upper - lower < bestWidth) {
+                bestWidth = upper - lower;
+                bestLower = lower;
+                bestUpper = upper;
+            }
+        }
+
+        return new double[]{bestLower, bestUpper};
+    }
+
+    private void completeBatch() {
+        this.batchSums[this.batchCount++] = this.currentBatchSum;
+        this.currentBatchSum = 0;
+        this.currentBatchCount = 0;
+
+        if (this.batchCount == MAX_BATCHES) {
+            for (int i = 0; i < MAX_BATCHES / 2; i++) {
+                this.batchSums[i] = this.batchSums[2 * i] + this.batchSums[2 * i + 1];
+            }
+
+            this.batchCount = MAX_BATCHES / 2;
+            this.batchLength *= 2;
+        }
+    }
+}
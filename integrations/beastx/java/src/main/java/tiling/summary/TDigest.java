@@ -0,0 +1,192 @@
+package tiling.summary;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest: a quantile sketch whose size is bounded by its
+ * compression, with centroids that are small near the tails, where quantiles
+ * such as the bounds of a 95% interval are read, and large near the median.
+ */
+final class TDigest {
+
+    private final double compression;
+
+    private double[] means;
+    private double[] weights;
+    private int centroidCount;
+
+    private final double[] buffer;
+    private int bufferCount;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("compression must be at least 10.");
+        }
+
+        this.compression = compression;
+
+        int capacity =
+                (int) Math.ceil(compression) + 1;
+
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.buffer = new double[5 * capacity];
+    }
+
+    void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        this.buffer[this.bufferCount++] = value;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+
+        if (this.bufferCount == this.buffer.length) {
+            this.merge();
+        }
+    }
+
+    /**
+     * Returns the approximate {@code q}-quantile, or {@code NaN} if nothing
+     * was added.
+     */
+    double quantile(double q) {
+        this.merge();
+
+        if (this.centroidCount == 0) {
+            return Double.NaN;
+        }
+
+        if (this.centroidCount == 1 || q <= 0) {
+            return q <= 0 ? this.min : this.means[0];
+        }
+
+        if (q >= 1) {
+            return this.max;
+        }
+
+        double target =
+                q * this.totalWeight;
+
+        double firstCenter =
+                this.weights[0] / 2;
+
+        if (target < firstCenter) {
+            return this.min + (this.means[0] - this.min) * target / firstCenter;
+        }
+
+        double cumulative = 0;
+
+        for (int i = 0; i < this.centroidCount - 1; i++) {
+            double center =
+                    cumulative + this.weights[i] / 2;
+
+            double nextCenter =
+                    cumulative + this.weights[i] + this.weights[i + 1] / 2;
+
+            if (target <= nextCenter) {
+                double fraction =
+                        (target - center) / (nextCenter - center);
+
+                return this.means[i] + fraction * (this.means[i + 1] - this.means[i]);
+            }
+
+            cumulative += this.weights[i];
+        }
+
+        int last =
+                this.centroidCount - 1;
+
+        double lastCenter =
+                this.totalWeight - this.weights[last] / 2;
+
+        double fraction =
+                (target - lastCenter) / (this.totalWeight - lastCenter);
+
+        return this.means[last] + fraction * (this.max - this.means[last]);
+    }
+
+    // Merges the buffered values into the centroids, keeping each centroid within its k-scale limit.
+    private void merge() {
+        if (this.bufferCount == 0) {
+            return;
+        }
+
+        Arrays.sort(this.buffer, 0, this.bufferCount);
+
+        int count =
+                this.centroidCount + this.bufferCount;
+
+        double[] sortedMeans =
+                new double[count];
+
+        double[] sortedWeights =
+                new double[count];
+
+        for (int i = 0, c = 0, b = 0; i < count; i++) {
+            if (b == this.bufferCount || (c < this.centroidCount && this.means[c] <= this.buffer[b])) {
+                sortedMeans[i] = this.means[c];
+                sortedWeights[i] = this.weights[c];
+                c++;
+            } else {
+                sortedMeans[i] = this.buffer[b];
+                sortedWeights[i] = 1;
+                b++;
+            }
+        }
+
+        this.totalWeight += this.bufferCount;
+        this.bufferCount = 0;
+
+        double mergedWeight = 0;
+        double limit =
+                this.totalWeight * this.quantileOf(this.scaleOf(0) + 1);
+
+        int merged = 0;
+        double mean = sortedMeans[0];
+        double weight = sortedWeights[0];
+
+        for (int i = 1; i < count; i++) {
+            if (mergedWeight + weight + sortedWeights[i] <= limit) {
+                weight += sortedWeights[i];
+                mean += (sortedMeans[i] - mean) * sortedWeights[i] / weight;
+            } else {
+                merged = this.emit(merged, mean, weight);
+                mergedWeight += weight;
+                limit = this.totalWeight * this.quantileOf(this.scaleOf(mergedWeight / this.totalWeight) + 1);
+                mean = sortedMeans[i];
+                weight = sortedWeights[i];
+            }
+        }
+
+        this.centroidCount = this.emit(merged, mean, weight);
+    }
+
+    private int emit(int index, double mean, double weight) {
+        if (index == this.means.length) {
+            this.means = Arrays.copyOf(this.means, 2 * index);
+            this.weights = Arrays.copyOf(this.weights, 2 * index);
+        }
+
+        this.means[index] = mean;
+        this.weights[index] = weight;
+
+        return index + 1;
+    }
+
+    private double scaleOf(double q) {
+        return this.compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private double quantileOf(double k) {
+        double angle =
+                Math.min(Math.PI / 2, 2 * Math.PI * k / this.compression);
+
+        return (Math.sin(angle) + 1) / 2;
+    }
+}
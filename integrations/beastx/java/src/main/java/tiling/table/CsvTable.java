@@ -0,0 +1,836 @@
+package tiling.table;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * A delimited text table, such as a trait or date table, held column by
+ * column.
+ *
+ * <p>The UTF-8 bytes of the file are split into cells in a single pass,
+ * honouring quoted fields, which may hold delimiters, line breaks and
+ * doubled quotes, and only the positions of the cells are kept. Every column
+ * is then stored as {@code long}s if all its cells are integers, as
+ * {@code double}s if all are decimals, and as strings otherwise, with
+ * repeated strings shared. A numeric column is only chosen if converting the
+ * numbers back gives the text of every cell, so {@link #rows()} returns
+ * exactly the text of the file; that text is built once per cell, when it is
+ * first read. Large tables are converted in chunks of at least
+ * {@link #MINIMUM_CHUNK_RECORDS} records in parallel.</p>
+ *
+ * <p>The whole file is held in memory while it is parsed, as it is read or
+ * prefetched in one piece; it is not streamed.</p>
+ *
+ * <p>Unquoted cells are trimmed, blank lines are skipped, and when the same
+ * header names several columns the row maps hold the last one.</p>
+ */
+public final class CsvTable {
+
+    public static final int MINIMUM_CHUNK_RECORDS = 4096;
+
+    // column kinds, ordered so that mixed kinds fall back to strings
+    private static final int UNSEEN = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int STRING = 3;
+
+    private static final byte QUOTED = 1;
+    private static final byte ESCAPED = 2;
+
+    // 18 digits always fit in a long
+    private static final int MAXIMUM_LONG_DIGITS = 18;
+
+    /**
+     * The cells of one column.
+     */
+    public sealed interface Column permits LongColumn, DoubleColumn, StringColumn {
+
+        int size();
+
+        /**
+         * Returns the cell as it was written in the file.
+         */
+        String text(int row);
+    }
+
+    public static final class LongColumn implements Column {
+
+        private final long[] values;
+        private final String[] texts;
+
+        private LongColumn(int size) {
+            this.values = new long[size];
+            this.texts = new String[size];
+        }
+
+        public long[] values() {
+            return this.values;
+        }
+
+        @Override
+        public int size() {
+            return this.values.length;
+        }
+
+        @Override
+        public String text(int row) {
+            String text =
+                    this.texts[row];
+
+            // threads reading the same cell at once build equal strings
+            if (text == null) {
+                text = Long.toString(this.values[row]);
+                this.texts[row] = text;
+            }
+
+            return text;
+        }
+    }
+
+    public static final class DoubleColumn implements Column {
+
+        private final double[] values;
+        private final String[] texts;
+
+        private DoubleColumn(int size) {
+            this.values = new double[size];
+            this.texts = new String[size];
+        }
+
+        public double[] values() {
+            return this.values;
+        }
+
+        @Override
+        public int size() {
+            return this.values.length;
+        }
+
+        @Override
+        public String text(int row) {
+            String text =
+                    this.texts[row];
+
+            // threads reading the same cell at once build equal strings
+            if (text == null) {
+                text = Double.toString(this.values[row]);
+                this.texts[row] = text;
+            }
+
+            return text;
+        }
+    }
+
+    public static final class StringColumn implements Column {
+
+        private final String[] values;
+
+        private StringColumn(int size) {
+            this.values = new String[size];
+        }
+
+        public String[] values() {
+            return this.values;
+        }
+
+        @Override
+        public int size() {
+            return this.values.length;
+        }
+
+        @Override
+        public String text(int row) {
+            return this.values[row];
+        }
+    }
+
+    /**
+     * Thrown when a record has more or fewer cells than there are headers.
+     */
+    public static final class ColumnCountException extends IllegalArgumentException {
+
+        private final int line;
+        private final int expectedColumns;
+        private final int foundColumns;
+
+        ColumnCountException(int line, int expectedColumns, int foundColumns) {
+            super("Expected " + expectedColumns + " columns but found " + foundColumns + " on line " + line + ".");
+            this.line = line;
+            this.expectedColumns = expectedColumns;
+            this.foundColumns = foundColumns;
+        }
+
+        public int line() {
+            return this.line;
+        }
+
+        public int expectedColumns() {
+            return this.expectedColumns;
+        }
+
+        public int foundColumns() {
+            return this.foundColumns;
+        }
+    }
+
+    private final List<String> headers;
+    private final Map<String, Integer> columnIndices;
+    private final Column[] columns;
+    private final int rowCount;
+
+    private CsvTable(List<String> headers, Column[] columns, int rowCount) {
+        this.headers = headers;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.columnIndices = new LinkedHashMap<>();
+
+        for (int i = 0; i < headers.size(); i++) {
+            this.columnIndices.put(headers.get(i), i);
+        }
+    }
+
+    /**
+     * Returns whether the content holds nothing but whitespace.
+     */
+    public static boolean isBlank(byte[] content) {
+        for (byte character : content) {
+            if (character < 0 || character > ' ') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Parses UTF-8 content whose cells are separated by {@code delimiter}.
+     *
+     * @param headers the column names, or {@code null} if the first record
+     *                names the columns
+     * @throws ColumnCountException     if a record does not have a cell per
+     *                                  column
+     * @throws IllegalArgumentException if a quoted cell is not closed or is
+     *                                  followed by more text
+     */
+    public static CsvTable parse(byte[] content, String delimiter, List<String> headers) {
+        if (content == null) {
+            throw new IllegalArgumentException("content must not be null.");
+        }
+
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("delimiter must not be empty.");
+        }
+
+        Tokenizer tokenizer =
+                new Tokenizer(content, delimiter.getBytes(StandardCharsets.UTF_8));
+
+        // a byte order mark is not part of the first header
+        int position =
+                content.length >= 3 && content[0] == (byte) 0xEF && content[1] == (byte) 0xBB && content[2] == (byte) 0xBF
+                        ? 3
+                        : 0;
+
+        int line = 1;
+
+        List<String> columnNames =
+                headers == null ? null : List.copyOf(headers);
+
+        Cells cells =
+                new Cells(content);
+
+        int recordCount = 0;
+
+        while (position < content.length) {
+            int recordLine =
+                    line;
+
+            position = tokenizer.read(position, recordLine);
+            line += tokenizer.lineBreaks;
+
+            if (tokenizer.isBlankRecord()) {
+                continue;
+            }
+
+            if (columnNames == null) {
+                columnNames = tokenizer.strings();
+                continue;
+            }
+
+            if (tokenizer.fieldCount != columnNames.size()) {
+                throw new ColumnCountException(recordLine, columnNames.size(), tokenizer.fieldCount);
+            }
+
+            cells.add(tokenizer);
+            recordCount++;
+        }
+
+        if (columnNames == null) {
+            columnNames = List.of();
+        }
+
+        return convert(cells, columnNames, recordCount);
+    }
+
+    public List<String> headers() {
+        return this.headers;
+    }
+
+    public int rowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the column of the given header, or {@code null} if there is
+     * none.
+     */
+    public Column column(String header) {
+        Integer index =
+                this.columnIndices.get(header);
+
+        return index == null ? null : this.columns[index];
+    }
+
+    /**
+     * Returns the cells of a numeric column, such as tip dates or continuous
+     * traits, as {@code double}s.
+     *
+     * @throws IllegalArgumentException if there is no such column or one of
+     *                                  its cells is not a number
+     */
+    public double[] doubles(String header) {
+        return switch (requireColumn(header)) {
+            case LongColumn longs -> Arrays.stream(longs.values()).asDoubleStream().toArray();
+            case DoubleColumn doubles -> doubles.values().clone();
+            case StringColumn strings -> throw new IllegalArgumentException(
+                    "Column '" + header + "' does not hold only numbers."
+            );
+        };
+    }
+
+    /**
+     * Returns the text of every cell of a column, such as taxon names or
+     * discrete traits.
+     *
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public String[] strings(String header) {
+        Column column =
+                requireColumn(header);
+
+        String[] strings =
+                new String[column.size()];
+
+        for (int row = 0; row < strings.length; row++) {
+            strings[row] = column.text(row);
+        }
+
+        return strings;
+    }
+
+    /**
+     * Returns the rows as maps from header to cell text. The maps are read
+     * from the columns, so no map is built per row, and the returned list
+     * gives consumers of the rows the typed columns through
+     * {@link Rows#table()}.
+     */
+    public Rows rows() {
+        return new Rows();
+    }
+
+    private Column requireColumn(String header) {
+        Column column =
+                column(header);
+
+        if (column == null) {
+            throw new IllegalArgumentException("Column '" + header + "' does not exist.");
+        }
+
+        return column;
+    }
+
+    private static CsvTable convert(Cells cells, List<String> columnNames, int recordCount) {
+        int columnCount =
+                columnNames.size();
+
+        int chunkCount =
+                Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), recordCount / MINIMUM_CHUNK_RECORDS));
+
+        // choose the kind of every column from the kinds of its cells in every chunk
+        List<int[]> chunkKinds =
+                IntStream.range(0, chunkCount)
+                        .parallel()
+                        .mapToObj(chunk -> {
+                            int[] kinds =
+                                    new int[columnCount];
+
+                            for (int record = chunkFrom(chunk, chunkCount, recordCount);
+                                 record < chunkFrom(chunk + 1, chunkCount, recordCount);
+                                 record++) {
+                                for (int column = 0; column < columnCount; column++) {
+                                    if (kinds[column] != STRING) {
+                                        kinds[column] = combine(kinds[column], cells.kind(record * columnCount + column));
+                                    }
+                                }
+                            }
+
+                            return kinds;
+                        })
+                        .toList();
+
+        int[] kinds =
+                new int[columnCount];
+
+        for (int[] chunk : chunkKinds) {
+            for (int column = 0; column < columnCount; column++) {
+                kinds[column] = combine(kinds[column], chunk[column]);
+            }
+        }
+
+        Column[] columns =
+                new Column[columnCount];
+
+        for (int column = 0; column < columnCount; column++) {
+            columns[column] = switch (kinds[column]) {
+                case LONG -> new LongColumn(recordCount);
+                case DOUBLE -> new DoubleColumn(recordCount);
+                default -> new StringColumn(recordCount);
+            };
+        }
+
+        IntStream.range(0, chunkCount)
+                .parallel()
+                .forEach(chunk -> {
+                    List<Map<String, String>> sharedStrings =
+                            new ArrayList<>(columnCount);
+
+                    for (int column = 0; column < columnCount; column++) {
+                        sharedStrings.add(new HashMap<>());
+                    }
+
+                    for (int record = chunkFrom(chunk, chunkCount, recordCount);
+                         record < chunkFrom(chunk + 1, chunkCount, recordCount);
+                         record++) {
+                        for (int column = 0; column < columnCount; column++) {
+                            int cell =
+                                    record * columnCount + column;
+
+                            switch (columns[column]) {
+                                case LongColumn longs -> longs.values()[record] = cells.longValue(cell);
+                                case DoubleColumn doubles -> doubles.values()[record] =
+                                        Double.parseDouble(cells.string(cell));
+                                case StringColumn strings -> {
+                                    String value =
+                                            cells.string(cell);
+
+                                    strings.values()[record] =
+                                            sharedStrings.get(column).computeIfAbsent(value, key -> key);
+                                }
+                            }
+                        }
+                    }
+                });
+
+        return new CsvTable(columnNames, columns, recordCount);
+    }
+
+    private static int chunkFrom(int chunk, int chunkCount, int recordCount) {
+        return (int) ((long) recordCount * chunk / chunkCount);
+    }
+
+    private static int combine(int kind, int cellKind) {
+        if (kind == UNSEEN || kind == cellKind) {
+            return cellKind;
+        }
+
+        return cellKind == UNSEEN ? kind : STRING;
+    }
+
+    private static String text(byte[] content, int start, int end, byte flag) {
+        String value =
+                new String(content, start, end - start, StandardCharsets.UTF_8);
+
+        return (flag & ESCAPED) != 0 ? value.replace("\"\"", "\"") : value;
+    }
+
+    private static boolean isDigit(byte character) {
+        return character >= '0' && character <= '9';
+    }
+
+    /**
+     * Splits one record at a time into cells, keeping only their positions.
+     */
+    private static final class Tokenizer {
+
+        private final byte[] content;
+        private final byte[] delimiter;
+
+        private int fieldCount;
+        private int lineBreaks;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private byte[] flags = new byte[16];
+
+        private Tokenizer(byte[] content, byte[] delimiter) {
+            this.content = content;
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * Reads the record starting at {@code position} and returns the
+         * position after its line break.
+         */
+        private int read(int position, int line) {
+            this.fieldCount = 0;
+            this.lineBreaks = 0;
+
+            int limit =
+                    this.content.length;
+
+            while (true) {
+                position = skipBlanks(position);
+
+                int start;
+                int end;
+                byte flag = 0;
+
+                if (position < limit && this.content[position] == '"') {
+                    flag = QUOTED;
+                    start = ++position;
+
+                    while (true) {
+                        if (position == limit) {
+                            throw new IllegalArgumentException(
+                                    "The quoted cell of the record on line " + line + " is never closed."
+                            );
+                        }
+
+                        if (this.content[position] == '"') {
+                            if (position + 1 < limit && this.content[position + 1] == '"') {
+                                flag |= ESCAPED;
+                                position += 2;
+                                continue;
+                            }
+
+                            break;
+                        }
+
+                        if (this.content[position] == '\n') {
+                            this.lineBreaks++;
+                        }
+
+                        position++;
+                    }
+
+                    end = position++;
+                    position = skipBlanks(position);
+
+                    if (position < limit && this.content[position] != '\n' && !isDelimiterAt(position)) {
+                        throw new IllegalArgumentException(
+                                "A quoted cell of the record on line " + line + " is followed by more text."
+                        );
+                    }
+                } else {
+                    start = position;
+
+                    while (position < limit && this.content[position] != '\n' && !isDelimiterAt(position)) {
+                        position++;
+                    }
+
+                    end = position;
+
+                    while (end > start && isBlank(this.content[end - 1])) {
+                        end--;
+                    }
+                }
+
+                add(start, end, flag);
+
+                if (position < limit && isDelimiterAt(position)) {
+                    position += this.delimiter.length;
+                    continue;
+                }
+
+                if (position < limit) {
+                    // the line break ending the record
+                    position++;
+                    this.lineBreaks++;
+                }
+
+                return position;
+            }
+        }
+
+        private boolean isBlankRecord() {
+            return this.fieldCount == 1 && this.flags[0] == 0 && this.starts[0] == this.ends[0];
+        }
+
+        private List<String> strings() {
+            List<String> strings =
+                    new ArrayList<>(this.fieldCount);
+
+            for (int i = 0; i < this.fieldCount; i++) {
+                strings.add(text(this.content, this.starts[i], this.ends[i], this.flags[i]));
+            }
+
+            return strings;
+        }
+
+        private void add(int start, int end, byte flag) {
+            if (this.fieldCount == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.fieldCount * 2);
+                this.ends = Arrays.copyOf(this.ends, this.fieldCount * 2);
+                this.flags = Arrays.copyOf(this.flags, this.fieldCount * 2);
+            }
+
+            this.starts[this.fieldCount] = start;
+            this.ends[this.fieldCount] = end;
+            this.flags[this.fieldCount] = flag;
+            this.fieldCount++;
+        }
+
+        private int skipBlanks(int position) {
+            while (position < this.content.length && isBlank(this.content[position]) && !isDelimiterAt(position)) {
+                position++;
+            }
+
+            return position;
+        }
+
+        private boolean isDelimiterAt(int position) {
+            if (this.delimiter.length == 1) {
+                return this.content[position] == this.delimiter[0];
+            }
+
+            return position + this.delimiter.length <= this.content.length
+                    && Arrays.equals(
+                    this.content, position, position + this.delimiter.length,
+                    this.delimiter, 0, this.delimiter.length
+            );
+        }
+
+        // whitespace trimmed from cells, but not the line break ending a record
+        private static boolean isBlank(byte character) {
+            return character >= 0 && character <= ' ' && character != '\n';
+        }
+    }
+
+    /**
+     * The positions of the cells of every record, one record after another.
+     */
+    private static final class Cells {
+
+        private final byte[] content;
+
+        private int count;
+        private int[] starts = new int[256];
+        private int[] ends = new int[256];
+        private byte[] flags = new byte[256];
+
+        private Cells(byte[] content) {
+            this.content = content;
+        }
+
+        private void add(Tokenizer tokenizer) {
+            int required =
+                    this.count + tokenizer.fieldCount;
+
+            if (required > this.starts.length) {
+                int capacity =
+                        Math.max(required, this.starts.length * 2);
+
+                this.starts = Arrays.copyOf(this.starts, capacity);
+                this.ends = Arrays.copyOf(this.ends, capacity);
+                this.flags = Arrays.copyOf(this.flags, capacity);
+            }
+
+            System.arraycopy(tokenizer.starts, 0, this.starts, this.count, tokenizer.fieldCount);
+            System.arraycopy(tokenizer.ends, 0, this.ends, this.count, tokenizer.fieldCount);
+            System.arraycopy(tokenizer.flags, 0, this.flags, this.count, tokenizer.fieldCount);
+            this.count = required;
+        }
+
+        private String string(int cell) {
+            return text(this.content, this.starts[cell], this.ends[cell], this.flags[cell]);
+        }
+
+        private int kind(int cell) {
+            if (this.flags[cell] != 0) {
+                return STRING;
+            }
+
+            if (isCanonicalLong(cell)) {
+                return LONG;
+            }
+
+            int start =
+                    this.starts[cell];
+
+            if (start == this.ends[cell] || (this.content[start] != '-' && !isDigit(this.content[start]))) {
+                return STRING;
+            }
+
+            String text =
+                    string(cell);
+
+            try {
+                return Double.toString(Double.parseDouble(text)).equals(text) ? DOUBLE : STRING;
+            } catch (NumberFormatException e) {
+                return STRING;
+            }
+        }
+
+        // integers as Long.toString writes them, so converting them back gives the same text
+        private boolean isCanonicalLong(int cell) {
+            int position =
+                    this.starts[cell];
+
+            int end =
+                    this.ends[cell];
+
+            boolean negative =
+                    position < end && this.content[position] == '-';
+
+            if (negative) {
+                position++;
+            }
+
+            int digits =
+                    end - position;
+
+            if (digits == 0 || digits > MAXIMUM_LONG_DIGITS) {
+                return false;
+            }
+
+            if (this.content[position] == '0' && (digits > 1 || negative)) {
+                return false;
+            }
+
+            for (int i = position; i < end; i++) {
+                if (!isDigit(this.content[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private long longValue(int cell) {
+            int position =
+                    this.starts[cell];
+
+            boolean negative =
+                    this.content[position] == '-';
+
+            if (negative) {
+                position++;
+            }
+
+            long value = 0;
+
+            for (int i = position; i < this.ends[cell]; i++) {
+                value = 10 * value + (this.content[i] - '0');
+            }
+
+            return negative ? -value : value;
+        }
+    }
+
+    /**
+     * The rows of a table, which also give the table itself.
+     */
+    public final class Rows extends AbstractList<Map<String, String>> implements RandomAccess {
+
+        private Rows() {
+        }
+
+        public CsvTable table() {
+            return CsvTable.this;
+        }
+
+        @Override
+        public Map<String, String> get(int index) {
+            return new Row(Objects.checkIndex(index, CsvTable.this.rowCount));
+        }
+
+        @Override
+        public int size() {
+            return CsvTable.this.rowCount;
+        }
+    }
+
+    private final class Row extends AbstractMap<String, String> {
+
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public String get(Object header) {
+            Integer index =
+                    CsvTable.this.columnIndices.get(header);
+
+            return index == null ? null : CsvTable.this.columns[index].text(this.row);
+        }
+
+        @Override
+        public boolean containsKey(Object header) {
+            return CsvTable.this.columnIndices.containsKey(header);
+        }
+
+        @Override
+        public int size() {
+            return CsvTable.this.columnIndices.size();
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    Iterator<Entry<String, Integer>> indices =
+                            CsvTable.this.columnIndices.entrySet().iterator();
+
+                    return new Iterator<>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return indices.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            Entry<String, Integer> index =
+                                    indices.next();
+
+                            return new SimpleImmutableEntry<>(
+                                    index.getKey(),
+                                    CsvTable.this.columns[index.getValue()].text(Row.this.row)
+                            );
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return CsvTable.this.columnIndices.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package tiling.trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Converts a binary trace back into the tab-delimited format written by
+ * BEAST X file loggers, which trace analysis tools such as Tracer read.
+ */
+public final class BinaryTraceConverter {
+
+    private BinaryTraceConverter() {
+    }
+
+    public static void toTabDelimited(Path trace, Path logFile) throws IOException {
+        try (Writer out = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8)) {
+            toTabDelimited(trace, out);
+        }
+    }
+
+    public static void toTabDelimited(Path trace, Writer out) throws IOException {
+        BufferedWriter writer =
+                out instanceof BufferedWriter buffered ? buffered : new BufferedWriter(out);
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(trace)) {
+            List<String> columnNames =
+                    reader.columnNames();
+
+            writer.write("state");
+
+            for (String columnName : columnNames) {
+                writer.write('\t');
+                writer.write(columnName);
+            }
+
+            writer.newLine();
+
+            for (TraceBlock block = reader.nextBlock(); block != null; block = reader.nextBlock()) {
+                for (int row = 0; row < block.rowCount(); row++) {
+                    writer.write(Long.toString(block.states()[row]));
+
+                    for (double[] column : block.columns()) {
+                        writer.write('\t');
+                        writer.write(Double.toString(column[row]));
+                    }
+
+                    writer.newLine();
+                }
+            }
+        }
+
+        writer.flush();
+    }
+}
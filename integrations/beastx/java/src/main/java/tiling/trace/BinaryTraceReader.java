@@ -0,0 +1,217 @@
+package tiling.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a trace written by {@link BinaryTraceWriter} block by block.
+ *
+ * <p>A block cut short at the end of the file, as left by a chain that was
+ * killed while logging, ends the trace like a clean end of file.</p>
+ */
+public final class BinaryTraceReader implements Closeable {
+
+    private final Path path;
+    private final DataInputStream in;
+    private final List<String> columnNames;
+
+    private BinaryTraceReader(Path path, DataInputStream in, List<String> columnNames) {
+        this.path = path;
+        this.in = in;
+        this.columnNames = columnNames;
+    }
+
+    public static BinaryTraceReader open(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null.");
+        }
+
+        DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+
+        try {
+            if (in.readInt() != BinaryTraceWriter.MAGIC) {
+                throw new IOException("'" + path + "' is not a binary trace.");
+            }
+
+            int version =
+                    in.readInt();
+
+            if (version != BinaryTraceWriter.VERSION) {
+                throw new IOException("Binary trace '" + path + "' has unsupported version " + version + ".");
+            }
+
+            int columnCount =
+                    in.readInt();
+
+            List<String> columnNames =
+                    new ArrayList<>(columnCount);
+
+            for (int i = 0; i < columnCount; i++) {
+                columnNames.add(in.readUTF());
+            }
+
+            return new BinaryTraceReader(path, in, List.copyOf(columnNames));
+        } catch (EOFException e) {
+            in.close();
+            throw new IOException("Binary trace '" + path + "' has an incomplete header.", e);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public Path path() {
+        return this.path;
+    }
+
+    public List<String> columnNames() {
+        return this.columnNames;
+    }
+
+    /**
+     * Returns the next block, or {@code null} at the end of the trace.
+     */
+    public TraceBlock nextBlock() throws IOException {
+        int rowCount =
+                this.readRowCount();
+
+        if (rowCount < 0) {
+            return null;
+        }
+
+        try {
+            long[] states =
+                    new long[rowCount];
+
+            for (int row = 0; row < rowCount; row++) {
+                states[row] = this.in.readLong();
+            }
+
+            double[][] columns =
+                    new double[this.columnNames.size()][rowCount];
+
+            for (double[] column : columns) {
+                for (int row = 0; row < rowCount; row++) {
+                    column[row] = this.in.readDouble();
+                }
+            }
+
+            return new TraceBlock(states, columns);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the values of one column from the remaining blocks, skipping the
+     * values of all other columns.
+     */
+    public double[] readColumn(String columnName) throws IOException {
+        int index =
+                this.columnNames.indexOf(columnName);
+
+        if (index < 0) {
+            throw new IllegalArgumentException(
+                    "Binary trace '" + this.path + "' has no column named '" + columnName + "'."
+            );
+        }
+
+        double[] values =
+                new double[0];
+
+        int count = 0;
+
+        while (true) {
+            int rowCount =
+                    this.readRowCount();
+
+            if (rowCount < 0) {
+                break;
+            }
+
+            long blockBytes =
+                    (long) rowCount * Long.BYTES + (long) rowCount * Double.BYTES * this.columnNames.size();
+
+            long before =
+                    (long) rowCount * Long.BYTES + (long) rowCount * Double.BYTES * index;
+
+            if (!this.skip(before)) {
+                break;
+            }
+
+            double[] column =
+                    new double[rowCount];
+
+            try {
+                for (int row = 0; row < rowCount; row++) {
+                    column[row] = this.in.readDouble();
+                }
+            } catch (EOFException e) {
+                break;
+            }
+
+            if (!this.skip(blockBytes - before - (long) rowCount * Double.BYTES)) {
+                break;
+            }
+
+            if (count + rowCount > values.length) {
+                values = Arrays.copyOf(values, Math.max(count + rowCount, 2 * values.length));
+            }
+
+            System.arraycopy(column, 0, values, count, rowCount);
+            count += rowCount;
+        }
+
+        return Arrays.copyOf(values, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    // Returns -1 at the end of the trace.
+    private int readRowCount() throws IOException {
+        try {
+            int rowCount =
+                    this.in.readInt();
+
+            if (rowCount <= 0) {
+                throw new IOException("Binary trace '" + this.path + "' holds a block of " + rowCount + " rows.");
+            }
+
+            return rowCount;
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+
+    // Returns false if the trace ends before the given number of bytes.
+    private boolean skip(long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped =
+                    this.in.skip(bytes);
+
+            if (skipped <= 0) {
+                if (this.in.read() < 0) {
+                    return false;
+                }
+
+                skipped = 1;
+            }
+
+            bytes -= skipped;
+        }
+
+        return true;
+    }
+}
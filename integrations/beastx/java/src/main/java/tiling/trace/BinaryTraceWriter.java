@@ -0,0 +1,207 @@
+package tiling.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes a chain trace in a compact binary, columnar format.
+ *
+ * <p>The file starts with a header holding {@link #MAGIC}, {@link #VERSION}
+ * and the column names. Rows are collected in memory and written as blocks
+ * of at most {@code blockSize} rows: the row count, the logged states, and
+ * then the values of each column in turn, all as big-endian
+ * {@link java.io.DataOutput} values. Readers interested in a few columns can
+ * therefore skip the others without decoding them.</p>
+ *
+ * <p>{@link #sync()} writes the rows collected so far as a short block, so
+ * the file ends on a block boundary and can be truncated to its current
+ * length and appended to.</p>
+ */
+public final class BinaryTraceWriter implements Closeable {
+
+    public static final int MAGIC = 0x42585452;
+
+    public static final int VERSION = 1;
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    public static final String FILE_EXTENSION = ".bxt";
+
+    private final Path path;
+    private final List<String> columnNames;
+    private final int blockSize;
+
+    private final long[] states;
+    private final double[][] columns;
+
+    private DataOutputStream out;
+    private int rowCount;
+
+    /**
+     * @param append whether to continue an existing trace with the same
+     *               columns, as when a chain is resumed from a checkpoint,
+     *               instead of replacing it
+     */
+    public BinaryTraceWriter(
+            Path path,
+            List<String> columnNames,
+            boolean append,
+            int blockSize
+    ) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null.");
+        }
+
+        if (columnNames == null) {
+            throw new IllegalArgumentException("columnNames must not be null.");
+        }
+
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive.");
+        }
+
+        this.path = path;
+        this.columnNames = List.copyOf(columnNames);
+        this.blockSize = blockSize;
+        this.states = new long[blockSize];
+        this.columns = new double[this.columnNames.size()][blockSize];
+
+        boolean continued =
+                append && Files.exists(path) && Files.size(path) > 0;
+
+        if (continued) {
+            try (BinaryTraceReader reader = BinaryTraceReader.open(path)) {
+                if (!reader.columnNames().equals(this.columnNames)) {
+                    throw new IOException(
+                            "Binary trace '" + path + "' holds columns " + reader.columnNames() +
+                                    " instead of " + this.columnNames + "."
+                    );
+                }
+            }
+        }
+
+        this.out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(path.toFile(), continued))
+        );
+
+        if (!continued) {
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(VERSION);
+            this.out.writeInt(this.columnNames.size());
+
+            for (String columnName : this.columnNames) {
+                this.out.writeUTF(columnName);
+            }
+
+            this.out.flush();
+        }
+    }
+
+    /**
+     * Returns the trace file that accompanies a tab-delimited log file, which
+     * replaces a trailing {@code .log} or {@code .log.gz} with
+     * {@value #FILE_EXTENSION}.
+     */
+    public static Path pathFor(Path logFile) {
+        String fileName =
+                logFile.getFileName().toString();
+
+        if (fileName.endsWith(".gz")) {
+            fileName = fileName.substring(0, fileName.length() - ".gz".length());
+        }
+
+        if (fileName.endsWith(".log")) {
+            fileName = fileName.substring(0, fileName.length() - ".log".length());
+        }
+
+        return logFile.resolveSibling(fileName + FILE_EXTENSION);
+    }
+
+    public Path path() {
+        return this.path;
+    }
+
+    public List<String> columnNames() {
+        return this.columnNames;
+    }
+
+    /**
+     * Adds the values of all columns logged at a state.
+     */
+    public void write(long state, double[] values) throws IOException {
+        this.ensureOpen();
+
+        if (values.length != this.columns.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + this.columns.length + " values but got " + values.length + "."
+            );
+        }
+
+        this.states[this.rowCount] = state;
+
+        for (int column = 0; column < values.length; column++) {
+            this.columns[column][this.rowCount] = values[column];
+        }
+
+        this.rowCount++;
+
+        if (this.rowCount == this.blockSize) {
+            this.writeBlock();
+        }
+    }
+
+    /**
+     * Writes the rows added so far and flushes the file.
+     */
+    public void sync() throws IOException {
+        this.ensureOpen();
+        this.writeBlock();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.out == null) {
+            return;
+        }
+
+        try {
+            this.sync();
+        } finally {
+            this.out.close();
+            this.out = null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.out == null) {
+            throw new IOException("Binary trace '" + this.path + "' is closed.");
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (this.rowCount == 0) {
+            return;
+        }
+
+        this.out.writeInt(this.rowCount);
+
+        for (int row = 0; row < this.rowCount; row++) {
+            this.out.writeLong(this.states[row]);
+        }
+
+        for (double[] column : this.columns) {
+            for (int row = 0; row < this.rowCount; row++) {
+                this.out.writeDouble(column[row]);
+            }
+        }
+
+        this.rowCount = 0;
+    }
+}
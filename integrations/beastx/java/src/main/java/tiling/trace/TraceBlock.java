@@ -0,0 +1,31 @@
+package tiling.trace;
+
+/**
+ * One block of a binary trace: the logged states and, per column, the values
+ * logged at those states.
+ *
+ * @param states  logged states, in order
+ * @param columns values by column, each as long as {@code states}
+ */
+public record TraceBlock(long[] states, double[][] columns) {
+
+    public TraceBlock {
+        if (states == null) {
+            throw new IllegalArgumentException("states must not be null.");
+        }
+
+        if (columns == null) {
+            throw new IllegalArgumentException("columns must not be null.");
+        }
+
+        for (double[] column : columns) {
+            if (column.length != states.length) {
+                throw new IllegalArgumentException("Every column must hold one value per state.");
+            }
+        }
+    }
+
+    public int rowCount() {
+        return this.states.length;
+    }
+}
@@ -3,6 +3,7 @@ package tiling.xml.builders;
 import dr.evomodel.tree.TreeModel;
 import dr.inference.model.Parameter;
 import tiling.BeastXState;
+import tiling.operators.AdaptiveMultivariateNormalOperator;
 import tiling.operators.OperatorSelector;
 import tiling.operators.OperatorSpec;
 import tiling.xml.XmlElement;
@@ -13,8 +14,10 @@ import java.util.List;
 public final class OperatorXmlBuilder {
 
     public List<XmlElement> buildOperators(BeastXState state) {
+        // Hamiltonian moves rely on in-process gradients; the exported XML keeps the single-parameter moves.
         return new OperatorSelector().select(state).stream()
                 .filter(spec -> spec.weight() > 0.0)
+                .filter(spec -> spec.family() != OperatorSpec.Family.HAMILTONIAN)
                 .map(this::build)
                 .toList();
     }
@@ -66,6 +69,9 @@ public final class OperatorXmlBuilder {
             case TREE_WILSON_BALDING -> treeOperator(
                     "wilsonBalding", spec, "wilsonBalding");
             case TREE_CLOCK_UP_DOWN -> treeClockUpDownOperator(spec);
+            case ADAPTIVE_MULTIVARIATE_NORMAL -> adaptiveMultivariateNormalOperator(spec);
+            case HAMILTONIAN -> throw new IllegalArgumentException(
+                    "Hamiltonian operators cannot be exported to BEAST X XML.");
         };
     }
 
@@ -124,6 +130,40 @@ public final class OperatorXmlBuilder {
                                 "parameter", treeId + ".allInternalNodeHeights")));
     }
 
+    private XmlElement adaptiveMultivariateNormalOperator(OperatorSpec spec) {
+        int dimension = spec.components().stream()
+                .mapToInt(component -> component.parameter().getDimension())
+                .sum();
+        XmlElement operator = XmlElement.element("adaptableVarianceMultivariateNormalOperator")
+                .withId("adaptiveMultivariateNormal")
+                .withAttribute("scaleFactor", format(spec.tuning()))
+                .withAttribute("weight", format(spec.weight()))
+                .withAttribute("beta", format(AdaptiveMultivariateNormalOperator.ISOTROPIC_PROBABILITY))
+                .withAttribute("initial", Integer.toString(
+                        AdaptiveMultivariateNormalOperator.initialProposals(dimension)))
+                .withAttribute("burnin", "0")
+                .withAttribute("autoOptimize", "true");
+        List<XmlElement> logParameters = spec.components().stream()
+                .filter(OperatorSpec.Component::logScale)
+                .map(component -> parameterReference(component.parameter()))
+                .toList();
+        List<XmlElement> naturalParameters = spec.components().stream()
+                .filter(component -> !component.logScale())
+                .map(component -> parameterReference(component.parameter()))
+                .toList();
+        if (!logParameters.isEmpty()) {
+            operator = operator.withChild(XmlElement.element("transform")
+                    .withAttribute("type", "log")
+                    .withChildren(logParameters));
+        }
+        if (!naturalParameters.isEmpty()) {
+            operator = operator.withChild(XmlElement.element("transform")
+                    .withAttribute("type", "none")
+                    .withChildren(naturalParameters));
+        }
+        return operator;
+    }
+
     private XmlElement parameterReference(Parameter parameter) {
         return XmlElement.ref("parameter", parameterId(parameter));
     }
@@ -0,0 +1,121 @@
+import org.junit.jupiter.api.Test;
+import org.phylospec.tiling.CostEstimate;
+import org.phylospec.tiling.CostEstimator;
+import org.phylospec.workspace.Workspace;
+import tiling.cost.BeastXCostEstimate;
+import tiling.cost.PartitionCost;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BeastXCostEstimatorTest {
+
+    @Test
+    public void estimatesPartialsFromTaxaPatternsStatesAndCategories() throws Exception {
+        BeastXCostEstimate jc69 =
+                new PhyloSpecRunner(read("src/test/java/tiling/phyloctmc/mostBasic.phylospec")).estimateCost();
+
+        BeastXCostEstimate gamma =
+                new PhyloSpecRunner(read("src/test/java/tiling/phyloctmc/withDiscreteGammaInv.phylospec")).estimateCost();
+
+        assertEquals(1, jc69.partitions().size());
+
+        PartitionCost partition =
+                jc69.partitions().getFirst();
+
+        assertEquals(12, partition.taxonCount());
+        assertEquals(898, partition.siteCount());
+        assertEquals(4, partition.stateCount());
+        assertEquals(1, partition.categoryCount());
+        assertTrue(partition.patternCount() > 0 && partition.patternCount() <= 898);
+
+        // two buffers of 11 internal nodes, each with patterns x states doubles
+        assertTrue(partition.partialLikelihoodBytes() >= 2L * 11 * partition.patternCount() * 4 * 8);
+
+        // four rate categories need four times the partials
+        PartitionCost gammaPartition =
+                gamma.partitions().getFirst();
+
+        assertEquals(4, gammaPartition.categoryCount());
+        assertTrue(gammaPartition.partialLikelihoodBytes() > 3 * partition.partialLikelihoodBytes());
+        assertTrue(gamma.secondsPerMillionStates() > jc69.secondsPerMillionStates());
+
+        assertTrue(jc69.heapBytes() > jc69.partialLikelihoodBytes());
+        assertTrue(jc69.treeCount() == 1);
+    }
+
+    @Test
+    public void countsTheDefaultLogsPerMillionStates() {
+        String source =
+                """
+                Real x ~ Normal(mean=0.0, sd=1.0)
+                Real y ~ Normal(mean=x, sd=1.0) observed as 1.0
+                """;
+
+        BeastXCostEstimate estimate =
+                new PhyloSpecRunner(source).estimateCost();
+
+        assertTrue(estimate.partitions().isEmpty());
+        assertTrue(estimate.logBytesPerMillionStates() > 0);
+        assertTrue(estimate.secondsPerMillionStates() > 0);
+        assertEquals(
+                (long) (estimate.logBytesPerMillionStates() * (estimate.chainLength() / 1e6)),
+                estimate.logBytes()
+        );
+    }
+
+    @Test
+    public void isAvailableToTheCliAndLspWithWorkspaceDataFiles() throws Exception {
+        List<CostEstimator> estimators =
+                CostEstimator.loadEstimators();
+
+        CostEstimator estimator =
+                estimators.stream()
+                        .filter(candidate -> candidate.getEngineName().equals(BeastXCostEstimate.ENGINE_NAME))
+                        .findFirst()
+                        .orElseThrow();
+
+        // the data file is named relative to the model's folder, not the working directory
+        String source =
+                read("src/test/java/tiling/phyloctmc/mostBasic.phylospec")
+                        .replace("src/test/java/resources/primate-mtDNA.nex", "primate-mtDNA.nex");
+
+        Workspace workspace =
+                new Workspace();
+
+        workspace.FOLDERS.add(Path.of("src/test/java/resources").toAbsolutePath());
+
+        CostEstimate estimate =
+                estimator.estimate(source, workspace);
+
+        assertTrue(estimate.partialLikelihoodBytes() > 0);
+        assertTrue(estimate.toSummaryLine().startsWith("BEAST X: "), estimate.toSummaryLine());
+    }
+
+    @Test
+    public void resolvesRelativeDataFilesInADirectory() {
+        CompiledModel compiled =
+                new PhyloSpecRunner(
+                        """
+                        Alignment data = fromNexus("primate-mtDNA.nex")
+                        Real rate = 1.0
+                        """
+                ).compile();
+
+        assertEquals(
+                Map.of("data", Path.of("models", "primate-mtDNA.nex").toString()),
+                compiled.dataFilesIn(Path.of("models"))
+        );
+    }
+
+    private static String read(String path) throws Exception {
+        return Files.readString(Paths.get(path), StandardCharsets.UTF_8);
+    }
+}
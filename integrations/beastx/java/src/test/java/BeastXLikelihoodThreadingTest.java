@@ -0,0 +1,173 @@
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import tiling.BeastXModel;
+import tiling.runner.BeastXRunResult;
+import tiling.runner.RunMode;
+import tiling.runner.RunnerOptions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BeastXLikelihoodThreadingTest {
+
+    private static final int PARTITION_COUNT = 10;
+
+    private static final int SITE_COUNT = 898;
+
+    @Test
+    public void threadedLikelihoodMatchesSequentialLikelihood() throws Exception {
+        BeastXModel sequentialModel =
+                assumeMaterializedModelCanBeBuilt("sequentialPartitions", 1);
+
+        BeastXModel threadedModel =
+                assumeMaterializedModelCanBeBuilt("threadedPartitions", 4);
+
+        assertEquals(PARTITION_COUNT, threadedModel.likelihood.getLikelihoodCount());
+        assertEquals(
+                sequentialModel.likelihood.getLogLikelihood(),
+                threadedModel.likelihood.getLogLikelihood(),
+                1e-8
+        );
+    }
+
+    @Test
+    public void rejectsNonPositiveLikelihoodThreadCount() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> RunnerOptions.builder("invalidThreads")
+                        .likelihoodThreadCount(0)
+                        .build()
+        );
+    }
+
+    /**
+     * Prints the time per full likelihood evaluation of a 10-partition model
+     * for increasing thread counts.
+     *
+     * <p>Only runs when {@code -Dphylospec.benchmarks=true} is set.</p>
+     */
+    @Test
+    public void benchmarkTenPartitionLikelihoodPerThreadCount() throws Exception {
+        Assumptions.assumeTrue(
+                Boolean.getBoolean("phylospec.benchmarks"),
+                "Skipping likelihood threading benchmark; set -Dphylospec.benchmarks=true to run it."
+        );
+
+        int maxThreads =
+                Math.min(PARTITION_COUNT, Runtime.getRuntime().availableProcessors());
+
+        double sequentialNanos = 0.0;
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            BeastXModel model =
+                    assumeMaterializedModelCanBeBuilt("benchmarkPartitions" + threads, threads);
+
+            double nanosPerEvaluation =
+                    timeFullLikelihoodEvaluations(model, 200);
+
+            if (threads == 1) {
+                sequentialNanos = nanosPerEvaluation;
+            }
+
+            System.out.printf(
+                    "likelihood threads=%d: %.3f ms/evaluation, speedup %.2fx%n",
+                    threads,
+                    nanosPerEvaluation / 1e6,
+                    sequentialNanos / nanosPerEvaluation
+            );
+        }
+    }
+
+    private static double timeFullLikelihoodEvaluations(
+            BeastXModel model,
+            int evaluations
+    ) {
+        // warm up the JIT and BEAGLE buffers before timing
+        for (int i = 0; i < evaluations / 4; i++) {
+            model.likelihood.makeDirty();
+            model.likelihood.getLogLikelihood();
+        }
+
+        long start =
+                System.nanoTime();
+
+        for (int i = 0; i < evaluations; i++) {
+            model.likelihood.makeDirty();
+            assertTrue(Double.isFinite(model.likelihood.getLogLikelihood()));
+        }
+
+        return (double) (System.nanoTime() - start) / evaluations;
+    }
+
+    private static BeastXModel assumeMaterializedModelCanBeBuilt(
+            String runName,
+            int likelihoodThreadCount
+    ) throws Exception {
+        try {
+            BeastXRunResult result =
+                    new PhyloSpecRunner(partitionedSource())
+                            .run(
+                                    RunnerOptions.builder(runName)
+                                            .mode(RunMode.BUILD_MODEL)
+                                            .materializePhyloCTMC(true)
+                                            .likelihoodThreadCount(likelihoodThreadCount)
+                                            .build()
+                            );
+
+            return result.model();
+        } catch (RuntimeException error) {
+            String message =
+                    error.getMessage();
+
+            if (message != null && message.contains("No acceptable BEAGLE library plugins found")) {
+                Assumptions.abort(
+                        "Skipping likelihood threading test because BEAGLE native library is not available."
+                );
+            }
+
+            throw error;
+        }
+    }
+
+    private static String partitionedSource() {
+        StringBuilder source = new StringBuilder("""
+                Alignment data = fromNexus("src/test/java/resources/primate-mtDNA.nex")
+                Taxa taxa = taxa(data)
+
+                Rate birthRate ~ LogNormal(logMean=0.0, logSd=1.0)
+
+                Tree tree ~ Yule(
+                    birthRate=birthRate,
+                    taxa=taxa
+                )
+
+                """);
+
+        int partitionLength =
+                SITE_COUNT / PARTITION_COUNT;
+
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            int start =
+                    i * partitionLength + 1;
+
+            int end =
+                    i == PARTITION_COUNT - 1 ? SITE_COUNT : (i + 1) * partitionLength;
+
+            source.append("""
+                    Alignment partition%1$d = subset(alignment=data, start=%2$d, end=%3$d)
+
+                    Alignment alignment%1$d ~ PhyloCTMC(
+                        tree=tree,
+                        qMatrix=hky(
+                            kappa~LogNormal(logMean=1.0, logSd=0.5),
+                            baseFrequencies=[0.25, 0.25, 0.25, 0.25]
+                        )
+                    ) observed as partition%1$d
+
+                    """.formatted(i, start, end));
+        }
+
+        return source.toString();
+    }
+}
@@ -1,30 +1,54 @@
+import dr.evolution.tree.NodeRef;
 import dr.evomodel.operators.ExchangeOperator;
 import dr.evomodel.operators.RandomWalkNodeHeightOperator;
 import dr.evomodel.operators.SubtreeSlideOperator;
 import dr.evomodel.operators.UniformNodeHeightOperator;
 import dr.evomodel.operators.WilsonBalding;
+import dr.evomodel.tree.TreeModel;
+import dr.inference.distribution.DistributionLikelihood;
+import dr.inference.distribution.NormalDistributionModel;
 import dr.inference.loggers.Logger;
 import dr.inference.loggers.MCLogger;
+import dr.inference.mcmc.MCMC;
+import dr.inference.model.Parameter;
 import dr.inference.operators.*;
 import dr.inference.operators.DeltaExchangeOperator;
 import dr.inference.operators.MCMCOperator;
 import dr.inference.operators.RandomWalkOperator;
 import dr.inference.operators.ScaleOperator;
 import dr.inference.operators.UpDownOperator;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
 import tiling.BeastXModel;
+import tiling.mcmc.ChainCheckpoint;
+import tiling.mcmc.ChainStop;
 import tiling.mcmc.MCMCBuilder;
+import tiling.monitoring.ChainMonitor;
+import tiling.monitoring.OperatorStatistics;
+import tiling.operators.AdaptiveMultivariateNormalOperator;
+import tiling.operators.AdaptiveOperatorSchedule;
+import tiling.operators.HamiltonianOperator;
 import tiling.operators.OperatorBuilder;
 import tiling.runner.BeastXRunResult;
 import tiling.runner.RunMode;
 import tiling.runner.RunnerOptions;
 import tiling.summary.BeastXModelSummary;
+import tiling.summary.OnlineTraceSummary;
+import tiling.summary.ParameterSummary;
+import tiling.trace.BinaryTraceConverter;
+import tiling.trace.BinaryTraceReader;
+import tiling.trace.BinaryTraceWriter;
 import tiling.BeastXState;
 
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -102,6 +126,157 @@ public class BeastXMCMCBuilderTest {
         );
     }
 
+    @Test
+    public void adaptsOperatorWeightsOverConfiguredFractionOfChain() throws Exception {
+        String source = """
+                Real clockRate ~ LogNormal(logMean=0.0, logSd=1.0)
+                Real growthRate ~ Normal(mean=0.0, sd=1.0)
+
+                mcmc {
+                    Integer randomSeed = 11
+                    Real operatorAdaptationFraction = 0.5
+                }
+                """;
+
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildModel("test");
+
+        MCMC mcmc =
+                new MCMCBuilder(4000).build(model);
+
+        AdaptiveOperatorSchedule schedule =
+                assertInstanceOf(AdaptiveOperatorSchedule.class, mcmc.getOperatorSchedule());
+
+        assertEquals(2000, schedule.getWeightAdaptationLength());
+        assertEquals(400, schedule.getProposalAdaptationLength());
+
+        double selectedWeight = 0.0;
+
+        for (int i = 0; i < schedule.getOperatorCount(); i++) {
+            selectedWeight += schedule.getOperator(i).getWeight();
+        }
+
+        for (long step = 0; step < schedule.getWeightAdaptationLength(); step++) {
+            schedule.getNextOperatorIndex();
+        }
+
+        double adaptedWeight = 0.0;
+
+        for (int i = 0; i < schedule.getOperatorCount(); i++) {
+            adaptedWeight += schedule.getOperator(i).getWeight();
+        }
+
+        assertEquals(selectedWeight, adaptedWeight, 1e-9);
+
+        BeastXModelSummary summary =
+                BeastXModelSummary.from(model, mcmc);
+
+        assertEquals(schedule.getOperatorCount(), summary.adaptedOperatorWeights.size());
+
+        assertEquals(
+                runAdaptedChain(source),
+                runAdaptedChain(source),
+                "Expected chains with the same seed to adapt their weights and move the same way."
+        );
+    }
+
+    @Test
+    public void keepsSelectedOperatorWeightsByDefault() throws Exception {
+        String source = """
+                Real clockRate ~ LogNormal(logMean=0.0, logSd=1.0)
+                Real growthRate ~ Normal(mean=0.0, sd=1.0)
+                """;
+
+        MCMC mcmc =
+                new MCMCBuilder(4000).build(new PhyloSpecRunner(source).buildModel("test"));
+
+        AdaptiveOperatorSchedule schedule =
+                assertInstanceOf(AdaptiveOperatorSchedule.class, mcmc.getOperatorSchedule());
+
+        assertEquals(0, schedule.getWeightAdaptationLength());
+    }
+
+    @Test
+    public void costsOperatorsByTheTreeLikelihoodWorkTheyCause() throws Exception {
+        String source =
+                """
+                Alignment data = fromNexus("src/test/java/resources/primate-mtDNA.nex")
+                Taxa taxa = taxa(data)
+
+                Tree tree ~ Yule(
+                    birthRate=1.0,
+                    taxa=taxa
+                )
+
+                Rate clockRate ~ LogNormal(logMean=0.0, logSd=1.0)
+                Real growthRate ~ Normal(mean=0.0, sd=1.0)
+
+                Alignment alignment ~ PhyloCTMC(
+                    tree=tree,
+                    qMatrix=jc69(),
+                    branchRates~StrictClock(clockRate=clockRate, tree=tree)
+                ) observed as data
+                """;
+
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildMaterializedModel("test");
+
+        OperatorBuilder operatorBuilder =
+                new OperatorBuilder();
+
+        List<String> operators =
+                operatorBuilder.summarize(model.beastState);
+
+        double[] costs =
+                operatorBuilder.costs(model.beastState);
+
+        double treeLikelihoodOperations =
+                model.beastState.likelihoodOperations.values().stream().mapToDouble(Double::doubleValue).sum();
+
+        double clockRateCost =
+                costs[indexOfOperator(operators, "ScaleOperator(parameter=clockRate,")];
+
+        double growthRateCost =
+                costs[indexOfOperator(operators, "RandomWalkOperator(parameter=growthRate,")];
+
+        assertEquals(1, model.beastState.likelihoodOperations.size());
+        assertTrue(treeLikelihoodOperations > 10 * growthRateCost, "Expected the tree likelihood to dominate.");
+        assertEquals(growthRateCost + treeLikelihoodOperations, clockRateCost, 1e-6);
+    }
+
+    private static int indexOfOperator(List<String> operators, String prefix) {
+        for (int i = 0; i < operators.size(); i++) {
+            if (operators.get(i).startsWith(prefix)) {
+                return i;
+            }
+        }
+
+        throw new AssertionError("No operator starting with " + prefix + " in " + operators);
+    }
+
+    @Test
+    public void rejectsInvalidOperatorAdaptationFraction() throws Exception {
+        String source = """
+                Real clockRate ~ LogNormal(logMean=0.0, logSd=1.0)
+
+                mcmc {
+                    Real operatorAdaptationFraction = 1.0
+                }
+                """;
+
+        try {
+            new PhyloSpecRunner(source).buildState("test");
+        } catch (PhyloSpecRunnerException exception) {
+            assertTrue(
+                    exception.getMessage().contains("MCMC operator adaptation fraction must be at least 0 and below 1"),
+                    exception.getMessage()
+            );
+            return;
+        }
+
+        throw new AssertionError("Expected invalid adaptation fraction to fail.");
+    }
+
     @Test
     public void operatorSummaryUsesConfiguredRandomWalkWindowSize() throws Exception {
         String source = """
@@ -705,6 +880,514 @@ public class BeastXMCMCBuilderTest {
         assertTrue(Files.size(expectedLogPath) > 0);
     }
 
+    @Test
+    public void resumesChainFromCheckpointAndContinuesLogs() throws Exception {
+        String source = """
+            PositiveReal x ~ LogNormal(
+                logMean=0.0,
+                logSd=1.0
+            )
+
+            mcmc {
+                Integer randomSeed = 7
+                Real operatorAdaptationFraction = 0.0
+            }
+            """;
+
+        Path outputDirectory =
+                Path.of("target", "runner-checkpoints", "scalar-" + System.nanoTime());
+
+        RunnerOptions options =
+                RunnerOptions.builder("checkpointedRun")
+                        .mode(RunMode.EXECUTE_MCMC)
+                        .chainLengthOverride(100)
+                        .defaultLogEveryOverride(10)
+                        .checkpointEvery(50)
+                        .outputPrefix(outputDirectory, "scalar")
+                        .build();
+
+        new PhyloSpecRunner(source).run(options);
+
+        Path checkpointPath =
+                outputDirectory.resolve("scalar.checkpoint");
+
+        assertEquals(checkpointPath, options.resolvedCheckpointPath());
+        assertTrue(Files.exists(checkpointPath), "Expected a chain checkpoint to be written.");
+
+        ChainCheckpoint checkpoint =
+                ChainCheckpoint.read(checkpointPath);
+
+        assertTrue(checkpoint.state() == 50 || checkpoint.state() == 100, checkpoint.toString());
+
+        BeastXRunResult resumed =
+                new PhyloSpecRunner(source).run(
+                        options.toBuilder()
+                                .mode(RunMode.RESUME_MCMC)
+                                .chainLengthOverride(200)
+                                .build()
+                );
+
+        assertTrue(resumed.executed());
+
+        List<String> lines =
+                Files.readAllLines(outputDirectory.resolve("scalar.log"));
+
+        assertEquals(
+                1,
+                lines.stream().filter(line -> line.startsWith("state")).count(),
+                "Expected the resumed log to keep a single header."
+        );
+
+        List<Long> states =
+                lines.stream()
+                        .filter(line -> line.matches("\\d+\\s+.*"))
+                        .map(line -> Long.parseLong(line.split("\\s+")[0]))
+                        .toList();
+
+        for (int i = 0; i < states.size(); i++) {
+            assertEquals(10L * i, states.get(i), "Expected consecutive logged states.\nActual: " + states);
+        }
+
+        assertTrue(states.getLast() >= 190, "Expected the resumed chain to reach the new length: " + states);
+    }
+
+    @Test
+    public void resumedChainLogsTheSameSamplesAsAnUninterruptedChain() throws Exception {
+        String source = """
+            PositiveReal a ~ LogNormal(logMean=0.0, logSd=1.0)
+            PositiveReal b ~ LogNormal(logMean=0.0, logSd=1.0)
+            Real c ~ Normal(mean=0.0, sd=1.0)
+
+            mcmc {
+                Integer randomSeed = 7
+                Real operatorAdaptationFraction = 0.75
+                Real proposalAdaptationFraction = 0.75
+            }
+            """;
+
+        Path outputDirectory =
+                Path.of("target", "runner-checkpoints", "bit-identical-" + System.nanoTime());
+
+        BeastXModel uninterrupted =
+                loggedModel(source, outputDirectory.resolve("uninterrupted"));
+
+        MCMCBuilder.run(new MCMCBuilder(4000).build(uninterrupted));
+
+        BeastXModel interrupted =
+                loggedModel(source, outputDirectory.resolve("interrupted"));
+
+        Path checkpointPath =
+                outputDirectory.resolve("interrupted").resolve("chain.checkpoint");
+
+        MCMC[] built =
+                new MCMC[1];
+
+        interrupted.beastState.mcmcLoggers.add(new Logger() {
+            @Override
+            public void startLogging() {
+            }
+
+            @Override
+            public void log(long state) {
+                if (state == 2000) {
+                    built[0].pleaseStop();
+                }
+            }
+
+            @Override
+            public void stopLogging() {
+            }
+        });
+
+        built[0] = new MCMCBuilder(4000).checkpointEvery(2000, checkpointPath).build(interrupted);
+        MCMCBuilder.run(built[0]);
+
+        assertEquals(2000, ChainCheckpoint.read(checkpointPath).state());
+
+        BeastXModel resumed =
+                loggedModel(source, outputDirectory.resolve("interrupted"));
+
+        MCMCBuilder.run(
+                new MCMCBuilder(4000)
+                        .resumeFrom(ChainCheckpoint.read(checkpointPath))
+                        .build(resumed)
+        );
+
+        List<String> expected =
+                sampleLines(outputDirectory.resolve("uninterrupted").resolve("chain.log"));
+
+        assertTrue(expected.size() >= 40, "Expected the chain to log every 100 states: " + expected.size());
+        assertEquals(expected, sampleLines(outputDirectory.resolve("interrupted").resolve("chain.log")));
+    }
+
+    @Test
+    public void rejectsCheckpointFromDifferentModel() throws Exception {
+        Path outputDirectory =
+                Path.of("target", "runner-checkpoints", "mismatch-" + System.nanoTime());
+
+        RunnerOptions options =
+                RunnerOptions.builder("checkpointedRun")
+                        .mode(RunMode.EXECUTE_MCMC)
+                        .chainLengthOverride(20)
+                        .defaultLogEveryOverride(10)
+                        .checkpointEvery(10)
+                        .outputPrefix(outputDirectory, "scalar")
+                        .build();
+
+        new PhyloSpecRunner("Real x ~ Normal(mean=0.0, sd=1.0)").run(options);
+
+        IllegalStateException exception =
+                assertThrows(
+                        IllegalStateException.class,
+                        () -> new PhyloSpecRunner("Real y ~ Normal(mean=0.0, sd=1.0)").run(
+                                options.toBuilder()
+                                        .mode(RunMode.RESUME_MCMC)
+                                        .chainLengthOverride(40)
+                                        .build()
+                        )
+                );
+
+        assertTrue(
+                exception.getMessage().contains("does not match the compiled model"),
+                exception.getMessage()
+        );
+    }
+
+    @Test
+    public void restoresTipAndInternalNodeHeightsOfCheckpointedTrees() throws Exception {
+        String source =
+                """
+                Alignment data = fromNexus("src/test/java/resources/primate-mtDNA.nex")
+                Taxa taxa = taxa(data)
+
+                Tree tree ~ Yule(
+                    birthRate=1.0,
+                    taxa=taxa
+                )
+                """;
+
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildModel("test");
+
+        MCMC mcmc =
+                new MCMCBuilder(10).build(model);
+
+        TreeModel tree =
+                model.beastState.treeModelsByPhyloSpecName.get("tree");
+
+        NodeRef tip =
+                tree.getExternalNode(0);
+
+        NodeRef root =
+                tree.getRoot();
+
+        double rootHeight =
+                tree.getNodeHeight(root);
+
+        ChainCheckpoint checkpoint =
+                ChainCheckpoint.capture(model, mcmc.getOperatorSchedule(), 0, List.of());
+
+        // as a sampled tip date and a root move would
+        tree.setNodeHeight(tip, 0.5 * tree.getNodeHeight(tree.getParent(tip)));
+        tree.setNodeHeight(root, 2.0 * rootHeight);
+
+        checkpoint.restore(model, mcmc.getOperatorSchedule());
+
+        assertEquals(0.0, tree.getNodeHeight(tip));
+        assertEquals(rootHeight, tree.getNodeHeight(root));
+    }
+
+    @Test
+    public void publishesOperatorAndLoggerMetricsThroughJfrAndJmx() throws Exception {
+        BeastXModel model =
+                new PhyloSpecRunner("PositiveReal x ~ LogNormal(logMean=0.0, logSd=1.0)").buildModel("monitored");
+
+        List<Boolean> registeredWhileRunning =
+                new ArrayList<>();
+
+        MCMC[] built =
+                new MCMC[1];
+
+        model.beastState.mcmcLoggers.add(new Logger() {
+            @Override
+            public void startLogging() {
+            }
+
+            @Override
+            public void log(long state) {
+                if (state == 500) {
+                    ChainMonitor monitor =
+                            MCMCBuilder.chainMonitor(built[0]).orElseThrow();
+
+                    registeredWhileRunning.add(
+                            ManagementFactory.getPlatformMBeanServer().isRegistered(monitor.getObjectName())
+                    );
+                }
+            }
+
+            @Override
+            public void stopLogging() {
+            }
+        });
+
+        built[0] = new MCMCBuilder(1_000).build(model);
+
+        Path recordingPath =
+                Files.createTempFile("chain-monitor", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("org.phylospec.beastx.ChainProgress");
+            recording.enable("org.phylospec.beastx.Operator");
+            recording.start();
+
+            MCMCBuilder.run(built[0]);
+
+            recording.stop();
+            recording.dump(recordingPath);
+        }
+
+        ChainMonitor monitor =
+                MCMCBuilder.chainMonitor(built[0]).orElseThrow();
+
+        assertEquals(List.of(true), registeredWhileRunning);
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(monitor.getObjectName()));
+
+        assertEquals("monitored", monitor.getRunName());
+        assertEquals(1_000, monitor.getState());
+        assertTrue(monitor.getOperatorSeconds() > 0.0);
+        assertTrue(monitor.getLoggerSeconds() >= 0.0);
+        assertFalse(monitor.getOperators().isEmpty());
+        assertEquals(1_000, monitor.getOperators().stream().mapToLong(OperatorStatistics::proposals).sum());
+        assertEquals(
+                1_000,
+                monitor.getOperators().stream().mapToLong(operator -> operator.accepted() + operator.rejected()).sum()
+        );
+
+        List<RecordedEvent> events =
+                RecordingFile.readAllEvents(recordingPath);
+
+        RecordedEvent progress =
+                events.stream()
+                        .filter(event -> event.getEventType().getName().equals("org.phylospec.beastx.ChainProgress"))
+                        .reduce((first, second) -> second)
+                        .orElseThrow();
+
+        assertEquals("monitored", progress.getString("runName"));
+        assertEquals(1_000, progress.getLong("state"));
+
+        long proposals =
+                events.stream()
+                        .filter(event -> event.getEventType().getName().equals("org.phylospec.beastx.Operator"))
+                        .mapToLong(event -> event.getLong("proposals"))
+                        .sum();
+
+        assertEquals(1_000, proposals);
+    }
+
+    @Test
+    public void doesNotMonitorChainsWithMonitoringTurnedOff() {
+        BeastXModel model =
+                new PhyloSpecRunner("Real x ~ Normal(mean=0.0, sd=1.0)").buildModel("test");
+
+        model.beastState.chainMonitoring = false;
+
+        assertTrue(MCMCBuilder.chainMonitor(new MCMCBuilder(10).build(model)).isEmpty());
+    }
+
+    @Test
+    public void writesCompressedFileLogWhenNameEndsInGz() throws Exception {
+        Path logPath =
+                Path.of("target", "runner-mcmc-output", "compressed-" + System.nanoTime(), "x.log.gz");
+
+        String source = """
+            PositiveReal x ~ LogNormal(logMean=0.0, logSd=1.0)
+
+            mcmc {
+                Logger fileLogger = fileLogger(
+                    logEvery=10,
+                    file="%s",
+                    parameters=[x]
+                )
+            }
+            """.formatted(logPath.toString().replace('\\', '/'));
+
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildModel("test");
+
+        new MCMCBuilder(100).build(model).run();
+
+        String log;
+
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(logPath))) {
+            log = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        assertTrue(log.contains("state"), log);
+        assertTrue(log.lines().anyMatch(line -> line.startsWith("100\t")), log);
+    }
+
+    @Test
+    public void writesBinaryTraceNextToFileLog() throws Exception {
+        Path logPath =
+                Path.of("target", "runner-mcmc-output", "binary-" + System.nanoTime(), "x.log");
+
+        String source = """
+            PositiveReal x ~ LogNormal(logMean=0.0, logSd=1.0)
+
+            mcmc {
+                Logger fileLogger = fileLogger(
+                    logEvery=10,
+                    file="%s",
+                    parameters=[x]
+                )
+            }
+            """.formatted(logPath.toString().replace('\\', '/'));
+
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildModel("test");
+
+        model.beastState.binaryTraces = true;
+
+        new MCMCBuilder(100).build(model).run();
+
+        Path tracePath =
+                BinaryTraceWriter.pathFor(logPath);
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(tracePath)) {
+            assertEquals(List.of("x"), reader.columnNames());
+            assertEquals(11, reader.readColumn("x").length);
+        }
+
+        Path convertedPath =
+                logPath.resolveSibling("converted.log");
+
+        BinaryTraceConverter.toTabDelimited(tracePath, convertedPath);
+
+        List<String> logLines =
+                Files.readAllLines(logPath).stream()
+                        .filter(line -> !line.startsWith("#"))
+                        .toList();
+
+        List<String> convertedLines =
+                Files.readAllLines(convertedPath);
+
+        assertEquals(logLines.size(), convertedLines.size());
+        assertEquals(logLines.get(0), convertedLines.get(0));
+
+        for (int row = 1; row < logLines.size(); row++) {
+            String[] logged =
+                    logLines.get(row).split("\t");
+
+            String[] converted =
+                    convertedLines.get(row).split("\t");
+
+            assertEquals(logged[0], converted[0]);
+            assertEquals(Double.parseDouble(logged[1]), Double.parseDouble(converted[1]), 1e-6);
+        }
+    }
+
+    @Test
+    public void summarizesPosteriorWhileChainRuns() {
+        String source = """
+            Real x ~ Normal(mean=1.0, sd=0.5)
+            """;
+
+        RunnerOptions options =
+                RunnerOptions.builder("summaryMCMC")
+                        .mode(RunMode.EXECUTE_MCMC)
+                        .chainLengthOverride(20_000)
+                        .defaultLogEveryOverride(10)
+                        .traceSummaryEvery(5_000)
+                        .build();
+
+        BeastXRunResult result =
+                new PhyloSpecRunner(source).run(options);
+
+        OnlineTraceSummary summary =
+                result.traceSummary().orElseThrow();
+
+        ParameterSummary x =
+                summary.summary("x");
+
+        assertEquals(2_000, summary.burnIn());
+        assertEquals(20_000, summary.lastState());
+        assertEquals(1_801, x.sampleCount());
+        assertEquals(1.0, x.mean(), 0.2);
+        assertTrue(x.hpdLower() < 1.0 && x.hpdUpper() > 1.0, x.toString());
+        assertTrue(x.effectiveSampleSize() > 0, x.toString());
+    }
+
+    @Test
+    public void chainsWithoutTraceSummaryHaveNone() {
+        BeastXModel model =
+                new PhyloSpecRunner("Real x ~ Normal(mean=0.0, sd=1.0)").buildModel("test");
+
+        assertTrue(MCMCBuilder.traceSummary(new MCMCBuilder(10).build(model)).isEmpty());
+    }
+
+    @Test
+    public void stopsChainOnceMinimumEssIsReached() throws Exception {
+        Path outputDirectory =
+                Path.of("target", "runner-mcmc-output", "converged-" + System.nanoTime());
+
+        RunnerOptions options =
+                RunnerOptions.builder("convergedMCMC")
+                        .mode(RunMode.EXECUTE_MCMC)
+                        .chainLengthOverride(10_000_000)
+                        .defaultLogEveryOverride(10)
+                        .stopAtMinimumEss(100)
+                        .convergenceCheckEvery(1_000)
+                        .outputPrefix(outputDirectory, "converged")
+                        .build();
+
+        BeastXRunResult result =
+                new PhyloSpecRunner("Real x ~ Normal(mean=0.0, sd=1.0)").run(options);
+
+        ChainStop stop =
+                result.chainStop().orElseThrow();
+
+        assertEquals(ChainStop.Reason.CONVERGED, stop.reason());
+        assertTrue(stop.state() < 10_000_000, stop.describe());
+        assertEquals(0, stop.state() % 1_000);
+        assertTrue(stop.minimumEffectiveSampleSize() >= 100, stop.describe());
+
+        List<String> logLines =
+                Files.readAllLines(outputDirectory.resolve("converged.log"));
+
+        assertTrue(logLines.getLast().startsWith(stop.state() + "\t"), logLines.getLast());
+    }
+
+    @Test
+    public void reportsChainLengthWhenMinimumEssIsNotReached() {
+        RunnerOptions options =
+                RunnerOptions.builder("unconvergedMCMC")
+                        .mode(RunMode.EXECUTE_MCMC)
+                        .chainLengthOverride(2_000)
+                        .defaultLogEveryOverride(10)
+                        .stopAtMinimumEss(1_000_000)
+                        .convergenceCheckEvery(500)
+                        .build();
+
+        BeastXRunResult result =
+                new PhyloSpecRunner("Real x ~ Normal(mean=0.0, sd=1.0)").run(options);
+
+        ChainStop stop =
+                result.chainStop().orElseThrow();
+
+        assertEquals(ChainStop.Reason.CHAIN_LENGTH_REACHED, stop.reason());
+        assertEquals(2_000, stop.state());
+    }
+
+    @Test
+    public void resumeModeRequiresCheckpointLocation() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> RunnerOptions.builder("resume")
+                        .mode(RunMode.RESUME_MCMC)
+                        .build()
+        );
+    }
+
     @Test
     public void runResultExposesDefaultFileAndTreeLogPathsFromOutputPrefix() throws Exception {
         String source = """
@@ -849,6 +1532,193 @@ public class BeastXMCMCBuilderTest {
         assertTrue(containsOperator(operators, BitFlipOperator.class));
     }
 
+    @Test
+    public void buildsAdaptiveMultivariateNormalOperatorForManyContinuousParameters() throws Exception {
+        String source =
+                """
+                PositiveReal a ~ LogNormal(logMean=0.0, logSd=1.0)
+                PositiveReal b ~ LogNormal(logMean=0.0, logSd=1.0)
+                Real c ~ Normal(mean=0.0, sd=1.0)
+                PositiveReal d ~ Exponential(rate=1.0)
+                Boolean flag ~ Bernoulli(p=0.5)
+                """;
+
+        List<MCMCOperator> operators =
+                buildOperators(source);
+
+        assertEquals(6, operators.size());
+        assertTrue(containsOperator(operators, AdaptiveMultivariateNormalOperator.class));
+
+        BeastXModelSummary summary =
+                BeastXModelSummary.from(new PhyloSpecRunner(source).buildModel("test"));
+
+        assertTrue(
+                summary.operatorDetails.contains(
+                        "AdaptiveMultivariateNormalOperator(parameters=[a, b, c, d], logScale=[a, b, d], weight=5.0, scaleFactor=1.0)"
+                ),
+                "Expected a joint move over the continuous parameters.\nActual: " + summary.operatorDetails
+        );
+    }
+
+    @Test
+    public void multivariateOperatorLearnsOverBurnInWhenWeightsAreFixed() throws Exception {
+        String source =
+                """
+                PositiveReal a ~ LogNormal(logMean=0.0, logSd=1.0)
+                PositiveReal b ~ LogNormal(logMean=0.0, logSd=1.0)
+                Real c ~ Normal(mean=0.0, sd=1.0)
+                PositiveReal d ~ Exponential(rate=1.0)
+
+                mcmc {
+                    Real operatorAdaptationFraction = 0.0
+                }
+                """;
+
+        MCMC mcmc =
+                new MCMCBuilder(5000).build(new PhyloSpecRunner(source).buildModel("test"));
+
+        AdaptiveOperatorSchedule schedule =
+                assertInstanceOf(AdaptiveOperatorSchedule.class, mcmc.getOperatorSchedule());
+
+        AdaptiveMultivariateNormalOperator operator = null;
+
+        for (int i = 0; i < schedule.getOperatorCount(); i++) {
+            if (schedule.getOperator(i) instanceof AdaptiveMultivariateNormalOperator multivariate) {
+                operator = multivariate;
+            }
+        }
+
+        assertNotNull(operator);
+        assertEquals(0, schedule.getWeightAdaptationLength());
+        assertEquals(500, schedule.getProposalAdaptationLength());
+
+        for (int step = 0; step < 499; step++) {
+            schedule.getNextOperatorIndex();
+        }
+
+        assertTrue(operator.isAdapting(), "Expected the joint move to keep learning during burn-in.");
+
+        schedule.getNextOperatorIndex();
+
+        assertFalse(operator.isAdapting(), "Expected the joint move to stop learning after burn-in.");
+    }
+
+    @Test
+    public void multivariateOperatorWeightZeroDisablesJointMove() throws Exception {
+        String source =
+                """
+                PositiveReal a ~ LogNormal(logMean=0.0, logSd=1.0)
+                PositiveReal b ~ LogNormal(logMean=0.0, logSd=1.0)
+                Real c ~ Normal(mean=0.0, sd=1.0)
+                PositiveReal d ~ Exponential(rate=1.0)
+
+                mcmc {
+                    Real multivariateOperatorWeight = 0.0
+                }
+                """;
+
+        List<MCMCOperator> operators =
+                buildOperators(source);
+
+        assertEquals(4, operators.size());
+        assertFalse(containsOperator(operators, AdaptiveMultivariateNormalOperator.class));
+    }
+
+    @Test
+    public void buildsHamiltonianOperatorForDifferentiableRateVector() throws Exception {
+        String source =
+                """
+                RealVector<PositiveReal> rates ~ IID(
+                    base=LogNormal(logMean=0.0, logSd=1.0),
+                    num=10
+                )
+
+                mcmc {
+                    Real hamiltonianOperatorWeight = 5.0
+                }
+                """;
+
+        List<MCMCOperator> operators =
+                buildOperators(source);
+
+        assertTrue(containsOperator(operators, HamiltonianOperator.class));
+
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildModel("test");
+
+        assertTrue(
+                BeastXModelSummary.from(model).operatorDetails.contains(
+                        "HamiltonianOperator(parameter=rates, weight=5.0, stepSize=0.1, logScale=true)"
+                )
+        );
+
+        MCMC mcmc =
+                new MCMCBuilder(500).build(model);
+
+        mcmc.run();
+
+        Parameter rates =
+                model.beastState.stateNodesByPhyloSpecName.get("rates");
+
+        for (int i = 0; i < rates.getDimension(); i++) {
+            assertTrue(rates.getParameterValue(i) > 0.0, "Expected rates to stay positive.");
+        }
+    }
+
+    @Test
+    public void skipsHamiltonianOperatorForShortVectors() throws Exception {
+        String source =
+                """
+                RealVector<PositiveReal> rates ~ IID(
+                    base=LogNormal(logMean=0.0, logSd=1.0),
+                    num=3
+                )
+                """;
+
+        assertFalse(containsOperator(buildOperators(source), HamiltonianOperator.class));
+    }
+
+    @Test
+    public void skipsHamiltonianOperatorByDefault() throws Exception {
+        String source =
+                """
+                RealVector<PositiveReal> rates ~ IID(
+                    base=LogNormal(logMean=0.0, logSd=1.0),
+                    num=10
+                )
+                """;
+
+        assertFalse(containsOperator(buildOperators(source), HamiltonianOperator.class));
+    }
+
+    @Test
+    public void skipsHamiltonianOperatorWhenOtherTermsReadVector() throws Exception {
+        String source =
+                """
+                RealVector<PositiveReal> rates ~ IID(
+                    base=LogNormal(logMean=0.0, logSd=1.0),
+                    num=10
+                )
+
+                mcmc {
+                    Real hamiltonianOperatorWeight = 5.0
+                }
+                """;
+
+        BeastXState beastState =
+                new PhyloSpecRunner(source).buildState("test");
+
+        DistributionLikelihood likelihood =
+                new DistributionLikelihood(
+                        new NormalDistributionModel(new Parameter.Default(0.0), new Parameter.Default(1.0))
+                );
+
+        likelihood.addData(beastState.stateNodesByPhyloSpecName.get("rates"));
+        beastState.addLikelihoodDistribution(likelihood, "ratesLikelihood");
+
+        assertFalse(containsOperator(new OperatorBuilder().build(beastState), HamiltonianOperator.class));
+    }
+
     @Test
     public void buildsDefaultTreeOperatorsForStochasticTree() throws Exception {
         String source =
@@ -913,6 +1783,42 @@ public class BeastXMCMCBuilderTest {
         assertTrue(containsOperator(operators, WilsonBalding.class));
     }
 
+    // adapted operator weights and final parameter values of a chain
+    private static List<String> runAdaptedChain(String source) throws Exception {
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildModel("test");
+
+        MCMC mcmc =
+                new MCMCBuilder(4000).build(model);
+
+        MCMCBuilder.run(mcmc);
+
+        List<String> outcome =
+                new ArrayList<>(((AdaptiveOperatorSchedule) mcmc.getOperatorSchedule()).describeWeights());
+
+        for (String name : List.of("clockRate", "growthRate")) {
+            outcome.add(name + "=" + model.beastState.stateNodesByPhyloSpecName.get(name).getParameterValue(0));
+        }
+
+        return outcome;
+    }
+
+    private static BeastXModel loggedModel(String source, Path outputDirectory) throws Exception {
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildModel("test");
+
+        model.beastState.defaultLogEvery = 100;
+        model.beastState.outputPrefix = outputDirectory.resolve("chain").toString();
+
+        return model;
+    }
+
+    private static List<String> sampleLines(Path logFile) throws Exception {
+        return Files.readAllLines(logFile).stream()
+                .filter(line -> line.matches("\\d+\\s+.*"))
+                .toList();
+    }
+
     private List<MCMCOperator> buildOperators(String source) throws Exception {
         PhyloSpecRunner runner =
                 new PhyloSpecRunner(source);
@@ -1,13 +1,16 @@
 import dr.evomodel.treelikelihood.BeagleTreeLikelihood;
+import dr.inference.model.CompoundLikelihood;
 import dr.inference.model.Likelihood;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 import tiling.BeastXModel;
 import tiling.model.BeastXPhyloCTMCLikelihoodSpec;
+import tiling.model.SitePatternCache;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -90,6 +93,48 @@ public class BeastXPhyloCTMCMaterializationTest {
         );
     }
 
+    @Test
+    public void patternChunksSumToUnchunkedLikelihood() throws Exception {
+        String source =
+                readSource(MODEL_PATH);
+
+        BeastXModel model =
+                new PhyloSpecRunner(source).buildModel("test");
+
+        BeastXPhyloCTMCLikelihoodSpec spec =
+                (BeastXPhyloCTMCLikelihoodSpec) model.beastState.likelihoodDistributions.getFirst();
+
+        SitePatternCache cache =
+                new SitePatternCache();
+
+        Likelihood unchunked =
+                assumeBeagleAvailable(() -> spec.materializeBeagleTreeLikelihood(cache));
+
+        Likelihood chunked =
+                spec.materializeLikelihood(cache, 4);
+
+        assertInstanceOf(CompoundLikelihood.class, chunked);
+        assertEquals(4, ((CompoundLikelihood) chunked).getLikelihoodCount());
+        assertEquals(unchunked.getLogLikelihood(), chunked.getLogLikelihood(), 1e-8);
+    }
+
+    private static Likelihood assumeBeagleAvailable(Supplier<Likelihood> materialize) {
+        try {
+            return materialize.get();
+        } catch (RuntimeException error) {
+            String message =
+                    error.getMessage();
+
+            if (message != null && message.contains("No acceptable BEAGLE library plugins found")) {
+                Assumptions.abort(
+                        "Skipping PhyloCTMC pattern chunk test because BEAGLE native library is not available."
+                );
+            }
+
+            throw error;
+        }
+    }
+
     private BeastXModel assumeMaterializedModelCanBeBuilt(String source) throws Exception {
         PhyloSpecRunner runner =
                 new PhyloSpecRunner(source);
@@ -1,12 +1,19 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.phylospec.profiling.PhaseTiming;
+import org.phylospec.profiling.PipelineProfile;
+import tiling.runner.BeastXRunPipeline;
 import tiling.runner.RunMode;
 import tiling.runner.BeastXRunResult;
 import tiling.runner.RunnerOptions;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -115,4 +122,61 @@ public class BeastXRunnerTest {
             );
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void reportsTheTimeAndCountersOfEveryPipelinePhase() throws Exception {
+        String source = """
+                PositiveReal x ~ LogNormal(
+                    logMean=0.0,
+                    logSd=1.0
+                )
+                """;
+
+        Path reportPath =
+                Path.of("target", "runner-profile-output", "profile-" + System.nanoTime() + ".json");
+
+        PhyloSpecRunner runner =
+                new PhyloSpecRunner(source);
+
+        runner.run(
+                RunnerOptions.builder("runnerFacadeProfile")
+                        .mode(RunMode.BUILD_MCMC)
+                        .profileReportPath(reportPath)
+                        .build()
+        );
+
+        List<String> phases =
+                runner.getProfile().phases().stream()
+                        .map(PhaseTiming::phase)
+                        .toList();
+
+        assertEquals(
+                List.of(
+                        PipelineProfile.LOAD_COMPONENTS,
+                        PipelineProfile.LEX,
+                        PipelineProfile.PARSE,
+                        PipelineProfile.TRANSFORM,
+                        PipelineProfile.RESOLVE_VARIABLES,
+                        PipelineProfile.RESOLVE_TYPES,
+                        PipelineProfile.RESOLVE_STOCHASTICITY,
+                        BeastXRunPipeline.LOAD_TILES,
+                        PipelineProfile.TILING,
+                        PipelineProfile.APPLY_TILING,
+                        BeastXRunPipeline.BUILD_MODEL,
+                        BeastXRunPipeline.BUILD_MCMC
+                ),
+                phases
+        );
+
+        JsonNode report =
+                new ObjectMapper().readTree(Files.readString(reportPath));
+
+        JsonNode tiling =
+                report.get("phases").get(phases.indexOf(PipelineProfile.TILING)).get("counters");
+
+        assertTrue(tiling.get("tileAttempts").asLong() > 0);
+        assertTrue(tiling.get("matchedTiles").asLong() > 0);
+        assertTrue(tiling.get("combinationsVisited").asLong() >= 1);
+        assertTrue(report.get("totalMillis").has(BeastXRunPipeline.BUILD_MCMC));
+    }
+}
@@ -0,0 +1,353 @@
+import dr.inference.mcmc.MCMC;
+import dr.inference.model.Likelihood;
+import dr.inference.model.Model;
+import dr.inference.model.Parameter;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tiling.BeastXModel;
+import tiling.BeastXState;
+import tiling.runner.BeastXRunPipeline;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompiledModelTest {
+
+    private static final String PRIOR_ONLY_SOURCE =
+            """
+            Real x ~ Normal(mean=0.0, sd=1.0)
+            Real y ~ LogNormal(logMean=0.0, logSd=1.0)
+            """;
+
+    @Test
+    public void buildsIndependentStatesFromOneCompilation() {
+        CompiledModel compiled =
+                new PhyloSpecRunner(PRIOR_ONLY_SOURCE).compile();
+
+        BeastXState first =
+                compiled.buildState("first");
+
+        BeastXState second =
+                compiled.buildState("second");
+
+        assertEquals("first", first.runName);
+        assertEquals("second", second.runName);
+
+        assertEquals(first.stateNodes.size(), second.stateNodes.size());
+        assertEquals(first.priorDistributions.size(), second.priorDistributions.size());
+
+        Parameter firstX =
+                first.stateNodesByPhyloSpecName.get("x");
+
+        Parameter secondX =
+                second.stateNodesByPhyloSpecName.get("x");
+
+        assertNotNull(firstX);
+        assertNotNull(secondX);
+        assertNotSame(firstX, secondX);
+
+        // changing one instance leaves the other untouched
+        double initialValue =
+                secondX.getParameterValue(0);
+
+        firstX.setParameterValue(0, initialValue + 1.0);
+
+        assertEquals(initialValue, secondX.getParameterValue(0), 0.0);
+    }
+
+    @Test
+    public void runnerReusesItsCompiledModel() throws Exception {
+        PhyloSpecRunner runner =
+                new PhyloSpecRunner(PRIOR_ONLY_SOURCE);
+
+        assertSame(runner.compile(), runner.compile());
+
+        BeastXState first =
+                runner.buildState("test");
+
+        BeastXState second =
+                runner.buildState("test");
+
+        assertNotSame(
+                first.stateNodesByPhyloSpecName.get("x"),
+                second.stateNodesByPhyloSpecName.get("x")
+        );
+    }
+
+    @Test
+    public void buildsIndependentMaterializedModels() throws Exception {
+        String source =
+                Files.readString(
+                        Paths.get("src/test/java/tiling/phyloctmc/mostBasic.phylospec"),
+                        StandardCharsets.UTF_8
+                );
+
+        CompiledModel compiled =
+                new PhyloSpecRunner(source).compile();
+
+        BeastXModel first =
+                compiled.buildMaterializedModel("first");
+
+        BeastXModel second =
+                compiled.buildMaterializedModel("second");
+
+        assertNotSame(first.posterior, second.posterior);
+        assertNotSame(
+                first.beastState.likelihoodDistributions.get(0),
+                second.beastState.likelihoodDistributions.get(0)
+        );
+        assertEquals(
+                first.posterior.getLogLikelihood(),
+                second.posterior.getLogLikelihood(),
+                1e-10
+        );
+    }
+
+    @Test
+    public void createsVectorConstantsForEveryBuild() {
+        String source =
+                """
+                Alignment data = fromNexus("src/test/java/resources/primate-mtDNA.nex")
+                Taxa taxa = taxa(data)
+                Tree tree ~ Yule(birthRate=1.0, taxa=taxa)
+                QMatrix qMatrix = hky(kappa=2.0, baseFrequencies=[0.1, 0.2, 0.3, 0.4])
+
+                Alignment alignment ~ PhyloCTMC(tree=tree, qMatrix=qMatrix) observed as data
+                """;
+
+        CompiledModel compiled =
+                new PhyloSpecRunner(source).compile();
+
+        double[] baseFrequencies =
+                {0.1, 0.2, 0.3, 0.4};
+
+        Parameter first =
+                findParameter(compiled.buildMaterializedModel("first"), baseFrequencies);
+
+        Parameter second =
+                findParameter(compiled.buildMaterializedModel("second"), baseFrequencies);
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void reportsApplicationErrorsOnEveryBuild() throws Exception {
+        CompiledModel compiled =
+                new PhyloSpecRunner(
+                        Files.readString(
+                                Paths.get("src/test/java/tiling/functions/rangeEmpty.phylospec"),
+                                StandardCharsets.UTF_8
+                        )
+                ).compile();
+
+        assertThrows(PhyloSpecRunnerException.class, () -> compiled.buildState("first"));
+        assertThrows(PhyloSpecRunnerException.class, () -> compiled.buildState("second"));
+    }
+
+    @Test
+    public void prefetchedDataFilesServeOnlyTheFirstBuild() throws Exception {
+        CompiledModel compiled =
+                new PhyloSpecRunner(
+                        Files.readString(
+                                Paths.get("src/test/java/tiling/phyloctmc/fromTreeMostBasic.phylospec"),
+                                StandardCharsets.UTF_8
+                        )
+                ).compile();
+
+        BeastXModel first =
+                compiled.buildMaterializedModel("first");
+
+        BeastXModel second =
+                compiled.buildMaterializedModel("second");
+
+        // the alignment and the tree were loaded once each while the model was tiled
+        assertEquals(
+                2,
+                compiled.getProfile().phases().stream()
+                        .filter(phase -> phase.phase().equals(BeastXRunPipeline.PREFETCH_DATA))
+                        .count()
+        );
+
+        assertNotSame(
+                first.beastState.treeModelsByPhyloSpecName.get("tree"),
+                second.beastState.treeModelsByPhyloSpecName.get("tree")
+        );
+        assertEquals(
+                first.posterior.getLogLikelihood(),
+                second.posterior.getLogLikelihood(),
+                1e-10
+        );
+    }
+
+    @Test
+    public void countsNexusTreesWithoutImportingThem(@TempDir Path directory) throws Exception {
+        String source =
+                Files.readString(
+                        Paths.get("src/test/java/tiling/phyloctmc/fromTreeMostBasic.phylospec"),
+                        StandardCharsets.UTF_8
+                );
+
+        String tree =
+                Files.readString(Paths.get("src/test/java/resources/simple.nwk"), StandardCharsets.UTF_8).trim();
+
+        Path oneTree =
+                directory.resolve("one-tree.nex");
+
+        // neither the commented tree nor the quoted semicolon starts another tree command
+        Files.writeString(
+                oneTree,
+                "#NEXUS\n[tree ignored = (a,b);]\nbegin trees;\n\ttree 'first;tree' = [&R] " + tree + "\nend;\n"
+        );
+
+        Path twoTrees =
+                directory.resolve("two-trees.nex");
+
+        Files.writeString(
+                twoTrees,
+                "#NEXUS\nbegin trees;\n\ttree first = " + tree + "\n\ttree second = " + tree + "\nend;\n"
+        );
+
+        BeastXState beastState =
+                new PhyloSpecRunner(source.replace("src/test/java/resources/simple.nwk", oneTree.toString()))
+                        .compile()
+                        .buildState("one");
+
+        assertEquals(4, beastState.treeModelsByPhyloSpecName.get("tree").getExternalNodeCount());
+
+        PhyloSpecRunnerException error =
+                assertThrows(
+                        PhyloSpecRunnerException.class,
+                        () -> new PhyloSpecRunner(
+                                source.replace("src/test/java/resources/simple.nwk", twoTrees.toString())
+                        ).compile().buildState("two")
+                );
+
+        assertTrue(error.getMessage().contains("Too many trees found."), error.getMessage());
+    }
+
+    private static Parameter findParameter(BeastXModel model, double[] values) {
+        Set<Object> visited =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Likelihood likelihood : model.beastState.likelihoodDistributions) {
+            Parameter parameter =
+                    findParameter(likelihood.getModel(), values, visited);
+
+            if (parameter != null) {
+                return parameter;
+            }
+        }
+
+        throw new AssertionError("No parameter with values " + Arrays.toString(values) + ".");
+    }
+
+    private static Parameter findParameter(Model model, double[] values, Set<Object> visited) {
+        if (model == null || !visited.add(model)) {
+            return null;
+        }
+
+        for (int i = 0; i < model.getVariableCount(); i++) {
+            if (model.getVariable(i) instanceof Parameter parameter
+                    && Arrays.equals(parameter.getParameterValues(), values)) {
+                return parameter;
+            }
+        }
+
+        for (int i = 0; i < model.getModelCount(); i++) {
+            Parameter parameter =
+                    findParameter(model.getModel(i), values, visited);
+
+            if (parameter != null) {
+                return parameter;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Prints the one-off compilation cost next to the cost of each further
+     * state, model and MCMC built from the compiled model.
+     *
+     * <p>Only runs when {@code -Dphylospec.benchmarks=true} is set.</p>
+     */
+    @Test
+    public void benchmarkCompilationAgainstInstantiation() throws Exception {
+        Assumptions.assumeTrue(
+                Boolean.getBoolean("phylospec.benchmarks"),
+                "Skipping compiled model benchmark; set -Dphylospec.benchmarks=true to run it."
+        );
+
+        String source =
+                Files.readString(
+                        Paths.get("src/test/java/tiling/phyloctmc/mostBasic.phylospec"),
+                        StandardCharsets.UTF_8
+                );
+
+        int instances = 50;
+
+        long compileStart =
+                System.nanoTime();
+
+        CompiledModel compiled =
+                new PhyloSpecRunner(source).compile();
+
+        double compileMillis =
+                (System.nanoTime() - compileStart) / 1e6;
+
+        long stateStart =
+                System.nanoTime();
+
+        for (int i = 0; i < instances; i++) {
+            compiled.buildState("benchmark" + i);
+        }
+
+        double stateMillis =
+                (System.nanoTime() - stateStart) / 1e6 / instances;
+
+        long mcmcStart =
+                System.nanoTime();
+
+        for (int i = 0; i < instances; i++) {
+            MCMC mcmc =
+                    compiled.buildMCMC("benchmark" + i, 1);
+
+            assertNotNull(mcmc);
+        }
+
+        double mcmcMillis =
+                (System.nanoTime() - mcmcStart) / 1e6 / instances;
+
+        long uncompiledStart =
+                System.nanoTime();
+
+        for (int i = 0; i < instances; i++) {
+            new PhyloSpecRunner(source).buildState("benchmark" + i);
+        }
+
+        double uncompiledMillis =
+                (System.nanoTime() - uncompiledStart) / 1e6 / instances;
+
+        System.out.printf(
+                "compile once: %.3f ms; per instance: state %.3f ms, MCMC %.3f ms; parse and tile per state: %.3f ms%n",
+                compileMillis,
+                stateMillis,
+                mcmcMillis,
+                uncompiledMillis
+        );
+    }
+}
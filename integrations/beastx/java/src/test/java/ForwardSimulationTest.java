@@ -0,0 +1,145 @@
+import org.junit.jupiter.api.Test;
+import tiling.simulation.SimulationOptions;
+import tiling.simulation.SimulationResult;
+import tiling.summary.ParameterSummary;
+import tiling.trace.BinaryTraceReader;
+import tiling.trace.BinaryTraceWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ForwardSimulationTest {
+
+    private static final String SOURCE =
+            """
+            Real x ~ Normal(mean=1.0, sd=0.5)
+            Real observedValue ~ Normal(mean=0.0, sd=1.0) observed as 1.0
+            """;
+
+    @Test
+    public void drawsPriorPredictiveSamples() throws Exception {
+        Path tracePath =
+                outputPath("prior");
+
+        SimulationResult result =
+                new PhyloSpecRunner(SOURCE).simulate(
+                        SimulationOptions.builder(tracePath)
+                                .sampleCount(4_000)
+                                .workerCount(3)
+                                .seed(42)
+                                .build()
+                );
+
+        assertEquals(4_000, result.sampleCount());
+        assertTrue(result.columnNames().contains("x"), result.columnNames().toString());
+
+        ParameterSummary x =
+                result.summary().summary("x");
+
+        assertEquals(4_000, x.sampleCount());
+        assertEquals(1.0, x.mean(), 0.05);
+        assertEquals(0.5, x.standardDeviation(), 0.05);
+
+        String replicateColumn =
+                result.columnNames().stream()
+                        .filter(column -> column.endsWith(".rep"))
+                        .findFirst()
+                        .orElseThrow();
+
+        assertEquals(0.0, result.summary().summary(replicateColumn).mean(), 0.1);
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(tracePath)) {
+            assertEquals(result.columnNames(), reader.columnNames());
+            assertEquals(4_000, reader.readColumn("x").length);
+        }
+    }
+
+    @Test
+    public void samplesDoNotDependOnWorkerCount() throws Exception {
+        CompiledModel compiled =
+                new PhyloSpecRunner(SOURCE).compile();
+
+        Path sequential =
+                outputPath("sequential");
+
+        Path parallel =
+                outputPath("parallel");
+
+        compiled.simulate(SimulationOptions.builder(sequential).sampleCount(1_000).workerCount(1).seed(7).build());
+        compiled.simulate(SimulationOptions.builder(parallel).sampleCount(1_000).workerCount(4).seed(7).build());
+
+        try (
+                BinaryTraceReader first = BinaryTraceReader.open(sequential);
+                BinaryTraceReader second = BinaryTraceReader.open(parallel)
+        ) {
+            assertArrayEquals(first.readColumn("x"), second.readColumn("x"), 0.0);
+        }
+    }
+
+    @Test
+    public void drawsPosteriorPredictiveSamplesAtPosteriorValues() throws Exception {
+        Path posteriorPath =
+                outputPath("posterior");
+
+        try (BinaryTraceWriter writer = new BinaryTraceWriter(posteriorPath, List.of("x"), false, 16)) {
+            for (int state = 0; state < 100; state++) {
+                writer.write(state * 10L, new double[] {state});
+            }
+        }
+
+        Path tracePath =
+                outputPath("posteriorPredictive");
+
+        SimulationResult result =
+                new PhyloSpecRunner(SOURCE).simulate(
+                        SimulationOptions.builder(tracePath)
+                                .sampleCount(1_000)
+                                .posteriorTrace(posteriorPath)
+                                .posteriorBurnInFraction(0.5)
+                                .seed(1)
+                                .build()
+                );
+
+        // one replicate per posterior sample after the burn-in
+        assertEquals(50, result.sampleCount());
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(tracePath)) {
+            double[] x =
+                    reader.readColumn("x");
+
+            assertEquals(50.0, x[0], 0.0);
+            assertEquals(99.0, x[49], 0.0);
+        }
+    }
+
+    @Test
+    public void rejectsModelsWithTreesAndSequenceLikelihoods() throws Exception {
+        String source =
+                Files.readString(
+                        Paths.get("src/test/java/tiling/phyloctmc/mostBasic.phylospec"),
+                        StandardCharsets.UTF_8
+                );
+
+        IllegalArgumentException exception =
+                assertThrows(
+                        IllegalArgumentException.class,
+                        () -> new PhyloSpecRunner(source).simulate(SimulationOptions.builder(outputPath("tree")).build())
+                );
+
+        assertTrue(exception.getMessage().contains("preview"), exception.getMessage());
+        assertTrue(exception.getMessage().contains("univariate-prior models only"), exception.getMessage());
+        assertTrue(exception.getMessage().contains("tree_prior"), exception.getMessage());
+    }
+
+    private static Path outputPath(String name) {
+        return Path.of("target", "forward-simulation", name + "-" + System.nanoTime() + BinaryTraceWriter.FILE_EXTENSION);
+    }
+}
@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import tiling.marginal.MarginalLikelihoodEstimate;
+import tiling.marginal.MarginalLikelihoodOptions;
+import tiling.runner.BeastXRunPipeline;
+import tiling.runner.BeastXRunResult;
+import tiling.runner.RunMode;
+import tiling.runner.RunnerOptions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MarginalLikelihoodTest {
+
+    private static final String SOURCE =
+            """
+            Real x ~ Normal(mean=0.0, sd=1.0)
+            Real y ~ Normal(mean=x, sd=1.0) observed as 1.0
+            """;
+
+    // y ~ Normal(0, sqrt(2)) once x is integrated out
+    private static final double LOG_MARGINAL_LIKELIHOOD =
+            -0.5 * Math.log(2 * Math.PI * 2) - 0.25;
+
+    @Test
+    public void estimatesTheMarginalLikelihoodWithParallelPowerPosteriors() {
+        BeastXRunResult run =
+                new PhyloSpecRunner(SOURCE).run(
+                        RunnerOptions.builder("marginal")
+                                .estimateMarginalLikelihood(
+                                        MarginalLikelihoodOptions.builder()
+                                                .stepCount(12)
+                                                .stepChainLength(40_000)
+                                                .sampleEvery(10)
+                                                .workerCount(4)
+                                                .build()
+                                )
+                                .build()
+                );
+
+        assertTrue(run.executed());
+        assertTrue(run.hasMarginalLikelihood());
+
+        // the run is the posterior chain
+        assertNotNull(run.mcmc());
+
+        MarginalLikelihoodEstimate estimate =
+                run.marginalLikelihood();
+
+        assertEquals(13, estimate.steps().size());
+        assertEquals(LOG_MARGINAL_LIKELIHOOD, estimate.logSteppingStone(), 0.1, estimate.toReportString("estimate"));
+        assertEquals(LOG_MARGINAL_LIKELIHOOD, estimate.logPathSampling(), 0.15, estimate.toReportString("estimate"));
+    }
+
+    @Test
+    public void seededEstimatesDoNotDependOnTheWorkerCount() {
+        String source =
+                SOURCE + """
+
+                mcmc {
+                    Integer randomSeed = 11
+                }
+                """;
+
+        assertEquals(
+                seededEstimate(source, 1).toReportString("estimate"),
+                seededEstimate(source, 4).toReportString("estimate")
+        );
+    }
+
+    @Test
+    public void otherRunModesHaveNoEstimate() {
+        BeastXRunResult run =
+                new PhyloSpecRunner(SOURCE).run(
+                        RunnerOptions.builder("posterior")
+                                .mode(RunMode.EXECUTE_MCMC)
+                                .chainLengthOverride(100)
+                                .build()
+                );
+
+        assertNull(run.marginalLikelihood());
+    }
+
+    @Test
+    public void pipelineRejectsEstimatesOfASingleState() {
+        CompiledModel compiled =
+                new PhyloSpecRunner(SOURCE).compile();
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new BeastXRunPipeline().run(
+                        compiled.buildState("single"),
+                        RunnerOptions.builder("single")
+                                .estimateMarginalLikelihood(MarginalLikelihoodOptions.defaults())
+                                .build()
+                )
+        );
+    }
+
+    private static MarginalLikelihoodEstimate seededEstimate(String source, int workerCount) {
+        return new PhyloSpecRunner(source).run(
+                RunnerOptions.builder("seeded")
+                        .estimateMarginalLikelihood(
+                                MarginalLikelihoodOptions.builder()
+                                        .stepCount(4)
+                                        .stepChainLength(2_000)
+                                        .sampleEvery(10)
+                                        .workerCount(workerCount)
+                                        .build()
+                        )
+                        .build()
+        ).marginalLikelihood();
+    }
+}
@@ -0,0 +1,260 @@
+import dr.inference.model.Parameter;
+import org.junit.jupiter.api.Test;
+import tiling.BeastXState;
+import tiling.runner.BatchInstance;
+import tiling.runner.BatchInstanceResult;
+import tiling.runner.BatchReport;
+import tiling.runner.RunMode;
+import tiling.runner.RunnerOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PhyloSpecBatchRunnerTest {
+
+    private static final String SOURCE =
+            """
+            Real mu = 0.0
+            Real x ~ Normal(mean=mu, sd=0.5)
+            """;
+
+    @Test
+    public void overridesConstantsPerState() {
+        CompiledModel compiled =
+                new PhyloSpecRunner(SOURCE).compile();
+
+        assertTrue(compiled.overridableNames().contains("mu"));
+
+        BeastXState shifted =
+                compiled.buildState("shifted", Map.of("mu", "3.5"));
+
+        BeastXState original =
+                compiled.buildState("original");
+
+        // x's prior is centred on the overridden mean in one state only
+        assertTrue(priorOfXAt(shifted, 3.5) > priorOfXAt(original, 3.5));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> compiled.buildState("unknown", Map.of("sigma", "1.0"))
+        );
+
+        assertThrows(
+                PhyloSpecRunnerException.class,
+                () -> compiled.buildState("invalid", Map.of("mu", "high"))
+        );
+    }
+
+    @Test
+    public void runsInstancesConcurrentlyWithIsolatedOutputs() throws Exception {
+        Path outputDirectory =
+                Path.of("target", "batch-runs", "grid-" + System.nanoTime());
+
+        List<BatchInstance> instances =
+                List.of(
+                        new BatchInstance("low", Map.of("mu", "0.0")),
+                        new BatchInstance("middle", Map.of("mu", "5.0")),
+                        new BatchInstance("high", Map.of("mu", "10.0")),
+                        new BatchInstance("broken", Map.of("mu", "high"))
+                );
+
+        RunnerOptions options =
+                RunnerOptions.builder("grid")
+                        .mode(RunMode.EXECUTE_MCMC)
+                        .chainLengthOverride(20_000)
+                        .defaultLogEveryOverride(10)
+                        .traceSummaryEvery(20_000)
+                        .build();
+
+        BatchReport report =
+                new PhyloSpecBatchRunner(new PhyloSpecRunner(SOURCE).compile(), 2)
+                        .run(instances, options, outputDirectory);
+
+        assertEquals(4, report.results().size());
+        assertEquals(1, report.failureCount());
+        assertFalse(report.result("broken").orElseThrow().succeeded());
+
+        for (String name : List.of("low", "middle", "high")) {
+            BatchInstanceResult result =
+                    report.result(name).orElseThrow();
+
+            assertTrue(result.succeeded(), String.valueOf(result.failure()));
+            assertEquals(name, result.run().runName());
+            assertTrue(Files.exists(outputDirectory.resolve(name).resolve(name + ".log")));
+        }
+
+        assertEquals(0.0, meanOfX(report, "low"), 0.2);
+        assertEquals(5.0, meanOfX(report, "middle"), 0.2);
+        assertEquals(10.0, meanOfX(report, "high"), 0.2);
+
+        List<String> runs =
+                Files.readAllLines(outputDirectory.resolve(BatchReport.RUNS_FILE), StandardCharsets.UTF_8);
+
+        assertEquals(5, runs.size());
+        assertTrue(runs.get(1).startsWith("low\tOK\t"), runs.get(1));
+        assertTrue(runs.get(4).startsWith("broken\tFAILED\t"), runs.get(4));
+
+        List<String> summary =
+                Files.readAllLines(outputDirectory.resolve(BatchReport.SUMMARY_FILE), StandardCharsets.UTF_8);
+
+        assertTrue(summary.stream().anyMatch(line -> line.startsWith("middle\tx\t")), summary.toString());
+    }
+
+    @Test
+    public void overridesVectorConstantsPerInstance() throws Exception {
+        String source =
+                """
+                Simplex p = [0.5, 0.5]
+                PositiveInteger category ~ Categorical(probabilities=p)
+                """;
+
+        Path outputDirectory =
+                Path.of("target", "batch-runs", "vector-" + System.nanoTime());
+
+        List<BatchInstance> instances =
+                List.of(
+                        new BatchInstance("first", Map.of("p", "[0.9, 0.1]")),
+                        new BatchInstance("second", Map.of("p", "0.1 0.9")),
+                        new BatchInstance("unnormalized", Map.of("p", "0.5; 0.6"))
+                );
+
+        RunnerOptions options =
+                RunnerOptions.builder("vector")
+                        .mode(RunMode.EXECUTE_MCMC)
+                        .chainLengthOverride(20_000)
+                        .defaultLogEveryOverride(10)
+                        .traceSummaryEvery(20_000)
+                        .build();
+
+        CompiledModel compiled =
+                new PhyloSpecRunner(source).compile();
+
+        assertTrue(compiled.overridableNames().contains("p"));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> compiled.buildState("short", Map.of("p", "1.0"))
+        );
+
+        BatchReport report =
+                new PhyloSpecBatchRunner(compiled, 2)
+                        .run(instances, options, outputDirectory);
+
+        assertEquals(1, report.failureCount());
+        assertFalse(report.result("unnormalized").orElseThrow().succeeded());
+
+        assertEquals(1.1, meanOf(report, "first", "category"), 0.05);
+        assertEquals(1.9, meanOf(report, "second", "category"), 0.05);
+    }
+
+    @Test
+    public void seedsEveryInstanceFromTheModelSeedReproducibly() throws Exception {
+        String source =
+                """
+                Real mu = 0.0
+                Real x ~ Normal(mean=mu, sd=0.5)
+
+                mcmc {
+                    Integer randomSeed = 100
+                }
+                """;
+
+        List<BatchInstance> instances =
+                List.of(
+                        new BatchInstance("first", Map.of("mu", "0.0")),
+                        new BatchInstance("second", Map.of("mu", "1.0")),
+                        new BatchInstance("third", Map.of("mu", "2.0"))
+                );
+
+        RunnerOptions options =
+                RunnerOptions.builder("seeded")
+                        .mode(RunMode.EXECUTE_MCMC)
+                        .chainLengthOverride(2_000)
+                        .defaultLogEveryOverride(100)
+                        .build();
+
+        Path firstBatch =
+                Path.of("target", "batch-runs", "seeded-" + System.nanoTime());
+
+        Path secondBatch =
+                Path.of("target", "batch-runs", "seeded-" + System.nanoTime());
+
+        BatchReport report =
+                new PhyloSpecBatchRunner(new PhyloSpecRunner(source).compile(), 3)
+                        .run(instances, options, firstBatch);
+
+        new PhyloSpecBatchRunner(new PhyloSpecRunner(source).compile(), 3)
+                .run(instances, options, secondBatch);
+
+        assertEquals(100L, report.result("first").orElseThrow().randomSeed());
+        assertEquals(102L, report.result("third").orElseThrow().randomSeed());
+
+        List<String> runs =
+                Files.readAllLines(firstBatch.resolve(BatchReport.RUNS_FILE), StandardCharsets.UTF_8);
+
+        assertTrue(runs.get(2).startsWith("second\tOK\t101\t"), runs.get(2));
+
+        for (BatchInstance instance : instances) {
+            Path log =
+                    Path.of(instance.name(), instance.name() + ".log");
+
+            assertEquals(
+                    sampleLines(firstBatch.resolve(log)),
+                    sampleLines(secondBatch.resolve(log)),
+                    "Expected instance '" + instance.name() + "' to reproduce its samples."
+            );
+        }
+    }
+
+    @Test
+    public void rejectsUnknownColumnsBeforeRunning() {
+        PhyloSpecBatchRunner runner =
+                new PhyloSpecBatchRunner(new PhyloSpecRunner(SOURCE).compile(), 1);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> runner.run(
+                        List.of(new BatchInstance("a", Map.of("sigma", "1.0"))),
+                        RunnerOptions.of("grid"),
+                        Path.of("target", "batch-runs", "rejected")
+                )
+        );
+    }
+
+    private static double priorOfXAt(BeastXState beastState, double value) {
+        Parameter x =
+                beastState.stateNodesByPhyloSpecName.get("x");
+
+        x.setParameterValue(0, value);
+
+        return beastState.priorDistributions.get(x).getLogLikelihood();
+    }
+
+    private static List<String> sampleLines(Path logFile) throws Exception {
+        return Files.readAllLines(logFile).stream()
+                .filter(line -> line.matches("\\d+\\s+.*"))
+                .toList();
+    }
+
+    private static double meanOfX(BatchReport report, String name) {
+        return meanOf(report, name, "x");
+    }
+
+    private static double meanOf(BatchReport report, String name, String parameter) {
+        return report.result(name)
+                .orElseThrow()
+                .run()
+                .traceSummary()
+                .orElseThrow()
+                .summary(parameter)
+                .mean();
+    }
+}
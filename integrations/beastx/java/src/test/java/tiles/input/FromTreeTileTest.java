@@ -0,0 +1,63 @@
+package tiles.input;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FromTreeTileTest {
+
+    private static final String TREE = "((a:1.0,b:1.0):1.0,c:2.0);";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void countsTreeAndUtreeCommands() throws Exception {
+        assertEquals(
+                2,
+                count("#NEXUS\nbegin trees;\n\ttree first = " + TREE + "\n\tutree second = " + TREE + "\nend;\n")
+        );
+    }
+
+    @Test
+    public void stopsCountingAtEndblock() throws Exception {
+        assertEquals(
+                1,
+                count(
+                        "#NEXUS\nbegin trees;\n\ttree first = " + TREE + "\nendblock;\n"
+                                + "begin notes;\n\ttree ignored = " + TREE + "\nend;\n"
+                )
+        );
+    }
+
+    @Test
+    public void skipsNestedComments() throws Exception {
+        assertEquals(
+                1,
+                count(
+                        "#NEXUS\nbegin trees;\n"
+                                + "\t[outer [inner; tree hidden = (a,b);] still; tree hidden = (a,b);]\n"
+                                + "\ttree first = [&R] " + TREE + "\nend;\n"
+                )
+        );
+    }
+
+    @Test
+    public void keepsSemicolonsInQuotedNamesWithDoubledQuotes() throws Exception {
+        assertEquals(
+                1,
+                count("#NEXUS\nbegin trees;\n\ttree 'it''s; tree b' = " + TREE + "\nend;\n")
+        );
+    }
+
+    private int count(String content) throws Exception {
+        Path file =
+                Files.writeString(this.directory.resolve("trees.nex"), content);
+
+        return FromTreeTile.countNexusTrees(file.toFile());
+    }
+}
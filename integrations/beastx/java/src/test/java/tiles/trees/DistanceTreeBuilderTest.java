@@ -0,0 +1,212 @@
+package tiles.trees;
+
+import dr.evolution.alignment.SimpleAlignment;
+import dr.evolution.datatype.Nucleotides;
+import dr.evolution.sequence.Sequence;
+import dr.evolution.tree.NodeRef;
+import dr.evolution.tree.TreeUtils;
+import dr.evolution.util.Taxa;
+import dr.evolution.util.Taxon;
+import dr.evomodel.branchratemodel.StrictClockBranchRates;
+import dr.evomodel.tree.DefaultTreeModel;
+import dr.evomodel.tree.TreeModel;
+import dr.inference.model.Parameter;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DistanceTreeBuilderTest {
+
+    private static final int CLADE_COUNT = 4;
+
+    private static final int CLADE_SIZE = 6;
+
+    private static final String NUCLEOTIDES = "ACGT";
+
+    @Test
+    public void upgmaStartingTreeRecoversClades() {
+        Taxa taxa =
+                cladeTaxa();
+
+        TreeModel treeModel =
+                new DefaultTreeModel("tree", InitialTreeBuilder.balancedTree(taxa, "Yule"));
+
+        boolean applied =
+                DistanceTreeBuilder.applyDistanceTree(
+                        treeModel,
+                        cladeAlignment(taxa, new Random(17)),
+                        new StrictClockBranchRates(new Parameter.Default(1.0)),
+                        null
+                );
+
+        assertTrue(applied, "Expected a distance starting tree to be applied.");
+        assertCladesAreMonophyletic(treeModel);
+    }
+
+    @Test
+    public void neighborJoiningStartingTreeRecoversCladesBelowFixedRoot() {
+        Taxa taxa =
+                cladeTaxa();
+
+        TreeModel treeModel =
+                new DefaultTreeModel("tree", InitialTreeBuilder.balancedTree(taxa, "Yule"));
+
+        boolean applied =
+                DistanceTreeBuilder.applyDistanceTree(
+                        treeModel,
+                        cladeAlignment(taxa, new Random(23)),
+                        null,
+                        10.0
+                );
+
+        assertTrue(applied, "Expected a distance starting tree to be applied.");
+        assertCladesAreMonophyletic(treeModel);
+        assertEquals(10.0, treeModel.getNodeHeight(treeModel.getRoot()), 1e-9);
+
+        for (int i = 0; i < treeModel.getNodeCount(); i++) {
+            NodeRef node =
+                    treeModel.getNode(i);
+
+            if (!treeModel.isRoot(node)) {
+                assertTrue(
+                        treeModel.getNodeHeight(treeModel.getParent(node)) > treeModel.getNodeHeight(node),
+                        "Expected every parent to be older than its children."
+                );
+            }
+        }
+    }
+
+    @Test
+    public void keepsTreeWhenAlignmentDoesNotCoverAllTips() {
+        Taxa taxa =
+                cladeTaxa();
+
+        Taxa alignedTaxa =
+                new Taxa();
+
+        for (int i = 1; i < taxa.getTaxonCount(); i++) {
+            alignedTaxa.addTaxon(taxa.getTaxon(i));
+        }
+
+        TreeModel treeModel =
+                new DefaultTreeModel("tree", InitialTreeBuilder.balancedTree(taxa, "Yule"));
+
+        String before =
+                treeModel.getNewick();
+
+        assertFalse(
+                DistanceTreeBuilder.applyDistanceTree(
+                        treeModel,
+                        cladeAlignment(alignedTaxa, new Random(5)),
+                        null,
+                        null
+                )
+        );
+        assertEquals(before, treeModel.getNewick());
+    }
+
+    private static void assertCladesAreMonophyletic(TreeModel treeModel) {
+        for (int clade = 0; clade < CLADE_COUNT; clade++) {
+            Set<String> members =
+                    new HashSet<>();
+
+            for (int member = 0; member < CLADE_SIZE; member++) {
+                members.add(taxonId(clade, member));
+            }
+
+            NodeRef ancestor =
+                    TreeUtils.getCommonAncestorNode(treeModel, members);
+
+            assertEquals(
+                    CLADE_SIZE,
+                    TreeUtils.getLeafCount(treeModel, ancestor),
+                    "Expected clade " + clade + " to be monophyletic in the starting tree."
+            );
+        }
+    }
+
+    private static Taxa cladeTaxa() {
+        Taxa taxa =
+                new Taxa();
+
+        // interleave the clades so the balanced tree does not already group them
+        for (int member = 0; member < CLADE_SIZE; member++) {
+            for (int clade = 0; clade < CLADE_COUNT; clade++) {
+                taxa.addTaxon(new Taxon(taxonId(clade, member)));
+            }
+        }
+
+        return taxa;
+    }
+
+    private static String taxonId(int clade, int member) {
+        return "c" + clade + "_" + member;
+    }
+
+    /**
+     * Simulates clades that each diverge from a shared root sequence at 20% of
+     * sites, with 2% of sites differing between members of a clade.
+     */
+    private static SimpleAlignment cladeAlignment(Taxa taxa, Random random) {
+        int siteCount = 600;
+
+        char[] root =
+                randomSequence(siteCount, random);
+
+        char[][] cladeAncestors =
+                new char[CLADE_COUNT][];
+
+        for (int clade = 0; clade < CLADE_COUNT; clade++) {
+            cladeAncestors[clade] = mutate(root, 0.2, random);
+        }
+
+        SimpleAlignment alignment =
+                new SimpleAlignment();
+
+        alignment.setDataType(Nucleotides.INSTANCE);
+
+        for (int i = 0; i < taxa.getTaxonCount(); i++) {
+            Taxon taxon =
+                    taxa.getTaxon(i);
+
+            int clade =
+                    Integer.parseInt(taxon.getId().substring(1, taxon.getId().indexOf('_')));
+
+            alignment.addSequence(
+                    new Sequence(taxon, new String(mutate(cladeAncestors[clade], 0.02, random)))
+            );
+        }
+
+        return alignment;
+    }
+
+    private static char[] randomSequence(int length, Random random) {
+        char[] sequence =
+                new char[length];
+
+        for (int i = 0; i < length; i++) {
+            sequence[i] = NUCLEOTIDES.charAt(random.nextInt(4));
+        }
+
+        return sequence;
+    }
+
+    private static char[] mutate(char[] sequence, double rate, Random random) {
+        char[] mutated =
+                sequence.clone();
+
+        for (int i = 0; i < mutated.length; i++) {
+            if (random.nextDouble() < rate) {
+                mutated[i] = NUCLEOTIDES.charAt(random.nextInt(4));
+            }
+        }
+
+        return mutated;
+    }
+}
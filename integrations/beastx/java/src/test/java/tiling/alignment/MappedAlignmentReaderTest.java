@@ -0,0 +1,145 @@
+package tiling.alignment;
+
+import dr.evolution.datatype.AminoAcids;
+import dr.evolution.datatype.Nucleotides;
+import dr.evolution.io.Importer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedAlignmentReaderTest {
+
+    @Test
+    public void readsFastaSequencesIntoPackedRows() throws Exception {
+        PackedAlignment alignment =
+                MappedAlignmentReader.readFasta(Path.of("src/test/java/resources/simple.fasta"), Nucleotides.INSTANCE);
+
+        assertEquals(4, alignment.getSequenceCount());
+        assertEquals(12, alignment.getSiteCount());
+        assertEquals(4L * 12, alignment.getPackedBytes());
+        assertEquals("taxon2", alignment.getSequence(1).getTaxon().getId());
+        assertEquals("ACGTACGTACGA", alignment.getAlignedSequenceString(1));
+        assertEquals(Nucleotides.INSTANCE.getState('C'), alignment.getState(3, 11));
+    }
+
+    @Test
+    public void skipsLineBreaksAndWhitespaceWithinSequences() throws Exception {
+        Path file =
+                Files.createTempFile("wrapped", ".fasta");
+
+        Files.writeString(file, "\r\n>first taxon\r\nACGT\r\nAC\r\n>second\n  AC GT\n\nAA\n");
+
+        PackedAlignment alignment =
+                MappedAlignmentReader.readFasta(file, Nucleotides.INSTANCE);
+
+        assertEquals("first taxon", alignment.getSequence(0).getTaxon().getId());
+        assertEquals("ACGTAC", alignment.getAlignedSequenceString(0));
+        assertEquals("ACGTAA", alignment.getAlignedSequenceString(1));
+    }
+
+    @Test
+    public void rejectsFilesThatAreNotFasta() throws Exception {
+        Path file =
+                Files.createTempFile("not", ".fasta");
+
+        Files.writeString(file, "#NEXUS\nbegin data;\n");
+
+        assertThrows(
+                Importer.ImportException.class,
+                () -> MappedAlignmentReader.readFasta(file, Nucleotides.INSTANCE)
+        );
+
+        Files.writeString(file, "");
+
+        assertThrows(
+                Importer.ImportException.class,
+                () -> MappedAlignmentReader.readFasta(file, Nucleotides.INSTANCE)
+        );
+    }
+
+    @Test
+    public void readsNexusMatricesIntoPackedRows() throws Exception {
+        PackedAlignment nucleotides =
+                MappedAlignmentReader.readNexus(Path.of("src/test/java/resources/dated-simple.nex")).orElseThrow();
+
+        assertSame(Nucleotides.INSTANCE, nucleotides.getDataType());
+        assertEquals(4, nucleotides.getSequenceCount());
+        assertEquals(4L * 12, nucleotides.getPackedBytes());
+        assertEquals("taxon2_1.0", nucleotides.getSequence(1).getTaxon().getId());
+        assertEquals("ACGTACGTACGA", nucleotides.getAlignedSequenceString(1));
+
+        PackedAlignment proteins =
+                MappedAlignmentReader.readNexus(Path.of("src/test/java/resources/protein-simple.nex")).orElseThrow();
+
+        assertSame(AminoAcids.INSTANCE, proteins.getDataType());
+        assertEquals(30, proteins.getSiteCount());
+    }
+
+    @Test
+    public void skipsNexusCommentsOtherBlocksAndQuotes() throws Exception {
+        Path file =
+                Files.createTempFile("commented", ".nex");
+
+        Files.writeString(
+                file,
+                """
+                #NEXUS
+                begin taxa; dimensions ntax=2; taxlabels a 'b c'; end;
+                begin trees; tree t = (a,'b c'); end;
+                begin characters;
+                  dimensions nchar=6;
+                  format datatype=dna missing=? gap=- interleave=no;
+                  matrix
+                    a      ACG [a comment [nested]]
+                           T-?
+                    'b c'  acgt??
+                  ;
+                end;
+                """
+        );
+
+        PackedAlignment alignment =
+                MappedAlignmentReader.readNexus(file).orElseThrow();
+
+        assertEquals("ACGT-?", alignment.getAlignedSequenceString(0));
+        assertEquals("b c", alignment.getSequence(1).getTaxon().getId());
+        assertEquals(6, alignment.getSiteCount());
+    }
+
+    @Test
+    public void leavesOtherNexusGrammarToTheImporter() throws Exception {
+        // STANDARD characters, and a match character
+        assertTrue(MappedAlignmentReader.readNexus(Path.of("src/test/java/resources/bdmm.nex")).isEmpty());
+        assertTrue(MappedAlignmentReader.readNexus(Path.of("src/test/java/resources/primate-mtDNA.nex")).isEmpty());
+
+        Path file =
+                Files.createTempFile("unusual", ".nex");
+
+        Files.writeString(file, "#NEXUS\nbegin data; dimensions ntax=2 nchar=4; format datatype=dna interleave;\n"
+                + "matrix a AC b AC a GT b GT; end;\n");
+
+        assertTrue(MappedAlignmentReader.readNexus(file).isEmpty());
+
+        Files.writeString(file, "#NEXUS\nbegin data; dimensions ntax=2 nchar=4; format datatype=dna;\n"
+                + "matrix a AC{AG}T b ACGT; end;\n");
+
+        assertTrue(MappedAlignmentReader.readNexus(file).isEmpty());
+    }
+
+    @Test
+    public void rejectsNexusMatricesThatDoNotMatchTheirDimensions() throws Exception {
+        Path file =
+                Files.createTempFile("mismatched", ".nex");
+
+        Files.writeString(file, "#NEXUS\nbegin data; dimensions ntax=2 nchar=4; format datatype=dna;\n"
+                + "matrix a ACGT b ACGT c ACGT; end;\n");
+
+        assertThrows(Importer.ImportException.class, () -> MappedAlignmentReader.readNexus(file));
+    }
+}
@@ -0,0 +1,134 @@
+package tiling.gradients;
+
+import dr.inference.distribution.BetaDistributionModel;
+import dr.inference.distribution.CauchyDistribution;
+import dr.inference.distribution.ExponentialDistributionModel;
+import dr.inference.distribution.GammaDistributionModel;
+import dr.inference.distribution.LogNormalDistributionModel;
+import dr.inference.distribution.NormalDistributionModel;
+import dr.inference.model.Parameter;
+import dr.math.distributions.Distribution;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LogDensityGradientTest {
+
+    @Test
+    public void matchesBeastNormalDensity() {
+        Parameter mean = new Parameter.Default(1.5);
+        Parameter sd = new Parameter.Default(0.7);
+
+        assertMatches(
+                new NormalDistributionModel(mean, sd),
+                LogDensityGradient.normal(mean, sd),
+                -1.0, 0.3, 2.4
+        );
+    }
+
+    @Test
+    public void matchesBeastLogNormalDensities() {
+        Parameter mu = new Parameter.Default(0.4);
+        Parameter sigma = new Parameter.Default(0.8);
+
+        assertMatches(
+                new LogNormalDistributionModel(
+                        LogNormalDistributionModel.Parameterization.MU_SIGMA, mu, sigma, 0.0),
+                LogDensityGradient.logNormal(mu, sigma),
+                0.2, 1.0, 3.5
+        );
+
+        Parameter mean = new Parameter.Default(2.0);
+
+        assertMatches(
+                new LogNormalDistributionModel(mean, sigma, 0.0, true),
+                LogDensityGradient.logNormalWithRealSpaceMean(mean, sigma),
+                0.2, 1.0, 3.5
+        );
+    }
+
+    @Test
+    public void matchesBeastGammaExponentialAndBetaDensities() {
+        Parameter shape = new Parameter.Default(2.5);
+        Parameter rate = new Parameter.Default(1.5);
+
+        assertMatches(
+                new GammaDistributionModel(
+                        GammaDistributionModel.GammaParameterizationType.ShapeRate, shape, rate, 0.0),
+                LogDensityGradient.gamma(shape, rate),
+                0.3, 1.2, 4.0
+        );
+
+        Parameter mean = new Parameter.Default(0.5);
+
+        assertMatches(
+                new ExponentialDistributionModel(mean),
+                LogDensityGradient.exponential(mean),
+                0.1, 1.0, 2.0
+        );
+
+        Parameter alpha = new Parameter.Default(2.0);
+        Parameter beta = new Parameter.Default(3.5);
+
+        assertMatches(
+                new BetaDistributionModel(alpha, beta),
+                LogDensityGradient.beta(alpha, beta),
+                0.1, 0.5, 0.8
+        );
+    }
+
+    @Test
+    public void matchesShiftedCauchyDensity() {
+        Distribution cauchy =
+                new CauchyDistribution(0.5, 2.0);
+
+        assertMatches(
+                cauchy,
+                LogDensityGradient.cauchy(0.5, 2.0),
+                -3.0, 0.0, 4.0
+        );
+
+        assertEquals(
+                LogDensityGradient.cauchy(0.5, 2.0).at(1.0),
+                LogDensityGradient.cauchy(0.5, 2.0).shifted(3.0).at(4.0),
+                1e-12
+        );
+    }
+
+    @Test
+    public void followsHyperparameterChanges() {
+        Parameter mean = new Parameter.Default(0.0);
+        Parameter sd = new Parameter.Default(1.0);
+
+        LogDensityGradient gradient =
+                LogDensityGradient.normal(mean, sd);
+
+        mean.setParameterValue(0, 2.0);
+
+        assertEquals(2.0, gradient.at(0.0), 1e-12);
+    }
+
+    @Test
+    public void rejectsVectorHyperparameters() {
+        Parameter means = new Parameter.Default(3, 0.0);
+        Parameter sd = new Parameter.Default(1.0);
+
+        assertThrows(IllegalArgumentException.class, () -> LogDensityGradient.normal(means, sd));
+    }
+
+    private static void assertMatches(
+            Distribution distribution,
+            LogDensityGradient gradient,
+            double... points
+    ) {
+        for (double x : points) {
+            double h = 1e-6;
+
+            double numerical =
+                    (distribution.logPdf(x + h) - distribution.logPdf(x - h)) / (2.0 * h);
+
+            assertEquals(numerical, gradient.at(x), 1e-5 * Math.max(1.0, Math.abs(numerical)), "x = " + x);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package tiling.marginal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MarginalLikelihoodEstimateTest {
+
+    private static final double OBSERVATION = 1.0;
+
+    // x ~ Normal(0, 1) and y ~ Normal(x, 1) observed as 1.0, so y ~ Normal(0, sqrt(2))
+    private static final double LOG_MARGINAL_LIKELIHOOD =
+            -0.5 * Math.log(2 * Math.PI * 2) - OBSERVATION * OBSERVATION / 4;
+
+    @Test
+    public void estimatesTheMarginalLikelihoodOfAConjugateModel() {
+        List<Double> betas =
+                MarginalLikelihoodOptions.builder()
+                        .stepCount(32)
+                        .build()
+                        .betas();
+
+        MarginalLikelihoodEstimate estimate =
+                estimateFromExactSamples(betas, 5_000, new Random(1));
+
+        assertEquals(33, estimate.steps().size());
+        assertEquals(0.0, estimate.steps().getFirst().beta(), 0.0);
+        assertEquals(1.0, estimate.steps().getLast().beta(), 0.0);
+
+        assertEquals(LOG_MARGINAL_LIKELIHOOD, estimate.logSteppingStone(), 4 * estimate.steppingStoneStandardError());
+        assertTrue(estimate.steppingStoneStandardError() < 0.02, estimate.toReportString("estimate"));
+
+        assertEquals(
+                LOG_MARGINAL_LIKELIHOOD,
+                estimate.logPathSampling(),
+                4 * estimate.pathSamplingStandardError() + estimate.pathSamplingDiscretizationError()
+        );
+    }
+
+    @Test
+    public void pathSamplingDiscretizationShrinksWithMoreSteps() {
+        MarginalLikelihoodEstimate coarse =
+                estimateFromExactSamples(
+                        MarginalLikelihoodOptions.builder().stepCount(4).build().betas(),
+                        2_000,
+                        new Random(2)
+                );
+
+        MarginalLikelihoodEstimate fine =
+                estimateFromExactSamples(
+                        MarginalLikelihoodOptions.builder().stepCount(32).build().betas(),
+                        2_000,
+                        new Random(2)
+                );
+
+        assertTrue(fine.pathSamplingDiscretizationError() < coarse.pathSamplingDiscretizationError());
+    }
+
+    @Test
+    public void rejectsInvalidSchedules() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> MarginalLikelihoodOptions.builder().betaSchedule(List.of(0.1, 1.0)).build()
+        );
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> MarginalLikelihoodOptions.builder().betaSchedule(List.of(0.0, 0.5, 0.5, 1.0)).build()
+        );
+
+        assertEquals(
+                List.of(0.0, 0.5, 1.0),
+                MarginalLikelihoodOptions.builder().betaSchedule(List.of(0.0, 0.5, 1.0)).build().betas()
+        );
+    }
+
+    @Test
+    public void rejectsChainsWithoutSamples() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> MarginalLikelihoodEstimate.from(
+                        List.of(0.0, 1.0),
+                        List.of(new double[]{-1.0}, new double[0]),
+                        new double[]{Double.NaN, Double.NaN}
+                )
+        );
+    }
+
+    // Draws independent samples from the power posteriors, which are normal for this model.
+    private static MarginalLikelihoodEstimate estimateFromExactSamples(
+            List<Double> betas,
+            int sampleCount,
+            Random random
+    ) {
+        List<double[]> logLikelihoods =
+                new ArrayList<>();
+
+        double[] effectiveSampleSizes =
+                new double[betas.size()];
+
+        for (int k = 0; k < betas.size(); k++) {
+            double beta =
+                    betas.get(k);
+
+            double mean =
+                    beta * OBSERVATION / (1 + beta);
+
+            double sd =
+                    1 / Math.sqrt(1 + beta);
+
+            double[] samples =
+                    new double[sampleCount];
+
+            for (int i = 0; i < sampleCount; i++) {
+                double x =
+                        mean + sd * random.nextGaussian();
+
+                samples[i] = -0.5 * Math.log(2 * Math.PI) - (OBSERVATION - x) * (OBSERVATION - x) / 2;
+            }
+
+            logLikelihoods.add(samples);
+            effectiveSampleSizes[k] = Double.NaN;
+        }
+
+        return MarginalLikelihoodEstimate.from(betas, logLikelihoods, effectiveSampleSizes);
+    }
+}
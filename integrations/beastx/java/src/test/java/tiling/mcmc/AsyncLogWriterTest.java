@@ -0,0 +1,110 @@
+package tiling.mcmc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncLogWriterTest {
+
+    @Test
+    public void writesEverythingThroughSmallRecycledBuffers() throws Exception {
+        Path path =
+                logPath("plain.log");
+
+        StringBuilder expected =
+                new StringBuilder();
+
+        try (PrintWriter writer = new PrintWriter(new AsyncLogWriter(path, false, 16))) {
+            for (int i = 0; i < 2000; i++) {
+                String line =
+                        i + "\t" + Math.sqrt(i) + "\n";
+
+                writer.print(line);
+                expected.append(line);
+            }
+        }
+
+        assertEquals(expected.toString(), Files.readString(path));
+    }
+
+    @Test
+    public void syncWritesPendingTextWithoutClosing() throws Exception {
+        Path path =
+                logPath("sync.log");
+
+        AsyncLogWriter writer =
+                new AsyncLogWriter(path, false, AsyncLogWriter.DEFAULT_BUFFER_SIZE);
+
+        writer.write("state\tx\n0\t1.0\n");
+        writer.flush();
+        writer.sync();
+
+        assertEquals("state\tx\n0\t1.0\n", Files.readString(path));
+
+        writer.close();
+
+        assertThrows(java.io.IOException.class, () -> writer.write("late\n"));
+    }
+
+    @Test
+    public void compressedLogCanBeTruncatedAtSyncAndResumed() throws Exception {
+        Path path =
+                logPath("resumed.log.gz");
+
+        AsyncLogWriter writer =
+                new AsyncLogWriter(path, false, 32);
+
+        writer.write("state\tx\n0\t1.0\n10\t2.0\n");
+        writer.sync();
+
+        long syncedLength =
+                Files.size(path);
+
+        writer.write("20\tlost\n");
+        writer.close();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(syncedLength);
+        }
+
+        try (AsyncLogWriter resumed = new AsyncLogWriter(path, true, 32)) {
+            resumed.write("20\t3.0\n");
+        }
+
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            assertEquals(
+                    "state\tx\n0\t1.0\n10\t2.0\n20\t3.0\n",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8)
+            );
+        }
+    }
+
+    @Test
+    public void createsFileBeforeAnythingIsWritten() throws Exception {
+        Path path =
+                logPath("empty.log");
+
+        try (AsyncLogWriter ignored = new AsyncLogWriter(path, false, 16)) {
+            assertTrue(Files.exists(path));
+        }
+    }
+
+    private static Path logPath(String fileName) throws Exception {
+        Path directory =
+                Path.of("target", "async-log-writer", String.valueOf(System.nanoTime()));
+
+        Files.createDirectories(directory);
+
+        return directory.resolve(fileName);
+    }
+}
@@ -0,0 +1,314 @@
+package tiling.model;
+
+import dr.evolution.alignment.SimpleAlignment;
+import dr.evolution.datatype.Nucleotides;
+import dr.evolution.sequence.Sequence;
+import dr.evolution.tree.NodeRef;
+import dr.evolution.tree.SimpleNode;
+import dr.evolution.tree.SimpleTree;
+import dr.evolution.util.Taxon;
+import dr.evomodel.branchratemodel.StrictClockBranchRates;
+import dr.evomodel.tree.DefaultTreeModel;
+import dr.evomodel.tree.TreeModel;
+import dr.inference.model.Parameter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the pruning-based continuous trait likelihoods against their dense
+ * covariance reference implementations on random, non-ultrametric trees.
+ */
+public class BeastXContinuousTraitLikelihoodTest {
+
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    public void ouPruningMatchesDenseCovarianceOnRandomTrees() {
+        Random random =
+                new Random(42);
+
+        for (int replicate = 0; replicate < 25; replicate++) {
+            int taxonCount =
+                    2 + random.nextInt(60);
+
+            List<Taxon> taxa =
+                    randomTraitTaxa(taxonCount, random);
+
+            TreeModel treeModel =
+                    new DefaultTreeModel("tree", randomTree(taxa, random));
+
+            BeastXOUTraitLikelihoodSpec likelihood =
+                    new BeastXOUTraitLikelihoodSpec(
+                            "traits_likelihood",
+                            traitAlignment(taxa),
+                            treeModel,
+                            new Parameter.Default(0.1 + 3.0 * random.nextDouble()),
+                            new Parameter.Default(0.05 + 2.0 * random.nextDouble()),
+                            new Parameter.Default(random.nextGaussian()),
+                            replicate % 2 == 0 ? null : new Parameter.Default(random.nextGaussian())
+                    );
+
+            double pruned =
+                    likelihood.getLogLikelihood();
+
+            double dense =
+                    likelihood.calculateDenseLogLikelihood();
+
+            assertTrue(Double.isFinite(pruned), "Expected a finite OU log-likelihood.");
+            assertEquals(dense, pruned, TOLERANCE * Math.max(1.0, Math.abs(dense)));
+        }
+    }
+
+    @Test
+    public void ouPruningRecomputesAfterParameterChange() {
+        Random random =
+                new Random(7);
+
+        List<Taxon> taxa =
+                randomTraitTaxa(20, random);
+
+        Parameter selectionStrength =
+                new Parameter.Default(0.5);
+
+        BeastXOUTraitLikelihoodSpec likelihood =
+                new BeastXOUTraitLikelihoodSpec(
+                        "traits_likelihood",
+                        traitAlignment(taxa),
+                        new DefaultTreeModel("tree", randomTree(taxa, random)),
+                        new Parameter.Default(1.0),
+                        selectionStrength,
+                        new Parameter.Default(0.0),
+                        null
+                );
+
+        double before =
+                likelihood.getLogLikelihood();
+
+        selectionStrength.setParameterValue(0, 2.0);
+
+        double after =
+                likelihood.getLogLikelihood();
+
+        assertTrue(before != after, "Expected the OU likelihood to change with the selection strength.");
+        assertEquals(likelihood.calculateDenseLogLikelihood(), after, TOLERANCE * Math.abs(after));
+    }
+
+    @Test
+    public void bmMultiTraitPruningMatchesDenseCovarianceOnRandomTrees() {
+        Random random =
+                new Random(11);
+
+        for (int replicate = 0; replicate < 25; replicate++) {
+            int taxonCount =
+                    2 + random.nextInt(60);
+
+            int traitCount =
+                    1 + random.nextInt(4);
+
+            List<Taxon> taxa =
+                    randomMultiTraitTaxa(taxonCount, traitCount, random);
+
+            BeastXBMTraitLikelihoodSpec likelihood =
+                    new BeastXBMTraitLikelihoodSpec(
+                            "traits_likelihood",
+                            traitAlignment(taxa),
+                            new DefaultTreeModel("tree", randomTree(taxa, random)),
+                            new StrictClockBranchRates(new Parameter.Default(0.5 + random.nextDouble())),
+                            new Parameter.Default(randomValues(traitCount, 0.1, 2.0, random)),
+                            replicate % 2 == 0
+                                    ? null
+                                    : new Parameter.Default(randomValues(traitCount, -1.0, 1.0, random))
+                    );
+
+            double pruned =
+                    likelihood.getLogLikelihood();
+
+            double dense =
+                    likelihood.calculateDenseLogLikelihood();
+
+            assertTrue(Double.isFinite(pruned), "Expected a finite BM log-likelihood.");
+            assertEquals(dense, pruned, TOLERANCE * Math.max(1.0, Math.abs(dense)));
+        }
+    }
+
+    @Test
+    public void bmIncrementalNodeHeightUpdateMatchesFullRecomputation() {
+        Random random =
+                new Random(5);
+
+        List<Taxon> taxa =
+                randomMultiTraitTaxa(40, 3, random);
+
+        TreeModel treeModel =
+                new DefaultTreeModel("tree", randomTree(taxa, random));
+
+        BeastXBMTraitLikelihoodSpec likelihood =
+                new BeastXBMTraitLikelihoodSpec(
+                        "traits_likelihood",
+                        traitAlignment(taxa),
+                        treeModel,
+                        new StrictClockBranchRates(new Parameter.Default(1.0)),
+                        new Parameter.Default(new double[]{0.5, 1.0, 2.0}),
+                        null
+                );
+
+        double initial =
+                likelihood.getLogLikelihood();
+
+        for (int step = 0; step < 20; step++) {
+            treeModel.storeModelState();
+            likelihood.storeModelState();
+
+            NodeRef node =
+                    randomNonRootInternalNode(treeModel, random);
+
+            double lower =
+                    Math.max(
+                            treeModel.getNodeHeight(treeModel.getChild(node, 0)),
+                            treeModel.getNodeHeight(treeModel.getChild(node, 1))
+                    );
+
+            double upper =
+                    treeModel.getNodeHeight(treeModel.getParent(node));
+
+            treeModel.setNodeHeight(node, lower + (upper - lower) * random.nextDouble());
+
+            double incremental =
+                    likelihood.getLogLikelihood();
+
+            assertEquals(
+                    likelihood.calculateDenseLogLikelihood(),
+                    incremental,
+                    TOLERANCE * Math.abs(incremental)
+            );
+
+            if (step % 2 == 0) {
+                treeModel.acceptModelState();
+                likelihood.acceptModelState();
+            } else {
+                treeModel.restoreModelState();
+                likelihood.restoreModelState();
+            }
+        }
+
+        likelihood.makeDirty();
+
+        assertTrue(Double.isFinite(initial));
+        assertEquals(
+                likelihood.calculateDenseLogLikelihood(),
+                likelihood.getLogLikelihood(),
+                TOLERANCE * Math.abs(initial)
+        );
+    }
+
+    private static NodeRef randomNonRootInternalNode(TreeModel treeModel, Random random) {
+        while (true) {
+            NodeRef node =
+                    treeModel.getInternalNode(random.nextInt(treeModel.getInternalNodeCount()));
+
+            if (!treeModel.isRoot(node)) {
+                return node;
+            }
+        }
+    }
+
+    private static double[] randomValues(int count, double min, double max, Random random) {
+        double[] values =
+                new double[count];
+
+        for (int i = 0; i < count; i++) {
+            values[i] = min + (max - min) * random.nextDouble();
+        }
+
+        return values;
+    }
+
+    static List<Taxon> randomMultiTraitTaxa(int taxonCount, int traitCount, Random random) {
+        List<Taxon> taxa =
+                new ArrayList<>();
+
+        for (int i = 0; i < taxonCount; i++) {
+            Taxon taxon =
+                    new Taxon("t" + i);
+
+            taxon.setAttribute(
+                    ContinuousTraitValidation.TRAIT_ATTRIBUTE,
+                    randomValues(traitCount, -2.0, 2.0, random)
+            );
+
+            taxa.add(taxon);
+        }
+
+        return taxa;
+    }
+
+    static List<Taxon> randomTraitTaxa(int taxonCount, Random random) {
+        List<Taxon> taxa =
+                new ArrayList<>();
+
+        for (int i = 0; i < taxonCount; i++) {
+            Taxon taxon =
+                    new Taxon("t" + i);
+
+            taxon.setAttribute(ContinuousTraitValidation.TRAIT_ATTRIBUTE, random.nextGaussian());
+            taxa.add(taxon);
+        }
+
+        return taxa;
+    }
+
+    /**
+     * Builds a random binary tree by joining random pairs of lineages, with
+     * tips sampled at different heights.
+     */
+    static SimpleTree randomTree(List<Taxon> taxa, Random random) {
+        List<SimpleNode> lineages =
+                new ArrayList<>();
+
+        for (Taxon taxon : taxa) {
+            SimpleNode tip =
+                    new SimpleNode();
+
+            tip.setTaxon(taxon);
+            tip.setHeight(0.5 * random.nextDouble());
+            lineages.add(tip);
+        }
+
+        while (lineages.size() > 1) {
+            SimpleNode left =
+                    lineages.remove(random.nextInt(lineages.size()));
+
+            SimpleNode right =
+                    lineages.remove(random.nextInt(lineages.size()));
+
+            SimpleNode parent =
+                    new SimpleNode();
+
+            parent.addChild(left);
+            parent.addChild(right);
+            parent.setHeight(Math.max(left.getHeight(), right.getHeight()) + 0.05 + random.nextDouble());
+            lineages.add(parent);
+        }
+
+        return new SimpleTree(lineages.getFirst());
+    }
+
+    static SimpleAlignment traitAlignment(List<Taxon> taxa) {
+        SimpleAlignment alignment =
+                new SimpleAlignment();
+
+        alignment.setDataType(Nucleotides.INSTANCE);
+
+        for (Taxon taxon : taxa) {
+            alignment.addSequence(new Sequence(taxon, "?"));
+        }
+
+        return alignment;
+    }
+}
@@ -0,0 +1,158 @@
+package tiling.model;
+
+import dr.evolution.alignment.PatternList;
+import dr.evolution.alignment.SimpleAlignment;
+import dr.evolution.alignment.SitePatterns;
+import dr.evolution.datatype.Nucleotides;
+import dr.evolution.sequence.Sequence;
+import dr.evolution.util.Taxon;
+import org.junit.jupiter.api.Test;
+import tiling.alignment.PackedAlignment;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SitePatternCacheTest {
+
+    @Test
+    public void sharesPatternsOfTheSameAlignment() {
+        SimpleAlignment alignment =
+                randomAlignment(4, 200, 1);
+
+        SitePatternCache cache =
+                new SitePatternCache();
+
+        PatternList patterns =
+                cache.patternsFor(alignment);
+
+        assertSame(patterns, cache.patternsFor(alignment));
+        assertNotSame(patterns, cache.patternsFor(randomAlignment(4, 200, 1)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void chunksHoldEveryPatternOnceWithItsWeight() {
+        SimpleAlignment alignment =
+                randomAlignment(5, 2_000, 4);
+
+        SitePatternCache cache =
+                new SitePatternCache();
+
+        PatternList patterns =
+                cache.patternsFor(alignment);
+
+        List<PatternList> chunks =
+                cache.patternChunksFor(alignment, 3);
+
+        assertEquals(3, chunks.size());
+        assertSame(chunks, cache.patternChunksFor(alignment, 3));
+
+        int index = 0;
+
+        for (PatternList chunk : chunks) {
+            assertEquals(alignment.getTaxonCount(), chunk.getTaxonCount());
+
+            for (int i = 0; i < chunk.getPatternCount(); i++, index++) {
+                assertArrayEquals(patterns.getPattern(index), chunk.getPattern(i));
+                assertEquals(patterns.getPatternWeight(index), chunk.getPatternWeight(i));
+            }
+        }
+
+        assertEquals(patterns.getPatternCount(), index);
+    }
+
+    @Test
+    public void blockCompressionMatchesSingleSitePatterns() {
+        SimpleAlignment alignment =
+                randomAlignment(5, 5_000, 2);
+
+        SitePatterns expected =
+                new SitePatterns(alignment, null, -1, -1, 1, true, true);
+
+        PatternList blocked =
+                new SitePatternCache(64).patternsFor(alignment);
+
+        assertEquals(expected.getPatternCount(), blocked.getPatternCount());
+
+        for (int i = 0; i < expected.getPatternCount(); i++) {
+            assertArrayEquals(expected.getPattern(i), blocked.getPattern(i));
+            assertEquals(expected.getPatternWeight(i), blocked.getPatternWeight(i));
+        }
+    }
+
+    @Test
+    public void packedAlignmentsStreamTheSamePatterns() {
+        SimpleAlignment alignment =
+                randomAlignment(6, 3_000, 3);
+
+        // every tenth site is all gaps and every fifteenth all unknown, which strip removes
+        for (int taxon = 0; taxon < alignment.getSequenceCount(); taxon++) {
+            StringBuilder sequence =
+                    new StringBuilder(alignment.getAlignedSequenceString(taxon));
+
+            for (int site = 0; site < sequence.length(); site += 5) {
+                if (site % 10 == 0) {
+                    sequence.setCharAt(site, '-');
+                } else if (site % 15 == 0) {
+                    sequence.setCharAt(site, 'N');
+                } else if (site % 7 == taxon) {
+                    sequence.setCharAt(site, taxon % 2 == 0 ? '-' : 'N');
+                }
+            }
+
+            alignment.getSequence(taxon).setSequenceString(sequence.toString());
+        }
+
+        SitePatterns expected =
+                new SitePatterns(alignment, null, -1, -1, 1, true, true);
+
+        PackedAlignment packed =
+                PackedAlignment.copyOf(alignment);
+
+        for (SitePatternCache cache : List.of(new SitePatternCache(), new SitePatternCache(64))) {
+            PatternList streamed =
+                    cache.patternsFor(packed);
+
+            assertEquals(expected.getPatternCount(), streamed.getPatternCount());
+
+            for (int i = 0; i < expected.getPatternCount(); i++) {
+                assertArrayEquals(expected.getPattern(i), streamed.getPattern(i));
+                assertEquals(expected.getPatternWeight(i), streamed.getPatternWeight(i));
+            }
+        }
+    }
+
+    private static SimpleAlignment randomAlignment(int taxonCount, int siteCount, long seed) {
+        Random random =
+                new Random(seed);
+
+        SimpleAlignment alignment =
+                new SimpleAlignment();
+
+        alignment.setDataType(Nucleotides.INSTANCE);
+
+        for (int taxon = 0; taxon < taxonCount; taxon++) {
+            StringBuilder sequence =
+                    new StringBuilder();
+
+            for (int site = 0; site < siteCount; site++) {
+                // mostly conserved sites, as in real alignments, so patterns repeat across blocks
+                int state =
+                        random.nextDouble() < 0.8 ? site % 4 : random.nextInt(4);
+
+                sequence.append("ACGT".charAt(state));
+            }
+
+            alignment.addSequence(new Sequence(new Taxon("taxon" + taxon), sequence.toString()));
+        }
+
+        alignment.updateSiteCount();
+
+        return alignment;
+    }
+}
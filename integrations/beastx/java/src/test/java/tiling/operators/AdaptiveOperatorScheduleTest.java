@@ -0,0 +1,93 @@
+package tiling.operators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveOperatorScheduleTest {
+
+    @Test
+    public void shiftsMovesFromWellMixingTargetsToSlowlyMixingOnes() {
+        double[] weights =
+                AdaptiveOperatorSchedule.adaptedWeights(
+                        new double[]{3.0, 3.0},
+                        new double[]{1.0, 0.1},
+                        new double[]{1.0, 1.0},
+                        new int[]{0, 1}
+                );
+
+        assertEquals(6.0, Arrays.stream(weights).sum(), 1e-9);
+        assertTrue(weights[1] > weights[0], "Expected the slowly mixing target to gain moves.");
+    }
+
+    @Test
+    public void favoursOperatorsJumpingFurtherPerUnitCostOnTheSameTargets() {
+        double[] weights =
+                AdaptiveOperatorSchedule.adaptedWeights(
+                        new double[]{3.0, 3.0, 3.0},
+                        new double[]{0.5, 0.5, 0.5},
+                        new double[]{1.0, 4.0, 1.0},
+                        new int[]{0, 0, 1}
+                );
+
+        assertEquals(9.0, Arrays.stream(weights).sum(), 1e-9);
+        assertTrue(weights[0] > weights[1], "Expected the cheaper operator to gain weight.");
+    }
+
+    @Test
+    public void boundsAdaptedWeightsRelativeToSelectedWeights() {
+        double[] weights =
+                AdaptiveOperatorSchedule.adaptedWeights(
+                        new double[]{1.0, 100.0},
+                        new double[]{1.0e4, 1.0e-8},
+                        new double[]{1.0, 1.0},
+                        new int[]{0, 1}
+                );
+
+        assertEquals(101.0, Arrays.stream(weights).sum(), 1e-9);
+        assertEquals(
+                100.0 * AdaptiveOperatorSchedule.MAX_WEIGHT_FACTOR * AdaptiveOperatorSchedule.MAX_WEIGHT_FACTOR,
+                weights[1] / weights[0],
+                1e-6
+        );
+    }
+
+    @Test
+    public void keepsSelectedWeightsWithoutMeasuredJumps() {
+        double[] baseWeights =
+                {2.0, 5.0};
+
+        assertArrayEquals(
+                baseWeights,
+                AdaptiveOperatorSchedule.adaptedWeights(
+                        baseWeights,
+                        new double[]{Double.NaN, Double.NaN},
+                        new double[]{1.0, 1.0},
+                        new int[]{0, 1}
+                ),
+                1e-12
+        );
+
+        assertArrayEquals(
+                baseWeights,
+                AdaptiveOperatorSchedule.adaptedWeights(
+                        baseWeights,
+                        new double[]{0.0, 0.0},
+                        new double[]{1.0, 1.0},
+                        new int[]{0, 1}
+                ),
+                1e-12
+        );
+    }
+
+    @Test
+    public void rejectsNegativeAdaptationLengths() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveOperatorSchedule(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveOperatorSchedule(0, -1));
+    }
+}
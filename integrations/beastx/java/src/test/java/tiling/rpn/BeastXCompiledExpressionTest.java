@@ -0,0 +1,210 @@
+package tiling.rpn;
+
+import dr.inference.model.Parameter;
+import dr.inference.model.RPNcalculatorStatistic;
+import org.junit.jupiter.api.Test;
+import org.phylospec.lexer.TokenType;
+import tiling.BeastXState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class BeastXCompiledExpressionTest {
+
+    @Test
+    public void compiledExpressionMatchesRPNCalculator() {
+        BeastXState beastState =
+                new BeastXState("compiledExpression");
+
+        Parameter x =
+                new Parameter.Default("x", 1.5);
+
+        Parameter y =
+                new Parameter.Default("y", 0.7);
+
+        BeastXRPNCalculationResult xTerm =
+                BeastXRPNCalculationResult.from(x, beastState);
+
+        BeastXRPNCalculationResult yTerm =
+                BeastXRPNCalculationResult.from(y, beastState);
+
+        // x + (exp(y) - x * y) / y, followed by log(-x * x + 10.0)
+        BeastXRPNCalculationResult first =
+                BeastXRPNCalculationResult.combine(
+                        TokenType.PLUS,
+                        xTerm,
+                        BeastXRPNCalculationResult.combine(
+                                TokenType.SLASH,
+                                BeastXRPNCalculationResult.combine(
+                                        TokenType.MINUS,
+                                        BeastXRPNCalculationResult.combineUnary("exp", yTerm),
+                                        BeastXRPNCalculationResult.combine(TokenType.STAR, xTerm, yTerm)
+                                ),
+                                yTerm
+                        )
+                );
+
+        BeastXRPNCalculationResult second =
+                BeastXRPNCalculationResult.combineUnary(
+                        "log",
+                        BeastXRPNCalculationResult.combine(
+                                TokenType.PLUS,
+                                BeastXRPNCalculationResult.combine(
+                                        TokenType.STAR,
+                                        BeastXRPNCalculationResult.combineUnary("chs", xTerm),
+                                        xTerm
+                                ),
+                                BeastXRPNCalculationResult.from(new Parameter.Default(10.0), beastState)
+                        )
+                );
+
+        Random random =
+                new Random(3);
+
+        for (BeastXRPNCalculationResult result : new BeastXRPNCalculationResult[]{first, second}) {
+            RPNcalculatorStatistic reference =
+                    new RPNcalculatorStatistic(
+                            "reference",
+                            new String[]{result.calculation()},
+                            new String[]{"reference"},
+                            result.variables()
+                    );
+
+            BeastXCompiledExpressionStatistic compiled =
+                    new BeastXCompiledExpressionStatistic("compiled", result.expression(), result.calculation());
+
+            for (int step = 0; step < 50; step++) {
+                // leave one of the inputs unchanged on some steps to exercise the cached sub-expressions
+                if (step % 3 != 0) {
+                    x.setParameterValue(0, 3.0 * random.nextDouble() - 1.5);
+                }
+
+                if (step % 2 != 0) {
+                    y.setParameterValue(0, 0.1 + random.nextDouble());
+                }
+
+                assertEquals(
+                        reference.getStatisticValue(0),
+                        compiled.getStatisticValue(0),
+                        1e-12 * Math.max(1.0, Math.abs(reference.getStatisticValue(0)))
+                );
+            }
+        }
+    }
+
+    @Test
+    public void compiledStatisticsAreInlinedIntoLaterExpressions() {
+        BeastXCompiledExpression expression =
+                BeastXCompiledExpression.unary("exp", BeastXCompiledExpression.constant(1.0));
+
+        BeastXCompiledExpressionStatistic statistic =
+                new BeastXCompiledExpressionStatistic("w", expression, "1.0 exp");
+
+        assertSame(expression, BeastXCompiledExpression.of(statistic));
+        assertEquals(Math.E, statistic.getStatisticValue(0), 1e-15);
+    }
+
+    @Test
+    public void skipsSubExpressionsWhoseInputsDidNotChange() {
+        Parameter x =
+                new Parameter.Default("x", 1.0);
+
+        Parameter y =
+                new Parameter.Default("y", 2.0);
+
+        AtomicInteger xEvaluations =
+                new AtomicInteger();
+
+        AtomicInteger yEvaluations =
+                new AtomicInteger();
+
+        AtomicInteger sumEvaluations =
+                new AtomicInteger();
+
+        // exp(x) + log(y)
+        BeastXCompiledExpression expression =
+                BeastXCompiledExpression.binary(
+                        (a, b) -> {
+                            sumEvaluations.incrementAndGet();
+                            return a + b;
+                        },
+                        BeastXCompiledExpression.unary(
+                                a -> {
+                                    xEvaluations.incrementAndGet();
+                                    return Math.exp(a);
+                                },
+                                BeastXCompiledExpression.of(x)
+                        ),
+                        BeastXCompiledExpression.unary(
+                                a -> {
+                                    yEvaluations.incrementAndGet();
+                                    return Math.log(a);
+                                },
+                                BeastXCompiledExpression.of(y)
+                        )
+                );
+
+        assertEquals(Math.exp(1.0) + Math.log(2.0), expression.evaluate(), 1e-12);
+
+        x.setParameterValue(0, 0.5);
+
+        assertEquals(Math.exp(0.5) + Math.log(2.0), expression.evaluate(), 1e-12);
+        assertEquals(Math.exp(0.5) + Math.log(2.0), expression.evaluate(), 1e-12);
+
+        assertEquals(2, xEvaluations.get());
+        assertEquals(1, yEvaluations.get());
+        assertEquals(2, sumEvaluations.get());
+    }
+
+    @Test
+    public void sharedNodesAgreeAcrossThreads() throws Exception {
+        Parameter x =
+                new Parameter.Default("x", 1.0);
+
+        BeastXCompiledExpression shared =
+                BeastXCompiledExpression.unary("exp", BeastXCompiledExpression.of(x));
+
+        // two expressions sharing a node, as two likelihoods reading related statistics do
+        List<BeastXCompiledExpression> expressions =
+                List.of(
+                        BeastXCompiledExpression.binary(TokenType.STAR, shared, BeastXCompiledExpression.constant(2.0)),
+                        BeastXCompiledExpression.binary(TokenType.PLUS, shared, BeastXCompiledExpression.constant(1.0))
+                );
+
+        ExecutorService executor =
+                Executors.newFixedThreadPool(4);
+
+        try {
+            for (int step = 0; step < 200; step++) {
+                double value =
+                        0.01 * step;
+
+                x.setParameterValue(0, value);
+
+                List<Future<Double>> results =
+                        new ArrayList<>();
+
+                for (int i = 0; i < 8; i++) {
+                    results.add(executor.submit(expressions.get(i % 2)::evaluate));
+                }
+
+                for (int i = 0; i < results.size(); i++) {
+                    double expected =
+                            i % 2 == 0 ? 2.0 * Math.exp(value) : Math.exp(value) + 1.0;
+
+                    assertEquals(expected, results.get(i).get(), 1e-12);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package tiling.runner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BatchTableTest {
+
+    @Test
+    public void readsNamedInstancesWithOverrides() {
+        List<BatchInstance> instances =
+                BatchTable.parse(
+                        List.of(
+                                "name\tdata\tbirthRate",
+                                "# comment lines are skipped",
+                                "h1n1\tdata/h1n1.nex\t1.5",
+                                "",
+                                "h3n2\tdata/h3n2.nex\t"
+                        ),
+                        "\t"
+                );
+
+        assertEquals(2, instances.size());
+
+        assertEquals("h1n1", instances.get(0).name());
+        assertEquals(Map.of("data", "data/h1n1.nex", "birthRate", "1.5"), instances.get(0).overrides());
+
+        // empty cells keep the model's value
+        assertEquals("h3n2", instances.get(1).name());
+        assertEquals(Map.of("data", "data/h3n2.nex"), instances.get(1).overrides());
+    }
+
+    @Test
+    public void numbersUnnamedInstances() {
+        List<BatchInstance> instances =
+                BatchTable.parse(List.of("mu,sigma", "0.0,1.0", "1.0,2.0"), ",");
+
+        assertEquals("instance1", instances.get(0).name());
+        assertEquals("instance2", instances.get(1).name());
+        assertEquals(Map.of("mu", "1.0", "sigma", "2.0"), instances.get(1).overrides());
+    }
+
+    @Test
+    public void rejectsMalformedTables() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BatchTable.parse(List.of(), "\t")
+        );
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BatchTable.parse(List.of("mu\tmu", "1\t2"), "\t")
+        );
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BatchTable.parse(List.of("name\tmu", "a\t1", "a\t2"), "\t")
+        );
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BatchTable.parse(List.of("name\tmu", "a\t1\t2"), "\t")
+        );
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BatchTable.parse(List.of("name\tmu", "../escape\t1"), "\t")
+        );
+    }
+}
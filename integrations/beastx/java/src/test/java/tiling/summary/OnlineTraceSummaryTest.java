@@ -0,0 +1,86 @@
+package tiling.summary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OnlineTraceSummaryTest {
+
+    @Test
+    public void summarizesIndependentNormalSamples() {
+        OnlineTraceSummary summary =
+                new OnlineTraceSummary(List.of("x"), 0);
+
+        Random random =
+                new Random(1);
+
+        for (int state = 0; state < 100_000; state++) {
+            summary.add(state, new double[]{2.0 + 0.5 * random.nextGaussian()});
+        }
+
+        ParameterSummary x =
+                summary.summary("x");
+
+        assertEquals(100_000, x.sampleCount());
+        assertEquals(2.0, x.mean(), 0.01);
+        assertEquals(0.5, x.standardDeviation(), 0.01);
+        assertEquals(2.0, x.median(), 0.02);
+        assertEquals(2.0 - 1.96 * 0.5, x.hpdLower(), 0.03);
+        assertEquals(2.0 + 1.96 * 0.5, x.hpdUpper(), 0.03);
+        assertTrue(x.effectiveSampleSize() > 60_000, "ESS " + x.effectiveSampleSize());
+    }
+
+    @Test
+    public void effectiveSampleSizeReflectsAutocorrelation() {
+        OnlineTraceSummary summary =
+                new OnlineTraceSummary(List.of("ar"), 0);
+
+        Random random =
+                new Random(2);
+
+        double phi = 0.9;
+        double value = 0;
+
+        for (int state = 0; state < 200_000; state++) {
+            value = phi * value + random.nextGaussian();
+            summary.add(state, new double[]{value});
+        }
+
+        double expected =
+                200_000 * (1 - phi) / (1 + phi);
+
+        double ess =
+                summary.summary("ar").effectiveSampleSize();
+
+        assertTrue(ess > 0.6 * expected && ess < 1.5 * expected, "ESS " + ess + " vs " + expected);
+    }
+
+    @Test
+    public void leavesOutBurnInAndConstantColumns() {
+        OnlineTraceSummary summary =
+                new OnlineTraceSummary(List.of("x", "fixed"), 1_000);
+
+        Random random =
+                new Random(3);
+
+        for (int state = 0; state < 1_000; state++) {
+            summary.add(state, new double[]{100.0, 1.0});
+        }
+
+        assertTrue(Double.isNaN(summary.minimumEffectiveSampleSize()));
+
+        for (int state = 1_000; state < 11_000; state++) {
+            summary.add(state, new double[]{random.nextGaussian(), 1.0});
+        }
+
+        assertEquals(10_000, summary.summary("x").sampleCount());
+        assertEquals(0.0, summary.summary("x").mean(), 0.05);
+        assertEquals(10_999, summary.lastState());
+        assertEquals(summary.summary("x").effectiveSampleSize(), summary.minimumEffectiveSampleSize());
+        assertTrue(summary.toReportString("summary").contains("fixed"));
+    }
+}
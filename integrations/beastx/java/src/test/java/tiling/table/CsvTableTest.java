@@ -0,0 +1,141 @@
+package tiling.table;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvTableTest {
+
+    @Test
+    public void readsQuotedCellsAndTypesNumericColumns() {
+        CsvTable table =
+                parse(
+                        "\uFEFFtaxon, age ,rate,note\r\n"
+                                + "\"A,1\",12,0.5,\"said \"\"hi\"\"\nthen left\"\r\n"
+                                + "\n"
+                                + "B , -3 ,1.0E-4,  plain  \r\n"
+                                + "C,007,2.50,\n",
+                        ","
+                );
+
+        assertEquals(List.of("taxon", "age", "rate", "note"), table.headers());
+        assertEquals(3, table.rowCount());
+
+        assertArrayEquals(new String[]{"A,1", "B", "C"}, ((CsvTable.StringColumn) table.column("taxon")).values());
+        assertInstanceOf(CsvTable.StringColumn.class, table.column("age"));
+        assertInstanceOf(CsvTable.StringColumn.class, table.column("rate"));
+
+        List<Map<String, String>> rows =
+                table.rows();
+
+        assertEquals(Map.of("taxon", "A,1", "age", "12", "rate", "0.5", "note", "said \"hi\"\nthen left"), rows.get(0));
+        assertEquals(List.of("taxon", "age", "rate", "note"), List.copyOf(rows.get(1).keySet()));
+        assertEquals("plain", rows.get(1).get("note"));
+        assertEquals("007", rows.get(2).get("age"));
+        assertEquals("2.50", rows.get(2).get("rate"));
+        assertEquals("", rows.get(2).get("note"));
+    }
+
+    @Test
+    public void storesNumericColumnsAsPrimitives() throws Exception {
+        CsvTable table =
+                CsvTable.parse(
+                        Files.readAllBytes(Path.of("src/test/java/resources/metadata.tsv")),
+                        "\t",
+                        null
+                );
+
+        assertEquals(List.of("taxon", "trait", "location"), table.headers());
+
+        CsvTable mixed =
+                parse("id\tcount\tvalue\n1\t-2\t0.25\n2\t30\t-1.5\n", "\t");
+
+        assertArrayEquals(new long[]{1, 2}, ((CsvTable.LongColumn) mixed.column("id")).values());
+        assertArrayEquals(new long[]{-2, 30}, ((CsvTable.LongColumn) mixed.column("count")).values());
+        assertArrayEquals(new double[]{0.25, -1.5}, ((CsvTable.DoubleColumn) mixed.column("value")).values());
+        assertEquals("-1.5", mixed.rows().get(1).get("value"));
+    }
+
+    @Test
+    public void givesTypedColumnsToConsumersOfTheRows() {
+        List<Map<String, String>> rows =
+                parse("taxon,date,rate\nA,2001,0.5\nB,1999,1.25\n", ",").rows();
+
+        CsvTable table =
+                assertInstanceOf(CsvTable.Rows.class, rows).table();
+
+        assertArrayEquals(new double[]{2001, 1999}, table.doubles("date"));
+        assertArrayEquals(new double[]{0.5, 1.25}, table.doubles("rate"));
+        assertArrayEquals(new String[]{"A", "B"}, table.strings("taxon"));
+        assertArrayEquals(new String[]{"2001", "1999"}, table.strings("date"));
+
+        assertSame(rows.get(1).get("rate"), rows.get(1).get("rate"));
+        assertSame(rows.get(0).get("date"), table.rows().get(0).get("date"));
+
+        assertThrows(IllegalArgumentException.class, () -> table.doubles("taxon"));
+        assertThrows(IllegalArgumentException.class, () -> table.strings("age"));
+    }
+
+    @Test
+    public void parsesLargeTablesInChunks() {
+        int rowCount =
+                3 * CsvTable.MINIMUM_CHUNK_RECORDS + 17;
+
+        StringBuilder content =
+                new StringBuilder("taxon;;index;;group\n");
+
+        for (int i = 0; i < rowCount; i++) {
+            content.append("taxon_").append(i).append(";;").append(i).append(";;")
+                    .append(i == rowCount - 1 ? "\"last\"" : "g" + (i % 3)).append('\n');
+        }
+
+        CsvTable table =
+                parse(content.toString(), ";;");
+
+        long[] indices =
+                ((CsvTable.LongColumn) table.column("index")).values();
+
+        String[] groups =
+                ((CsvTable.StringColumn) table.column("group")).values();
+
+        assertEquals(rowCount, table.rowCount());
+
+        for (int i = 0; i < rowCount; i++) {
+            assertEquals(i, indices[i]);
+        }
+
+        assertEquals("taxon_" + (rowCount - 1), table.rows().get(rowCount - 1).get("taxon"));
+        assertEquals("g1", groups[1]);
+        assertEquals("last", groups[rowCount - 1]);
+    }
+
+    @Test
+    public void reportsMalformedRecords() {
+        CsvTable.ColumnCountException exception =
+                assertThrows(
+                        CsvTable.ColumnCountException.class,
+                        () -> parse("a,b\n1,\"x\ny\"\n\n1,2,3\n", ",")
+                );
+
+        assertEquals(5, exception.line());
+        assertEquals(2, exception.expectedColumns());
+        assertEquals(3, exception.foundColumns());
+
+        assertThrows(IllegalArgumentException.class, () -> parse("a,b\n1,\"open\n", ","));
+        assertThrows(IllegalArgumentException.class, () -> parse("a,b\n1,\"x\"y\n", ","));
+    }
+
+    private static CsvTable parse(String content, String delimiter) {
+        return CsvTable.parse(content.getBytes(StandardCharsets.UTF_8), delimiter, null);
+    }
+}
@@ -0,0 +1,150 @@
+package tiling.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryTraceTest {
+
+    @Test
+    public void readsBlocksAndSingleColumnsBack() throws Exception {
+        Path path =
+                tracePath("roundTrip.bxt");
+
+        try (BinaryTraceWriter writer = new BinaryTraceWriter(path, List.of("posterior", "rate"), false, 4)) {
+            for (int i = 0; i < 10; i++) {
+                writer.write(10L * i, new double[]{-i, Math.sqrt(i)});
+            }
+        }
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(path)) {
+            assertEquals(List.of("posterior", "rate"), reader.columnNames());
+
+            TraceBlock first =
+                    reader.nextBlock();
+
+            assertArrayEquals(new long[]{0, 10, 20, 30}, first.states());
+            assertArrayEquals(new double[]{0, -1, -2, -3}, first.columns()[0]);
+
+            assertEquals(4, reader.nextBlock().rowCount());
+            assertEquals(2, reader.nextBlock().rowCount());
+            assertNull(reader.nextBlock());
+        }
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(path)) {
+            double[] rates =
+                    reader.readColumn("rate");
+
+            assertEquals(10, rates.length);
+            assertEquals(Math.sqrt(9), rates[9]);
+
+            assertThrows(IllegalArgumentException.class, () -> reader.readColumn("missing"));
+        }
+    }
+
+    @Test
+    public void continuesTraceTruncatedAtSync() throws Exception {
+        Path path =
+                tracePath("resume.bxt");
+
+        BinaryTraceWriter writer =
+                new BinaryTraceWriter(path, List.of("x"), false, 8);
+
+        writer.write(0, new double[]{1.0});
+        writer.write(1, new double[]{2.0});
+        writer.sync();
+
+        long checkpointedLength =
+                Files.size(path);
+
+        writer.write(2, new double[]{99.0});
+        writer.close();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(checkpointedLength);
+        }
+
+        try (BinaryTraceWriter resumed = new BinaryTraceWriter(path, List.of("x"), true, 8)) {
+            resumed.write(2, new double[]{3.0});
+        }
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(path)) {
+            assertArrayEquals(new double[]{1.0, 2.0, 3.0}, reader.readColumn("x"));
+        }
+
+        assertThrows(IOException.class, () -> new BinaryTraceWriter(path, List.of("y"), true, 8));
+    }
+
+    @Test
+    public void ignoresBlockCutShortAtEndOfFile() throws Exception {
+        Path path =
+                tracePath("cut.bxt");
+
+        try (BinaryTraceWriter writer = new BinaryTraceWriter(path, List.of("a", "b"), false, 2)) {
+            for (int i = 0; i < 4; i++) {
+                writer.write(i, new double[]{i, 2 * i});
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 5);
+        }
+
+        try (BinaryTraceReader reader = BinaryTraceReader.open(path)) {
+            assertArrayEquals(new double[]{0, 2}, reader.readColumn("b"));
+        }
+    }
+
+    @Test
+    public void convertsToTabDelimitedLog() throws Exception {
+        Path path =
+                tracePath("convert.bxt");
+
+        try (BinaryTraceWriter writer = new BinaryTraceWriter(path, List.of("posterior", "mu"), false, 2)) {
+            writer.write(0, new double[]{-12.5, 0.25});
+            writer.write(100, new double[]{-11.0, 0.5});
+            writer.write(200, new double[]{-10.75, 1.0});
+        }
+
+        Path log =
+                path.resolveSibling("convert.log");
+
+        BinaryTraceConverter.toTabDelimited(path, log);
+
+        assertEquals(
+                List.of(
+                        "state\tposterior\tmu",
+                        "0\t-12.5\t0.25",
+                        "100\t-11.0\t0.5",
+                        "200\t-10.75\t1.0"
+                ),
+                Files.readAllLines(log)
+        );
+    }
+
+    @Test
+    public void namesTraceAfterLogFile() {
+        assertEquals(Path.of("out", "run.bxt"), BinaryTraceWriter.pathFor(Path.of("out", "run.log")));
+        assertEquals(Path.of("run.bxt"), BinaryTraceWriter.pathFor(Path.of("run.log.gz")));
+        assertEquals(Path.of("run.txt.bxt"), BinaryTraceWriter.pathFor(Path.of("run.txt")));
+    }
+
+    private static Path tracePath(String fileName) throws IOException {
+        Path directory =
+                Path.of("target", "binary-trace", String.valueOf(System.nanoTime()));
+
+        Files.createDirectories(directory);
+
+        return directory.resolve(fileName);
+    }
+}